@@ -264,6 +264,36 @@ public class CatalogDiffEngine {
         return !groupModifications.isEmpty();
     }
 
+    /**
+     * @return names of the tables, views and streams that were added, dropped or modified,
+     * including changes to their columns, indexes, constraints and other children.
+     */
+    public SortedSet<String> getChangedTableNames() {
+        return getChangedNames(DiffClass.TABLE);
+    }
+
+    /**
+     * @return names of the user-defined functions that were added, dropped or modified.
+     */
+    public SortedSet<String> getChangedFunctionNames() {
+        return getChangedNames(DiffClass.FUNC);
+    }
+
+    private SortedSet<String> getChangedNames(DiffClass diffClass) {
+        CatalogChangeGroup ccg = m_changes.get(diffClass);
+        SortedSet<String> names = new TreeSet<>();
+        for (CatalogType type : ccg.groupAdditions) {
+            names.add(type.getTypeName());
+        }
+        for (CatalogType type : ccg.groupDeletions) {
+            names.add(type.getTypeName());
+        }
+        for (CatalogType type : ccg.groupChanges.keySet()) {
+            names.add(type.getTypeName());
+        }
+        return names;
+    }
+
     public String[][] tablesThatMustBeEmpty() {
         ArrayList<String> tableSetNames = new ArrayList<>();
         ArrayList<String> errorMessages = new ArrayList<>();
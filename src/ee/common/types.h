@@ -188,6 +188,7 @@ enum class PlanNodeType {
     Nestloop         = 20,
     NestloopIndex    = 21,
     MergeJoin        = 22,
+    HashJoin         = 23,
 
     //
     // Operator Nodes
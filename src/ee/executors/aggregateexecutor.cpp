@@ -759,13 +759,14 @@ void AggregateHashExecutor::p_execute_tuple(const TableTuple& nextTuple) {
     AggregateRow* aggregateRow;
     TableTuple& nextGroupByKeyTuple = m_nextGroupByKeyStorage;
     // Search for the matching group.
-    HashAggregateMapType::const_iterator keyIter = m_hash.find(nextGroupByKeyTuple);
+    size_t const hash = m_hash.hashOf(nextGroupByKeyTuple);
+    AggregateRow** const found = m_hash.find(nextGroupByKeyTuple, hash);
 
     // Group not found. Make a new entry in the hash for this new group.
-    if (keyIter == m_hash.end()) {
+    if (found == nullptr) {
         VOLT_TRACE("hash aggregate: new group..");
         aggregateRow = new (m_memoryPool, m_aggTypes.size()) AggregateRow();
-        m_hash.insert(HashAggregateMapType::value_type(nextGroupByKeyTuple, aggregateRow));
+        m_hash.insert(nextGroupByKeyTuple, hash, aggregateRow);
 
         initAggInstances(aggregateRow);
 
@@ -783,8 +784,7 @@ void AggregateHashExecutor::p_execute_tuple(const TableTuple& nextTuple) {
             return;
         }
     } else {
-        // otherwise, the agg row is the second item of the pair...
-        aggregateRow = keyIter->second;
+        aggregateRow = *found;
     }
     // update the aggregation calculation.
     advanceAggs(aggregateRow, nextTuple);
@@ -795,7 +795,7 @@ void AggregateHashExecutor::p_execute_finish() {
 
     // If there is no aggregation, results are already inserted already
     if (! m_aggTypes.empty()) {
-        for (auto iter : m_hash) {
+        for (auto const& iter : m_hash) {
             AggregateRow* aggregateRow = iter.second;
             if (insertOutputTuple(aggregateRow)) {
                 m_pmp->countdownProgress();
@@ -1007,13 +1007,14 @@ void AggregatePartialExecutor::p_execute_tuple(const TableTuple& nextTuple) {
     initPartialHashGroupByKeyTuple(nextTuple);
     AggregateRow* aggregateRow;
     TableTuple& nextPartialGroupByKeyTuple = m_nextPartialGroupByKeyStorage;
-    auto const keyIter = m_hash.find(nextPartialGroupByKeyTuple);
+    size_t const hash = m_hash.hashOf(nextPartialGroupByKeyTuple);
+    AggregateRow** const found = m_hash.find(nextPartialGroupByKeyTuple, hash);
 
     // Group not found. Make a new entry in the hash for this new group.
-    if (keyIter == m_hash.end()) {
+    if (found == nullptr) {
         VOLT_TRACE("partial hash aggregate: new sub group..");
         aggregateRow = new (m_memoryPool, m_aggTypes.size()) AggregateRow();
-        m_hash.insert(HashAggregateMapType::value_type(nextPartialGroupByKeyTuple, aggregateRow));
+        m_hash.insert(nextPartialGroupByKeyTuple, hash, aggregateRow);
         initAggInstances(aggregateRow);
 
         char* storage = reinterpret_cast<char*>(
@@ -1024,8 +1025,7 @@ void AggregatePartialExecutor::p_execute_tuple(const TableTuple& nextTuple) {
         // so force a new tuple allocation to hold the next candidate key.
         nextPartialGroupByKeyTuple.move(nullptr);
     } else {
-        // otherwise, the agg row is the second item of the pair...
-        aggregateRow = keyIter->second;
+        aggregateRow = *found;
     }
 
     // update the aggregation calculation.
@@ -54,6 +54,7 @@
 #include "expressions/abstractexpression.h"
 #include "execution/ProgressMonitorProxy.h"
 #include "executors/executorutil.h"
+#include "structures/OpenHashTable.h"
 
 namespace voltdb {
 
@@ -235,7 +236,7 @@ protected:
 };
 
 using HashAggregateMapType =
-std::unordered_map<TableTuple, AggregateRow*, TableTupleHasher, TableTupleEqualityChecker>;
+OpenHashTable<TableTuple, AggregateRow*, TableTupleHasher, TableTupleEqualityChecker>;
 
 
 /**
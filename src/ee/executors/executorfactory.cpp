@@ -62,6 +62,7 @@
 #include "executors/materializedscanexecutor.h"
 #include "executors/mergereceiveexecutor.h"
 #include "executors/mergejoinexecutor.h"
+#include "executors/hashjoinexecutor.h"
 #include "executors/migrateexecutor.h"
 #include "executors/nestloopexecutor.h"
 #include "executors/nestloopindexexecutor.h"
@@ -113,6 +114,8 @@ AbstractExecutor* getNewExecutor(
          return new NestLoopIndexExecutor(engine, abstract_node);
       case PlanNodeType::MergeJoin:
          return new MergeJoinExecutor(engine, abstract_node);
+      case PlanNodeType::HashJoin:
+         return new HashJoinExecutor(engine, abstract_node);
       case PlanNodeType::OrderBy:
          if (isLargeQuery) {
             return new LargeOrderByExecutor(engine, abstract_node);
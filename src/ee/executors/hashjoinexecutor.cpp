@@ -0,0 +1,423 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2022 Volt Active Data Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+#include "hashjoinexecutor.h"
+
+#include "executors/aggregateexecutor.h"
+#include "executors/executorutil.h"
+#include "execution/ExecutorVector.h"
+#include "execution/ProgressMonitorProxy.h"
+#include "expressions/abstractexpression.h"
+#include "plannodes/hashjoinnode.h"
+#include "plannodes/limitnode.h"
+#include "storage/tableiterator.h"
+#include "storage/tabletuplefilter.h"
+#include "storage/TempTableLimits.h"
+
+using namespace std;
+using namespace voltdb;
+
+const static int8_t UNMATCHED_TUPLE(TableTupleFilter::ACTIVE_TUPLE);
+const static int8_t MATCHED_TUPLE(TableTupleFilter::ACTIVE_TUPLE + 1);
+
+HashJoinExecutor::~HashJoinExecutor() {
+    clearHashTable();
+    TupleSchema::freeTupleSchema(m_keySchema);
+}
+
+bool HashJoinExecutor::p_init(AbstractPlanNode* abstractNode, const ExecutorVector& executorVector) {
+    VOLT_TRACE("init HashJoin Executor");
+
+    HashJoinPlanNode* node = dynamic_cast<HashJoinPlanNode*>(m_abstractNode);
+    vassert(node);
+
+    // Init parent first
+    if (!AbstractJoinExecutor::p_init(abstractNode, executorVector)) {
+        return false;
+    }
+
+    // NULL tuples for left and full joins
+    p_init_null_tuples(node->getInputTable(), node->getInputTable(1));
+
+    m_outerHashExpressions = &node->getOuterHashExpressions();
+    m_innerHashExpressions = &node->getInnerHashExpressions();
+    vassert(!m_innerHashExpressions->empty());
+    vassert(m_outerHashExpressions->size() == m_innerHashExpressions->size());
+
+    // The planner only hashes on expressions of the same type. Variable length keys are not inlined
+    // and are given the maximum length so that no outer or inner value is too wide for the key.
+    std::vector<ValueType> keyColumnTypes;
+    std::vector<int32_t> keyColumnSizes;
+    std::vector<bool> keyColumnAllowNull;
+    std::vector<bool> keyColumnInBytes;
+    for (AbstractExpression* expr : *m_innerHashExpressions) {
+        ValueType type = expr->getValueType();
+        keyColumnTypes.push_back(type);
+        if (isVariableLengthType(type)) {
+            keyColumnSizes.push_back(TupleSchema::COLUMN_MAX_VALUE_LENGTH);
+            keyColumnInBytes.push_back(true);
+        } else {
+            keyColumnSizes.push_back(expr->getValueSize());
+            keyColumnInBytes.push_back(expr->getInBytes());
+        }
+        keyColumnAllowNull.push_back(true);
+    }
+    m_keySchema = TupleSchema::createTupleSchema(keyColumnTypes, keyColumnSizes,
+            keyColumnAllowNull, keyColumnInBytes);
+    m_probeKeyStorage.init(m_keySchema);
+
+    // Only large queries have no limits and they do not use hash joins
+    vassert(!executorVector.isLargeQuery());
+    m_limits = const_cast<TempTableLimits*>(executorVector.limits());
+    return true;
+}
+
+bool HashJoinExecutor::p_execute(const NValueArray &params) {
+    VOLT_DEBUG("executing HashJoin...");
+
+    HashJoinPlanNode* node = dynamic_cast<HashJoinPlanNode*>(m_abstractNode);
+    vassert(node);
+    vassert(node->getInputTableCount() == 2);
+
+    // output table must be a temp table
+    vassert(m_tmpOutputTable);
+
+    try {
+        executeJoin(node, params);
+    } catch (...) {
+        // Give the memory of the hash table back now, there is no next execution to clear it
+        clearHashTable();
+        throw;
+    }
+    clearHashTable();
+    return true;
+}
+
+void HashJoinExecutor::executeJoin(HashJoinPlanNode* node, const NValueArray &params) {
+    Table* outer_table = node->getInputTable();
+    vassert(outer_table);
+
+    Table* inner_table = node->getInputTable(1);
+    vassert(inner_table);
+
+    VOLT_TRACE ("input table left:\n %s", outer_table->debug().c_str());
+    VOLT_TRACE ("input table right:\n %s", inner_table->debug().c_str());
+
+    LimitPlanNode* limit_node = dynamic_cast<LimitPlanNode*>(node->getInlinePlanNode(PlanNodeType::Limit));
+    int limit = CountingPostfilter::NO_LIMIT;
+    int offset = CountingPostfilter::NO_OFFSET;
+    if (limit_node) {
+        tie(limit, offset) = limit_node->getLimitAndOffset(params);
+    }
+
+    ProgressMonitorProxy pmp(m_engine->getExecutorContext(), this);
+
+    // Init the postfilter
+    CountingPostfilter postfilter(m_tmpOutputTable, node->getWherePredicate(), limit, offset);
+
+    TableTuple join_tuple;
+    if (m_aggExec != NULL) {
+        VOLT_TRACE("Init inline aggregate...");
+        const TupleSchema * aggInputSchema = node->getTupleSchemaPreAgg();
+        join_tuple = m_aggExec->p_execute_init(params, &pmp, aggInputSchema, m_tmpOutputTable, &postfilter);
+    } else {
+        join_tuple = m_tmpOutputTable->tempTuple();
+    }
+
+    // Hash the smaller input unless the planner relies on the output being in outer order
+    if (node->canHashOuter() && outer_table->activeTupleCount() < inner_table->activeTupleCount()) {
+        joinHashingOuter(node, outer_table, inner_table, postfilter, join_tuple, pmp);
+    } else {
+        joinHashingInner(node, outer_table, inner_table, postfilter, join_tuple, pmp);
+    }
+
+    if (m_aggExec != NULL) {
+        m_aggExec->p_execute_finish();
+    }
+}
+
+void HashJoinExecutor::joinHashingInner(HashJoinPlanNode* node, Table* outer_table, Table* inner_table,
+        CountingPostfilter& postfilter, TableTuple& join_tuple, ProgressMonitorProxy& pmp) {
+    AbstractExpression *preJoinPredicate = node->getPreJoinPredicate();
+    AbstractExpression *joinPredicate = node->getJoinPredicate();
+
+    // The table filter to keep track of inner tuples that don't match any of outer tuples for FULL joins
+    TableTupleFilter innerTableFilter;
+    if (m_joinType == JOIN_TYPE_FULL) {
+        // Prepopulate the view with all inner tuples
+        innerTableFilter.init(inner_table);
+    }
+
+    int outer_cols = outer_table->columnCount();
+    int inner_cols = inner_table->columnCount();
+    TableTuple outer_tuple(outer_table->schema());
+    TableTuple inner_tuple(inner_table->schema());
+    const TableTuple& null_inner_tuple = m_null_inner_tuple.tuple();
+    TableTuple& probe_key = m_probeKeyStorage.tuple();
+
+    // Build the hash table from the whole inner table before reading any outer tuple
+    buildHashTable(inner_table, *m_innerHashExpressions, false, NULL, pmp);
+
+    TableIterator iterator0 = outer_table->iteratorDeletingAsWeGo();
+    while (postfilter.isUnderLimit() && iterator0.next(outer_tuple)) {
+        pmp.countdownProgress();
+
+        // populate output table's temp tuple with outer table's values
+        join_tuple.setNValues(0, outer_tuple, 0, outer_cols);
+
+        // did this loop body find at least one match for this tuple?
+        bool outerMatch = false;
+        // For outer joins if outer tuple fails pre-join predicate
+        // (join expression based on the outer table only)
+        // it can't match any of inner tuples
+        if ((preJoinPredicate == NULL || preJoinPredicate->eval(&outer_tuple, NULL).isTrue()) &&
+                setKey(probe_key, *m_outerHashExpressions, &outer_tuple, NULL, false)) {
+            Bucket** bucket = m_hash.find(probe_key, m_hash.hashOf(probe_key));
+            for (HashedRow* row = bucket == nullptr ? nullptr : (*bucket)->m_first;
+                    postfilter.isUnderLimit() && row != nullptr; row = row->m_next) {
+                pmp.countdownProgress();
+                inner_tuple.move(row->m_address);
+                // The hash keys are only part of the join predicate
+                if (joinPredicate == NULL || joinPredicate->eval(&outer_tuple, &inner_tuple).isTrue()) {
+                    outerMatch = true;
+                    // The inner tuple passed the join predicate
+                    if (m_joinType == JOIN_TYPE_FULL) {
+                        // Mark it as matched
+                        innerTableFilter.updateTuple(inner_tuple, MATCHED_TUPLE);
+                    }
+                    // Filter the joined tuple
+                    if (postfilter.eval(&outer_tuple, &inner_tuple)) {
+                        // Matched! Complete the joined tuple with the inner column values.
+                        join_tuple.setNValues(outer_cols, inner_tuple, 0, inner_cols);
+                        outputTuple(postfilter, join_tuple, pmp);
+                    }
+                }
+            }
+        }
+
+        //
+        // Left Outer Join
+        //
+        if (m_joinType != JOIN_TYPE_INNER && !outerMatch && postfilter.isUnderLimit()) {
+            // Still needs to pass the filter
+            if (postfilter.eval(&outer_tuple, &null_inner_tuple)) {
+                // Matched! Complete the joined tuple with the inner column values.
+                join_tuple.setNValues(outer_cols, null_inner_tuple, 0, inner_cols);
+                outputTuple(postfilter, join_tuple, pmp);
+            }
+        }
+    }
+
+    //
+    // FULL Outer Join. Iterate over the unmatched inner tuples
+    //
+    if (m_joinType == JOIN_TYPE_FULL && postfilter.isUnderLimit()) {
+        // Preset outer columns to null
+        const TableTuple& null_outer_tuple = m_null_outer_tuple.tuple();
+        join_tuple.setNValues(0, null_outer_tuple, 0, outer_cols);
+
+        TableTupleFilter_iter<UNMATCHED_TUPLE> endItr = innerTableFilter.end<UNMATCHED_TUPLE>();
+        for (TableTupleFilter_iter<UNMATCHED_TUPLE> itr = innerTableFilter.begin<UNMATCHED_TUPLE>();
+                itr != endItr && postfilter.isUnderLimit(); ++itr) {
+            // Restore the tuple value
+            uint64_t tupleAddr = innerTableFilter.getTupleAddress(*itr);
+            inner_tuple.move((char *)tupleAddr);
+            // Still needs to pass the filter
+            vassert(inner_tuple.isActive());
+            if (postfilter.eval(&null_outer_tuple, &inner_tuple)) {
+                // Passed! Complete the joined tuple with the inner column values.
+                join_tuple.setNValues(outer_cols, inner_tuple, 0, inner_cols);
+                outputTuple(postfilter, join_tuple, pmp);
+            }
+        }
+    }
+}
+
+void HashJoinExecutor::joinHashingOuter(HashJoinPlanNode* node, Table* outer_table, Table* inner_table,
+        CountingPostfilter& postfilter, TableTuple& join_tuple, ProgressMonitorProxy& pmp) {
+    AbstractExpression *preJoinPredicate = node->getPreJoinPredicate();
+    AbstractExpression *joinPredicate = node->getJoinPredicate();
+
+    // The table filter to keep track of outer tuples that don't match any of inner tuples for LEFT and FULL joins
+    TableTupleFilter outerTableFilter;
+    if (m_joinType != JOIN_TYPE_INNER) {
+        // Prepopulate the view with all outer tuples
+        outerTableFilter.init(outer_table);
+    }
+
+    int outer_cols = outer_table->columnCount();
+    int inner_cols = inner_table->columnCount();
+    TableTuple outer_tuple(outer_table->schema());
+    TableTuple inner_tuple(inner_table->schema());
+    TableTuple& probe_key = m_probeKeyStorage.tuple();
+
+    // Outer tuples failing the pre-join predicate can't match any inner tuple so they are not hashed,
+    // for outer joins they are left unmatched in the outer table filter
+    buildHashTable(outer_table, *m_outerHashExpressions, true, preJoinPredicate, pmp);
+
+    TableIterator iterator1 = inner_table->iteratorDeletingAsWeGo();
+    while (postfilter.isUnderLimit() && iterator1.next(inner_tuple)) {
+        pmp.countdownProgress();
+
+        // did this loop body find at least one match for this tuple?
+        bool innerMatch = false;
+        if (setKey(probe_key, *m_innerHashExpressions, NULL, &inner_tuple, false)) {
+            Bucket** bucket = m_hash.find(probe_key, m_hash.hashOf(probe_key));
+            for (HashedRow* row = bucket == nullptr ? nullptr : (*bucket)->m_first;
+                    postfilter.isUnderLimit() && row != nullptr; row = row->m_next) {
+                pmp.countdownProgress();
+                outer_tuple.move(row->m_address);
+                // The hash keys are only part of the join predicate
+                if (joinPredicate == NULL || joinPredicate->eval(&outer_tuple, &inner_tuple).isTrue()) {
+                    innerMatch = true;
+                    if (m_joinType != JOIN_TYPE_INNER) {
+                        // Mark the outer tuple as matched
+                        outerTableFilter.updateTuple(outer_tuple, MATCHED_TUPLE);
+                    }
+                    // Filter the joined tuple
+                    if (postfilter.eval(&outer_tuple, &inner_tuple)) {
+                        join_tuple.setNValues(0, outer_tuple, 0, outer_cols);
+                        join_tuple.setNValues(outer_cols, inner_tuple, 0, inner_cols);
+                        outputTuple(postfilter, join_tuple, pmp);
+                    }
+                }
+            }
+        }
+
+        //
+        // FULL Outer Join. The inner tuple did not match any outer tuple
+        //
+        if (m_joinType == JOIN_TYPE_FULL && !innerMatch && postfilter.isUnderLimit()) {
+            const TableTuple& null_outer_tuple = m_null_outer_tuple.tuple();
+            // Still needs to pass the filter
+            if (postfilter.eval(&null_outer_tuple, &inner_tuple)) {
+                join_tuple.setNValues(0, null_outer_tuple, 0, outer_cols);
+                join_tuple.setNValues(outer_cols, inner_tuple, 0, inner_cols);
+                outputTuple(postfilter, join_tuple, pmp);
+            }
+        }
+    }
+
+    //
+    // Left and FULL Outer Join. Iterate over the unmatched outer tuples
+    //
+    if (m_joinType != JOIN_TYPE_INNER && postfilter.isUnderLimit()) {
+        // Preset inner columns to null
+        const TableTuple& null_inner_tuple = m_null_inner_tuple.tuple();
+        join_tuple.setNValues(outer_cols, null_inner_tuple, 0, inner_cols);
+
+        TableTupleFilter_iter<UNMATCHED_TUPLE> endItr = outerTableFilter.end<UNMATCHED_TUPLE>();
+        for (TableTupleFilter_iter<UNMATCHED_TUPLE> itr = outerTableFilter.begin<UNMATCHED_TUPLE>();
+                itr != endItr && postfilter.isUnderLimit(); ++itr) {
+            // Restore the tuple value
+            uint64_t tupleAddr = outerTableFilter.getTupleAddress(*itr);
+            outer_tuple.move((char *)tupleAddr);
+            // Still needs to pass the filter
+            vassert(outer_tuple.isActive());
+            if (postfilter.eval(&outer_tuple, &null_inner_tuple)) {
+                join_tuple.setNValues(0, outer_tuple, 0, outer_cols);
+                outputTuple(postfilter, join_tuple, pmp);
+            }
+        }
+    }
+}
+
+void HashJoinExecutor::buildHashTable(Table* table, const std::vector<AbstractExpression*>& exprs,
+        bool isOuter, AbstractExpression* predicate, ProgressMonitorProxy& pmp) {
+    clearHashTable();
+    m_nextBuildKeyStorage.init(m_keySchema, &m_memoryPool);
+    TableTuple& build_key = m_nextBuildKeyStorage;
+    build_key.move(nullptr);
+
+    // The hashed table is not deleted as we go, the hash table points into it
+    TableIterator iterator = table->iterator();
+    TableTuple tuple(table->schema());
+    const TableTuple* outer_tuple = isOuter ? &tuple : NULL;
+    const TableTuple* inner_tuple = isOuter ? NULL : &tuple;
+    while (iterator.next(tuple)) {
+        pmp.countdownProgress();
+        if (predicate != NULL && !predicate->eval(outer_tuple, inner_tuple).isTrue()) {
+            continue;
+        }
+        if (build_key.isNullTuple()) {
+            m_nextBuildKeyStorage.allocateActiveTuple();
+        }
+        // A null key never equals anything so the row can only be an unmatched row of an outer join,
+        // which the table filter of the join takes care of
+        if (!setKey(build_key, exprs, outer_tuple, inner_tuple, true)) {
+            continue;
+        }
+
+        HashedRow* row = new (m_memoryPool.allocate(sizeof(HashedRow))) HashedRow();
+        row->m_address = tuple.address();
+        row->m_next = nullptr;
+
+        size_t const hash = m_hash.hashOf(build_key);
+        Bucket** found = m_hash.find(build_key, hash);
+        if (found == nullptr) {
+            Bucket* bucket = new (m_memoryPool.allocate(sizeof(Bucket))) Bucket();
+            bucket->m_first = row;
+            bucket->m_last = row;
+            m_hash.insert(build_key, hash, bucket);
+            // The hash table is referencing the current key tuple,
+            // so force a new tuple allocation to hold the next key.
+            build_key.move(nullptr);
+        } else {
+            (*found)->m_last->m_next = row;
+            (*found)->m_last = row;
+        }
+        updateMemoryUsage();
+    }
+    VOLT_DEBUG("Hash join built %zu %s keys using %jd bytes", m_hash.size(), isOuter ? "outer" : "inner",
+            (intmax_t) m_accountedMemory);
+}
+
+bool HashJoinExecutor::setKey(TableTuple& key, const std::vector<AbstractExpression*>& exprs,
+        const TableTuple* outer_tuple, const TableTuple* inner_tuple, bool copyObjects) {
+    const int keyCount = static_cast<int>(exprs.size());
+    for (int i = 0; i < keyCount; ++i) {
+        NValue value = exprs[i]->eval(outer_tuple, inner_tuple);
+        if (value.isNull()) {
+            return false;
+        }
+        if (copyObjects) {
+            key.setNValueAllocateForObjectCopies(i, value, &m_memoryPool);
+        } else {
+            key.setNValue(i, value);
+        }
+    }
+    return true;
+}
+
+void HashJoinExecutor::updateMemoryUsage() {
+    int64_t used = m_memoryPool.getAllocatedMemory() + m_hash.capacity() * HASH_TABLE_SLOT_SIZE;
+    if (used > m_accountedMemory) {
+        // Throws when the temp table limit is exceeded
+        int64_t const increase = used - m_accountedMemory;
+        m_accountedMemory = used;
+        m_limits->increaseAllocated(static_cast<int>(increase));
+    }
+}
+
+void HashJoinExecutor::clearHashTable() {
+    m_hash.clear();
+    m_memoryPool.purge();
+    if (m_accountedMemory > 0) {
+        m_limits->reduceAllocated(static_cast<int>(m_accountedMemory));
+        m_accountedMemory = 0;
+    }
+}
@@ -0,0 +1,100 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2022 Volt Active Data Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+#pragma once
+
+#include "common/common.h"
+#include "common/Pool.hpp"
+#include "common/tabletuple.h"
+#include "executors/abstractjoinexecutor.h"
+#include "structures/OpenHashTable.h"
+
+namespace voltdb {
+
+class HashJoinPlanNode;
+class TempTableLimits;
+
+/**
+ * Hash join of the outer (first) input with the inner (second) input. The inner input is read into a
+ * hash table keyed by the inner hash expressions, then each outer row is joined with the inner rows
+ * which have the same key as its outer hash expressions. The join predicate is applied to each match
+ * like it is by the nested loop join, and the output is in the same order.
+ *
+ * When the planner allows it and the outer input has fewer rows, the outer input is hashed instead and
+ * probed with each inner row. The output is then in inner order, with the outer rows left unmatched by
+ * LEFT and FULL joins at the end.
+ *
+ * The memory of the hash table is accounted for along with the temp tables of the fragment so a query
+ * building a hash table too large for the temp table limit fails the same way as one with a temp table
+ * that is too large.
+ */
+class HashJoinExecutor : public AbstractJoinExecutor {
+public:
+    HashJoinExecutor(VoltDBEngine *engine, AbstractPlanNode* abstract_node) :
+        AbstractJoinExecutor(engine, abstract_node) {}
+    ~HashJoinExecutor();
+
+protected:
+    bool p_init(AbstractPlanNode*, const ExecutorVector& executorVector);
+    bool p_execute(const NValueArray &params);
+
+private:
+    // A hashed row, chained in table order with the other hashed rows with the same key
+    struct HashedRow {
+        char* m_address;
+        HashedRow* m_next;
+    };
+
+    struct Bucket {
+        HashedRow* m_first;
+        HashedRow* m_last;
+    };
+
+    typedef OpenHashTable<TableTuple, Bucket*, TableTupleHasher, TableTupleEqualityChecker> HashTable;
+
+    // Rough size of an entry of the hash table for memory accounting
+    static const int64_t HASH_TABLE_SLOT_SIZE = sizeof(std::size_t) + sizeof(TableTuple) + sizeof(Bucket*);
+
+    void executeJoin(HashJoinPlanNode* node, const NValueArray &params);
+    void joinHashingInner(HashJoinPlanNode* node, Table* outer_table, Table* inner_table,
+            CountingPostfilter& postfilter, TableTuple& join_tuple, ProgressMonitorProxy& pmp);
+    void joinHashingOuter(HashJoinPlanNode* node, Table* outer_table, Table* inner_table,
+            CountingPostfilter& postfilter, TableTuple& join_tuple, ProgressMonitorProxy& pmp);
+    // Hash the rows of table passing predicate on exprs, isOuter tells which input table is
+    void buildHashTable(Table* table, const std::vector<AbstractExpression*>& exprs,
+            bool isOuter, AbstractExpression* predicate, ProgressMonitorProxy& pmp);
+    // Evaluate the hash expressions into key, return false if any key value is null and cannot match
+    bool setKey(TableTuple& key, const std::vector<AbstractExpression*>& exprs,
+            const TableTuple* outer_tuple, const TableTuple* inner_tuple, bool copyObjects);
+    void updateMemoryUsage();
+    void clearHashTable();
+
+    TupleSchema* m_keySchema = nullptr;
+    const std::vector<AbstractExpression*>* m_outerHashExpressions = nullptr;
+    const std::vector<AbstractExpression*>* m_innerHashExpressions = nullptr;
+    TempTableLimits* m_limits = nullptr;
+
+    // Holds the keys, buckets and chains of hashed rows
+    Pool m_memoryPool;
+    HashTable m_hash;
+    PoolBackedTupleStorage m_nextBuildKeyStorage;
+    StandAloneTupleStorage m_probeKeyStorage;
+    // Memory reported to m_limits
+    int64_t m_accountedMemory = 0;
+};
+
+}
@@ -0,0 +1,50 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2022 Volt Active Data Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+#include "hashjoinnode.h"
+
+#include "expressions/abstractexpression.h"
+
+namespace voltdb {
+
+PlanNodeType HashJoinPlanNode::getPlanNodeType() const {
+   return PlanNodeType::HashJoin;
+}
+
+std::string HashJoinPlanNode::debugInfo(const std::string& spacer) const {
+    std::ostringstream buffer;
+    buffer << AbstractJoinPlanNode::debugInfo(spacer);
+    for (size_t i = 0; i < m_outerHashExpressions.size(); ++i) {
+        buffer << spacer << "Hash Key " << i << "\n"
+               << m_outerHashExpressions[i]->debug(spacer)
+               << m_innerHashExpressions[i]->debug(spacer);
+    }
+    buffer << spacer << "Can Hash Outer: " << (m_canHashOuter ? "true" : "false") << "\n";
+    return buffer.str();
+}
+
+void HashJoinPlanNode::loadFromJSONObject(PlannerDomValue obj) {
+    AbstractJoinPlanNode::loadFromJSONObject(obj);
+    m_outerHashExpressions.loadExpressionArrayFromJSONObject("OUTER_HASH_EXPRESSIONS", obj);
+    m_innerHashExpressions.loadExpressionArrayFromJSONObject("INNER_HASH_EXPRESSIONS", obj);
+    vassert(m_outerHashExpressions.size() == m_innerHashExpressions.size());
+    if (obj.hasKey("CAN_HASH_OUTER")) {
+        m_canHashOuter = obj.valueForKey("CAN_HASH_OUTER").asBool();
+    }
+}
+
+} // namespace voltdb
@@ -0,0 +1,49 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2022 Volt Active Data Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+#pragma once
+#include "abstractjoinnode.h"
+
+namespace voltdb {
+
+/**
+ * Join which hashes the rows of its inner (second) child on the inner hash expressions and
+ * probes the hash table with the outer hash expressions of each row of its outer child.
+ * The join predicate still includes the equalities the hash expressions come from.
+ * If the planner does not rely on the output being in outer order, the outer child may be hashed instead.
+ */
+class HashJoinPlanNode : public AbstractJoinPlanNode {
+public:
+    HashJoinPlanNode() {}
+    ~HashJoinPlanNode() {}
+    PlanNodeType getPlanNodeType() const;
+    std::string debugInfo(const std::string& spacer) const;
+
+    const std::vector<AbstractExpression*>& getOuterHashExpressions() const { return m_outerHashExpressions; }
+    const std::vector<AbstractExpression*>& getInnerHashExpressions() const { return m_innerHashExpressions; }
+    bool canHashOuter() const { return m_canHashOuter; }
+
+private:
+    void loadFromJSONObject(PlannerDomValue obj);
+
+    // Pairwise equal expressions, the outer ones are evaluated on outer rows and the inner ones on inner rows
+    OwningExpressionVector m_outerHashExpressions;
+    OwningExpressionVector m_innerHashExpressions;
+    bool m_canHashOuter = false;
+};
+
+} // namespace voltdb
@@ -56,6 +56,7 @@
 #include "plannodes/materializedscanplannode.h"
 #include "plannodes/mergereceivenode.h"
 #include "plannodes/mergejoinnode.h"
+#include "plannodes/hashjoinnode.h"
 #include "plannodes/migratenode.h"
 #include "plannodes/nestloopnode.h"
 #include "plannodes/nestloopindexnode.h"
@@ -135,6 +136,12 @@ voltdb::AbstractPlanNode* getEmptyPlanNode(voltdb::PlanNodeType type) {
             ret = new voltdb::MergeJoinPlanNode();
             break;
         // ------------------------------------------------------------------
+        // HashJoin
+        // ------------------------------------------------------------------
+        case (voltdb::PlanNodeType::HashJoin):
+            ret = new voltdb::HashJoinPlanNode();
+            break;
+        // ------------------------------------------------------------------
         // Update
         // ------------------------------------------------------------------
         case (voltdb::PlanNodeType::Update):
@@ -0,0 +1,184 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2022 Volt Active Data Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+#pragma once
+
+#include <cstddef>
+#include <cstdint>
+#include <functional>
+#include <vector>
+
+#include "common/debuglog.h"
+
+namespace voltdb {
+
+/**
+ * OpenHashTable is an insert-only map built on open addressing with linear probing.
+ * It is meant for short-lived tables with many lookups, like the groups of a hash
+ * aggregation, where std::unordered_map allocates a node per entry and chases a
+ * pointer on every probe.
+ *
+ * All entries live in one contiguous array of slots. Each slot keeps the hash of its
+ * key so that a probe only calls the (possibly expensive) key equality checker when
+ * the hashes match, and growing the table never hashes a key again.
+ *
+ * It supports fewer operations than the STL maps: no erase, and callers pass in the
+ * hash they computed with hashOf(), so they can compute it once per key.
+ */
+template<class K, class V, class H = std::hash<K>, class EK = std::equal_to<K> >
+class OpenHashTable {
+public:
+    struct Entry {
+        K first;
+        V second;
+    };
+
+private:
+    struct Slot {
+        // 0 marks an empty slot, see hashOf()
+        std::size_t hash;
+        Entry entry;
+    };
+
+    // grow when the table is 70% full (new table will be 35% full)
+    static const std::size_t MAX_LOAD_FACTOR = 70; // %
+    static const std::size_t INITIAL_CAPACITY = 64;
+    // clear() gives the memory back if the table grew beyond this many slots
+    static const std::size_t RETAINED_CAPACITY = 64 * 1024;
+
+public:
+    class iterator {
+        friend class OpenHashTable;
+        Slot* m_slot;
+        Slot* m_end;
+
+        iterator(Slot* slot, Slot* end) : m_slot(slot), m_end(end) {
+            skipEmpty();
+        }
+        void skipEmpty() {
+            while (m_slot != m_end && m_slot->hash == 0) {
+                ++m_slot;
+            }
+        }
+    public:
+        Entry& operator*() const { return m_slot->entry; }
+        Entry* operator->() const { return &m_slot->entry; }
+        iterator& operator++() {
+            ++m_slot;
+            skipEmpty();
+            return *this;
+        }
+        bool operator==(iterator const& other) const { return m_slot == other.m_slot; }
+        bool operator!=(iterator const& other) const { return m_slot != other.m_slot; }
+    };
+
+    OpenHashTable() : m_slots(INITIAL_CAPACITY) {}
+
+    /**
+     * Hash a key for find() and insert(). Never returns 0, which marks empty slots.
+     */
+    std::size_t hashOf(K const& key) const {
+        // The key hashers combine column hashes with few bits of mixing, spread them
+        // over the low bits used to pick a slot (the finalizer of MurmurHash3).
+        uint64_t h = static_cast<uint64_t>(m_hasher(key));
+        h ^= h >> 33;
+        h *= 0xff51afd7ed558ccdULL;
+        h ^= h >> 33;
+        h *= 0xc4ceb9fe1a85ec53ULL;
+        h ^= h >> 33;
+        return h == 0 ? 1 : static_cast<std::size_t>(h);
+    }
+
+    /**
+     * @return the value of key, or nullptr if the key is not in the table
+     */
+    V* find(K const& key, std::size_t hash) {
+        vassert(hash == hashOf(key));
+        std::size_t const mask = m_slots.size() - 1;
+        for (std::size_t i = hash & mask; ; i = (i + 1) & mask) {
+            Slot& slot = m_slots[i];
+            if (slot.hash == 0) {
+                return nullptr;
+            }
+            if (slot.hash == hash && m_keyEq(slot.entry.first, key)) {
+                return &slot.entry.second;
+            }
+        }
+    }
+
+    /**
+     * Add a key which is not in the table yet.
+     * @return the value stored in the table
+     */
+    V& insert(K const& key, std::size_t hash, V const& value) {
+        vassert(find(key, hash) == nullptr);
+        if ((m_size + 1) * 100 > m_slots.size() * MAX_LOAD_FACTOR) {
+            grow();
+        }
+        Slot& slot = emptySlotFor(m_slots, hash);
+        slot.hash = hash;
+        slot.entry.first = key;
+        slot.entry.second = value;
+        ++m_size;
+        return slot.entry.second;
+    }
+
+    void clear() {
+        if (m_slots.size() > RETAINED_CAPACITY) {
+            std::vector<Slot>(INITIAL_CAPACITY).swap(m_slots);
+        } else if (m_size > 0) {
+            for (Slot& slot : m_slots) {
+                slot.hash = 0;
+            }
+        }
+        m_size = 0;
+    }
+
+    std::size_t size() const { return m_size; }
+    bool empty() const { return m_size == 0; }
+    std::size_t capacity() const { return m_slots.size(); }
+
+    iterator begin() { return iterator(m_slots.data(), m_slots.data() + m_slots.size()); }
+    iterator end() { return iterator(m_slots.data() + m_slots.size(), m_slots.data() + m_slots.size()); }
+
+private:
+    static Slot& emptySlotFor(std::vector<Slot>& slots, std::size_t hash) {
+        std::size_t const mask = slots.size() - 1;
+        std::size_t i = hash & mask;
+        while (slots[i].hash != 0) {
+            i = (i + 1) & mask;
+        }
+        return slots[i];
+    }
+
+    void grow() {
+        std::vector<Slot> grown(m_slots.size() * 2);
+        for (Slot const& slot : m_slots) {
+            if (slot.hash != 0) {
+                emptySlotFor(grown, slot.hash) = slot;
+            }
+        }
+        m_slots.swap(grown);
+    }
+
+    std::vector<Slot> m_slots;
+    std::size_t m_size = 0;
+    H m_hasher;
+    EK m_keyEq;
+};
+
+}
@@ -28,6 +28,7 @@ import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.net.ssl.SSLEngine;
 
@@ -40,6 +41,14 @@ import com.google_voltpatches.common.util.concurrent.MoreExecutors;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.PooledByteBufAllocator;
 
+/**
+ * Pools of threads which encrypt and decrypt TLS traffic off of the network threads.
+ * <p>
+ * Each pool is made of single threaded lanes. A connection picks a lane for each direction with
+ * {@link #nextAffinity()} and submits all of its work there, so the cipher state of an {@link SSLEngine} stays
+ * on one core and the tasks of a connection never hand off between threads. Encryption and decryption of a
+ * connection use different affinities so both directions can make progress at the same time.
+ */
 public enum CipherExecutor {
 
     SERVER(getWishedThreadCount()),
@@ -48,13 +57,18 @@ public enum CipherExecutor {
     public final static int FRAME_SHIFT = 14; // 16384 (max TLS fragment)
     public final static int FRAME_SIZE = 1 << FRAME_SHIFT;
 
-    volatile ListeningExecutorService m_es;
+    volatile ListeningExecutorService[] m_lanes;
     AtomicBoolean m_active = new AtomicBoolean(false);
     final int m_threadCount;
+    private final AtomicInteger m_nextAffinity = new AtomicInteger();
 
     private CipherExecutor(int nthreads) {
         m_threadCount = nthreads;
-        m_es = CoreUtils.LISTENINGSAMETHREADEXECUTOR;
+        m_lanes = inactiveLanes();
+    }
+
+    private static ListeningExecutorService[] inactiveLanes() {
+        return new ListeningExecutorService[] { CoreUtils.LISTENINGSAMETHREADEXECUTOR };
     }
 
     private static final int getWishedThreadCount() {
@@ -65,25 +79,52 @@ public enum CipherExecutor {
             rt = null;
         }
         int coreCount = rt != null ? rt.availableProcessors() : 2;
-        return Math.max(2, coreCount/2);
+        return Math.max(1, Integer.getInteger("TLS_CIPHER_THREADS", Math.max(2, coreCount/2)));
+    }
+
+    /**
+     * @return an affinity to pass to {@link #submit(Runnable, int)}. Successive calls are spread over all of
+     *         the threads of this executor
+     */
+    public int nextAffinity() {
+        return m_nextAffinity.getAndIncrement();
     }
 
     /**
      * Guarantee execution of the given {@link Runnable} whether or not its
-     * executor service is active. When it is not the {@link Runnable} is
-     * executed in situ on the same thread that invokes this method
+     * executor service is active. All tasks submitted with the same {@code affinity}
+     * are executed, in order, by the same thread. When the service is not active
+     * the {@link Runnable} is executed in situ on the same thread that invokes this method
      *
      * @param r a {@link Runnable} task
+     * @param affinity value returned by {@link #nextAffinity()}
      * @return a {@link ListenableFuture} for the given task
      */
-    final public ListenableFuture<?> submit(Runnable r) {
+    final public ListenableFuture<?> submit(Runnable r, int affinity) {
         try {
-            return m_es.submit(r);
+            return lane(affinity).submit(r);
         } catch (RejectedExecutionException e) {
             return CoreUtils.LISTENINGSAMETHREADEXECUTOR.submit(r);
         }
     }
 
+    private ListeningExecutorService lane(int affinity) {
+        ListeningExecutorService[] lanes = m_lanes;
+        return lanes[(affinity & Integer.MAX_VALUE) % lanes.length];
+    }
+
+    /**
+     * Guarantee execution of the given {@link Runnable} whether or not its
+     * executor service is active. When it is not the {@link Runnable} is
+     * executed in situ on the same thread that invokes this method
+     *
+     * @param r a {@link Runnable} task
+     * @return a {@link ListenableFuture} for the given task
+     */
+    final public ListenableFuture<?> submit(Runnable r) {
+        return submit(r, nextAffinity());
+    }
+
     /**
      * Guarantee execution of the given {@link Callable&lt;T&gt;} whether or not its
      * executor service is active. When it is not the {@link Callable&lt;T&gt;} is
@@ -94,7 +135,7 @@ public enum CipherExecutor {
      */
     final public <T> ListenableFuture<T> submit(Callable<T> c) {
         try {
-            return m_es.submit(c);
+            return lane(nextAffinity()).submit(c);
         } catch (RejectedExecutionException e) {
             return CoreUtils.LISTENINGSAMETHREADEXECUTOR.submit(c);
         }
@@ -105,8 +146,11 @@ public enum CipherExecutor {
             synchronized(this) {
                 ThreadFactory thrdfct = CoreUtils.getThreadFactory(
                         name () + " SSL cipher service", CoreUtils.MEDIUM_STACK_SIZE);
-                m_es = MoreExecutors.listeningDecorator(
-                        Executors.newFixedThreadPool(m_threadCount, thrdfct));
+                ListeningExecutorService[] lanes = new ListeningExecutorService[m_threadCount];
+                for (int i = 0; i < lanes.length; ++i) {
+                    lanes[i] = MoreExecutors.listeningDecorator(Executors.newSingleThreadExecutor(thrdfct));
+                }
+                m_lanes = lanes;
             }
         }
     }
@@ -114,12 +158,16 @@ public enum CipherExecutor {
     public void shutdown() {
         if (m_active.compareAndSet(true, false)) {
             synchronized(this) {
-                ListeningExecutorService es = m_es;
-                if (es != CoreUtils.LISTENINGSAMETHREADEXECUTOR) {
-                    m_es = CoreUtils.LISTENINGSAMETHREADEXECUTOR;
-                    es.shutdown();
+                ListeningExecutorService[] lanes = m_lanes;
+                if (lanes[0] != CoreUtils.LISTENINGSAMETHREADEXECUTOR) {
+                    m_lanes = inactiveLanes();
+                    for (ListeningExecutorService es : lanes) {
+                        es.shutdown();
+                    }
                     try {
-                        es.awaitTermination(365, TimeUnit.DAYS);
+                        for (ListeningExecutorService es : lanes) {
+                            es.awaitTermination(365, TimeUnit.DAYS);
+                        }
                     } catch (InterruptedException e) {
                         throw new RuntimeException(
                                 "Interrupted while waiting for " + name() + " cipher service shutdown",e);
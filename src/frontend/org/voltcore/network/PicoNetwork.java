@@ -460,6 +460,13 @@ public class PicoNetwork implements Runnable, Connection, IOStatsIntf
         }
     }
 
+    /**
+     * @return {@code true} if the calling thread is the thread of this network
+     */
+    protected final boolean isNetworkThread() {
+        return Thread.currentThread() == m_thread;
+    }
+
     public void enableWriteSelection() {
         if ((m_interestOps & SelectionKey.OP_WRITE) == 0) {
             m_interestOps |= SelectionKey.OP_WRITE;
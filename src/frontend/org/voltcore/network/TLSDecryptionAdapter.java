@@ -54,6 +54,8 @@ public class TLSDecryptionAdapter {
     private final ConcurrentLinkedDeque<ByteBuffer> m_decrypted = new ConcurrentLinkedDeque<>();
     private final FlexibleSemaphore m_inFlight = new FlexibleSemaphore(1);
     private final CipherExecutor m_ce;
+    // Cipher thread which decrypts the frames of this connection
+    private final int m_affinity;
     private final DecryptionGateway m_dcryptgw;
     private final Connection m_connection;
     private final InputHandler m_inputHandler;
@@ -66,6 +68,7 @@ public class TLSDecryptionAdapter {
         m_connection = connection;
         m_inputHandler = handler;
         m_ce = cipherExecutor;
+        m_affinity = cipherExecutor.nextAffinity();
         m_decrypter = new SSLBufferDecrypter(sslEngine);
         m_dcryptgw = new DecryptionGateway();
     }
@@ -360,7 +363,7 @@ public class TLSDecryptionAdapter {
         }
 
         void submitSelf() {
-            ListenableFuture<?> fut = m_ce.submit(this);
+            ListenableFuture<?> fut = m_ce.submit(this, m_affinity);
             fut.addListener(new ExceptionListener(fut), CoreUtils.LISTENINGSAMETHREADEXECUTOR);
         }
 
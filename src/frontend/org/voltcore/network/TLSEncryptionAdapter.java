@@ -38,10 +38,19 @@ import org.voltcore.utils.ssl.SSLBufferEncrypter;
 import com.google_voltpatches.common.util.concurrent.ListenableFuture;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
 
 public class TLSEncryptionAdapter {
     private static final VoltLogger s_networkLog = new VoltLogger("NETWORK");
 
+    // Frames of plain text encrypted together in one task
+    static final int MAX_BATCH_FRAMES = Integer.getInteger("TLS_ENCRYPT_BATCH_FRAMES", 4);
+    // A frame is only closed when the next message does not fit in it, so any two consecutive frames of a batch
+    // hold more than a frame of data
+    private static final int MAX_BATCH_COMPONENTS = 2 * MAX_BATCH_FRAMES + 2;
+    // Batches encrypted by one task before yielding the cipher thread to the other connections using it
+    private static final int MAX_BATCHES_PER_TASK = 8;
+
     private final ConcurrentLinkedDeque<ExecutionException> m_exceptions = new ConcurrentLinkedDeque<>();
     // Input frames encrypted as they came in
     private final ConcurrentLinkedDeque<EncryptedMessages> m_encryptedQueue = new ConcurrentLinkedDeque<>();
@@ -53,6 +62,8 @@ public class TLSEncryptionAdapter {
 
     private final Connection m_connection;
     private final CipherExecutor m_ce;
+    // Cipher thread which encrypts the messages of this connection
+    private final int m_affinity;
     private final SSLEngine m_sslEngine;
     private final SSLBufferEncrypter m_encrypter;
     private final EncryptionGateway m_ecryptgw = new EncryptionGateway();
@@ -64,6 +75,7 @@ public class TLSEncryptionAdapter {
         m_connection = connection;
         m_sslEngine = engine;
         m_ce = cipherExecutor;
+        m_affinity = cipherExecutor.nextAffinity();
         m_encrypter = new SSLBufferEncrypter(engine);
     }
 
@@ -81,57 +93,60 @@ public class TLSEncryptionAdapter {
         return m_sslEngine.getSession().getPacketBufferSize();
     }
 
+    /**
+     * Serialize the queued messages into batches of up to {@link #MAX_BATCH_FRAMES} frames and hand them to the
+     * cipher thread of this connection. Messages are packed back to back, a message which does not fit in the
+     * remainder of a frame starts the next one, and the frames of a batch are encrypted with a single gathering
+     * wrap so every TLS record except the last of a batch carries a full {@code frameMax} bytes regardless of
+     * where the message boundaries fall.
+     *
+     * @param buffersToEncrypt messages to encrypt, drained by this method
+     * @param frameMax maximum plain text size of a TLS record
+     * @return the number of messages taken from {@code buffersToEncrypt} and the number of bytes queued
+     */
     public Pair<Integer, Integer> encryptBuffers(Deque<DeferredSerialization> buffersToEncrypt, int frameMax) throws IOException {
-        ByteBuf accum = m_ce.allocator().buffer(frameMax).clear();
+        final int batchMax = frameMax * MAX_BATCH_FRAMES;
+        CompositeByteBuf batch = null;
+        ByteBuf frame = null;
 
         int processedWrites = 0;
         DeferredSerialization ds = null;
         int bytesQueued = 0;
-        int frameMsgs = 0;
+        int batchMsgs = 0;
         while ((ds = buffersToEncrypt.poll()) != null) {
             ++processedWrites;
             final int serializedSize = ds.getSerializedSize();
             if (serializedSize == DeferredSerialization.EMPTY_MESSAGE_LENGTH) {
                 continue;
             }
-            // pack as messages you can inside a TLS frame before you send it to
-            // the encryption gateway
-            if (serializedSize > frameMax) {
-                // frames may contain only one or more whole messages, or only
-                // partial parts of one message. a message may not contain whole
-                // messages and an incomplete partial fragment of one
-                if (accum.writerIndex() > 0) {
-                    m_ecryptgw.offer(new SerializedMessages(accum, frameMsgs));
-                    frameMsgs = 0;
-                    bytesQueued += accum.writerIndex();
-                    accum = m_ce.allocator().buffer(frameMax).clear();
+            if (frame != null && frame.writableBytes() < serializedSize) {
+                batch.addComponent(true, frame);
+                frame = null;
+                if (batch.readableBytes() >= batchMax) {
+                    bytesQueued += batch.readableBytes();
+                    m_ecryptgw.offer(new SerializedMessages(batch, batchMsgs));
+                    batch = null;
                 }
-                ByteBuf big = m_ce.allocator().buffer(serializedSize).writerIndex(serializedSize);
-                ByteBuffer jbb = big.nioBuffer();
-                ds.serialize(jbb);
-                NIOWriteStreamBase.checkSloppySerialization(jbb, ds);
-                bytesQueued += big.writerIndex();
-                m_ecryptgw.offer(new SerializedMessages(big, 1));
-                frameMsgs = 0;
-                continue;
-            } else if (accum.writerIndex() + serializedSize > frameMax) {
-                m_ecryptgw.offer(new SerializedMessages(accum, frameMsgs));
-                frameMsgs = 0;
-                bytesQueued += accum.writerIndex();
-                accum = m_ce.allocator().buffer(frameMax).clear();
             }
-            ByteBuf packet = accum.slice(accum.writerIndex(), serializedSize);
-            ByteBuffer jbb = packet.nioBuffer();
+            if (batch == null) {
+                batch = m_ce.allocator().compositeBuffer(MAX_BATCH_COMPONENTS);
+                batchMsgs = 0;
+            }
+            if (frame == null) {
+                frame = m_ce.allocator().buffer(Math.max(frameMax, serializedSize));
+            }
+            ByteBuffer jbb = frame.nioBuffer(frame.writerIndex(), serializedSize);
             ds.serialize(jbb);
             NIOWriteStreamBase.checkSloppySerialization(jbb, ds);
-            accum.writerIndex(accum.writerIndex()+serializedSize);
-            ++frameMsgs;
+            frame.writerIndex(frame.writerIndex() + serializedSize);
+            ++batchMsgs;
         }
-        if (accum.writerIndex() > 0) {
-            m_ecryptgw.offer(new SerializedMessages(accum, frameMsgs));
-            bytesQueued += accum.writerIndex();
-        } else {
-            accum.release();
+        if (frame != null) {
+            batch.addComponent(true, frame);
+        }
+        if (batch != null) {
+            bytesQueued += batch.readableBytes();
+            m_ecryptgw.offer(new SerializedMessages(batch, batchMsgs));
         }
 
         return new Pair<Integer, Integer>(processedWrites, bytesQueued);
@@ -311,11 +326,27 @@ public class TLSEncryptionAdapter {
 
         @Override
         public void run() {
-            SerializedMessages messages = m_q.peek();
-            if (messages == null) {
-                return;
+            for (int i = 0; i < MAX_BATCHES_PER_TASK; ++i) {
+                SerializedMessages messages = m_q.peek();
+                if (messages == null || !encrypt(messages)) {
+                    return;
+                }
+
+                synchronized(this) {
+                    m_q.poll();
+                    if (m_q.peek() == null || m_isShutdown) {
+                        return;
+                    }
+                }
             }
+            // Let the other connections sharing the cipher thread have a turn
+            submitSelf();
+        }
 
+        /**
+         * @return {@code true} if {@code messages} was encrypted and queued to be written
+         */
+        private boolean encrypt(SerializedMessages messages) {
             try {
                 int clearTextSize = messages.m_messages.readableBytes();
                 ByteBuf encr;
@@ -324,12 +355,12 @@ public class TLSEncryptionAdapter {
                 } catch (TLSException e) {
                     m_exceptions.offer(new ExecutionException("failed to encrypt frame", e));
                     m_connection.enableWriteSelection();
-                    return;
+                    return false;
                 }
 
                 if (m_isShutdown) {
                     encr.release();
-                    return;
+                    return false;
                 }
 
                 m_encryptedQueue.offer(new EncryptedMessages(encr, messages.m_count, clearTextSize));
@@ -345,19 +376,13 @@ public class TLSEncryptionAdapter {
                     // If the connection gets closed for some reason we will get this error.
                     // OK to ignore and return immediately
                     s_networkLog.debug("CancelledKeyException while trying to enable write", e);
-                    return;
+                    return false;
                 }
+                return true;
             } finally {
                 messages.m_messages.release();
                 m_inFlight.release();
             }
-
-            synchronized(this) {
-                m_q.poll();
-                if (m_q.peek() != null && !m_isShutdown) {
-                    submitSelf();
-                }
-            }
         }
 
         boolean isEmpty() {
@@ -365,7 +390,7 @@ public class TLSEncryptionAdapter {
         }
 
         void submitSelf() {
-            ListenableFuture<?> fut = m_ce.submit(this);
+            ListenableFuture<?> fut = m_ce.submit(this, m_affinity);
             fut.addListener(new ExceptionListener(fut), CoreUtils.LISTENINGSAMETHREADEXECUTOR);
         }
     }
@@ -39,6 +39,16 @@ public class TLSPicoNIOWriteStream extends PicoNIOWriteStream {
         m_tlsEncryptionAdapter = new TLSEncryptionAdapter(connection, engine, cipherExecutor);
     }
 
+    /**
+     * Encrypted frames which have not been completely written keep the stream from being empty so that write
+     * selection stays on until the socket accepts them. Frames still being encrypted do not, the cipher thread
+     * wakes up the network when they are ready.
+     */
+    @Override
+    public boolean isEmpty() {
+        return super.isEmpty() && !m_tlsEncryptionAdapter.hasOutstandingData();
+    }
+
     /**
      * Sends the queued writes in this stream to the encryption adapter for encryption.
      */
@@ -91,6 +91,20 @@ public class TLSPicoNetwork extends PicoNetwork
         m_writeStream = new TLSPicoNIOWriteStream(this, m_sslEngine, m_cipherExecutor);
     }
 
+    /**
+     * The cipher threads call this when frames have been encrypted or decrypted. Changing the interest ops does
+     * not wake up a blocked selector so instead of that the network thread is woken up, it delivers decrypted
+     * messages and writes encrypted frames on every pass of its loop.
+     */
+    @Override
+    public void enableWriteSelection() {
+        if (isNetworkThread()) {
+            super.enableWriteSelection();
+        } else {
+            m_selector.wakeup();
+        }
+    }
+
     protected void dispatchReadStream() throws IOException {
         try {
             Pair<Integer, Integer> readInfo = m_tlsDecryptAdapter.handleInputStreamMessages(readyForRead(), readStream(), m_sc, m_pool);
@@ -18,14 +18,65 @@
 package org.voltcore.utils;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 
 /**
- * Utility class for accessing a variety of com.sun.misc.Unsafe stuff
+ * A compression codec. Besides the byte array methods used for histograms, codecs compress
+ * between direct {@link ByteBuffer}s for data which is persisted, like PBD entries.
+ * <p>
+ * The buffer methods follow the conventions of snappy-java: the positions of the input
+ * buffers are not changed and the limit of the output buffer is set to its position plus
+ * the number of bytes produced.
+ * <p>
+ * Each codec has an id which is stored with the data it compressed, so the id of an
+ * existing codec must never change. The server looks codecs up by id or name through
+ * {@code org.voltdb.utils.CompressionCodecs}.
  */
 public abstract class CompressionStrategy {
 
     public abstract byte[] compress(byte data[]) throws IOException;
     public abstract byte[] uncompress(byte data[]) throws IOException;
 
+    /**
+     * @return the id of this codec which is stored with compressed data
+     */
+    public abstract int getCodecId();
+
+    /**
+     * @return the name of this codec
+     */
+    public abstract String getName();
+
+    /**
+     * @param uncompressedLength length of data to compress
+     * @return the maximum number of bytes {@link #compress(ByteBuffer, ByteBuffer)} can produce
+     */
+    public abstract int maxCompressedLength(int uncompressedLength);
+
+    /**
+     * Compress the remaining bytes of {@code uncompressed} into {@code compressed} which has to have at least
+     * {@link #maxCompressedLength(int)} bytes remaining
+     *
+     * @return the compressed length
+     */
+    public abstract int compress(ByteBuffer uncompressed, ByteBuffer compressed) throws IOException;
+
+    /**
+     * @return the uncompressed length of the data {@code compressed} holds
+     */
+    public abstract int uncompressedLength(ByteBuffer compressed) throws IOException;
+
+    /**
+     * Uncompress the remaining bytes of {@code compressed} into {@code uncompressed} which has to have at least
+     * {@link #uncompressedLength(ByteBuffer)} bytes remaining
+     *
+     * @return the uncompressed length
+     */
+    public abstract int uncompress(ByteBuffer compressed, ByteBuffer uncompressed) throws IOException;
+
+    @Override
+    public String toString() {
+        return getName();
+    }
 }
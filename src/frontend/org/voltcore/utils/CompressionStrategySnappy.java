@@ -18,15 +18,19 @@
 package org.voltcore.utils;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.xerial.snappy.Snappy;
 
 
 /**
- * Utility class for accessing a variety of com.sun.misc.Unsafe stuff
+ * Snappy codec. Its buffer methods only accept direct buffers.
  */
 public class CompressionStrategySnappy extends CompressionStrategy {
 
+    // Data compressed before codecs were selectable is Snappy, so this has to stay 0
+    public static final int CODEC_ID = 0;
+
     public static final CompressionStrategySnappy INSTANCE = new CompressionStrategySnappy();
 
     private CompressionStrategySnappy() {}
@@ -40,4 +44,39 @@ public class CompressionStrategySnappy extends CompressionStrategy {
     public byte[] uncompress(byte data[]) throws IOException {
         return Snappy.uncompress(data);
     }
+
+    @Override
+    public int getCodecId() {
+        return CODEC_ID;
+    }
+
+    @Override
+    public String getName() {
+        return "snappy";
+    }
+
+    @Override
+    public int maxCompressedLength(int uncompressedLength) {
+        return Snappy.maxCompressedLength(uncompressedLength);
+    }
+
+    @Override
+    public int compress(ByteBuffer uncompressed, ByteBuffer compressed) throws IOException {
+        assert(uncompressed.isDirect());
+        assert(compressed.isDirect());
+        return Snappy.compress(uncompressed, compressed);
+    }
+
+    @Override
+    public int uncompressedLength(ByteBuffer compressed) throws IOException {
+        assert(compressed.isDirect());
+        return Snappy.uncompressedLength(compressed);
+    }
+
+    @Override
+    public int uncompress(ByteBuffer compressed, ByteBuffer uncompressed) throws IOException {
+        assert(compressed.isDirect());
+        assert(uncompressed.isDirect());
+        return Snappy.uncompress(compressed, uncompressed);
+    }
 }
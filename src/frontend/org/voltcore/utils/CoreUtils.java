@@ -48,6 +48,9 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinPool.ForkJoinWorkerThreadFactory;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionHandler;
@@ -617,6 +620,35 @@ public class CoreUtils {
         }
     }
 
+    /**
+     * Create a work stealing pool of daemon threads. Tasks submitted from outside of the pool are run in FIFO
+     * order and exceptions which escape them are logged to the HOST logger.
+     */
+    public static ForkJoinPool getWorkStealingPool(final String name, final int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Must specify > 0 threads");
+        } else if (name == null) {
+            throw new IllegalArgumentException("Name cannot be null");
+        }
+        final AtomicLong createdThreadCount = new AtomicLong(0);
+        final ForkJoinWorkerThreadFactory factory = pool -> {
+            ForkJoinWorkerThread t = new ForkJoinWorkerThread(pool) {
+                @Override
+                protected void onTermination(Throwable exception) {
+                    try {
+                        m_threadLocalDeallocator.run();
+                    } finally {
+                        super.onTermination(exception);
+                    }
+                }
+            };
+            t.setName(name + " - " + createdThreadCount.getAndIncrement());
+            return t;
+        };
+        return new ForkJoinPool(threads, factory,
+                (t, e) -> new VoltLogger("HOST").error("Exception thrown in thread " + t.getName(), e), true);
+    }
+
     /**
      * Create a bounded thread pool executor. The work queue is synchronous and can cause
      * RejectedExecutionException if there is no available thread to take a new task.
@@ -0,0 +1,246 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2022 Volt Active Data Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltcore.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.voltcore.logging.VoltLogger;
+
+import com.google_voltpatches.common.util.concurrent.AbstractListeningExecutorService;
+
+/**
+ * An executor service which runs its tasks one at a time, in submission order, on the threads of
+ * another executor. Many of these can share a small pool in place of a thread each while still
+ * behaving like a single threaded executor: tasks never run concurrently and each task sees the
+ * effects of the tasks before it.
+ * <p>
+ * At most {@code maxBatch} tasks are run before the thread is handed back to the shared executor so
+ * a busy instance cannot starve the others sharing it.
+ * <p>
+ * The time tasks spend queued, from submission until they start running, is tracked and returned by
+ * {@link #getQueueStats(boolean)}.
+ */
+public class SerialExecutorService extends AbstractListeningExecutorService {
+    private static final VoltLogger LOG = new VoltLogger("HOST");
+
+    public static final int DEFAULT_MAX_BATCH = 64;
+
+    /**
+     * Number of tasks run and the time they were queued for since the stats were last reset
+     */
+    public static class QueueStats {
+        public final long m_tasks;
+        public final long m_totalWaitNanos;
+        public final long m_maxWaitNanos;
+
+        QueueStats(long tasks, long totalWaitNanos, long maxWaitNanos) {
+            m_tasks = tasks;
+            m_totalWaitNanos = totalWaitNanos;
+            m_maxWaitNanos = maxWaitNanos;
+        }
+    }
+
+    private static class QueuedTask {
+        final Runnable m_task;
+        final long m_queuedNanos;
+
+        QueuedTask(Runnable task, long queuedNanos) {
+            m_task = task;
+            m_queuedNanos = queuedNanos;
+        }
+    }
+
+    private final String m_name;
+    private final Executor m_executor;
+    private final int m_maxBatch;
+    private final Runnable m_drain = this::drain;
+
+    // All of the following are guarded by m_queue
+    private final ArrayDeque<QueuedTask> m_queue = new ArrayDeque<>();
+    // True while m_drain is submitted to or running on m_executor
+    private boolean m_draining = false;
+    private boolean m_shutdown = false;
+    private long m_tasks = 0;
+    private long m_totalWaitNanos = 0;
+    private long m_maxWaitNanos = 0;
+
+    public SerialExecutorService(String name, Executor executor) {
+        this(name, executor, DEFAULT_MAX_BATCH);
+    }
+
+    /**
+     * @param name     name used when logging exceptions thrown by tasks
+     * @param executor executor which runs the tasks
+     * @param maxBatch maximum number of tasks run before yielding to the other users of {@code executor}
+     */
+    public SerialExecutorService(String name, Executor executor, int maxBatch) {
+        if (maxBatch < 1) {
+            throw new IllegalArgumentException("maxBatch must be positive: " + maxBatch);
+        }
+        m_name = name;
+        m_executor = executor;
+        m_maxBatch = maxBatch;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (command == null) {
+            throw new NullPointerException();
+        }
+        synchronized (m_queue) {
+            if (m_shutdown) {
+                throw new RejectedExecutionException(m_name + " has been shut down");
+            }
+            m_queue.add(new QueuedTask(command, System.nanoTime()));
+            if (m_draining) {
+                return;
+            }
+            m_draining = true;
+        }
+        scheduleDrain();
+    }
+
+    private void scheduleDrain() {
+        try {
+            m_executor.execute(m_drain);
+        } catch (RejectedExecutionException e) {
+            synchronized (m_queue) {
+                m_draining = false;
+                m_queue.notifyAll();
+            }
+            throw e;
+        }
+    }
+
+    private void drain() {
+        for (int i = 0; i < m_maxBatch; ++i) {
+            QueuedTask task;
+            synchronized (m_queue) {
+                task = m_queue.poll();
+                if (task == null) {
+                    m_draining = false;
+                    m_queue.notifyAll();
+                    return;
+                }
+                long waitNanos = System.nanoTime() - task.m_queuedNanos;
+                ++m_tasks;
+                m_totalWaitNanos += waitNanos;
+                if (waitNanos > m_maxWaitNanos) {
+                    m_maxWaitNanos = waitNanos;
+                }
+            }
+            try {
+                task.m_task.run();
+            } catch (Throwable t) {
+                LOG.error("Exception thrown in " + m_name, t);
+            }
+        }
+
+        // Go to the back of the line so other executors get a turn
+        synchronized (m_queue) {
+            if (m_queue.isEmpty()) {
+                m_draining = false;
+                m_queue.notifyAll();
+                return;
+            }
+        }
+        scheduleDrain();
+    }
+
+    /**
+     * @param reset if {@code true} the stats are reset after being returned
+     * @return stats of the tasks which were run since the stats were last reset
+     */
+    public QueueStats getQueueStats(boolean reset) {
+        synchronized (m_queue) {
+            QueueStats stats = new QueueStats(m_tasks, m_totalWaitNanos, m_maxWaitNanos);
+            if (reset) {
+                m_tasks = 0;
+                m_totalWaitNanos = 0;
+                m_maxWaitNanos = 0;
+            }
+            return stats;
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        synchronized (m_queue) {
+            m_shutdown = true;
+            m_queue.notifyAll();
+        }
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        synchronized (m_queue) {
+            m_shutdown = true;
+            List<Runnable> pending = new ArrayList<>(m_queue.size());
+            for (QueuedTask task : m_queue) {
+                pending.add(task.m_task);
+            }
+            m_queue.clear();
+            m_queue.notifyAll();
+            return pending;
+        }
+    }
+
+    @Override
+    public boolean isShutdown() {
+        synchronized (m_queue) {
+            return m_shutdown;
+        }
+    }
+
+    @Override
+    public boolean isTerminated() {
+        synchronized (m_queue) {
+            return isTerminatedLocked();
+        }
+    }
+
+    private boolean isTerminatedLocked() {
+        return m_shutdown && !m_draining && m_queue.isEmpty();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        final long deadline = System.nanoTime() + remaining;
+        synchronized (m_queue) {
+            while (!isTerminatedLocked()) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(m_queue, remaining);
+                remaining = deadline - System.nanoTime();
+            }
+            return true;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return m_name;
+    }
+}
@@ -143,7 +143,8 @@ public class CatalogContext {
 
     /**
      * Constructor especially used during @CatalogContext update when @param hasSchemaChange is false.
-     * When @param hasSchemaChange is true, @param defaultProcManager and @param plannerTool will be created as new.
+     * When @param hasSchemaChange is true, @param defaultProcManager and @param plannerTool will be created as new,
+     * keeping the cached ad hoc plans of @param plannerTool that do not depend on the changed tables and functions.
      * Otherwise, it will try to use the ones passed in to save CPU cycles for performance reason.
      * @param genId
      * @param catalog
@@ -192,6 +193,10 @@ public class CatalogContext {
         if (hasSchemaChange) {
             m_defaultProcs = new DefaultProcedureManager(database);
             m_ptool = new PlannerTool(database, m_catalogInfo.m_catalogHash);
+            // Keep the ad hoc plans that are not affected by the schema change
+            if (plannerTool != null) {
+                m_ptool.retainCachedPlans(plannerTool);
+            }
         } else {
             m_defaultProcs = defaultProcManager;
             m_ptool = plannerTool.updateWhenNoSchemaChange(database, m_catalogInfo.m_catalogHash);
@@ -19,11 +19,13 @@ package org.voltdb;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.util.concurrent.TimeUnit;
 
 import org.json_voltpatches.JSONException;
 import org.json_voltpatches.JSONString;
 import org.json_voltpatches.JSONStringer;
+import org.json_voltpatches.JSONWriter;
 import org.voltcore.utils.Pair;
 import org.voltdb.client.ClientResponse;
 import org.voltdb.common.Constants;
@@ -267,6 +269,48 @@ public class ClientResponseImpl implements ClientResponse, JSONString {
      * @return buf to allow call chaining.
      */
     public ByteBuffer flattenToBuffer(ByteBuffer buf) {
+        flattenHeaderToBuffer(buf);
+        for (VoltTable vt : results)
+        {
+            vt.flattenToBuffer(buf);
+        }
+        return buf;
+    }
+
+    /**
+     * Write the same bytes as {@link #flattenToBuffer(ByteBuffer)} to {@code out} without first
+     * copying the result tables into one buffer. Each table is written straight from its own buffer.
+     *
+     * @return the number of bytes written, the same as {@link #getSerializedSize()}
+     */
+    public int writeTo(WritableByteChannel out) throws IOException {
+        int size = getSerializedSize();
+        int headerSize = size;
+        for (VoltTable vt : results) {
+            headerSize -= vt.getSerializedSize();
+        }
+        ByteBuffer header = ByteBuffer.allocate(headerSize);
+        flattenHeaderToBuffer(header).flip();
+        writeFully(out, header);
+
+        ByteBuffer tableLength = ByteBuffer.allocate(4);
+        for (VoltTable vt : results) {
+            ByteBuffer table = vt.getBuffer();
+            tableLength.clear();
+            tableLength.putInt(table.remaining()).flip();
+            writeFully(out, tableLength);
+            writeFully(out, table);
+        }
+        return size;
+    }
+
+    private static void writeFully(WritableByteChannel out, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            out.write(buf);
+        }
+    }
+
+    private ByteBuffer flattenHeaderToBuffer(ByteBuffer buf) {
         assert setProperly;
         buf.put((byte)0); //version
         buf.putLong(clientHandle);
@@ -300,10 +344,6 @@ public class ClientResponseImpl implements ClientResponse, JSONString {
             }
         }
         buf.putShort((short) results.length);
-        for (VoltTable vt : results)
-        {
-            vt.flattenToBuffer(buf);
-        }
         return buf;
     }
 
@@ -371,20 +411,7 @@ public class ClientResponseImpl implements ClientResponse, JSONString {
     public String toJSONString() {
         JSONStringer js = new JSONStringer();
         try {
-            js.object();
-
-            js.keySymbolValuePair(JSON_STATUS_KEY, status);
-            js.keySymbolValuePair(JSON_APPSTATUS_KEY, appStatus);
-            js.keySymbolValuePair(JSON_STATUSSTRING_KEY, statusString);
-            js.keySymbolValuePair(JSON_APPSTATUSSTRING_KEY, appStatusString);
-            js.key(JSON_RESULTS_KEY);
-            js.array();
-            for (VoltTable o : results) {
-                js.value(o);
-            }
-            js.endArray();
-
-            js.endObject();
+            toJSONWriter(js);
         }
         catch (JSONException e) {
             e.printStackTrace();
@@ -393,6 +420,36 @@ public class ClientResponseImpl implements ClientResponse, JSONString {
         return js.toString();
     }
 
+    /**
+     * Write the JSON representation returned by {@link #toJSONString()} to a {@link JSONWriter}.
+     * Result tables are written one row at a time instead of being turned into strings first.
+     *
+     * @param js {@link JSONWriter} to write this response to
+     * @return {@code js}
+     * @throws JSONException If there was an error generating the JSON or writing it out
+     */
+    public JSONWriter toJSONWriter(JSONWriter js) throws JSONException {
+        js.object();
+
+        js.keySymbolValuePair(JSON_STATUS_KEY, status);
+        js.keySymbolValuePair(JSON_APPSTATUS_KEY, appStatus);
+        js.keySymbolValuePair(JSON_STATUSSTRING_KEY, statusString);
+        js.keySymbolValuePair(JSON_APPSTATUSSTRING_KEY, appStatusString);
+        js.key(JSON_RESULTS_KEY);
+        js.array();
+        for (VoltTable o : results) {
+            if (o == null) {
+                js.valueNull();
+            } else {
+                o.toJSONWriter(js);
+            }
+        }
+        js.endArray();
+
+        js.endObject();
+        return js;
+    }
+
     public void dropResultTable() {
         results = new VoltTable[] {};
     }
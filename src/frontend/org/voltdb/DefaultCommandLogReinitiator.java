@@ -17,18 +17,71 @@
 
 package org.voltdb;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.json_voltpatches.JSONObject;
+import org.voltcore.logging.VoltLogger;
+import org.voltcore.messaging.HostMessenger;
+import org.voltcore.utils.CoreUtils;
 import org.voltcore.utils.InstanceId;
+import org.voltcore.zk.ZKCountdownLatch;
+import org.voltdb.client.ClientResponse;
+import org.voltdb.commandlog.CommandLogReader;
 import org.voltdb.dtxn.TransactionCreator;
+import org.voltdb.iv2.Cartographer;
+import org.voltdb.iv2.MpInitiator;
+import org.voltdb.iv2.TxnEgo;
+import org.voltdb.messaging.Iv2InitiateTaskMessage;
 
 /**
- * The default command log reinitiator for community edition VoltDB.
+ * The default command log reinitiator for community edition VoltDB. It replays the segments
+ * written by {@link org.voltdb.commandlog.GroupCommitCommandLog}, if there are any.
+ * <p>
+ * Every host replays the single partition transactions of the partitions it leads and places
+ * sentinels for the multi-partition transactions in their streams. The host of the MPI
+ * initiates the multi-partition transactions, in unique ID order, and ends the log once all
+ * hosts are done.
  */
 public class DefaultCommandLogReinitiator implements CommandLogReinitiator
 {
+    private static final VoltLogger LOG = new VoltLogger("LOGGING");
+
+    // null without a command log
+    private final CommandLogReader m_reader;
+    private final HostMessenger m_messenger;
     private Callback m_callback;
+    private TransactionCreator m_initiator;
+    private boolean m_isMpiNode = false;
+    private Map<Integer, Long> m_snapshotSpHandles = Collections.emptyMap();
+    private long m_snapshotMpTxnId = Long.MIN_VALUE;
+
+    private final AtomicLong m_replayedTxns = new AtomicLong();
+    private long m_outstandingTxns = 0;
+
+    public DefaultCommandLogReinitiator() {
+        m_reader = null;
+        m_messenger = null;
+    }
+
+    /**
+     * @param messenger host messenger to synchronize the end of replay with the other hosts
+     * @param clPath    command log directory
+     */
+    public DefaultCommandLogReinitiator(HostMessenger messenger, String clPath) throws IOException {
+        m_messenger = messenger;
+        m_reader = CommandLogReader.open(new File(clPath));
+        if (!m_reader.isEmpty()) {
+            LOG.info("Found " + m_reader.getSegmentCount() + " command log segments to replay in " + clPath);
+        }
+    }
 
     @Override
     public void setCallback(Callback callback) {
@@ -40,34 +93,153 @@ public class DefaultCommandLogReinitiator implements CommandLogReinitiator
         new Thread(new Runnable() {
             @Override
             public void run() {
+                // Hosts without segments still have to take part in ending the log
+                if (m_reader != null && m_initiator != null) {
+                    try {
+                        replayLog();
+                    } catch (Exception e) {
+                        VoltDB.crashLocalVoltDB("Failed to replay the command log", true, e);
+                    }
+                }
                 if (m_callback != null) {
                     m_callback.onReplayCompletion();
                 }
             }
-        }).start();
+        }, "Command Log Replay").start();
+    }
+
+    private void replayLog() throws Exception {
+        final SimpleClientResponseAdapter adapter =
+                new SimpleClientResponseAdapter(ClientInterface.CL_REPLAY_BASE_CID, "CommandLogReplayAdapter");
+        m_initiator.bindAdapter(adapter);
+        final SimpleClientResponseAdapter.Callback responseCallback = this::handleResponse;
+
+        final Cartographer cartographer = VoltDB.instance().getCartographer();
+        final int hostId = m_messenger.getHostId();
+        final Set<Integer> ledPartitions = new HashSet<>();
+        for (int partition : cartographer.getPartitions()) {
+            Long master = cartographer.getHSIdForMaster(partition);
+            if (master != null && CoreUtils.getHostIdFromHSId(master) == hostId) {
+                ledPartitions.add(partition);
+            }
+        }
+
+        // Every involved partition logged the multi-partition transactions, keep one copy of each
+        final TreeMap<Long, Iv2InitiateTaskMessage> mpTxns = new TreeMap<>();
+        m_reader.forEachInitiation((spHandle, involvedPartitions, message) -> {
+            int partition = TxnEgo.getPartitionId(spHandle);
+            Long snapshotSpHandle = m_snapshotSpHandles.get(partition);
+            if (snapshotSpHandle != null && spHandle <= snapshotSpHandle) {
+                // Already in the restored snapshot
+                return;
+            }
+            if (!message.isSinglePartition()) {
+                if (m_isMpiNode && message.getTxnId() > m_snapshotMpTxnId) {
+                    // Only the lowest site logs the full @UpdateCore invocation
+                    mpTxns.merge(message.getUniqueId(), message,
+                            (a, b) -> a.getSerializedSize() >= b.getSerializedSize() ? a : b);
+                }
+                if (ledPartitions.contains(partition)) {
+                    m_initiator.sendSentinel(message.getUniqueId(), partition);
+                }
+            } else if (ledPartitions.contains(partition)) {
+                initiate(adapter, responseCallback, message, partition);
+            }
+        });
+        for (Iv2InitiateTaskMessage message : mpTxns.values()) {
+            initiate(adapter, responseCallback, message, MpInitiator.MP_INIT_PID);
+        }
+
+        // The MPI can only end the log once all sentinels were sent
+        ZKCountdownLatch replayed = new ZKCountdownLatch(m_messenger.getZK(), VoltZK.commandlog_replay_barrier,
+                m_messenger.getLiveHostIds().size());
+        replayed.countDown(true);
+        replayed.await();
+        if (m_isMpiNode) {
+            m_initiator.sendEOLMessage(MpInitiator.MP_INIT_PID);
+        }
+
+        synchronized (this) {
+            while (m_outstandingTxns > 0) {
+                wait();
+            }
+        }
+        LOG.info("Replayed " + m_replayedTxns.get() + " transactions from the command log");
+    }
+
+    private void initiate(SimpleClientResponseAdapter adapter, SimpleClientResponseAdapter.Callback callback,
+            Iv2InitiateTaskMessage message, int partition) {
+        StoredProcedureInvocation invocation = message.getStoredProcedureInvocation();
+        invocation.setClientHandle(adapter.registerCallback(callback));
+        synchronized (this) {
+            ++m_outstandingTxns;
+        }
+        CreateTransactionResult result = m_initiator.createTransaction(adapter.connectionId(),
+                message.getTxnId(), message.getUniqueId(), invocation, message.isReadOnly(),
+                message.isSinglePartition(), message.isEveryPartition(), partition,
+                invocation.getSerializedSize(), System.nanoTime());
+        if (result != CreateTransactionResult.SUCCESS) {
+            LOG.warn("Failed to replay " + invocation.getProcName() + " from the command log: " + result);
+            txnDone();
+        }
+    }
+
+    private void handleResponse(ClientResponse response) {
+        if (response.getStatus() == ClientResponse.SUCCESS) {
+            m_replayedTxns.incrementAndGet();
+        } else if (LOG.isDebugEnabled()) {
+            // Replayed transactions fail the way they did the first time, or are ignored
+            LOG.debug("Replayed transaction completed with " + response.getStatusString());
+        }
+        txnDone();
+    }
+
+    private synchronized void txnDone() {
+        if (--m_outstandingTxns == 0) {
+            notifyAll();
+        }
     }
 
     @Override
     public boolean hasReplayedSegments() {
-        return false;
+        return m_reader != null && !m_reader.isEmpty();
     }
 
     @Override
     public Long getMaxLastSeenTxn() {
-        return null;
+        Map<Integer, Long> truncated = getMaxLastSeenTxnByPartition();
+        if (truncated == null) {
+            return null;
+        }
+        return truncated.values().stream().max(Long::compare).orElse(Long.MIN_VALUE);
     }
 
     @Override
     public Map<Integer, Long> getMaxLastSeenTxnByPartition() {
-        return null;
+        if (!hasReplayedSegments()) {
+            return null;
+        }
+        Map<Integer, Long> truncated = new HashMap<>(m_reader.getTruncationSpHandles());
+        truncated.remove(MpInitiator.MP_INIT_PID);
+        return truncated;
     }
 
     @Override
     public void setSnapshotTxnId(RestoreAgent.SnapshotInfo info) {
+        if (info != null) {
+            m_snapshotSpHandles = info.partitionToTxnId;
+            m_snapshotMpTxnId = info.txnId;
+        } else {
+            m_snapshotSpHandles = Collections.emptyMap();
+            m_snapshotMpTxnId = Long.MIN_VALUE;
+        }
     }
 
     @Override
     public void returnAllSegments() {
+        if (m_reader != null) {
+            m_reader.deleteSegments();
+        }
     }
 
     @Override
@@ -75,23 +247,46 @@ public class DefaultCommandLogReinitiator implements CommandLogReinitiator
 
     @Override
     public boolean hasReplayedTxns() {
-        return false;
+        return m_replayedTxns.get() > 0;
     }
 
     @Override
     public void generateReplayPlan(long snapshotTimeStamp, long snapshotTxnId,
             int newPartitionCount, boolean isMpiNode, JSONObject elasticOperationMetadata) {
+        m_isMpiNode = isMpiNode;
+        if (!hasReplayedSegments()) {
+            return;
+        }
+        // Transactions are replayed on the partitions they were logged by, none can be skipped
+        int loggedPartitionCount;
+        try {
+            loggedPartitionCount = m_reader.getClusterPartitionCount();
+        } catch (IOException e) {
+            VoltDB.crashLocalVoltDB("Unable to replay the command log: " + e.getMessage(), false, e);
+            return;
+        }
+        if (newPartitionCount <= 0 && VoltDB.instance().getCartographer() != null) {
+            // The snapshot did not record a topology change
+            newPartitionCount = VoltDB.instance().getCartographer().getPartitionCount();
+        }
+        if (loggedPartitionCount > 0 && newPartitionCount > 0 && loggedPartitionCount != newPartitionCount) {
+            VoltDB.crashLocalVoltDB("Unable to replay the command log: it was written by a cluster with " +
+                    loggedPartitionCount + " partitions but the database is being recovered with " +
+                    newPartitionCount + " partitions. Recover with the same number of partitions.",
+                    false, null);
+        }
     }
 
     @Override
     public void setInitiator(TransactionCreator initiator) {
+        m_initiator = initiator;
     }
 
     @Override
     public InstanceId getInstanceId() {
         // When we don't have a command log, return null to cause the instance ID
         // check to get skipped entirely in RestoreAgent.generatePlans()
-        return null;
+        return m_reader == null ? null : m_reader.getInstanceId();
     }
 
     @Override
@@ -42,13 +42,13 @@ import org.voltcore.utils.CoreUtils;
 import org.voltcore.utils.DBBPool;
 import org.voltcore.utils.DBBPool.BBContainer;
 import org.voltcore.utils.RateLimitedLogger;
+import org.voltcore.utils.SerialExecutorService;
 import org.voltdb.utils.CompressionService;
 import org.voltdb.utils.PosixAdvise;
 
 import com.google_voltpatches.common.util.concurrent.Callables;
 import com.google_voltpatches.common.util.concurrent.Futures;
 import com.google_voltpatches.common.util.concurrent.ListenableFuture;
-import com.google_voltpatches.common.util.concurrent.ListeningExecutorService;
 import com.google_voltpatches.common.util.concurrent.ListeningScheduledExecutorService;
 import com.google_voltpatches.common.util.concurrent.MoreExecutors;
 
@@ -89,7 +89,8 @@ public class DefaultSnapshotDataTarget extends NativeSnapshotDataTarget {
     private final Condition m_noMoreOutstandingWriteTasksCondition =
             m_outstandingWriteTasksLock.newCondition();
 
-    private static final ListeningExecutorService m_es = CoreUtils.getListeningSingleThreadExecutor("Snapshot write service ");
+    // Writes the blocks of this target in order on the threads shared by all targets
+    private final SerialExecutorService m_es;
     static final ListeningScheduledExecutorService m_syncService = MoreExecutors.listeningDecorator(
             Executors.newSingleThreadScheduledExecutor(CoreUtils.getThreadFactory("Snapshot sync service")));
 
@@ -112,6 +113,7 @@ public class DefaultSnapshotDataTarget extends NativeSnapshotDataTarget {
         super(isReplicated);
 
         m_file = file;
+        m_es = createWriteExecutor("Snapshot write service " + file);
         m_fos = new FileOutputStream(file);
         m_channel = channelOperator.apply(m_fos.getChannel());
 
@@ -240,6 +242,7 @@ public class DefaultSnapshotDataTarget extends NativeSnapshotDataTarget {
 
             m_channel.force(false);
         } finally {
+            m_es.shutdown();
             s_bytesAllowedBeforeSync.release(m_bytesWrittenSinceLastSync.getAndSet(0));
             m_channel.close();
         }
@@ -293,7 +296,10 @@ public class DefaultSnapshotDataTarget extends NativeSnapshotDataTarget {
              * that is 16 bytes, but 4 of those are done by CompressionService
              */
             cont.b().position(12);
-            compressionTask = CompressionService.compressAndCRC32cBufferAsync(tupleData, cont);
+            compressionTask = getCompressionExecutor().submit(() -> {
+                CompressionService.compressAndCRC32cBuffer(tupleData, cont);
+                return cont;
+            });
         }
         final Future<BBContainer> compressionTaskFinal = compressionTask;
 
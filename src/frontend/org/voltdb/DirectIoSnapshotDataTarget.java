@@ -23,22 +23,21 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.LinkedTransferQueue;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.UnaryOperator;
 
 import org.voltcore.utils.Bits;
 import org.voltcore.utils.DBBPool;
+import org.voltcore.utils.SerialExecutorService;
 import org.voltdb.utils.CompressionService;
 import org.voltdb.utils.DirectIoFileChannel;
 import org.voltdb.utils.VoltSnapshotFile;
@@ -60,13 +59,6 @@ import com.google_voltpatches.common.util.concurrent.SettableFuture;
  */
 class DirectIoSnapshotDataTarget extends NativeSnapshotDataTarget {
     private static final int s_pageSize = Bits.pageSize();
-    /** Used by {@link CompressTask} to perform compression of table blocks and {@link #flushCurrentWrite()} */
-    private static final ExecutorService s_compressionExecutor = Executors.newSingleThreadExecutor(
-            r -> new Thread(r, DirectIoSnapshotDataTarget.class.getSimpleName() + "-compressor"));
-
-    /** Used by {@link #writeOutstandingBuffers() } to write buffers to the file target */
-    private static final ScheduledExecutorService s_writeExecutor = Executors.newSingleThreadScheduledExecutor(
-            r -> new Thread(r, DirectIoSnapshotDataTarget.class.getSimpleName() + "-writer"));
 
     static final int s_forceWriteOutstandingCount = Integer.getInteger("SNAPSHOT_FORCE_WRITE_BUFFER_COUNT", 4);
 
@@ -76,13 +68,20 @@ class DirectIoSnapshotDataTarget extends NativeSnapshotDataTarget {
     private final FileChannel m_channel;
     // Keep a cache of the first page around to write the complete bit. This is necessary because there is no page cache
     private final DBBPool.BBContainer m_firstPage;
-    // Buffer to reuse as the target of compression
-    private DBBPool.BBContainer m_compressedBuffer;
+    /**
+     * Blocks in the order they were submitted. Blocks are compressed concurrently by the shared compression executor
+     * and then committed to the page aligned buffers in this order by {@link #m_committer}. Guarded by itself.
+     */
+    private final ArrayDeque<PendingCommit> m_pendingCommits = new ArrayDeque<>();
+    /** Runs {@link #commitReadyBlocks()} one at a time for this target */
+    private final SerialExecutorService m_committer;
+    /** Used by {@link #writeOutstandingBuffers() } to write buffers to the file target */
+    private final SerialExecutorService m_writer;
     // Current outstanding write that is being populated by CompressTask
     private OutstandingWrite m_currentWrite;
     private volatile Exception m_writeException;
 
-    // Only can be modified by CompressTask
+    // Only can be modified by CompressTask.commit()
     int m_writesQueuedSinceListSubmit = 0;
 
     private volatile long m_bytesWritten;
@@ -134,6 +133,8 @@ class DirectIoSnapshotDataTarget extends NativeSnapshotDataTarget {
         m_pool = pool.reference();
         m_path = path;
         m_channel = channelOperator.apply(DirectIoFileChannel.open(path));
+        m_committer = new SerialExecutorService("Snapshot compression " + path, getCompressionExecutor());
+        m_writer = createWriteExecutor("Snapshot write service " + path);
 
         m_firstPage = serializeHeader(DirectIoSnapshotDataTarget::allocateContainer, hostId, clusterName, databaseName,
                 tableName, numPartitions, isReplicated, partitionIds, schemaBytes, txnId, timestamp, version);
@@ -157,7 +158,10 @@ class DirectIoSnapshotDataTarget extends NativeSnapshotDataTarget {
                 return Futures.immediateFailedFuture(m_writeException);
             }
             CompressTask task = new CompressTask(container);
-            s_compressionExecutor.execute(task);
+            synchronized (m_pendingCommits) {
+                m_pendingCommits.add(task);
+            }
+            getCompressionExecutor().execute(task);
             return task.m_future;
         } catch (Throwable t) {
             return Futures.immediateFailedFuture(t);
@@ -167,11 +171,21 @@ class DirectIoSnapshotDataTarget extends NativeSnapshotDataTarget {
     @Override
     public void close() throws IOException, InterruptedException {
         try {
-            // Make sure that anything submitted to the compressor has been processed
-            int subtractFromFileSize = s_compressionExecutor.submit(this::flushCurrentWrite).get();
+            // Make sure that every block has been compressed and committed before the last page is flushed
+            SettableFuture<Integer> flushed = SettableFuture.create();
+            synchronized (m_pendingCommits) {
+                m_pendingCommits.add(new PendingCommit(true) {
+                    @Override
+                    void commit() {
+                        flushed.set(flushCurrentWrite());
+                    }
+                });
+            }
+            m_committer.execute(this::commitReadyBlocks);
+            int subtractFromFileSize = flushed.get();
 
             // Make sure any remaining writes have been performed
-            s_writeExecutor.submit(this::writeOutstandingBuffers).get();
+            m_writer.submit(this::writeOutstandingBuffers).get();
 
             if (m_writeException == null && m_reportedSerializationFailure == null) {
                 // The last write will round up to page size so the final size of the file needs to be reduced
@@ -193,9 +207,8 @@ class DirectIoSnapshotDataTarget extends NativeSnapshotDataTarget {
             Throwables.propagateIfPossible(e.getCause(), IOException.class);
             throw new RuntimeException(e);
         } finally {
-            if (m_compressedBuffer != null) {
-                m_compressedBuffer.discard();
-            }
+            m_committer.shutdown();
+            m_writer.shutdown();
             m_firstPage.discard();
             m_pool.dereference();
 
@@ -264,6 +277,23 @@ class DirectIoSnapshotDataTarget extends NativeSnapshotDataTarget {
         }
     }
 
+    /**
+     * Commit blocks from the head of {@link #m_pendingCommits} until one is reached which is not ready
+     */
+    private void commitReadyBlocks() {
+        while (true) {
+            PendingCommit pending;
+            synchronized (m_pendingCommits) {
+                pending = m_pendingCommits.peek();
+                if (pending == null || !pending.m_ready) {
+                    return;
+                }
+                m_pendingCommits.poll();
+            }
+            pending.commit();
+        }
+    }
+
     /**
      * If {@link #m_currentWrite} is not null round the buffer up to page size and enqueue the write
      *
@@ -286,19 +316,37 @@ class DirectIoSnapshotDataTarget extends NativeSnapshotDataTarget {
         return roundedUpSize;
     }
 
+    /**
+     * An entry in {@link #m_pendingCommits} which is committed by {@link #commitReadyBlocks()} once it is ready and all
+     * entries before it have been committed
+     */
+    private abstract static class PendingCommit {
+        volatile boolean m_ready;
+
+        PendingCommit(boolean ready) {
+            m_ready = ready;
+        }
+
+        abstract void commit();
+    }
+
     /**
      * Utility class for compressing a table block and adding the header to the compressed into the current active page
-     * aligned memory
+     * aligned memory. Compression runs concurrently with other blocks while copying into the page aligned memory is
+     * done in submission order by {@link #commit()}.
      */
-    private final class CompressTask implements Runnable {
+    private final class CompressTask extends PendingCommit implements Runnable {
         // Uncompressed data has a partitionID prefix which doesn't get compressed
         private static final int s_uncompressedHeaderSize = Integer.BYTES;
         private static final int s_compressedHeaderSize = s_uncompressedHeaderSize + Integer.BYTES * 2;
 
         final DBBPool.BBContainer m_container;
         final SettableFuture<?> m_future = SettableFuture.create();
+        private DBBPool.BBContainer m_compressedContainer;
+        private Throwable m_failure;
 
         CompressTask(DBBPool.BBContainer container) {
+            super(false);
             m_container = container;
         }
 
@@ -306,15 +354,11 @@ class DirectIoSnapshotDataTarget extends NativeSnapshotDataTarget {
         public void run() {
             try {
                 if (m_writeException != null) {
-                    m_future.setException(m_writeException);
                     return;
                 }
 
-                DBBPool.BBContainer compressedContainer = m_compressedBuffer;
-                if (compressedContainer == null) {
-                    m_compressedBuffer = compressedContainer = DBBPool
-                            .allocateDirectAndPool(SnapshotSiteProcessor.m_snapshotBufferCompressedLen);
-                }
+                DBBPool.BBContainer compressedContainer = m_compressedContainer = DBBPool
+                        .allocateDirectAndPool(SnapshotSiteProcessor.m_snapshotBufferCompressedLen);
 
                 // Set up buffers to start reading and writing after the respective headers
                 ByteBuffer compressed = compressedContainer.b();
@@ -332,13 +376,36 @@ class DirectIoSnapshotDataTarget extends NativeSnapshotDataTarget {
                 // Copy the partitionID from the uncompressed buffer
                 compressed.putInt(uncompressed.getInt(uncompressedOriginalPosition));
 
-                ByteBuffer toCrc = compressed.asReadOnlyBuffer();
-                toCrc.flip();
                 int crc = DBBPool.getCRC32C(compressedContainer.address(), 0, Integer.BYTES * 2);
                 compressed.putInt(crc);
 
-                // Rewind to fill in the current write buffer
+                // Rewind so commit can fill in the current write buffer
                 compressed.rewind();
+            } catch (Throwable t) {
+                m_failure = t;
+            } finally {
+                m_container.discard();
+                m_ready = true;
+                m_committer.execute(DirectIoSnapshotDataTarget.this::commitReadyBlocks);
+            }
+        }
+
+        @Override
+        void commit() {
+            try {
+                if (m_failure != null) {
+                    if (m_failure instanceof IOException) {
+                        m_writeException = (IOException) m_failure;
+                    }
+                    m_future.setException(m_failure);
+                    return;
+                }
+                if (m_writeException != null) {
+                    m_future.setException(m_writeException);
+                    return;
+                }
+
+                ByteBuffer compressed = m_compressedContainer.b();
 
                 // Keep copying the data from compressed buffer to page aligned buffer until it is all copied
                 OutstandingWrite currentWrite = m_currentWrite;
@@ -377,18 +444,17 @@ class DirectIoSnapshotDataTarget extends NativeSnapshotDataTarget {
 
                         // If there are enough outstanding writes force a write
                         if (++m_writesQueuedSinceListSubmit >= s_forceWriteOutstandingCount) {
-                            s_writeExecutor.execute(DirectIoSnapshotDataTarget.this::writeOutstandingBuffers);
+                            m_writer.execute(DirectIoSnapshotDataTarget.this::writeOutstandingBuffers);
                             m_writesQueuedSinceListSubmit = 0;
                         }
                     }
                 } while (compressed.hasRemaining());
-            } catch (IOException e) {
-                m_writeException = e;
-                m_future.setException(e);
             } catch (Throwable t) {
                 m_future.setException(t);
             } finally {
-                m_container.discard();
+                if (m_compressedContainer != null) {
+                    m_compressedContainer.discard();
+                }
             }
         }
     }
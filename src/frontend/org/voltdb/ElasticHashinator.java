@@ -42,6 +42,7 @@ import org.json_voltpatches.JSONStringer;
 import org.voltcore.utils.Bits;
 import org.voltcore.utils.Pair;
 import org.voltcore.utils.VoltUnsafe;
+import org.voltdb.client.HashinatorLookupTable;
 import org.voltdb.utils.CompressionService;
 
 import com.google_voltpatches.common.base.Preconditions;
@@ -82,6 +83,8 @@ public class ElasticHashinator extends TheHashinator {
      */
     private final long m_tokens;
     private final int m_tokenCount;
+    // Null when the whole ring is searched instead
+    private final HashinatorLookupTable m_lookupTable;
 
     // Provide a hook for the GC
     @SuppressWarnings("unused")
@@ -133,6 +136,7 @@ public class ElasticHashinator extends TheHashinator {
         m_tokens = p.getFirst();
         m_tokenCount = p.getSecond();
         m_cleaner = CLEANER.register(this, new Deallocator(m_tokens, m_tokenCount * 8));
+        m_lookupTable = HashinatorLookupTable.create(m_tokens, m_tokenCount);
         m_configBytes = !cooked ? Suppliers.ofInstance(configBytes) : m_configBytesSupplier;
         m_cookedBytes = cooked ? Suppliers.ofInstance(configBytes) : m_cookedBytesSupplier;
         m_tokensMap =  Suppliers.memoize(new Supplier<ImmutableSortedMap<Integer, Integer>>() {
@@ -178,6 +182,7 @@ public class ElasticHashinator extends TheHashinator {
             ii++;
         }
         m_tokenCount = tokens.size();
+        m_lookupTable = HashinatorLookupTable.create(m_tokens, m_tokenCount);
         m_configBytes = m_configBytesSupplier;
         m_cookedBytes = m_cookedBytesSupplier;
     }
@@ -294,7 +299,10 @@ public class ElasticHashinator extends TheHashinator {
      * it wraps around to the last token in the ring closest to Long.MAX_VALUE
      */
     public int partitionForToken(int hash) {
-        long token = getTokenPtr(hash);
+        if (m_lookupTable != null) {
+            return m_lookupTable.partitionForToken(hash);
+        }
+        long token = HashinatorLookupTable.searchTokens(m_tokens, 0, m_tokenCount - 1, hash);
         return Bits.unsafe.getInt(token + 4);
     }
 
@@ -598,26 +606,6 @@ public class ElasticHashinator extends TheHashinator {
         return Pair.of(tokens, numEntries);
     }
 
-    private long getTokenPtr(int hash) {
-        int min = 0;
-        int max = m_tokenCount - 1;
-
-        while (min <= max) {
-            int mid = (min + max) >>> 1;
-            final long midPtr = m_tokens + (8 * mid);
-            int midval = Bits.unsafe.getInt(midPtr);
-
-            if (midval < hash) {
-                min = mid + 1;
-            } else if (midval > hash) {
-                max = mid - 1;
-            } else {
-                return midPtr;
-            }
-        }
-        return m_tokens + (min - 1) * 8;
-    }
-
     /**
      * Update from optimized (cooked) wire format.
      *      token-1 token-2 ...
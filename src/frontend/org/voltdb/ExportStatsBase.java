@@ -39,10 +39,14 @@ public class ExportStatsBase extends StatsSource {
         public final long m_maxLatency;
         public final long m_queueGap;
         public final String m_status;
+        // Time tasks of the source waited for an export executor thread, in microseconds
+        public final long m_averageSchedulingDelay;
+        public final long m_maxSchedulingDelay;
 
         public ExportStatsRow(int partitionId, int siteId, String sourceName, String exportTarget, String exportingRole,
                 long tupleCount, long tuplesPending, long lastQueuedTimestamp, long lastAckedTimestamp,
-                long averageLatency, long maxLatency, long queueGap, String status) {
+                long averageLatency, long maxLatency, long queueGap, String status,
+                long averageSchedulingDelay, long maxSchedulingDelay) {
             m_partitionId = partitionId;
             m_siteId = siteId;
             m_sourceName = sourceName;
@@ -56,6 +60,8 @@ public class ExportStatsBase extends StatsSource {
             m_maxLatency = maxLatency;
             m_queueGap = queueGap;
             m_status = status;
+            m_averageSchedulingDelay = averageSchedulingDelay;
+            m_maxSchedulingDelay = maxSchedulingDelay;
         }
     }
 
@@ -72,7 +78,9 @@ public class ExportStatsBase extends StatsSource {
         AVERAGE_LATENCY             (VoltType.BIGINT),
         MAX_LATENCY                 (VoltType.BIGINT),
         QUEUE_GAP                   (VoltType.BIGINT),
-        STATUS                      (VoltType.STRING);
+        STATUS                      (VoltType.STRING),
+        AVERAGE_SCHEDULING_DELAY    (VoltType.BIGINT),
+        MAX_SCHEDULING_DELAY        (VoltType.BIGINT);
 
         public final VoltType m_type;
         Export(VoltType type) { m_type = type; }
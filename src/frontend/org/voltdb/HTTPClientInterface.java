@@ -17,7 +17,10 @@
 
 package org.voltdb;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.util.Timer;
@@ -41,6 +44,8 @@ import org.ietf.jgss.GSSException;
 import org.ietf.jgss.GSSManager;
 import org.ietf.jgss.GSSName;
 import org.ietf.jgss.Oid;
+import org.json_voltpatches.JSONException;
+import org.json_voltpatches.JSONWriter;
 import org.voltcore.logging.Level;
 import org.voltcore.logging.VoltLogger;
 import org.voltcore.utils.EstTime;
@@ -64,11 +69,14 @@ public class HTTPClientInterface {
 
     public static final String QUERY_TIMEOUT_PARAM = "Querytimeout";
     public static final String JSONP = "jsonp";
+    // Clients which accept this content type get the response in the serialized ClientResponseImpl format
+    public static final String BINARY_CONTENT_TYPE = "application/octet-stream";
     public static final Pattern JSONP_PATTERN = Pattern.compile("^[a-zA-Z0-9_$]*$");
     private static final VoltLogger m_log = new VoltLogger("HOST");
     private static final RateLimitedLogger m_rate_limited_log = new RateLimitedLogger(10 * 1000, m_log, Level.WARN);
 
     static final int CACHE_TARGET_SIZE = 10;
+    static final int RESPONSE_BUFFER_SIZE = 8 * 1024;
 
     public static final String PARAM_USERNAME = "User";
     public static final String PARAM_PASSWORD = "Password";
@@ -116,14 +124,17 @@ public class HTTPClientInterface {
         final Continuation m_continuation;
         final String m_jsonp;
         private int m_api_version;
+        private final boolean m_binary;
+        private volatile ClientResponseImpl m_response;
 
-        public JSONProcCallback(Continuation continuation, String jsonp, int api_version) {
+        public JSONProcCallback(Continuation continuation, String jsonp, int api_version, boolean binary) {
             assert continuation != null : "given continuation is null";
 
             m_continuation = continuation;
             m_continuation.addContinuationListener(this);
             m_jsonp = jsonp;
             m_api_version = api_version;
+            m_binary = binary;
         }
 
         @Override
@@ -138,18 +149,9 @@ public class HTTPClientInterface {
                 }
                 return;
             }
-            ClientResponseImpl rimpl = (ClientResponseImpl) clientResponse;
-            String msg = null;
-            if (m_api_version == 1)
-                msg = rimpl.toJSONString();
-            else if (m_api_version == 2)
-                msg = ClientResponseToJsonApiV2.toJSONStringV2(rimpl);
-
-            // handle jsonp pattern
-            // http://en.wikipedia.org/wiki/JSON#The_Basic_Idea:_Retrieving_JSON_via_Script_Tags
-            msg = asJsonp(m_jsonp, msg);
-
-            m_continuation.setAttribute("result", msg);
+            // The response is serialized straight to the client by writeResponse() once the request resumes
+            m_response = (ClientResponseImpl) clientResponse;
+            m_continuation.setAttribute("response", this);
             try {
                 m_continuation.resume();
             } catch (IllegalStateException e) {
@@ -159,6 +161,42 @@ public class HTTPClientInterface {
             }
         }
 
+        /**
+         * Write the procedure response to the client. JSON is written row by row through a small buffer
+         * rather than being built as one string, so large results are not held in memory several times.
+         */
+        void writeResponse(HttpServletResponse response) throws IOException {
+            response.setStatus(HttpServletResponse.SC_OK);
+            if (m_binary) {
+                response.setContentType(BINARY_CONTENT_TYPE);
+                response.setContentLength(m_response.getSerializedSize());
+                m_response.writeTo(Channels.newChannel(response.getOutputStream()));
+                return;
+            }
+
+            Writer out = new BufferedWriter(response.getWriter(), RESPONSE_BUFFER_SIZE);
+            try {
+                // handle jsonp pattern
+                // http://en.wikipedia.org/wiki/JSON#The_Basic_Idea:_Retrieving_JSON_via_Script_Tags
+                if (m_jsonp != null) {
+                    out.write(m_jsonp);
+                    out.write("( ");
+                }
+                JSONWriter js = new JSONWriter(out);
+                if (m_api_version == 2) {
+                    ClientResponseToJsonApiV2.toJSONWriterV2(m_response, js);
+                } else {
+                    m_response.toJSONWriter(js);
+                }
+                if (m_jsonp != null) {
+                    out.write(" )");
+                }
+            } catch (JSONException e) {
+                throw new IOException("Failed to write response as JSON", e);
+            }
+            out.flush();
+        }
+
         @Override
         public void onComplete(Continuation continuation) {
             if(!m_complete.get()) {
@@ -254,6 +292,18 @@ public class HTTPClientInterface {
         }
 
         final Continuation continuation = ContinuationSupport.getContinuation(request);
+        JSONProcCallback completed = (JSONProcCallback)continuation.getAttribute("response");
+        if (completed != null) {
+            try {
+                completed.writeResponse(response);
+                request.setHandled(true);
+            } catch (IllegalStateException | IOException e){
+               // Thrown when we shut down the server via the JSON/HTTP (web studio) API
+               // Essentially we're closing everything down from underneath the HTTP request.
+                m_log.warn("JSON failed to send response: ", e);
+            }
+            return;
+        }
         String result = (String)continuation.getAttribute("result");
         if (result != null) {
             try {
@@ -361,10 +411,12 @@ public class HTTPClientInterface {
             continuation.suspend(response);
             suspended = true;
             JSONProcCallback cb;
+            // jsonp callers are scripts which expect JSON
+            boolean binary = jsonp == null && acceptsBinary(request);
             if (request.getServletPath().equals("/api/2.0"))
-                cb = new JSONProcCallback(continuation, jsonp, 2);
+                cb = new JSONProcCallback(continuation, jsonp, 2, binary);
             else
-                cb = new JSONProcCallback(continuation, jsonp, 1);
+                cb = new JSONProcCallback(continuation, jsonp, 1, binary);
 
             boolean success;
             String hostname = request.getRemoteHost();
@@ -413,6 +465,11 @@ public class HTTPClientInterface {
         }
     }
 
+    private static boolean acceptsBinary(HttpServletRequest request) {
+        String accept = request.getHeader(HttpHeader.ACCEPT.asString());
+        return accept != null && accept.contains(BINARY_CONTENT_TYPE);
+    }
+
     private static int parseIntegerParam(String str, int low, int high) {
         int val = Integer.parseInt(str); // may throw
         if (val < low || val > high) {
@@ -47,6 +47,7 @@ import org.voltcore.utils.Pair;
 import org.voltcore.zk.ZKUtil.ZKCatalogStatus;
 import org.voltdb.catalog.Catalog;
 import org.voltdb.catalog.CatalogException;
+import org.voltdb.commandlog.GroupCommitCommandLog;
 import org.voltdb.common.Constants;
 import org.voltdb.common.NodeState;
 import org.voltdb.compiler.CatalogChangeResult;
@@ -558,12 +559,18 @@ public class Inits {
             assert logConfig != null;
 
             if (logConfig.getEnabled()) {
+                CommandLog commandLog = null;
                 if (m_config.m_isEnterprise) {
-                    m_rvdb.m_commandLog = ProClass.newInstanceOf("org.voltdb.CommandLogImpl", "Command logging",
+                    commandLog = ProClass.newInstanceOf("org.voltdb.CommandLogImpl", "Command logging",
                             ProClass.HANDLER_LOG, logConfig.getSynchronous(), logConfig.getFsyncinterval(),
                             logConfig.getMaxtxns(), VoltDB.instance().getCommandLogPath(),
                             VoltDB.instance().getCommandLogSnapshotPath());
                 }
+                if (commandLog == null) {
+                    commandLog = new GroupCommitCommandLog(logConfig.getSynchronous(), logConfig.getFsyncinterval(),
+                            logConfig.getMaxtxns(), VoltDB.instance().getCommandLogPath());
+                }
+                m_rvdb.m_commandLog = commandLog;
             }
         }
     }
@@ -31,11 +31,13 @@ import org.voltcore.logging.VoltLogger;
 import org.voltcore.utils.CoreUtils;
 import org.voltcore.utils.DBBPool;
 import org.voltcore.utils.DBBPool.BBContainer;
+import org.voltcore.utils.SerialExecutorService;
 import org.voltdb.sysprocs.saverestore.SnapshotPathType;
 import org.voltdb.sysprocs.saverestore.SnapshotUtil;
 import org.voltdb.utils.VoltSnapshotFile;
 
 import com.google_voltpatches.common.annotations.VisibleForTesting;
+import com.google_voltpatches.common.util.concurrent.ListeningExecutorService;
 import com.google_voltpatches.common.util.concurrent.UnsynchronizedRateLimiter;
 
 public abstract class NativeSnapshotDataTarget implements SnapshotDataTarget {
@@ -45,6 +47,11 @@ public abstract class NativeSnapshotDataTarget implements SnapshotDataTarget {
     public static final int SNAPSHOT_FADVISE_BYTES = Integer.getInteger("SNAPSHOT_FADVISE_BYTES", 1024 * 1024 * 2);
     private static final boolean s_enableDirectIoSnapshots = Boolean
             .parseBoolean(System.getProperty("SNAPSHOT_DIRECT_IO", Boolean.FALSE.toString()));
+    /** Number of threads shared by all targets to compress snapshot blocks */
+    public static final int SNAPSHOT_COMPRESSION_THREADS = Integer.getInteger("SNAPSHOT_COMPRESSION_THREADS",
+            Math.max(2, CoreUtils.availableProcessors()));
+    /** Number of threads shared by all targets to write snapshot files. Each target writes its blocks in order */
+    public static final int SNAPSHOT_WRITE_THREADS = Integer.getInteger("SNAPSHOT_WRITE_THREADS", 4);
     private static volatile boolean s_enforceSnapshotRatelimit = true;
     private static final UnsynchronizedRateLimiter s_snapshotRatelimiter;
 
@@ -91,10 +98,39 @@ public abstract class NativeSnapshotDataTarget implements SnapshotDataTarget {
 
     public static void enforceSnapshotRateLimit(int permits) {
         if (s_snapshotRatelimiter != null && s_enforceSnapshotRatelimit) {
-            s_snapshotRatelimiter.acquire(permits);
+            // Targets are written by several threads
+            synchronized (s_snapshotRatelimiter) {
+                s_snapshotRatelimiter.acquire(permits);
+            }
         }
     }
 
+    // Holder so the pools are only created by processes which write snapshots
+    private static final class SnapshotExecutors {
+        static final ListeningExecutorService s_compression = CoreUtils
+                .getListeningExecutorService("Snapshot compression", SNAPSHOT_COMPRESSION_THREADS);
+        static final ListeningExecutorService s_write = CoreUtils
+                .getListeningExecutorService("Snapshot write service", SNAPSHOT_WRITE_THREADS);
+    }
+
+    /**
+     * @return executor which compresses snapshot blocks for all targets
+     */
+    static ListeningExecutorService getCompressionExecutor() {
+        return SnapshotExecutors.s_compression;
+    }
+
+    /**
+     * Create the executor on which a target writes its blocks. Blocks are written one at a time in the order they
+     * are submitted, while the threads writing them are shared with the other targets.
+     *
+     * @param name of the target
+     * @return a new executor for one target
+     */
+    static SerialExecutorService createWriteExecutor(String name) {
+        return new SerialExecutorService(name, SnapshotExecutors.s_write);
+    }
+
     public static void enforceSnapshotRateLimit(boolean enforce) {
         s_enforceSnapshotRatelimit = enforce;
     }
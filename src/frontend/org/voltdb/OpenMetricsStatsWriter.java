@@ -0,0 +1,164 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2022 Volt Active Data Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.voltdb.VoltTable.ColumnInfo;
+
+/**
+ * Renders statistics rows in the OpenMetrics text format.
+ * <p>
+ * Every numeric column of a selector becomes a gauge named {@code voltdb_<selector>_<column>}. String columns and
+ * id columns, like {@code HOST_ID} or {@code PARTITION_ID}, become the labels of the row's samples. The timestamp
+ * and binary columns are left out.
+ */
+public class OpenMetricsStatsWriter implements StatsAgent.StatsRowConsumer {
+    public static final String CONTENT_TYPE = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+
+    private static final String METRIC_PREFIX = "voltdb_";
+    private static final String TIMESTAMP_COLUMN = StatsSource.StatsCommon.TIMESTAMP.name();
+
+    // All samples of a metric family have to be written together so they are grouped until written
+    private final Map<String, StringBuilder> m_families = new LinkedHashMap<>();
+
+    @Override
+    public void accept(StatsSelector selector, List<ColumnInfo> columns, Object[] row) {
+        StringBuilder labels = new StringBuilder();
+        for (int i = 0; i < row.length; ++i) {
+            ColumnInfo column = columns.get(i);
+            if (row[i] != null && isLabel(column)) {
+                labels.append(labels.length() == 0 ? '{' : ',').append(sanitizeName(column.name)).append("=\"");
+                escapeLabelValue(labels, row[i].toString());
+                labels.append('"');
+            }
+        }
+        if (labels.length() > 0) {
+            labels.append('}');
+        }
+
+        final String familyPrefix = METRIC_PREFIX + sanitizeName(selector.name()) + '_';
+        for (int i = 0; i < row.length; ++i) {
+            ColumnInfo column = columns.get(i);
+            if (row[i] == null || !isMetric(column)) {
+                continue;
+            }
+            String family = familyPrefix + sanitizeName(column.name);
+            m_families.computeIfAbsent(family, k -> new StringBuilder()).append(family).append(labels).append(' ')
+                    .append(formatValue(row[i])).append('\n');
+        }
+    }
+
+    /**
+     * Write all of the samples accepted so far followed by the end of the exposition
+     */
+    public void write(Writer out) throws IOException {
+        for (Map.Entry<String, StringBuilder> e : m_families.entrySet()) {
+            out.write("# TYPE ");
+            out.write(e.getKey());
+            out.write(" gauge\n");
+            out.append(e.getValue());
+        }
+        out.write("# EOF\n");
+    }
+
+    private static boolean isLabel(ColumnInfo column) {
+        switch (column.type) {
+        case STRING:
+            return true;
+        case TINYINT:
+        case SMALLINT:
+        case INTEGER:
+        case BIGINT:
+            return column.name.endsWith("_ID");
+        default:
+            return false;
+        }
+    }
+
+    private static boolean isMetric(ColumnInfo column) {
+        switch (column.type) {
+        case TINYINT:
+        case SMALLINT:
+        case INTEGER:
+        case BIGINT:
+            return !column.name.endsWith("_ID") && !TIMESTAMP_COLUMN.equals(column.name);
+        case FLOAT:
+        case DECIMAL:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    private static String formatValue(Object value) {
+        if (value instanceof Double) {
+            double d = (Double) value;
+            if (Double.isNaN(d)) {
+                return "NaN";
+            }
+            if (Double.isInfinite(d)) {
+                return d > 0 ? "+Inf" : "-Inf";
+            }
+        } else if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).toPlainString();
+        }
+        return value.toString();
+    }
+
+    /**
+     * @return {@code name} in lower case with every character which is not allowed in a metric or label name
+     *         replaced by an underscore
+     */
+    static String sanitizeName(String name) {
+        StringBuilder sb = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); ++i) {
+            char c = Character.toLowerCase(name.charAt(i));
+            if ((c >= 'a' && c <= 'z') || c == '_' || (i > 0 && c >= '0' && c <= '9')) {
+                sb.append(c);
+            } else {
+                sb.append('_');
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void escapeLabelValue(StringBuilder sb, String value) {
+        for (int i = 0; i < value.length(); ++i) {
+            char c = value.charAt(i);
+            switch (c) {
+            case '\\':
+                sb.append("\\\\");
+                break;
+            case '"':
+                sb.append("\\\"");
+                break;
+            case '\n':
+                sb.append("\\n");
+                break;
+            default:
+                sb.append(c);
+            }
+        }
+    }
+}
@@ -203,6 +203,26 @@ public class PlannerStatsCollector extends StatsSource {
         }
     }
 
+    /**
+     * Thread safe version of {@link #startStatsCollection()} for planners used by several threads at once.
+     *
+     * @return the start time to pass to {@link #endConcurrentStatsCollection}, or -1 if this invocation is not timed
+     */
+    public synchronized long startConcurrentStatsCollection() {
+        return getInvocations() % m_collectionFrequency == 0 ? System.nanoTime() : -1;
+    }
+
+    /**
+     * Thread safe version of {@link #endStatsCollection} for planners used by several threads at once.
+     *
+     * @param startTime    value returned by {@link #startConcurrentStatsCollection()}
+     */
+    public synchronized void endConcurrentStatsCollection(long startTime, long cache1Size, long cache2Size,
+            CacheUse cacheUse, long partitionId) {
+        m_currentStartTime = startTime < 0 ? null : startTime;
+        endStatsCollection(cache1Size, cache2Size, cacheUse, partitionId);
+    }
+
     /**
      * Called after planning or failing to plan. Records timer and cache stats.
      *
@@ -540,6 +540,8 @@ public class ProcedureRunner {
             m_cachedSingleStmt.expectation = null;
             m_seenFinalBatch = false;
 
+            // results have been copied to the heap by now
+            m_site.releaseResultBuffers();
             m_site.completeProcedure();
         }
 
@@ -1640,7 +1642,9 @@ public class ProcedureRunner {
                 // underlying byte array
                 rawDataBuff = fragResult.buffer();
             } else {
-                rawDataBuff = fragResult.readBuffer(totalSize);
+                // The next batch reuses the buffer, take it over or copy the results out of it
+                ByteBuffer detached = m_site.detachResultBuffer(totalSize);
+                rawDataBuff = detached != null ? detached : fragResult.readBuffer(totalSize);
             }
             results = TableHelper.convertBackedBufferToTables(rawDataBuff, batchSize);
         } catch (Throwable ex) {
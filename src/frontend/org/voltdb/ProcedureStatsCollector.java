@@ -156,22 +156,26 @@ public class ProcedureStatsCollector extends SiteStatsSource {
      * Called after a procedure is finished executing. Compares the start and end time and calculates
      * the statistics.
      *
-     * Synchronized because it modifies internal state and (for NT procs) can be called from multiple
-     * threads. For transactional procs the lock should be uncontended.,
+     * Can be called from multiple threads for NT procs. The counts are lock free so only sampled
+     * invocations, which update the timings and sizes, take the lock.
      */
-    public final synchronized void endProcedure(boolean aborted, boolean failed, SingleCallStatsToken statsToken) {
+    public final void endProcedure(boolean aborted, boolean failed, SingleCallStatsToken statsToken) {
         if (aborted) {
-            m_procStatsData.m_abortCount++;
+            m_procStatsData.m_abortCount.increment();
         }
         if (failed) {
-            m_procStatsData.m_failureCount++;
+            m_procStatsData.m_failureCount.increment();
         }
-        m_procStatsData.m_invocations++;
+        m_procStatsData.m_invocations.increment();
 
         // this means additional stats were not recorded
         if (!statsToken.samplingProcedure()) {
             return;
         }
+        recordSampledProcedure(statsToken);
+    }
+
+    private synchronized void recordSampledProcedure(SingleCallStatsToken statsToken) {
 
         // This is a sampled invocation.
         // Update timings and size statistics.
@@ -237,7 +241,7 @@ public class ProcedureStatsCollector extends SiteStatsSource {
      * This function will be called after a statement finish running.
      * It updates the data structures to maintain the statistics.
      */
-    public final synchronized void endFragment(String stmtName,
+    public final void endFragment(String stmtName,
                                                boolean isCoordinatorTask,
                                                boolean failed,
                                                boolean sampledStmt,
@@ -255,9 +259,9 @@ public class ProcedureStatsCollector extends SiteStatsSource {
         StatsData dataToUpdate = isCoordinatorTask ? stmtStats.m_coordinatorTask : stmtStats.m_workerTask;
         // m_failureCount and m_invocations need to be updated even if the current invocation is not sampled.
         if (failed) {
-            dataToUpdate.m_failureCount++;
+            dataToUpdate.m_failureCount.increment();
         }
-        dataToUpdate.m_invocations++;
+        dataToUpdate.m_invocations.increment();
 
         // If the current invocation is not sampled, we can stop now.
         // Notice that this function can be called by a FragmentTask from a multi-partition procedure.
@@ -265,6 +269,11 @@ public class ProcedureStatsCollector extends SiteStatsSource {
         if (!sampledStmt) {
             return;
         }
+        recordSampledFragment(stmtStats, dataToUpdate, duration, resultSize, parameterSetSize);
+    }
+
+    private synchronized void recordSampledFragment(StatementStats stmtStats, StatsData dataToUpdate,
+            long duration, int resultSize, int parameterSetSize) {
         // This is a sampled invocation.
         // Update timings and size statistics below.
         if (duration < 0) {
@@ -318,13 +327,13 @@ public class ProcedureStatsCollector extends SiteStatsSource {
         assert(currRow != null);
         rowValues[offset + ProcedureColumns.STATEMENT.ordinal()] = currRow.m_stmtName;
 
-        long invocations = currRow.getInvocations();
+        long invocations = currRow.getInvocations(m_incremental);
         long timedInvocations = currRow.getTimedInvocations();
         long totalTimedExecutionTime = currRow.getTotalTimedExecutionTime();
         long minExecutionTime = currRow.getMinExecutionTime();
         long maxExecutionTime = currRow.getMaxExecutionTime();
-        long abortCount = currRow.getAbortCount();
-        long failureCount = currRow.getFailureCount();
+        long abortCount = currRow.getAbortCount(m_incremental);
+        long failureCount = currRow.getFailureCount(m_incremental);
         int minResultSize = currRow.getMinResultSize();
         int maxResultSize = currRow.getMaxResultSize();
         long totalResultSize = currRow.getTotalResultSize();
@@ -333,8 +342,6 @@ public class ProcedureStatsCollector extends SiteStatsSource {
         long totalParameterSetSize = currRow.getTotalParameterSetSize();
 
         if (m_incremental) {
-            abortCount -= currRow.getLastAbortCountAndReset();
-            failureCount -= currRow.getLastFailureCountAndReset();
             totalTimedExecutionTime -= currRow.getLastTotalTimedExecutionTimeAndReset();
             totalResultSize -= currRow.getLastTotalResultSizeAndReset();
             totalParameterSetSize -= currRow.getLastTotalParameterSetSizeAndReset();
@@ -344,9 +351,8 @@ public class ProcedureStatsCollector extends SiteStatsSource {
             maxResultSize = currRow.getIncrementalMaxResultSizeAndReset();
             minParameterSetSize = currRow.getIncrementalMinParameterSetSizeAndReset();
             maxParameterSetSize = currRow.getIncrementalMaxParameterSetSizeAndReset();
-            // Notice that invocation numbers must be updated in the end.
+            // Notice that timed invocation numbers must be updated in the end.
             // Other numbers depend on them for correct behavior.
-            invocations -= currRow.getLastInvocationsAndReset();
             timedInvocations -= currRow.getLastTimedInvocationsAndReset();
         }
 
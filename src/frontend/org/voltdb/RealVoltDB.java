@@ -197,6 +197,8 @@ import org.voltdb.snmp.SnmpTrapSender;
 import org.voltdb.stats.GcStats;
 import org.voltdb.stats.LimitsStats;
 import org.voltdb.stats.LiveClientsStats;
+import org.voltdb.stats.PlanCacheStats;
+import org.voltdb.stats.SnapshotRestoreStats;
 import org.voltdb.sysprocs.AdHocNTBase;
 import org.voltdb.sysprocs.VerifyCatalogAndWriteJar;
 import org.voltdb.sysprocs.saverestore.SnapshotPathType;
@@ -251,6 +253,13 @@ public class RealVoltDB implements VoltDBInterface, RestoreAgent.Callback, HostM
 
     private static final boolean DISABLE_JMX = Boolean.parseBoolean(System.getProperty("DISABLE_JMX", "true"));
 
+    // Save the parameterized ad hoc plans to the voltdbroot so that a restarted node has a warm plan cache
+    private static final boolean ADHOC_PLAN_CACHE_PERSIST =
+            Boolean.parseBoolean(System.getProperty("ADHOC_PLAN_CACHE_PERSIST", "false"));
+    private static final int ADHOC_PLAN_CACHE_PERSIST_INTERVAL_MINUTES =
+            Integer.getInteger("ADHOC_PLAN_CACHE_PERSIST_INTERVAL_MINUTES", 10);
+    private static final String ADHOC_PLAN_CACHE_FILE = "adhoc_plan_cache";
+
     /** Default deployment file contents if path to deployment is null */
     private static final String[] defaultDeploymentXML = {
         "<?xml version=\"1.0\"?>",
@@ -1460,6 +1469,12 @@ public class RealVoltDB implements VoltDBInterface, RestoreAgent.Callback, HostM
             // Initialization may require an intialized avro
             m_avroSerde.updateConfig(m_catalogContext);
 
+            // Warm the ad hoc plan cache with the plans saved before the last shutdown,
+            // the catalog is loaded by the init tasks below
+            if (ADHOC_PLAN_CACHE_PERSIST) {
+                AdHocCompilerCache.enablePersistence(new File(getVoltDBRootPath(), ADHOC_PLAN_CACHE_FILE));
+            }
+
             // do the many init tasks in the Inits class
             Inits inits = new Inits(m_statusTracker, this, 1, m_durable);
             inits.doInitializationWork();
@@ -1516,6 +1531,8 @@ public class RealVoltDB implements VoltDBInterface, RestoreAgent.Callback, HostM
             statsAgent.registerStatsSource(StatsSelector.CPU, 0, m_cpuStats);
             m_gcStats = new GcStats();
             statsAgent.registerStatsSource(StatsSelector.GC, 0, m_gcStats);
+            statsAgent.registerStatsSource(StatsSelector.PLANCACHE, 0, new PlanCacheStats());
+            statsAgent.registerStatsSource(StatsSelector.SNAPSHOTRESTORE, 0, new SnapshotRestoreStats());
 
             m_commandLogStats = new CommandLogStats(m_commandLog);
             statsAgent.registerStatsSource(StatsSelector.COMMANDLOG, 0, m_commandLogStats);
@@ -1749,8 +1766,7 @@ public class RealVoltDB implements VoltDBInterface, RestoreAgent.Callback, HostM
             if (m_configuredReplicationFactor == 0) {
                 consoleLog.warn("This is not a highly available cluster. K-Safety is set to 0.");
             }
-            boolean usingCommandLog = m_config.m_isEnterprise
-                    && (m_catalogContext.cluster.getLogconfig() != null)
+            boolean usingCommandLog = (m_catalogContext.cluster.getLogconfig() != null)
                     && (m_catalogContext.cluster.getLogconfig().get("log") != null)
                     && m_catalogContext.cluster.getLogconfig().get("log").getEnabled();
             if (!usingCommandLog) {
@@ -2414,6 +2430,29 @@ public class RealVoltDB implements VoltDBInterface, RestoreAgent.Callback, HostM
             }
         }, 0, 6, TimeUnit.MINUTES));
 
+        // save the ad hoc plan cache, so that a node that crashes comes back with recent plans
+        if (ADHOC_PLAN_CACHE_PERSIST && ADHOC_PLAN_CACHE_PERSIST_INTERVAL_MINUTES > 0) {
+            m_periodicWorks.add(scheduleWork(new Runnable() {
+                @Override
+                public void run() {
+                    AdHocCompilerCache.persistCurrentCache();
+                }
+            }, ADHOC_PLAN_CACHE_PERSIST_INTERVAL_MINUTES, ADHOC_PLAN_CACHE_PERSIST_INTERVAL_MINUTES,
+            TimeUnit.MINUTES));
+        }
+
+        // statistics of the tables for the planner
+        if (TableStatisticsCollector.INTERVAL_MINUTES > 0) {
+            final TableStatisticsCollector tableStatisticsCollector = new TableStatisticsCollector();
+            m_periodicWorks.add(scheduleWork(new Runnable() {
+                @Override
+                public void run() {
+                    tableStatisticsCollector.collect();
+                }
+            }, TableStatisticsCollector.INTERVAL_MINUTES, TableStatisticsCollector.INTERVAL_MINUTES,
+            TimeUnit.MINUTES));
+        }
+
         // other enterprise setup
         EnterpriseMaintenance em = EnterpriseMaintenance.get();
         if (em != null) { em.setupMaintenanceTasks(); }
@@ -2929,10 +2968,6 @@ public class RealVoltDB implements VoltDBInterface, RestoreAgent.Callback, HostM
             boolean shutdownAction = false;
 
             // check license features for community version
-            if ((deployment.getCommandlog() != null) && (deployment.getCommandlog().isEnabled())) {
-                consoleLog.error("Command logging is not supported in the community edition of VoltDB.");
-                shutdownDeployment = true;
-            }
             if (deployment.getTopics() != null && deployment.getTopics().isEnabled()) {
                 consoleLog.error("Topics feature is not supported in the community edition of VoltDB.");
                 shutdownDeployment = true;
@@ -3562,6 +3597,9 @@ public class RealVoltDB implements VoltDBInterface, RestoreAgent.Callback, HostM
                 m_latencyCompressedStats = null;
                 m_latencyHistogramStats = null;
 
+                if (ADHOC_PLAN_CACHE_PERSIST) {
+                    AdHocCompilerCache.persistCurrentCache();
+                }
                 AdHocCompilerCache.clearHashCache();
                 org.voltdb.iv2.InitiatorMailbox.m_allInitiatorMailboxes.clear();
 
@@ -4280,7 +4318,7 @@ public class RealVoltDB implements VoltDBInterface, RestoreAgent.Callback, HostM
         try {
             final ZooKeeper zk = m_messenger.getZK();
             boolean logRecoveryCompleted = false;
-            if (getCommandLog().getClass().getName().equals("org.voltdb.CommandLogImpl")) {
+            if (getCommandLog().isEnabled()) {
                 String requestNode = zk.create(VoltZK.request_truncation_snapshot_node, null,
                         Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT_SEQUENTIAL);
                 if (m_rejoinTruncationReqId == null) {
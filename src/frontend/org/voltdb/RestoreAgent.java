@@ -491,13 +491,16 @@ SnapshotCompletionInterest, Promotable
         m_action = action;
         m_hostMessenger = hostMessenger;
         m_zk = hostMessenger.getZK();
-        m_clEnabled = VoltDB.instance().getConfig().m_isEnterprise ? clEnabled : false;
+        m_clEnabled = clEnabled;
         m_clPath = clPath;
         m_clSnapshotPath = clSnapshotPath;
         m_snapshotPath = snapshotPath;
         m_liveHosts = ImmutableSet.copyOf(hostMessenger.getLiveHostIds());
         m_voltdbrootPath = voltdbrootPath;
         m_terminusNonce = terminusNonce;
+        if (m_clEnabled && m_action.doesRecover()) {
+            m_replayAgent = new DefaultCommandLogReinitiator(hostMessenger, clPath);
+        }
     }
 
     void initialize(StartAction startAction, boolean returnSegments) {
@@ -1393,10 +1396,8 @@ SnapshotCompletionInterest, Promotable
          * they can be set individually
          */
         Map<String, SnapshotPathType> paths = new HashMap<String, SnapshotPathType>();
-        if (VoltDB.instance().getConfig().m_isEnterprise) {
-            if (m_clSnapshotPath != null) {
-                paths.put(m_clSnapshotPath, SnapshotPathType.SNAP_CL);
-            }
+        if (m_clSnapshotPath != null) {
+            paths.put(m_clSnapshotPath, SnapshotPathType.SNAP_CL);
         }
         if (m_snapshotPath != null) {
             paths.put(m_snapshotPath, SnapshotPathType.SNAP_AUTO);
@@ -17,6 +17,7 @@
 
 package org.voltdb;
 
+import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Future;
@@ -129,6 +130,18 @@ public interface SiteProcedureConnection {
      */
     public boolean usingFallbackBuffer();
 
+    /**
+     * Take over the buffer holding the results of the last batch instead of copying them.
+     * Returns null if the results must be copied before the next batch executes.
+     * The buffer is reused after {@link #releaseResultBuffers()}.
+     */
+    public ByteBuffer detachResultBuffer(int resultSize);
+
+    /**
+     * Reuse the buffers of {@link #detachResultBuffer(int)} once their results have been consumed.
+     */
+    public void releaseResultBuffers();
+
     /**
      * Let the EE know which batch of sql is running so it can include this
      * information in any slow query progress log messages.
@@ -59,7 +59,9 @@ public class SnapshotStatus extends StatsSource {
         DURATION                (VoltType.BIGINT),
         THROUGHPUT              (VoltType.FLOAT),
         RESULT                  (VoltType.STRING),
-        TYPE                    (VoltType.STRING);
+        TYPE                    (VoltType.STRING),
+        FILE_END_TIME           (VoltType.BIGINT),
+        FILE_THROUGHPUT         (VoltType.FLOAT);
 
         public final VoltType m_type;
         SnapshotStatusCols(VoltType type) { m_type = type; }
@@ -180,6 +182,13 @@ public class SnapshotStatus extends StatsSource {
         }
         rowValues[offset + SnapshotStatusCols.RESULT.ordinal()] = result;
         rowValues[offset + SnapshotStatusCols.TYPE.ordinal()] = m_typeChecker.getSnapshotType(s.path, s.nonce).name();
+        // Files are written concurrently so the throughput of each is measured from the start of the snapshot
+        double fileThroughput = 0;
+        if (t.timeFinished > timeStarted) {
+            fileThroughput = (t.size / (1024.0 * 1024.0)) / ((t.timeFinished - timeStarted) / 1000.0);
+        }
+        rowValues[offset + SnapshotStatusCols.FILE_END_TIME.ordinal()] = t.timeFinished;
+        rowValues[offset + SnapshotStatusCols.FILE_THROUGHPUT.ordinal()] = fileThroughput;
         return offset + SnapshotStatusCols.values().length;
     }
 
@@ -20,6 +20,8 @@ package org.voltdb;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.voltdb.stats.IntervalCounter;
+
 /**
  * Record statistics for each statement in the stored procedure.
  */
@@ -60,20 +62,12 @@ public final class StatementStats {
     // m_coordinatorTask may have fewer m_invocations than m_workerTask because m_workerTask
     // failures can prevent m_coordinatorTask from further execution.
     // So m_workerTask.m_invocations is accurate for the m_invocations number of the whole statement.
-    // Same for the m_lastInvocations.
+    // Same for the interval counts.
     // However, this does not mean the invocation counts for the coordinator task is useless.
     // We need to use them when calculating the min/max times and sizes. See below.
-    public long getInvocations() {
-        return m_workerTask.m_invocations;
-    }
-
-    public long getLastInvocationsAndReset() {
-        long retval = m_workerTask.m_lastInvocations;
-        m_workerTask.m_lastInvocations = m_workerTask.m_invocations;
-        if (m_coordinatorTask != null) {
-            m_coordinatorTask.m_lastInvocations = m_coordinatorTask.m_invocations;
-        }
-        return retval;
+    // The interval counts must only be read by the stats collector since reading them starts a new interval.
+    public long getInvocations(boolean interval) {
+        return m_workerTask.m_invocations.get(interval);
     }
 
     public long getTimedInvocations() {
@@ -144,30 +138,14 @@ public final class StatementStats {
         return retval;
     }
 
-    public long getAbortCount() {
-        return m_workerTask.m_abortCount;
-    }
-
-    public long getLastAbortCountAndReset() {
+    public long getAbortCount(boolean interval) {
         // Only the whole procedure can abort and the procedure stats does not have a coordinator task.
-        long retval = m_workerTask.m_lastAbortCount;
-        m_workerTask.m_lastAbortCount = m_workerTask.m_abortCount;
-        return retval;
-    }
-
-    public long getFailureCount() {
-        return m_workerTask.m_failureCount +
-                (m_coordinatorTask == null ? 0 : m_coordinatorTask.m_failureCount);
+        return m_workerTask.m_abortCount.get(interval);
     }
 
-    public long getLastFailureCountAndReset() {
-        long retval = m_workerTask.m_lastFailureCount;
-        m_workerTask.m_lastFailureCount = m_workerTask.m_failureCount;
-        if (m_coordinatorTask != null) {
-            retval += m_coordinatorTask.m_lastFailureCount;
-            m_coordinatorTask.m_lastFailureCount = m_coordinatorTask.m_failureCount;
-        }
-        return retval;
+    public long getFailureCount(boolean interval) {
+        return m_workerTask.m_failureCount.get(interval) +
+                (m_coordinatorTask == null ? 0 : m_coordinatorTask.m_failureCount.get(interval));
     }
 
     public int getMinResultSize() {
@@ -364,11 +342,16 @@ public final class StatementStats {
     }
 
     static final class StatsData {
+        /*
+         * The counts are updated on every invocation, possibly by several threads for NT procedures,
+         * so they are lock free. The sampled values below them are updated while holding the lock of
+         * the ProcedureStatsCollector.
+         */
+
         /**
          * Number of times this procedure has been invoked.
          */
-        long m_invocations = 0;
-        long m_lastInvocations = 0;
+        final IntervalCounter m_invocations = new IntervalCounter();
 
         /**
          * Number of timed invocations
@@ -397,14 +380,12 @@ public final class StatementStats {
         /**
          * Count of the number of aborts (user initiated or DB initiated)
          */
-        long m_abortCount = 0;
-        long m_lastAbortCount = 0;
+        final IntervalCounter m_abortCount = new IntervalCounter();
 
         /**
          * Count of the number of errors that occurred during procedure execution
          */
-        long m_failureCount = 0;
-        long m_lastFailureCount = 0;
+        final IntervalCounter m_failureCount = new IntervalCounter();
 
         /**
          * Smallest result size
@@ -17,6 +17,7 @@
 package org.voltdb;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -40,6 +41,19 @@ public class StatsAgent extends OpsAgent {
     private final Map<StatsSelector, Map<Long, Set<StatsSource>>> m_registeredStatsSources = new NonBlockingHashMap<>();
     private ProcedureDetailAggregator procedureDetailAggregator;
 
+    /**
+     * Receives the rows read by {@link StatsAgent#readStatsRows(StatsSelector, Long, StatsRowConsumer)}
+     */
+    @FunctionalInterface
+    public interface StatsRowConsumer {
+        /**
+         * @param selector registered selector of the source the row is from
+         * @param columns  schema of the row
+         * @param row      values of the row, which the consumer may keep
+         */
+        void accept(StatsSelector selector, List<ColumnInfo> columns, Object[] row);
+    }
+
     public StatsAgent() {
         super("StatsAgent");
 
@@ -340,6 +354,58 @@ public class StatsAgent extends OpsAgent {
         return getStatsAggregateInternal(selector, interval, now);
     }
 
+    /**
+     * Read the statistics of every source registered on this node for {@code selector}, or its sub selectors,
+     * straight from the sources. Unlike {@code @Statistics} no transaction is run and, except for sources which
+     * keep their statistics in a table, no result table is built. Cumulative statistics are read so the interval
+     * state used by {@code @Statistics ... delta} is not disturbed.
+     *
+     * @param selector @Statistics selector keyword
+     * @param now      current timestamp
+     * @param consumer receives every row
+     */
+    public void readStatsRows(StatsSelector selector, Long now, StatsRowConsumer consumer) {
+        for (StatsSelector subSelector : selector.subSelectors()) {
+            Map<Long, Set<StatsSource>> siteIdToStatsSources = m_registeredStatsSources.get(subSelector);
+            if (siteIdToStatsSources == null) {
+                continue;
+            }
+            for (Set<StatsSource> statsSources : siteIdToStatsSources.values()) {
+                if (statsSources == null) {
+                    continue;
+                }
+                for (StatsSource ss : statsSources) {
+                    if (ss.isEEStats()) {
+                        readEEStatsRows(subSelector, ss, consumer);
+                    } else {
+                        List<ColumnInfo> columns = ss.getColumnSchema();
+                        for (Object[] row : ss.getStatsRows(false, now)) {
+                            consumer.accept(subSelector, columns, row);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static void readEEStatsRows(StatsSelector selector, StatsSource ss, StatsRowConsumer consumer) {
+        VoltTable table = ss.getStatsTable();
+        List<ColumnInfo> columns = null;
+        while (table.advanceRow()) {
+            if (columns == null) {
+                columns = new ArrayList<>(table.getColumnCount());
+                for (int i = 0; i < table.getColumnCount(); ++i) {
+                    columns.add(new ColumnInfo(table.getColumnName(i), table.getColumnType(i)));
+                }
+            }
+            Object[] row = new Object[columns.size()];
+            for (int i = 0; i < row.length; ++i) {
+                row[i] = table.get(i, columns.get(i).type);
+            }
+            consumer.accept(selector, columns, row);
+        }
+    }
+
     private VoltTable getStatsAggregateInternal(
             final StatsSelector selector,
             final boolean interval,
@@ -38,10 +38,13 @@ public enum StatsSelector {
     LIMITS,
     LIVECLIENTS(LIVECLIENTS_CONNECTIONS, LIMITS),
     PLANNER,          // info about planner and EE performance and cache usage
+    PLANCACHE,        // info about the node-wide ad hoc plan cache
+    MPREADPOOL,       // info about the pool of sites running multi-partition reads
     CPU,            // return CPU Stats
     MANAGEMENT(MEMORY, INITIATOR, PROCEDURE, IOSTATS, TABLE, INDEX, STARVATION, QUEUE, CPU), // Returns pretty much everything
     SNAPSHOTSTATUS(false),
     SNAPSHOTSUMMARY(false),
+    SNAPSHOTRESTORE(false),    // progress and throughput of snapshot restores on each host
     PROCEDUREPROFILE(PROCEDURE), // performs an aggregation of the procedure statistics
     PROCEDUREINPUT(PROCEDURE),
     PROCEDUREOUTPUT(PROCEDURE),
@@ -540,6 +540,11 @@ public class SystemProcedureCatalog {
                         Initiator.MULTI_PARTITION, Mutable.READ_WRITE, 0, VoltType.INVALID,
                         false, false, true, Durability.NOT_APPLICABLE,
                         false, false, Restartability.NOT_APPLICABLE));
+        builder.put("@TableStatisticsQueryNT",
+                new Config("org.voltdb.sysprocs.TableStatisticsQueryNT",
+                        Initiator.MULTI_PARTITION, Mutable.READ_ONLY, 0, VoltType.INVALID,
+                        false, false, true, Durability.NOT_APPLICABLE,
+                        false, false, Restartability.NOT_APPLICABLE));
         builder.put("@AdHocLarge",
                 new Config("org.voltdb.sysprocs.AdHocLarge",
                         Initiator.MULTI_PARTITION, Mutable.READ_WRITE, 0, VoltType.INVALID,
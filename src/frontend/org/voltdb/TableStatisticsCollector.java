@@ -0,0 +1,453 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2022 Volt Active Data Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.zookeeper_voltpatches.ZooKeeper;
+import org.voltcore.logging.Level;
+import org.voltcore.logging.VoltLogger;
+import org.voltcore.utils.CoreUtils;
+import org.voltdb.catalog.Column;
+import org.voltdb.catalog.ColumnRef;
+import org.voltdb.catalog.Index;
+import org.voltdb.catalog.Table;
+import org.voltdb.client.ClientResponse;
+import org.voltdb.compiler.DatabaseStatistics;
+import org.voltdb.compiler.DatabaseStatistics.ColumnStatistics;
+import org.voltdb.compiler.DatabaseStatistics.TableStatistics;
+import org.voltdb.iv2.Cartographer;
+import org.voltdb.utils.CatalogUtil;
+import org.voltdb.utils.CompressionService;
+
+/**
+ * Collects the statistics of the tables used by the planner to cost plans, see {@link DatabaseStatistics}.
+ * For each table it gets
+ * <ul>
+ * <li>the number of rows in each partition from {@code @Statistics TABLE},</li>
+ * <li>the approximate number of distinct values of each column of a type supported by
+ * {@code APPROX_COUNT_DISTINCT}, which the EE computes from a HyperLogLog sketch of each partition.
+ * That query still scans the whole table in every partition, only its result is small,</li>
+ * <li>the most common values of the first column of each index, counted in the first
+ * {@link #PREFIX_ROWS} rows each partition returns. The rows come in scan order, which is index or
+ * insertion order, so they are a prefix and not a random sample. {@link ColumnStatistics} only trusts
+ * the counts in proportion to the fraction of the table the prefixes cover.</li>
+ * </ul>
+ * The queries are single partition reads through {@code @TableStatisticsQueryNT} run one after the other,
+ * so only one partition at a time is busy with them, and none of them builds a result larger than the prefix.
+ * <p>
+ * Only the host of the multi-partition initiator collects the statistics. It hands them to its planner and
+ * publishes them in ZooKeeper, from where the other hosts load them into their planners each time they would
+ * otherwise have collected them.
+ */
+public class TableStatisticsCollector {
+
+    private static final VoltLogger hostLog = new VoltLogger("HOST");
+
+    /**
+     * Minutes between two collections of the statistics, 0 to plan without statistics
+     */
+    public static final int INTERVAL_MINUTES = Integer.getInteger("TABLE_STATISTICS_INTERVAL_MINUTES", 0);
+
+    // Number of most common values collected for the first column of each index
+    static final int MOST_COMMON_VALUES = Integer.getInteger("TABLE_STATISTICS_MOST_COMMON_VALUES", 16);
+
+    // Number of rows read from each partition to count the most common values
+    static final int PREFIX_ROWS = Integer.getInteger("TABLE_STATISTICS_PREFIX_ROWS", 10000);
+
+    private static final int LOG_SUPPRESSION_INTERVAL_SECONDS = 60;
+
+    private final AtomicBoolean m_collecting = new AtomicBoolean(false);
+
+    /**
+     * The values of one column read from a prefix of each partition of a table
+     */
+    static class ColumnPrefix {
+        // Estimated number of rows of the table with each value, keyed by DatabaseStatistics.valueKey()
+        private final Map<String, Double> m_rows = new HashMap<>();
+        private boolean m_hasNull = false;
+        // Whether every row of the table was read
+        private boolean m_complete = true;
+        private long m_readRows = 0;
+        private long m_tableRows = 0;
+
+        /**
+         * Add the values read from one partition
+         *
+         * @param values        keys of the values read, {@code null} for a null value
+         * @param partitionRows number of rows of the partition the values were read from
+         */
+        void addPartition(List<String> values, long partitionRows) {
+            if (values.size() < partitionRows) {
+                m_complete = false;
+            }
+            m_readRows += values.size();
+            m_tableRows += Math.max(partitionRows, values.size());
+            if (values.isEmpty()) {
+                return;
+            }
+            final double weight = (double) Math.max(partitionRows, values.size()) / values.size();
+            for (String value : values) {
+                if (value == null) {
+                    m_hasNull = true;
+                }
+                else {
+                    m_rows.merge(value, weight, Double::sum);
+                }
+            }
+        }
+
+        /**
+         * @return the at most {@code limit} most common values and the fraction of the {@code totalRows} rows
+         *         which have them
+         */
+        Map<String, Double> getMostCommonValues(int limit, long totalRows) {
+            List<Map.Entry<String, Double>> values = new ArrayList<>(m_rows.entrySet());
+            values.sort(Map.Entry.<String, Double>comparingByValue().reversed());
+            Map<String, Double> mostCommon = new HashMap<>();
+            for (Map.Entry<String, Double> value : values.subList(0, Math.min(limit, values.size()))) {
+                mostCommon.put(value.getKey(), Math.min(1.0, value.getValue() / totalRows));
+            }
+            return mostCommon;
+        }
+
+        /**
+         * @return whether the at most {@code limit} most common values are all the values of the column
+         */
+        boolean hasAllValues(int limit) {
+            return m_complete && !m_hasNull && m_rows.size() <= limit;
+        }
+
+        /**
+         * @return the fraction of the rows of the table the values were read from
+         */
+        double getCoverage() {
+            return m_tableRows == 0 ? 1 : (double) m_readRows / m_tableRows;
+        }
+    }
+
+    /**
+     * Start collecting the statistics of all the tables unless a collection is already running, or load the
+     * statistics collected by another host. Returns right away, the statistics are handed to the planner when
+     * all the queries are done.
+     */
+    public void collect() {
+        final CatalogContext context = VoltDB.instance().getCatalogContext();
+        final ClientInterface ci = VoltDB.instance().getClientInterface();
+        if (context == null || ci == null) {
+            return;
+        }
+        if (!isMultiPartitionInitiatorHost()) {
+            loadPublished(context);
+            return;
+        }
+        if (!m_collecting.compareAndSet(false, true)) {
+            return;
+        }
+        final long startTime = System.currentTimeMillis();
+        final Map<Long, Integer> partitionKeys = getPartitionKeys();
+        call(ci, "@Statistics", "TABLE", 0).thenCompose(response -> {
+            if (response.getStatus() != ClientResponse.SUCCESS) {
+                throw new IllegalStateException(response.getStatusString());
+            }
+            final Map<String, Map<Long, Long>> partitionRows = getPartitionRows(response.getResults()[0]);
+            CompletableFuture<Map<String, TableStatistics>> tables =
+                    CompletableFuture.completedFuture(new HashMap<>());
+            for (Table table : context.tables) {
+                Map<Long, Long> rows = partitionRows.get(table.getTypeName());
+                if (rows == null || TableType.isStream(table.getTabletype())) {
+                    continue;
+                }
+                tables = tables.thenCompose(collected -> collectTable(ci, table, rows, partitionKeys)
+                        .thenApply(statistics -> {
+                            collected.put(table.getTypeName(), statistics);
+                            return collected;
+                        }));
+            }
+            return tables;
+        }).whenComplete((tables, t) -> {
+            try {
+                if (t != null) {
+                    hostLog.rateLimitedLog(LOG_SUPPRESSION_INTERVAL_SECONDS, Level.WARN, t,
+                            "Failed to collect the statistics of the tables for the planner");
+                    return;
+                }
+                final DatabaseStatistics statistics = new DatabaseStatistics(tables, startTime);
+                // The catalog may have been updated in the meantime, the planner ignores dropped tables
+                VoltDB.instance().getCatalogContext().m_ptool.setStatistics(statistics);
+                publish(statistics);
+                hostLog.info(String.format("Collected the statistics of %d tables for the planner in %d ms.",
+                        tables.size(), System.currentTimeMillis() - startTime));
+            } finally {
+                m_collecting.set(false);
+            }
+        });
+    }
+
+    private static boolean isMultiPartitionInitiatorHost() {
+        final Cartographer cartographer = VoltDB.instance().getCartographer();
+        final Long mpiHSId = cartographer == null ? null : cartographer.getHSIdForMultiPartitionInitiator();
+        return mpiHSId != null
+                && CoreUtils.getHostIdFromHSId(mpiHSId) == VoltDB.instance().getHostMessenger().getHostId();
+    }
+
+    private static void publish(DatabaseStatistics statistics) {
+        try {
+            final ZooKeeper zk = VoltDB.instance().getHostMessenger().getZK();
+            zk.setData(VoltZK.tableStatistics,
+                    CompressionService.compressBytes(statistics.toJSONString().getBytes(StandardCharsets.UTF_8)), -1);
+        } catch (Exception e) {
+            hostLog.rateLimitedLog(LOG_SUPPRESSION_INTERVAL_SECONDS, Level.WARN, e,
+                    "Failed to publish the statistics of the tables to the other hosts");
+        }
+    }
+
+    /**
+     * Hand the statistics published by the host of the multi-partition initiator to the planner if they are
+     * newer than the ones it has
+     */
+    private static void loadPublished(CatalogContext context) {
+        try {
+            final ZooKeeper zk = VoltDB.instance().getHostMessenger().getZK();
+            final byte[] data = zk.getData(VoltZK.tableStatistics, false, null);
+            if (data == null || data.length == 0) {
+                return;
+            }
+            final DatabaseStatistics statistics = DatabaseStatistics.fromJSONString(
+                    new String(CompressionService.decompressBytes(data), StandardCharsets.UTF_8));
+            final DatabaseStatistics current = context.m_ptool.getStatistics();
+            if (current == null || current.getTimestamp() < statistics.getTimestamp()) {
+                context.m_ptool.setStatistics(statistics);
+            }
+        } catch (Exception e) {
+            hostLog.rateLimitedLog(LOG_SUPPRESSION_INTERVAL_SECONDS, Level.WARN, e,
+                    "Failed to load the statistics of the tables published by another host");
+        }
+    }
+
+    private static CompletableFuture<ClientResponse> call(ClientInterface ci, String procName, Object... params) {
+        final CompletableFuture<ClientResponse> future = new CompletableFuture<>();
+        ci.getDispatcher().getInternalAdapterNT().callProcedure(ci.getInternalUser(), true,
+                TTLManager.NT_PROC_TIMEOUT, future::complete, procName, params);
+        return future;
+    }
+
+    /**
+     * @return a key which hashes to each partition, by partition id
+     */
+    private static Map<Long, Integer> getPartitionKeys() {
+        // Others may also iterate through the partition keys. So make a copy and read the keys from it
+        VoltTable partitionKeys = TheHashinator.getPartitionKeys(VoltType.INTEGER);
+        ByteBuffer buf = ByteBuffer.allocate(partitionKeys.getSerializedSize());
+        partitionKeys.flattenToBuffer(buf);
+        buf.flip();
+        VoltTable keyCopy = PrivateVoltTableFactory.createVoltTableFromSharedBuffer(buf);
+        Map<Long, Integer> keys = new TreeMap<>();
+        while (keyCopy.advanceRow()) {
+            keys.put(keyCopy.getLong("PARTITION_ID"), (int) keyCopy.getLong("PARTITION_KEY"));
+        }
+        return keys;
+    }
+
+    /**
+     * @return number of rows of each partition of each table, replicas of a partition report the same count
+     */
+    private static Map<String, Map<Long, Long>> getPartitionRows(VoltTable tableStats) {
+        Map<String, Map<Long, Long>> partitionRows = new HashMap<>();
+        while (tableStats.advanceRow()) {
+            partitionRows.computeIfAbsent(tableStats.getString("TABLE_NAME"), k -> new HashMap<>())
+                    .put(tableStats.getLong("PARTITION_ID"), tableStats.getLong("TUPLE_COUNT"));
+        }
+        return partitionRows;
+    }
+
+    private static CompletableFuture<TableStatistics> collectTable(ClientInterface ci, Table table,
+            Map<Long, Long> partitionRows, Map<Long, Integer> partitionKeys) {
+        long rowsPerPartition = 0;
+        long totalRows = 0;
+        for (long rows : partitionRows.values()) {
+            rowsPerPartition = Math.max(rowsPerPartition, rows);
+            totalRows += rows;
+        }
+        if (table.getIsreplicated()) {
+            // Every partition has the whole table
+            totalRows = rowsPerPartition;
+        }
+        if (totalRows == 0 || partitionKeys.isEmpty()) {
+            return CompletableFuture.completedFuture(
+                    new TableStatistics(0, Collections.<String, ColumnStatistics>emptyMap()));
+        }
+
+        final String tableName = table.getTypeName();
+        final Column partitionColumn = table.getPartitioncolumn();
+        final Map<String, Long> distinctValues = new HashMap<>();
+        final Map<String, ColumnPrefix> prefixes = new HashMap<>();
+
+        List<String> countable = new ArrayList<>();
+        for (Column column : CatalogUtil.getSortedCatalogItems(table.getColumns(), "index")) {
+            if (supportsApproxCountDistinct(VoltType.get((byte) column.getType()))) {
+                countable.add(column.getTypeName());
+            }
+        }
+        final Set<String> uniqueColumns = new LinkedHashSet<>();
+        final List<String> prefixColumns = new ArrayList<>(getLeadingIndexColumns(table, uniqueColumns));
+        for (String columnName : prefixColumns) {
+            prefixes.put(columnName, new ColumnPrefix());
+        }
+        // Scans the whole table in each partition, only the estimated counts come back
+        final String countSql = selectList(countable, "APPROX_COUNT_DISTINCT(%s)") + " FROM " + tableName + ';';
+        // The scan stops after the prefix
+        final String prefixSql = selectList(prefixColumns, "%s") + " FROM " + tableName
+                + " LIMIT " + PREFIX_ROWS + ';';
+
+        List<Map.Entry<Long, Integer>> partitions = new ArrayList<>(partitionKeys.entrySet());
+        if (table.getIsreplicated()) {
+            // Any partition has the whole table
+            partitions = partitions.subList(0, 1);
+        }
+        CompletableFuture<Void> done = CompletableFuture.completedFuture(null);
+        for (Map.Entry<Long, Integer> partition : partitions) {
+            final Object partitionKey = partition.getValue();
+            final long rows = table.getIsreplicated() ? totalRows
+                    : partitionRows.getOrDefault(partition.getKey(), 0L);
+            if (rows == 0) {
+                continue;
+            }
+            if (!countable.isEmpty()) {
+                done = done.thenCompose(v -> call(ci, "@TableStatisticsQueryNT", countSql, partitionKey)).thenAccept(response -> {
+                    if (!succeeded(response, tableName)) {
+                        return;
+                    }
+                    VoltTable result = response.getResults()[0];
+                    if (result.advanceRow()) {
+                        for (int i = 0; i < countable.size(); ++i) {
+                            // Values of the partition column are in only one partition, others may be in all
+                            final String columnName = countable.get(i);
+                            final boolean disjoint = !table.getIsreplicated() && partitionColumn != null
+                                    && partitionColumn.getTypeName().equals(columnName);
+                            distinctValues.merge(columnName, result.getLong(i), disjoint ? Long::sum : Math::max);
+                        }
+                    }
+                });
+            }
+            if (!prefixColumns.isEmpty()) {
+                done = done.thenCompose(v -> call(ci, "@TableStatisticsQueryNT", prefixSql, partitionKey)).thenAccept(response -> {
+                    if (!succeeded(response, tableName)) {
+                        return;
+                    }
+                    VoltTable result = response.getResults()[0];
+                    List<List<String>> values = new ArrayList<>();
+                    for (int i = 0; i < prefixColumns.size(); ++i) {
+                        values.add(new ArrayList<>(result.getRowCount()));
+                    }
+                    while (result.advanceRow()) {
+                        for (int i = 0; i < prefixColumns.size(); ++i) {
+                            Object value = result.get(i, result.getColumnType(i));
+                            values.get(i).add(result.wasNull() ? null : DatabaseStatistics.valueKey(value));
+                        }
+                    }
+                    for (int i = 0; i < prefixColumns.size(); ++i) {
+                        prefixes.get(prefixColumns.get(i)).addPartition(values.get(i), rows);
+                    }
+                });
+            }
+        }
+
+        final long rowCount = totalRows;
+        final long rows = rowsPerPartition;
+        return done.thenApply(v -> {
+            for (String columnName : uniqueColumns) {
+                distinctValues.put(columnName, rowCount);
+            }
+            Map<String, ColumnStatistics> columns = new HashMap<>();
+            Set<String> columnNames = new LinkedHashSet<>(distinctValues.keySet());
+            columnNames.addAll(prefixes.keySet());
+            for (String columnName : columnNames) {
+                Long distinct = distinctValues.get(columnName);
+                ColumnPrefix prefix = prefixes.get(columnName);
+                columns.put(columnName, new ColumnStatistics(distinct == null ? 0 : Math.min(distinct, rowCount),
+                        prefix == null ? Collections.<String, Double>emptyMap()
+                                : prefix.getMostCommonValues(MOST_COMMON_VALUES, rowCount),
+                        prefix != null && prefix.hasAllValues(MOST_COMMON_VALUES),
+                        prefix == null ? 1 : prefix.getCoverage()));
+            }
+            return new TableStatistics(rows, columns);
+        });
+    }
+
+    private static String selectList(List<String> columnNames, String format) {
+        StringBuilder sql = new StringBuilder("SELECT ");
+        for (int i = 0; i < columnNames.size(); ++i) {
+            sql.append(i == 0 ? "" : ", ").append(String.format(format, columnNames.get(i)));
+        }
+        return sql.toString();
+    }
+
+    private static boolean succeeded(ClientResponse response, String tableName) {
+        if (response.getStatus() == ClientResponse.SUCCESS) {
+            return true;
+        }
+        hostLog.rateLimitedLog(LOG_SUPPRESSION_INTERVAL_SECONDS, Level.WARN, null,
+                "Failed to collect statistics of table %s for the planner: %s", tableName,
+                response.getStatusString());
+        return false;
+    }
+
+    /**
+     * The EE only estimates the distinct values of fixed width types whose equal values have equal bits
+     */
+    private static boolean supportsApproxCountDistinct(VoltType type) {
+        return type.isBackendIntegerType() || type == VoltType.DECIMAL;
+    }
+
+    /**
+     * @param uniqueColumns gets the columns with a unique index on only them, which need no histogram
+     * @return the first column of each index on plain columns which has values the planner can look up
+     */
+    private static Set<String> getLeadingIndexColumns(Table table, Set<String> uniqueColumns) {
+        Set<String> columns = new LinkedHashSet<>();
+        for (Index index : table.getIndexes()) {
+            if (!index.getExpressionsjson().isEmpty()) {
+                continue;
+            }
+            List<ColumnRef> indexedColumns = CatalogUtil.getSortedCatalogItems(index.getColumns(), "index");
+            if (indexedColumns.isEmpty()) {
+                continue;
+            }
+            Column column = indexedColumns.get(0).getColumn();
+            if (index.getUnique() && indexedColumns.size() == 1) {
+                uniqueColumns.add(column.getTypeName());
+            } else if (DatabaseStatistics.hasValueKeys(VoltType.get((byte) column.getType()))) {
+                columns.add(column.getTypeName());
+            }
+        }
+        columns.removeAll(uniqueColumns);
+        return columns;
+    }
+}
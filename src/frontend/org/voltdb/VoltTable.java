@@ -34,6 +34,7 @@ import org.json_voltpatches.JSONException;
 import org.json_voltpatches.JSONObject;
 import org.json_voltpatches.JSONString;
 import org.json_voltpatches.JSONStringer;
+import org.json_voltpatches.JSONWriter;
 import org.voltdb.common.Constants;
 import org.voltdb.types.GeographyPointValue;
 import org.voltdb.types.GeographyValue;
@@ -1772,42 +1773,54 @@ public final class VoltTable extends VoltTableRow implements JSONString {
     public String toJSONString() {
         JSONStringer js = new JSONStringer();
         try {
+            toJSONWriter(js);
+        }
+        catch (JSONException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Failed to serialized a table to JSON.", e);
+        }
+        return js.toString();
+    }
 
-            js.object();
+    /**
+     * Write the JSON representation returned by {@link #toJSONString()} to a {@link JSONWriter}
+     * one row at a time, without building it as a string first.
+     *
+     * @param js {@link JSONWriter} to write this table to
+     * @return {@code js}
+     * @throws JSONException If there was an error generating the JSON or writing it out
+     */
+    public JSONWriter toJSONWriter(JSONWriter js) throws JSONException {
+        js.object();
 
-            // status code (1 byte)
-            js.keySymbolValuePair(JSON_STATUS_KEY, getStatusCode());
+        // status code (1 byte)
+        js.keySymbolValuePair(JSON_STATUS_KEY, getStatusCode());
 
-            // column schema
-            js.key(JSON_SCHEMA_KEY).array();
-            for (int i = 0; i < getColumnCount(); i++) {
-                js.object();
-                js.keySymbolValuePair(JSON_NAME_KEY, getColumnName(i));
-                js.keySymbolValuePair(JSON_TYPE_KEY, getColumnType(i).getValue());
-                js.endObject();
-            }
-            js.endArray();
+        // column schema
+        js.key(JSON_SCHEMA_KEY).array();
+        for (int i = 0; i < getColumnCount(); i++) {
+            js.object();
+            js.keySymbolValuePair(JSON_NAME_KEY, getColumnName(i));
+            js.keySymbolValuePair(JSON_TYPE_KEY, getColumnType(i).getValue());
+            js.endObject();
+        }
+        js.endArray();
 
-            // row data
-            js.key(JSON_DATA_KEY).array();
-            VoltTableRow row = cloneRow();
-            row.resetRowPosition();
-            while (row.advanceRow()) {
-                js.array();
-                for (int i = 0; i < getColumnCount(); i++) {
-                    row.putJSONRep(i, js);
-                }
-                js.endArray();
+        // row data
+        js.key(JSON_DATA_KEY).array();
+        VoltTableRow row = cloneRow();
+        row.resetRowPosition();
+        while (row.advanceRow()) {
+            js.array();
+            for (int i = 0; i < getColumnCount(); i++) {
+                row.putJSONRep(i, js);
             }
             js.endArray();
-
-            js.endObject();
-        }
-        catch (JSONException e) {
-            e.printStackTrace();
-            throw new RuntimeException("Failed to serialized a table to JSON.", e);
         }
-        return js.toString();
+        js.endArray();
+
+        js.endObject();
+        return js;
     }
 
     /**
@@ -1818,6 +1831,19 @@ public final class VoltTable extends VoltTableRow implements JSONString {
      * @throws JSONException If there was an error generating the JSON
      */
     public JSONStringer toJSONStringerV2(JSONStringer js) throws JSONException {
+        toJSONWriterV2(js);
+        return js;
+    }
+
+    /**
+     * Write the JSON /api/2.0/ representation of this table to a {@link JSONWriter}
+     * one row at a time.
+     *
+     * @param js {@link JSONWriter} to write this table to
+     * @return {@code js}
+     * @throws JSONException If there was an error generating the JSON or writing it out
+     */
+    public JSONWriter toJSONWriterV2(JSONWriter js) throws JSONException {
         // array of row data
         VoltTableRow row = cloneRow();
         row.resetRowPosition();
@@ -115,6 +115,7 @@ public class VoltZK {
     public static final String user_snapshot_request = "/db/user_snapshot_request";
     public static final String user_snapshot_response = "/db/user_snapshot_response";
     public static final String commandlog_init_barrier = "/db/commmandlog_init_barrier";
+    public static final String commandlog_replay_barrier = "/db/commandlog_replay_barrier";
 
     // leader election
 
@@ -251,6 +252,9 @@ public class VoltZK {
 
     public static final String trigger_txn_restart = "/db/restart";
 
+    // Statistics of the tables collected for the planners by the host of the MPI
+    public static final String tableStatistics = "/db/table_statistics";
+
     // Persistent nodes (mostly directories) to create on startup
     public static final String[] ZK_HIERARCHY = {
             root,
@@ -273,7 +277,8 @@ public class VoltZK {
             actionLock,
             hashMismatchedReplicas,
             catalogbytes,
-            nt_mailboxes
+            nt_mailboxes,
+            tableStatistics
     };
 
     /**
@@ -87,6 +87,8 @@ public class Client2Config {
     int outstandingTxnLimit = DEFAULT_OUTSTANDING_TRANSACTION_LIMIT;
     int txnPerSecRateLimit = 0;
     int networkBackpressureLevel = DEFAULT_NETWORK_BACKPRESSURE_LEVEL;
+    int batchMaxRequests = Client2Impl.DEFAULT_BATCH_MAX_REQUESTS;
+    long batchWindow = 0;
     long reconnectDelay = DEFAULT_RECONNECT_DELAY;
     long reconnectRetryDelay = DEFAULT_RECONNECT_RETRY_DELAY;
     boolean disableConnectionMgmt = false;
@@ -363,6 +365,40 @@ public class Client2Config {
         return this;
     }
 
+    /**
+     * Enables batching of requests sent on the same connection.
+     * Rather than writing each request to the network as soon as
+     * it can be sent, the API holds on to it for up to the given
+     * time window, so that requests which follow it can be sent
+     * in the same network write. A batch is written when it holds
+     * {@code maxRequests} requests, or when the window after its
+     * first request closes, whichever happens first.
+     * <p>
+     * With client affinity, requests are sent on the connection
+     * to the leader of their partition, so requests to the same
+     * partition tend to be batched together.
+     * <p>
+     * Batching reduces the number of system calls and network
+     * wakeups on both client and server when an application
+     * makes many small requests at a high rate, at the expense
+     * of adding up to the window to the latency of a request.
+     * A window of zero only batches requests which are already
+     * queued. The number of batched writes is reported by
+     * {@link ClientStats#getBatchedWriteCount()}.
+     * <p>
+     * By default requests are not batched.
+     *
+     * @param maxRequests the maximum number of requests in a batch; 1 disables batching
+     * @param window the maximum time a request is held back
+     * @param unit the units in which the window is expressed
+     * @return this
+     */
+    public Client2Config requestBatching(int maxRequests, long window, TimeUnit unit) {
+        batchMaxRequests = Math.max(1, maxRequests);
+        batchWindow = unit.toNanos(Math.max(0, window));
+        return this;
+    }
+
     /**
      * Sets delay times for attempts to reconnect failed connections.
      * There are two settings: one for the time to wait before the first
@@ -244,6 +244,13 @@ public class Client2Impl implements Client2 {
     final static int DEFAULT_BACKPRESSURE_QUEUE_LIMIT = 100;
     private int backpressureQueueLimit = DEFAULT_BACKPRESSURE_QUEUE_LIMIT; // Override via config
 
+    // Per-connection request batching: up to this many requests, the
+    // first of which has waited no longer than the window, are written
+    // to the network together. Not batching by default.
+    final static int DEFAULT_BATCH_MAX_REQUESTS = 1;
+    private int batchMaxRequests = DEFAULT_BATCH_MAX_REQUESTS; // Override via config
+    private long batchWindow = 0; // Override via config
+
     // Comparator for priority ordering of requests. Uses request
     // sequence to ensure FIFO for equal-priority entries.
     private static class PrioOrder implements Comparator<RequestContext> {
@@ -282,6 +289,9 @@ public class Client2Impl implements Client2 {
         private final Object backpressureLock = new Object();
         private boolean backpressure;
         private final Map<String,ClientStats> stats = new ConcurrentHashMap<>();
+        // Batching counts; only updated by the worker thread
+        private volatile long batchedWrites;
+        private volatile long batchedRequests;
         // Shared state
         volatile boolean connected;
         volatile long lastResponseTime;
@@ -320,6 +330,10 @@ public class Client2Impl implements Client2 {
             return pending.take();
         }
 
+        RequestContext dequeue(long timeout) throws InterruptedException {
+            return pending.poll(timeout, TimeUnit.NANOSECONDS);
+        }
+
         void clearQueue() {
             pending.clear();
         }
@@ -328,6 +342,18 @@ public class Client2Impl implements Client2 {
             connection.writeStream().enqueue(buf);
         }
 
+        void writeToNetwork(List<ByteBuffer> batch) {
+            if (batch.size() == 1) {
+                connection.writeStream().enqueue(batch.get(0));
+            }
+            else {
+                connection.writeStream().enqueue(batch.toArray(new ByteBuffer[batch.size()]));
+                batchedWrites++;
+                batchedRequests += batch.size();
+            }
+            batch.clear();
+        }
+
         ClientStats clientStats(String procName) {
             ClientStats st = null;
             synchronized (stats) {
@@ -563,6 +589,8 @@ public class Client2Impl implements Client2 {
         setOutstandingTxnLimit(config.outstandingTxnLimit);
         setRequestLimits(config.requestHardLimit, config.requestWarningLevel, config.requestResumeLevel);
         backpressureQueueLimit = config.networkBackpressureLevel;
+        batchMaxRequests = config.batchMaxRequests;
+        batchWindow = config.batchWindow;
         timerService.scheduleAtFixedRate(new TimeoutTask(), 1, 1, TimeUnit.SECONDS);
 
         reconnectDelay = config.reconnectDelay;
@@ -1386,31 +1414,38 @@ public class Client2Impl implements Client2 {
      * on network backpressure. Request timeouts are honoured while blocking.
      */
     private void connectionWorker(ClientConnection cxn) {
+        // Serialized requests not yet written to the network, and when they have to be
+        List<ByteBuffer> batch = batchMaxRequests > 1 ? new ArrayList<>(batchMaxRequests) : null;
+        long batchDeadline = 0;
         while (cxn.isConnected()) {
             RequestContext req = null;
             try {
-                req = cxn.dequeue();
-                if (rateLimiter != null) {
-                    rateLimiter.limitSendRate();
+                if (batch == null || batch.isEmpty()) {
+                    req = cxn.dequeue();
                 }
-                long timeLeft = remainingTime(req.startTime, req.timeout);
-                req.holdsPermit = sendPermits.tryAcquire();
-                while (!req.holdsPermit) {
-                    req.holdsPermit = sendPermits.tryAcquire(timeLeft, TimeUnit.NANOSECONDS);
-                    timeLeft = remainingTime(req.startTime, req.timeout);
+                else {
+                    // A poll with no time left still returns queued requests, so
+                    // don't let a busy queue hold the batch open past its window
+                    long windowLeft = batchDeadline - System.nanoTime();
+                    req = windowLeft > 0 ? cxn.dequeue(windowLeft) : null;
+                    if (req == null) { // window closed
+                        cxn.writeToNetwork(batch);
+                        continue;
+                    }
                 }
-                if (awaitClearToSend(cxn, req.startTime, req.timeout)) {
-                    timeLeft = remainingTime(req.startTime, req.timeout);
+                ByteBuffer buf = prepareToSend(cxn, req, batch);
+                if (batch == null) {
+                    cxn.writeToNetwork(buf);
                 }
-                long timeLeftMicros = TimeUnit.NANOSECONDS.toMicros(timeLeft) + 1; // round up, sort of
-                req.invocation.setRequestTimeout(timeLeftMicros > Integer.MAX_VALUE ? ProcedureInvocation.NO_TIMEOUT
-                                                                                    : (int)timeLeftMicros);
-                ByteBuffer buf = serializeInvocation(req.invocation);
-                activeHandles.add(req.invocation.getHandle());
-                if (req.timeout < ONE_SECOND_NANOS) {
-                    setShortTimeoutTask(req, timeLeft);
+                else {
+                    if (batch.isEmpty()) {
+                        batchDeadline = System.nanoTime() + batchWindow;
+                    }
+                    batch.add(buf);
+                    if (batch.size() >= batchMaxRequests || System.nanoTime() - batchDeadline >= 0) {
+                        cxn.writeToNetwork(batch);
+                    }
                 }
-                cxn.writeToNetwork(buf);
             }
             catch (LocalTimeoutException ex) {
                 String err = String.format("Procedure call timed out before sending (timeout %s, elapsed %s)",
@@ -1435,6 +1470,42 @@ public class Client2Impl implements Client2 {
         cxn.clearQueue();
     }
 
+    /*
+     * Wait for permission to send a request, then serialize it.
+     * Requests held in the batch must be written before waiting,
+     * since their responses may be what we're waiting for.
+     */
+    private ByteBuffer prepareToSend(ClientConnection cxn, RequestContext req, List<ByteBuffer> batch)
+    throws LocalTimeoutException, SerializationException, InterruptedException {
+        if (rateLimiter != null) {
+            rateLimiter.limitSendRate();
+        }
+        long timeLeft = remainingTime(req.startTime, req.timeout);
+        req.holdsPermit = sendPermits.tryAcquire();
+        if (!req.holdsPermit && batch != null && !batch.isEmpty()) {
+            cxn.writeToNetwork(batch);
+        }
+        while (!req.holdsPermit) {
+            req.holdsPermit = sendPermits.tryAcquire(timeLeft, TimeUnit.NANOSECONDS);
+            timeLeft = remainingTime(req.startTime, req.timeout);
+        }
+        if (batch != null && !batch.isEmpty() && cxn.backpressure) {
+            cxn.writeToNetwork(batch);
+        }
+        if (awaitClearToSend(cxn, req.startTime, req.timeout)) {
+            timeLeft = remainingTime(req.startTime, req.timeout);
+        }
+        long timeLeftMicros = TimeUnit.NANOSECONDS.toMicros(timeLeft) + 1; // round up, sort of
+        req.invocation.setRequestTimeout(timeLeftMicros > Integer.MAX_VALUE ? ProcedureInvocation.NO_TIMEOUT
+                                                                            : (int)timeLeftMicros);
+        ByteBuffer buf = serializeInvocation(req.invocation);
+        activeHandles.add(req.invocation.getHandle());
+        if (req.timeout < ONE_SECOND_NANOS) {
+            setShortTimeoutTask(req, timeLeft);
+        }
+        return buf;
+    }
+
     /*
      * Considerations for sub-second timeouts. We queue up a task to
      * handle this specific request.  Known "long" sysprocs are excluded.
@@ -2523,7 +2594,8 @@ public class Client2Impl implements Client2 {
             if (perConnStats != null) {
                 long read = perConnStats.getSecond()[0];
                 long write = perConnStats.getSecond()[2];
-                ClientIOStats cios = new ClientIOStats(conn.connectionId(), read, write);
+                ClientIOStats cios = new ClientIOStats(conn.connectionId(), read, write,
+                                                       conn.batchedWrites, conn.batchedRequests);
                 retval.put(conn.connectionId(), cios);
             }
         }
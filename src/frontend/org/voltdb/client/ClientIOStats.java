@@ -22,11 +22,20 @@ class ClientIOStats {
     long m_connectionId;
     long m_bytesSent;
     long m_bytesReceived;
+    long m_batchedWrites;
+    long m_batchedInvocations;
 
     ClientIOStats(long connectionId, long bytesSent, long bytesReceived) {
+        this(connectionId, bytesSent, bytesReceived, 0, 0);
+    }
+
+    ClientIOStats(long connectionId, long bytesSent, long bytesReceived, long batchedWrites,
+                  long batchedInvocations) {
         m_connectionId = connectionId;
         m_bytesSent = bytesSent;
         m_bytesReceived = bytesReceived;
+        m_batchedWrites = batchedWrites;
+        m_batchedInvocations = batchedInvocations;
     }
 
     public static ClientIOStats diff(ClientIOStats newer, ClientIOStats older) {
@@ -36,7 +45,9 @@ class ClientIOStats {
 
         ClientIOStats retval = new ClientIOStats(older.m_connectionId,
                                                  newer.m_bytesSent - older.m_bytesSent,
-                                                 newer.m_bytesReceived - older.m_bytesReceived);
+                                                 newer.m_bytesReceived - older.m_bytesReceived,
+                                                 newer.m_batchedWrites - older.m_batchedWrites,
+                                                 newer.m_batchedInvocations - older.m_batchedInvocations);
         return retval;
     }
 
@@ -45,6 +56,7 @@ class ClientIOStats {
      */
     @Override
     protected Object clone() {
-        return new ClientIOStats(m_connectionId, m_bytesSent, m_bytesReceived);
+        return new ClientIOStats(m_connectionId, m_bytesSent, m_bytesReceived, m_batchedWrites,
+                                 m_batchedInvocations);
     }
 }
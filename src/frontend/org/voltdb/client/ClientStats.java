@@ -74,6 +74,9 @@ public class ClientStats {
     long m_bytesSent;
     long m_bytesReceived;
 
+    long m_batchedWrites;
+    long m_batchedInvocations;
+
     private static final long LOWEST_TRACKABLE = 50;
     private static final long HIGHEST_TRACKABLE = 10L * (1000L * 1000L);
     private static final int SIGNIFICANT_VALUE_DIGITS = 2;
@@ -96,6 +99,7 @@ public class ClientStats {
         m_invocationsCompleted = m_invocationAborts = m_invocationErrors = 0;
         m_roundTripTimeNanos = m_clusterRoundTripTime = 0;
         m_bytesSent = m_bytesReceived = 0;
+        m_batchedWrites = m_batchedInvocations = 0;
         m_latencyHistogram = constructHistogram();
     }
 
@@ -116,6 +120,8 @@ public class ClientStats {
         m_latencyHistogram.reestablishTotalCount();
         m_bytesSent = other.m_bytesSent;
         m_bytesReceived = other.m_bytesReceived;
+        m_batchedWrites = other.m_batchedWrites;
+        m_batchedInvocations = other.m_batchedInvocations;
     }
 
     static ClientStats diff(ClientStats newer, ClientStats older) {
@@ -147,6 +153,9 @@ public class ClientStats {
         retval.m_bytesSent = newer.m_bytesSent - older.m_bytesSent;
         retval.m_bytesReceived = newer.m_bytesReceived - older.m_bytesReceived;
 
+        retval.m_batchedWrites = newer.m_batchedWrites - older.m_batchedWrites;
+        retval.m_batchedInvocations = newer.m_batchedInvocations - older.m_batchedInvocations;
+
         return retval;
     }
 
@@ -195,6 +204,9 @@ public class ClientStats {
 
         m_bytesSent += other.m_bytesSent;
         m_bytesReceived += other.m_bytesReceived;
+
+        m_batchedWrites += other.m_batchedWrites;
+        m_batchedInvocations += other.m_batchedInvocations;
     }
 
     void update(long roundTripTimeNanos, int clusterRoundTripTime, boolean abort, boolean error, boolean timeout) {
@@ -448,6 +460,33 @@ public class ClientStats {
         return m_bytesReceived;
     }
 
+    /**
+     * Return the number of network writes which carried more than one procedure
+     * invocation during the time period covered by this stats instance. Invocations
+     * are only batched if the client was configured to do so, see
+     * {@link Client2Config#requestBatching(int, long, java.util.concurrent.TimeUnit)}.
+     * This can be specific to a connection or global, but is not recorded for
+     * per-procedure statistics.
+     *
+     * @return The number of batched writes or 0 for per-procedure statistics.
+     */
+    public long getBatchedWriteCount() {
+        return m_batchedWrites;
+    }
+
+    /**
+     * Return the number of procedure invocations which were sent in batched network
+     * writes during the time period covered by this stats instance. Dividing this by
+     * {@link #getBatchedWriteCount()} gives the average batch size.
+     * This can be specific to a connection or global, but is not recorded for
+     * per-procedure statistics.
+     *
+     * @return The number of batched invocations or 0 for per-procedure statistics.
+     */
+    public long getBatchedInvocationCount() {
+        return m_batchedInvocations;
+    }
+
     /**
      * <p>Using the latency bucketing statistics gathered by the client, estimate
      * the k-percentile latency value for the time period covered by this stats
@@ -193,6 +193,8 @@ public class ClientStatsContext {
             if (cios != null) {
                 cs.m_bytesReceived = cios.m_bytesReceived;
                 cs.m_bytesSent = cios.m_bytesSent;
+                cs.m_batchedWrites = cios.m_batchedWrites;
+                cs.m_batchedInvocations = cios.m_batchedInvocations;
             }
             retval.put(e.getKey(), cs);
         }
@@ -53,6 +53,8 @@ public class HashinatorLite {
      */
     private long m_etokens = 0;
     private int m_etokenCount;
+    // Null when the whole ring is searched instead
+    private HashinatorLookupTable m_lookupTable;
 
     /**
      * Initialize TheHashinator with the specified implementation class and configuration.
@@ -62,6 +64,7 @@ public class HashinatorLite {
         Pair<Long, Integer> p = (cooked ? updateCooked(configBytes) : updateRaw(configBytes));
         m_etokens = p.getFirst();
         m_etokenCount = p.getSecond();
+        m_lookupTable = HashinatorLookupTable.create(m_etokens, m_etokenCount);
     }
 
     public HashinatorLite(int numPartitions) {
@@ -173,7 +176,10 @@ public class HashinatorLite {
      * Long.MAX_VALUE
      */
     public int partitionForToken(int hash) {
-        long token = getTokenPtr(hash);
+        if (m_lookupTable != null) {
+            return m_lookupTable.partitionForToken(hash);
+        }
+        long token = HashinatorLookupTable.searchTokens(m_etokens, 0, m_etokenCount - 1, hash);
         return Bits.unsafe.getInt(token + 4);
     }
 
@@ -187,28 +193,7 @@ public class HashinatorLite {
     private int hashinateBytes(byte[] bytes) {
         ByteBuffer buf = ByteBuffer.wrap(bytes);
         final int hash = MurmurHash3.hash3_x64_128(buf, 0, bytes.length, 0);
-        long token = getTokenPtr(hash);
-        return Bits.unsafe.getInt(token + 4);
-    }
-
-    private long getTokenPtr(int hash) {
-        int min = 0;
-        int max = m_etokenCount - 1;
-
-        while (min <= max) {
-            int mid = (min + max) >>> 1;
-            final long midPtr = m_etokens + (8 * mid);
-            int midval = Bits.unsafe.getInt(midPtr);
-
-            if (midval < hash) {
-                min = mid + 1;
-            } else if (midval > hash) {
-                max = mid - 1;
-            } else {
-                return midPtr;
-            }
-        }
-        return m_etokens + (min - 1) * 8;
+        return partitionForToken(hash);
     }
 
     /**
@@ -0,0 +1,148 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2022 Volt Active Data Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.client;
+
+import java.util.Arrays;
+
+import org.voltcore.utils.Bits;
+
+/**
+ * Direct-indexed lookup of the partition owning a hash on an elastic hashinator ring, shared by
+ * {@code ElasticHashinator} and {@link HashinatorLite}.
+ * <p>
+ * The hash space is split into {@code 2^16} slices by the high bits of the hash. A slice in which every hash
+ * maps to the same partition, which is most of them with the default number of tokens, stores that partition.
+ * The other slices store the range of tokens falling into them and a hash of such a slice is resolved with a
+ * binary search of that range only.
+ * <p>
+ * The table reads the tokens from the off heap array of its hashinator, {@code (token, partition)} pairs of
+ * ints sorted by token, so it must not outlive it.
+ */
+public class HashinatorLookupTable {
+
+    /**
+     * Set to false to look up every hash with a binary search of the whole ring
+     */
+    public static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("HASHINATOR_LOOKUP_TABLE", "true"));
+
+    // Below this many tokens a binary search of the ring is about as fast and needs no table
+    static final int MIN_TOKENS = 64;
+
+    private static final int SLICE_BITS = 16;
+    private static final int SLICE_COUNT = 1 << SLICE_BITS;
+
+    private final long m_tokens;
+    /*
+     * Partition of each slice, or -(i + 1) for a slice which needs a search of the tokens between
+     * m_searchRanges[2 * i] and m_searchRanges[2 * i + 1] included
+     */
+    private final int[] m_slices = new int[SLICE_COUNT];
+    private final int[] m_searchRanges;
+
+    /**
+     * @return a table for the given ring or {@code null} if a binary search of the ring should be used,
+     * because the table is disabled, the ring is small or it does not start at {@code Integer.MIN_VALUE}
+     */
+    public static HashinatorLookupTable create(long tokens, int tokenCount) {
+        if (!ENABLED || tokenCount < MIN_TOKENS || Bits.unsafe.getInt(tokens) != Integer.MIN_VALUE) {
+            return null;
+        }
+        return new HashinatorLookupTable(tokens, tokenCount);
+    }
+
+    private HashinatorLookupTable(long tokens, int tokenCount) {
+        m_tokens = tokens;
+        int[] searchRanges = new int[2 * Math.min(tokenCount, SLICE_COUNT)];
+        int searchCount = 0;
+        // Index of the token owning the first hash of the slice
+        int first = 0;
+        for (int slice = 0; slice < SLICE_COUNT; ++slice) {
+            final int low = firstHash(slice);
+            final int high = low | ((1 << SLICE_BITS) - 1);
+            while (first + 1 < tokenCount && token(first + 1) <= low) {
+                ++first;
+            }
+            final int partition = partition(first);
+            boolean samePartition = partition >= 0;
+            int last = first;
+            while (last + 1 < tokenCount && token(last + 1) <= high) {
+                ++last;
+                samePartition &= partition(last) == partition;
+            }
+            if (samePartition) {
+                m_slices[slice] = partition;
+            }
+            else {
+                m_slices[slice] = -(searchCount / 2 + 1);
+                searchRanges[searchCount++] = first;
+                searchRanges[searchCount++] = last;
+            }
+        }
+        m_searchRanges = Arrays.copyOf(searchRanges, searchCount);
+    }
+
+    /**
+     * @return the partition of the first token <= {@code hash}
+     */
+    public int partitionForToken(int hash) {
+        final int entry = m_slices[slice(hash)];
+        if (entry >= 0) {
+            return entry;
+        }
+        final int range = -(entry + 1) * 2;
+        return Bits.unsafe.getInt(searchTokens(m_tokens, m_searchRanges[range], m_searchRanges[range + 1], hash) + 4);
+    }
+
+    /**
+     * Binary search of the tokens from index {@code min} to {@code max} included for the last one <= {@code hash}
+     * @return pointer to the {@code (token, partition)} pair found
+     */
+    public static long searchTokens(long tokens, int min, int max, int hash) {
+        while (min <= max) {
+            int mid = (min + max) >>> 1;
+            final long midPtr = tokens + (8 * mid);
+            int midval = Bits.unsafe.getInt(midPtr);
+
+            if (midval < hash) {
+                min = mid + 1;
+            } else if (midval > hash) {
+                max = mid - 1;
+            } else {
+                return midPtr;
+            }
+        }
+        return tokens + (min - 1) * 8;
+    }
+
+    // Slices in the order of the signed hashes
+    private static int slice(int hash) {
+        return (hash >>> SLICE_BITS) ^ (SLICE_COUNT >>> 1);
+    }
+
+    private static int firstHash(int slice) {
+        return (slice ^ (SLICE_COUNT >>> 1)) << SLICE_BITS;
+    }
+
+    private int token(int index) {
+        return Bits.unsafe.getInt(m_tokens + (8L * index));
+    }
+
+    private int partition(int index) {
+        return Bits.unsafe.getInt(m_tokens + (8L * index) + 4);
+    }
+}
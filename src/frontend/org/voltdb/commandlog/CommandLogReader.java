@@ -0,0 +1,259 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2022 Volt Active Data Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.voltdb.commandlog;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.hadoop_voltpatches.util.PureJavaCrc32C;
+import org.voltcore.logging.VoltLogger;
+import org.voltcore.utils.InstanceId;
+import org.voltdb.LogEntryType;
+import org.voltdb.messaging.Iv2InitiateTaskMessage;
+import org.voltdb.messaging.VoltDbMessageFactory;
+
+/**
+ * Reads the segments {@link GroupCommitCommandLog} left in a command log directory.
+ */
+public final class CommandLogReader {
+    private static final VoltLogger LOG = new VoltLogger("LOGGING");
+
+    public interface InitiationHandler {
+        /**
+         * @param spHandle           spHandle the initiation was logged with by its partition
+         * @param involvedPartitions partitions of a multi-partition transaction, empty if not known
+         * @param message            the logged initiation
+         */
+        void handle(long spHandle, int[] involvedPartitions, Iv2InitiateTaskMessage message);
+    }
+
+    private static final class SegmentHeader {
+        final File m_file;
+        final long m_id;
+        final InstanceId m_instanceId;
+        final int m_clusterPartitions;
+        final Map<Integer, Long> m_lastSpHandles;
+        final int m_headerSize;
+
+        SegmentHeader(File file, long id, InstanceId instanceId, int clusterPartitions,
+                Map<Integer, Long> lastSpHandles, int headerSize) {
+            m_file = file;
+            m_id = id;
+            m_instanceId = instanceId;
+            m_clusterPartitions = clusterPartitions;
+            m_lastSpHandles = lastSpHandles;
+            m_headerSize = headerSize;
+        }
+    }
+
+    private final File m_dir;
+    // Segments with entries ordered by id
+    private final List<SegmentHeader> m_segments;
+    // All segment files including preallocated ones which were never written to
+    private final List<File> m_files;
+
+    private CommandLogReader(File dir, List<SegmentHeader> segments, List<File> files) {
+        m_dir = dir;
+        m_segments = segments;
+        m_files = files;
+    }
+
+    /**
+     * Read the segment headers in {@code dir}
+     */
+    public static CommandLogReader open(File dir) throws IOException {
+        TreeMap<Long, SegmentHeader> segments = new TreeMap<>();
+        List<File> files = new ArrayList<>();
+        File[] listing = dir.listFiles();
+        if (listing != null) {
+            for (File file : listing) {
+                if (CommandLogSegment.idFromFileName(file.getName()) < 0) {
+                    continue;
+                }
+                files.add(file);
+                SegmentHeader header = readHeader(file);
+                if (header != null) {
+                    segments.put(header.m_id, header);
+                }
+            }
+        }
+        return new CommandLogReader(dir, new ArrayList<>(segments.values()), files);
+    }
+
+    private static SegmentHeader readHeader(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer fixed = ByteBuffer.allocate(4 + 4 + 8 + 4 + 8 + 4 + 4);
+            while (fixed.hasRemaining()) {
+                if (channel.read(fixed) < 0) {
+                    // Preallocation did not complete
+                    return null;
+                }
+            }
+            fixed.flip();
+            int magic = fixed.getInt();
+            if (magic == 0) {
+                // Preallocated and never used
+                return null;
+            }
+            if (magic != CommandLogSegment.MAGIC) {
+                throw new IOException(file + " is not a command log segment");
+            }
+            int version = fixed.getInt();
+            if (version != CommandLogSegment.VERSION) {
+                throw new IOException("Unsupported version " + version + " of command log segment " + file);
+            }
+            long id = fixed.getLong();
+            InstanceId instanceId = new InstanceId(fixed.getInt(), fixed.getLong());
+            int clusterPartitions = fixed.getInt();
+            int partitionCount = fixed.getInt();
+            ByteBuffer partitions = ByteBuffer.allocate(partitionCount * (4 + 8));
+            while (partitions.hasRemaining()) {
+                if (channel.read(partitions) < 0) {
+                    throw new IOException("Truncated header in command log segment " + file);
+                }
+            }
+            partitions.flip();
+            Map<Integer, Long> lastSpHandles = new HashMap<>();
+            for (int i = 0; i < partitionCount; i++) {
+                lastSpHandles.put(partitions.getInt(), partitions.getLong());
+            }
+            return new SegmentHeader(file, id, instanceId, clusterPartitions, lastSpHandles, fixed.capacity() + partitions.capacity());
+        }
+    }
+
+    public boolean isEmpty() {
+        return m_segments.isEmpty();
+    }
+
+    public int getSegmentCount() {
+        return m_segments.size();
+    }
+
+    /**
+     * @return the instance of the cluster which wrote the log or {@code null} if the log is empty
+     */
+    public InstanceId getInstanceId() {
+        return m_segments.isEmpty() ? null : m_segments.get(0).m_instanceId;
+    }
+
+    /**
+     * @return number of partitions of the cluster which wrote the log, 0 if the log is empty or it is not known
+     * @throws IOException if the segments were written with different numbers of partitions
+     */
+    public int getClusterPartitionCount() throws IOException {
+        int clusterPartitions = 0;
+        for (SegmentHeader segment : m_segments) {
+            if (segment.m_clusterPartitions == 0) {
+                continue;
+            }
+            if (clusterPartitions != 0 && clusterPartitions != segment.m_clusterPartitions) {
+                throw new IOException("Command log segment " + segment.m_file + " was written by a cluster with " +
+                        segment.m_clusterPartitions + " partitions, earlier segments by one with " +
+                        clusterPartitions + " partitions");
+            }
+            clusterPartitions = segment.m_clusterPartitions;
+        }
+        return clusterPartitions;
+    }
+
+    /**
+     * @return for each partition, the spHandle of the last transaction which was truncated from the log.
+     *         A snapshot has to include all of them for the log to be replayed on top of it.
+     */
+    public Map<Integer, Long> getTruncationSpHandles() {
+        return m_segments.isEmpty() ? Collections.emptyMap() : m_segments.get(0).m_lastSpHandles;
+    }
+
+    /**
+     * Pass all initiations in the log, in the order they were logged, to {@code handler}.
+     */
+    public void forEachInitiation(InitiationHandler handler) throws IOException {
+        VoltDbMessageFactory factory = new VoltDbMessageFactory();
+        for (SegmentHeader segment : m_segments) {
+            try (FileChannel channel = FileChannel.open(segment.m_file.toPath(), StandardOpenOption.READ)) {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                mapped.position(segment.m_headerSize);
+                readEntries(segment, mapped, factory, handler);
+            }
+        }
+    }
+
+    private static void readEntries(SegmentHeader segment, ByteBuffer buf, VoltDbMessageFactory factory,
+            InitiationHandler handler) throws IOException {
+        PureJavaCrc32C crc = new PureJavaCrc32C();
+        while (buf.remaining() >= CommandLogSegment.ENTRY_HEADER_SIZE) {
+            int length = buf.getInt();
+            int checksum = buf.getInt();
+            if (length <= 0 || length > buf.remaining()) {
+                // End of the written part of the segment
+                return;
+            }
+            byte[] payload = new byte[length];
+            buf.get(payload);
+            crc.reset();
+            crc.update(payload, 0, length);
+            if ((int) crc.getValue() != checksum) {
+                LOG.warn("Ignoring the tail of command log segment " + segment.m_file
+                        + " after an incomplete entry at offset "
+                        + (buf.position() - length - CommandLogSegment.ENTRY_HEADER_SIZE));
+                return;
+            }
+            ByteBuffer entry = ByteBuffer.wrap(payload);
+            LogEntryType type = LogEntryType.valueOf(entry.get());
+            if (type != LogEntryType.INITIATION) {
+                // Fault records only matter to a running cluster
+                continue;
+            }
+            long spHandle = entry.getLong();
+            int[] involvedPartitions = new int[entry.getInt()];
+            for (int i = 0; i < involvedPartitions.length; i++) {
+                involvedPartitions[i] = entry.getInt();
+            }
+            Iv2InitiateTaskMessage message =
+                    (Iv2InitiateTaskMessage) factory.createMessageFromBuffer(entry, -1);
+            handler.handle(spHandle, involvedPartitions, message);
+        }
+    }
+
+    /**
+     * Remove all segment files. The log can not be replayed afterwards.
+     */
+    public void deleteSegments() {
+        for (File file : m_files) {
+            if (!file.delete() && file.exists()) {
+                LOG.warn("Failed to delete command log segment " + file);
+            }
+        }
+        m_segments.clear();
+        m_files.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "CommandLogReader(" + m_dir + ", " + m_segments.size() + " segments)";
+    }
+}
@@ -0,0 +1,264 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2022 Volt Active Data Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.voltdb.commandlog;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.hadoop_voltpatches.util.PureJavaCrc32C;
+import org.voltcore.utils.InstanceId;
+import org.voltdb.LogEntryType;
+import org.voltdb.iv2.TxnEgo;
+import org.voltdb.messaging.Iv2InitiateTaskMessage;
+
+/**
+ * One file of the command log. Segments are preallocated, filled with zeros, so that appending
+ * to them and syncing does not have to update the file size in the file system metadata.
+ * <p>
+ * A segment starts with a header:
+ * <pre>
+ *   int magic, int version, long segment id, int instance coordinator, long instance timestamp,
+ *   int partitions of the cluster (0 if unknown),
+ *   int partition count, (int partition id, long last spHandle logged before this segment) * count
+ * </pre>
+ * followed by entries:
+ * <pre>
+ *   int payload length, int CRC32C of the payload, payload: byte entry type, long spHandle, ...
+ * </pre>
+ * The first entry with a length of 0 or a bad checksum ends the segment. That is either the
+ * preallocated space or an entry which was being written when the process died.
+ */
+final class CommandLogSegment implements Closeable {
+    static final String FILE_PREFIX = "commandlog_";
+    static final String FILE_SUFFIX = ".vcl";
+
+    static final int MAGIC = 0x56434C47; // VCLG
+    static final int VERSION = 2;
+    static final int ENTRY_HEADER_SIZE = 4 + 4;
+
+    private static final int ZERO_FILL_CHUNK = 1024 * 1024;
+
+    private final long m_id;
+    private final File m_file;
+    private final long m_preallocatedSize;
+    private final FileChannel m_channel;
+    // Highest spHandle written to this segment for each partition
+    private final Map<Integer, Long> m_maxSpHandles = new HashMap<>();
+    private long m_position;
+
+    private CommandLogSegment(long id, File file, long preallocatedSize, FileChannel channel) {
+        m_id = id;
+        m_file = file;
+        m_preallocatedSize = preallocatedSize;
+        m_channel = channel;
+    }
+
+    static String fileName(long id) {
+        return FILE_PREFIX + id + FILE_SUFFIX;
+    }
+
+    /**
+     * @return the segment id encoded in the file name, or -1 if it is not the name of a segment
+     */
+    static long idFromFileName(String name) {
+        if (!name.startsWith(FILE_PREFIX) || !name.endsWith(FILE_SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Create a segment file of {@code size} bytes filled with zeros and force it to disk.
+     */
+    static CommandLogSegment preallocate(File dir, long id, long size) throws IOException {
+        File file = new File(dir, fileName(id));
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer zeros = ByteBuffer.allocateDirect((int) Math.min(ZERO_FILL_CHUNK, size));
+            long position = 0;
+            while (position < size) {
+                zeros.clear();
+                zeros.limit((int) Math.min(zeros.capacity(), size - position));
+                while (zeros.hasRemaining()) {
+                    position += channel.write(zeros, position);
+                }
+            }
+            channel.force(true);
+        } catch (IOException e) {
+            channel.close();
+            file.delete();
+            throw e;
+        }
+        return new CommandLogSegment(id, file, size, channel);
+    }
+
+    /**
+     * Write the header which makes the segment readable.
+     *
+     * @param clusterPartitions number of partitions of the cluster writing the log, 0 if unknown
+     * @param lastSpHandles the last spHandle of every partition logged before this segment
+     */
+    void open(InstanceId instanceId, int clusterPartitions, Map<Integer, Long> lastSpHandles) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(4 + 4 + 8 + 4 + 8 + 4 + 4 + lastSpHandles.size() * (4 + 8));
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        header.putLong(m_id);
+        header.putInt(instanceId.getCoord());
+        header.putLong(instanceId.getTimestamp());
+        header.putInt(clusterPartitions);
+        header.putInt(lastSpHandles.size());
+        for (Map.Entry<Integer, Long> e : lastSpHandles.entrySet()) {
+            header.putInt(e.getKey());
+            header.putLong(e.getValue());
+        }
+        header.flip();
+        write(header);
+    }
+
+    /**
+     * Append serialized entries to the segment
+     */
+    void write(ByteBuffer entries) throws IOException {
+        while (entries.hasRemaining()) {
+            m_position += m_channel.write(entries, m_position);
+        }
+    }
+
+    void sync() throws IOException {
+        m_channel.force(false);
+    }
+
+    /**
+     * Record that an entry of {@code spHandle} was written to this segment
+     */
+    void logged(long spHandle) {
+        m_maxSpHandles.merge(TxnEgo.getPartitionId(spHandle), spHandle, Math::max);
+    }
+
+    /**
+     * @return {@code true} if {@code bytes} more bytes fit in the preallocated space
+     */
+    boolean hasRoom(int bytes) {
+        return m_position + bytes <= m_preallocatedSize;
+    }
+
+    /**
+     * @return {@code true} if all entries of this segment are covered by the given snapshot
+     */
+    boolean isTruncatedBy(Map<Integer, Long> snapshotSpHandles) {
+        for (Map.Entry<Integer, Long> e : m_maxSpHandles.entrySet()) {
+            Long snapshotSpHandle = snapshotSpHandles.get(e.getKey());
+            if (snapshotSpHandle == null || snapshotSpHandle < e.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    Map<Integer, Long> getMaxSpHandles() {
+        return m_maxSpHandles;
+    }
+
+    long getId() {
+        return m_id;
+    }
+
+    long getPosition() {
+        return m_position;
+    }
+
+    File getFile() {
+        return m_file;
+    }
+
+    @Override
+    public void close() throws IOException {
+        m_channel.close();
+    }
+
+    /**
+     * Close and remove the segment file
+     */
+    void delete() throws IOException {
+        close();
+        m_file.delete();
+    }
+
+    /**
+     * Serialize an initiation. Called on the site threads so they share the serialization and
+     * checksum work instead of leaving all of it to the writer.
+     */
+    static ByteBuffer initiationEntry(Iv2InitiateTaskMessage message, long spHandle, int[] involvedPartitions)
+            throws IOException {
+        int involvedCount = involvedPartitions == null ? 0 : involvedPartitions.length;
+        int messageSize = message.getSerializedSize();
+        int payloadSize = 1 + 8 + 4 + involvedCount * 4 + messageSize;
+        ByteBuffer entry = ByteBuffer.allocate(ENTRY_HEADER_SIZE + payloadSize);
+        entry.position(ENTRY_HEADER_SIZE);
+        entry.put(LogEntryType.INITIATION.asByte());
+        entry.putLong(spHandle);
+        entry.putInt(involvedCount);
+        for (int i = 0; i < involvedCount; i++) {
+            entry.putInt(involvedPartitions[i]);
+        }
+        ByteBuffer messageBuffer = entry.slice();
+        messageBuffer.limit(messageSize);
+        message.flattenToBuffer(messageBuffer);
+        return frame(entry, payloadSize);
+    }
+
+    /**
+     * Serialize an IV2 fault or master-only mode record
+     */
+    static ByteBuffer faultEntry(LogEntryType type, long writerHSId, Set<Long> survivorHSIds,
+            int partitionId, long spHandle) {
+        int payloadSize = 1 + 8 + 8 + 4 + 4 + survivorHSIds.size() * 8;
+        ByteBuffer entry = ByteBuffer.allocate(ENTRY_HEADER_SIZE + payloadSize);
+        entry.position(ENTRY_HEADER_SIZE);
+        entry.put(type.asByte());
+        entry.putLong(spHandle);
+        entry.putLong(writerHSId);
+        entry.putInt(partitionId);
+        entry.putInt(survivorHSIds.size());
+        for (long hsId : survivorHSIds) {
+            entry.putLong(hsId);
+        }
+        return frame(entry, payloadSize);
+    }
+
+    private static ByteBuffer frame(ByteBuffer entry, int payloadSize) {
+        PureJavaCrc32C crc = new PureJavaCrc32C();
+        crc.update(entry.array(), ENTRY_HEADER_SIZE, payloadSize);
+        entry.putInt(0, payloadSize);
+        entry.putInt(4, (int) crc.getValue());
+        entry.position(0);
+        entry.limit(ENTRY_HEADER_SIZE + payloadSize);
+        return entry;
+    }
+}
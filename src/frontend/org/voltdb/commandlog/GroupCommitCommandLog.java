@@ -0,0 +1,588 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2022 Volt Active Data Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.voltdb.commandlog;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.zookeeper_voltpatches.CreateMode;
+import org.apache.zookeeper_voltpatches.ZooDefs.Ids;
+import org.voltcore.logging.VoltLogger;
+import org.voltcore.messaging.HostMessenger;
+import org.voltcore.utils.CoreUtils;
+import org.voltcore.utils.InstanceId;
+import org.voltdb.CommandLog;
+import org.voltdb.CommandLogStats;
+import org.voltdb.LogEntryType;
+import org.voltdb.SnapshotCompletionInterest;
+import org.voltdb.SnapshotCompletionMonitor;
+import org.voltdb.VoltDB;
+import org.voltdb.VoltZK;
+import org.voltdb.iv2.Cartographer;
+import org.voltdb.iv2.TransactionTask;
+import org.voltdb.iv2.TxnEgo;
+import org.voltdb.messaging.Iv2InitiateTaskMessage;
+
+import com.google_voltpatches.common.collect.ImmutableSet;
+import com.google_voltpatches.common.util.concurrent.Futures;
+import com.google_voltpatches.common.util.concurrent.ListenableFuture;
+import com.google_voltpatches.common.util.concurrent.SettableFuture;
+
+/**
+ * Command log which writes the initiations of all sites of the host to one sequence of segment
+ * files with group commit: a single writer thread appends whatever the sites logged since its
+ * last write and syncs the file once per fsync interval, or earlier when the configured number
+ * of transactions is waiting, and then tells the {@link DurabilityListener}s of the sites which
+ * of their transactions are durable.
+ * <p>
+ * With synchronous logging the sites hold transactions back until they are durable. With
+ * asynchronous logging the transactions execute right away and the sites only slow down when
+ * the writer falls too far behind.
+ * <p>
+ * Segments are preallocated ahead of the writer and are removed once a truncation snapshot
+ * includes all of their transactions. {@link CommandLogReader} reads them back for replay.
+ */
+public class GroupCommitCommandLog implements CommandLog, SnapshotCompletionInterest {
+    private static final VoltLogger LOG = new VoltLogger("LOGGING");
+
+    /** Size of the preallocated segment files */
+    static final long SEGMENT_SIZE = Long.getLong("CL_SEGMENT_SIZE", 64L * 1024 * 1024);
+    /** Asynchronous logging applies backpressure to the sites past this many unwritten bytes */
+    static final long MAX_OUTSTANDING_BYTES = Long.getLong("CL_MAX_OUTSTANDING_BYTES", 128L * 1024 * 1024);
+    private static final int WRITE_BUFFER_SIZE = 1024 * 1024;
+
+    private static final ListenableFuture<Object> NO_BACKPRESSURE = Futures.immediateFuture(null);
+
+    private interface LogAction {
+        void run() throws IOException, ExecutionException, InterruptedException;
+    }
+
+    /**
+     * Something for the writer thread to do: write an entry, track a transaction or run an action
+     */
+    private static final class LogRequest {
+        final ByteBuffer m_entry;
+        // spHandle of a logged initiation, Long.MIN_VALUE for other entries
+        final long m_spHandle;
+        final DurabilityListener m_listener;
+        final TransactionTask m_task;
+        final SettableFuture<Boolean> m_written;
+        final LogAction m_action;
+
+        LogRequest(ByteBuffer entry, long spHandle, DurabilityListener listener, TransactionTask task,
+                SettableFuture<Boolean> written, LogAction action) {
+            m_entry = entry;
+            m_spHandle = spHandle;
+            m_listener = listener;
+            m_task = task;
+            m_written = written;
+            m_action = action;
+        }
+
+        static LogRequest action(LogAction action) {
+            return new LogRequest(null, Long.MIN_VALUE, null, null, null, action);
+        }
+    }
+
+    private static final LogRequest SHUTDOWN = LogRequest.action(() -> {});
+
+    private final boolean m_synchronous;
+    private final long m_fsyncIntervalNanos;
+    private final int m_maxTxnsBeforeFsync;
+    private final File m_logDir;
+    private final long m_segmentSize;
+
+    private final LinkedBlockingQueue<LogRequest> m_requests = new LinkedBlockingQueue<>();
+    private final ConcurrentLinkedQueue<SettableFuture<Object>> m_backpressured = new ConcurrentLinkedQueue<>();
+    private final AtomicLong m_outstandingBytes = new AtomicLong();
+    private final AtomicLong m_outstandingTxns = new AtomicLong();
+    private final Thread m_writer;
+    private final ExecutorService m_preallocator;
+
+    private volatile boolean m_initRequested = false;
+    private volatile SnapshotCompletionMonitor m_snapshotMonitor;
+    private volatile boolean m_truncationPending = false;
+    private volatile ImmutableSet<Integer> m_decommissionedPartitions = ImmutableSet.of();
+
+    // Stats written by the writer thread
+    private volatile int m_inUseSegmentCount = 0;
+    private volatile int m_segmentCount = 0;
+    private volatile int m_lastFsyncIntervalMs = 0;
+
+    // Everything below is only accessed by the writer thread
+    private InstanceId m_instanceId;
+    // Partitions of the cluster, recorded in the segments to check that replay uses as many
+    private int m_clusterPartitions = 0;
+    private long m_logSizeBytes;
+    private final ByteBuffer m_writeBuffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+    private CommandLogSegment m_current;
+    private Future<CommandLogSegment> m_next;
+    private final ArrayDeque<CommandLogSegment> m_closed = new ArrayDeque<>();
+    // Last spHandle logged for each partition, written to the header of every new segment
+    private final Map<Integer, Long> m_lastSpHandles = new HashMap<>();
+    private final Set<DurabilityListener> m_changedListeners = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final List<SettableFuture<Boolean>> m_unsyncedFaults = new ArrayList<>();
+    private boolean m_unsynced = false;
+    private long m_unsyncedBytes = 0;
+    private int m_unsyncedTxns = 0;
+    private long m_lastSyncNanos;
+
+    /**
+     * @param synchronous     hold transactions back until they are durable
+     * @param fsyncIntervalMs maximum time between syncs of the log
+     * @param maxTxns         sync earlier when this many transactions were logged since the last sync
+     * @param logPath         directory of the segment files
+     */
+    public GroupCommitCommandLog(boolean synchronous, int fsyncIntervalMs, int maxTxns, String logPath) {
+        this(synchronous, fsyncIntervalMs, maxTxns, logPath, SEGMENT_SIZE, null);
+    }
+
+    /**
+     * Tests provide the segment size and instance ID, and run without a snapshot monitor or ZooKeeper
+     */
+    GroupCommitCommandLog(boolean synchronous, int fsyncIntervalMs, int maxTxns, String logPath,
+            long segmentSize, InstanceId instanceId) {
+        m_synchronous = synchronous;
+        m_fsyncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(fsyncIntervalMs, 1));
+        m_maxTxnsBeforeFsync = maxTxns > 0 ? maxTxns : Integer.MAX_VALUE;
+        m_logDir = new File(logPath);
+        m_segmentSize = segmentSize;
+        m_instanceId = instanceId;
+        m_preallocator = CoreUtils.getSingleThreadExecutor("Command Log Preallocator");
+        m_writer = new Thread(this::runWriter, "Command Log Writer");
+        m_writer.setDaemon(true);
+        // Transactions pass through the log before it is initialized, e.g. during replay
+        m_writer.start();
+    }
+
+    @Override
+    public void init(int logSize, long txnId, String coreBinding, Map<Integer, Long> perPartitionTxnId) {
+        m_initRequested = true;
+        final Map<Integer, Long> truncationPoints =
+                perPartitionTxnId == null ? Collections.emptyMap() : new HashMap<>(perPartitionTxnId);
+        if (m_instanceId == null) {
+            m_snapshotMonitor = VoltDB.instance().getSnapshotCompletionMonitor();
+            if (m_snapshotMonitor != null) {
+                m_snapshotMonitor.addInterest(this);
+            }
+        }
+        m_requests.offer(LogRequest.action(() -> openLog(logSize, truncationPoints)));
+    }
+
+    @Override
+    public void initForRejoin(int logSize, long txnId, boolean isRejoin, String coreBinding,
+            Map<Integer, Long> perPartitionTxnId) {
+        init(logSize, txnId, coreBinding, perPartitionTxnId);
+    }
+
+    @Override
+    public boolean needsInitialization() {
+        return !m_initRequested;
+    }
+
+    @Override
+    public ListenableFuture<Object> log(Iv2InitiateTaskMessage message, long spHandle, int[] involvedPartitions,
+            DurabilityListener listener, TransactionTask durabilityHandle) {
+        ByteBuffer entry = null;
+        if (message != null) {
+            try {
+                entry = CommandLogSegment.initiationEntry(message, spHandle, involvedPartitions);
+            } catch (IOException e) {
+                VoltDB.crashLocalVoltDB("Unable to serialize " + message + " for the command log", true, e);
+            }
+            m_outstandingBytes.addAndGet(entry.remaining());
+        }
+        m_outstandingTxns.incrementAndGet();
+        m_requests.offer(new LogRequest(entry, spHandle, listener, durabilityHandle, null, null));
+
+        if (m_synchronous) {
+            // The durability listener releases the task
+            return null;
+        }
+        if (m_outstandingBytes.get() > MAX_OUTSTANDING_BYTES) {
+            SettableFuture<Object> backpressure = SettableFuture.create();
+            m_backpressured.offer(backpressure);
+            return backpressure;
+        }
+        return NO_BACKPRESSURE;
+    }
+
+    @Override
+    public SettableFuture<Boolean> logIv2Fault(long writerHSId, Set<Long> survivorHSId, int partitionId,
+            long spHandle) {
+        return logIv2Fault(writerHSId, survivorHSId, partitionId, spHandle, LogEntryType.IV2FAULT);
+    }
+
+    @Override
+    public SettableFuture<Boolean> logIv2Fault(long writerHSId, Set<Long> survivorHSId, int partitionId,
+            long spHandle, LogEntryType entryType) {
+        SettableFuture<Boolean> written = SettableFuture.create();
+        ByteBuffer entry = CommandLogSegment.faultEntry(entryType, writerHSId, survivorHSId, partitionId, spHandle);
+        m_outstandingBytes.addAndGet(entry.remaining());
+        m_requests.offer(new LogRequest(entry, Long.MIN_VALUE, null, null, written, null));
+        return written;
+    }
+
+    @Override
+    public void initializeLastDurableUniqueId(DurabilityListener listener, long uniqueId) {
+        m_requests.offer(LogRequest.action(() -> {
+            listener.initializeLastDurableUniqueId(uniqueId);
+            m_changedListeners.add(listener);
+            m_unsynced = true;
+        }));
+    }
+
+    @Override
+    public void shutdown() throws InterruptedException {
+        if (m_writer.isAlive()) {
+            m_requests.offer(SHUTDOWN);
+            m_writer.join();
+        }
+        m_preallocator.shutdownNow();
+        if (m_snapshotMonitor != null) {
+            m_snapshotMonitor.removeInterest(this);
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isSynchronous() {
+        return m_synchronous;
+    }
+
+    @Override
+    public boolean canOfferTask() {
+        return !m_synchronous;
+    }
+
+    @Override
+    public void registerDurabilityListener(DurabilityListener durabilityListener) {
+        // Every logged transaction comes with the listener to notify
+    }
+
+    @Override
+    public void requestTruncationSnapshot(boolean queueIfPending) {
+        if (m_truncationPending && !queueIfPending) {
+            return;
+        }
+        HostMessenger messenger = VoltDB.instance().getHostMessenger();
+        if (messenger == null) {
+            return;
+        }
+        m_truncationPending = true;
+        try {
+            messenger.getZK().create(VoltZK.request_truncation_snapshot_node, null, Ids.OPEN_ACL_UNSAFE,
+                    CreateMode.PERSISTENT_SEQUENTIAL);
+        } catch (Exception e) {
+            m_truncationPending = false;
+            LOG.warn("Failed to request a truncation snapshot of the command log", e);
+        }
+    }
+
+    @Override
+    public void notifyTruncationSnapshotStarted() {
+        m_truncationPending = true;
+        // Start a new segment so the current one can be removed once the snapshot completes
+        m_requests.offer(LogRequest.action(() -> {
+            if (m_current != null && !m_current.getMaxSpHandles().isEmpty()) {
+                roll();
+            }
+        }));
+    }
+
+    @Override
+    public CountDownLatch snapshotCompleted(SnapshotCompletionEvent event) {
+        if (event.truncationSnapshot) {
+            m_truncationPending = false;
+            if (event.didSucceed) {
+                final Map<Integer, Long> snapshotSpHandles = event.partitionTxnIds;
+                m_requests.offer(LogRequest.action(() -> truncate(snapshotSpHandles)));
+            }
+        }
+        return new CountDownLatch(0);
+    }
+
+    @Override
+    public void populateCommandLogStats(int offset, Object[] rowValues) {
+        rowValues[offset + CommandLogStats.CommandLogCols.OUTSTANDING_BYTES.ordinal()] = m_outstandingBytes.get();
+        rowValues[offset + CommandLogStats.CommandLogCols.OUTSTANDING_TXNS.ordinal()] = m_outstandingTxns.get();
+        rowValues[offset + CommandLogStats.CommandLogCols.IN_USE_SEGMENT_COUNT.ordinal()] = m_inUseSegmentCount;
+        rowValues[offset + CommandLogStats.CommandLogCols.SEGMENT_COUNT.ordinal()] = m_segmentCount;
+        rowValues[offset + CommandLogStats.CommandLogCols.FSYNC_INTERVAL.ordinal()] = m_lastFsyncIntervalMs;
+    }
+
+    @Override
+    public void getCommandLogOutstanding(long[] out) {
+        out[0] = m_outstandingBytes.get();
+        out[1] = m_outstandingTxns.get();
+    }
+
+    @Override
+    public void notifyDecommissionPartitions(List<Integer> partitions) {
+        m_decommissionedPartitions = ImmutableSet.<Integer>builder()
+                .addAll(m_decommissionedPartitions).addAll(partitions).build();
+    }
+
+    @Override
+    public ImmutableSet<Integer> getDecommissionedPartitions() {
+        return m_decommissionedPartitions;
+    }
+
+    /*
+     * Writer thread
+     */
+
+    private void runWriter() {
+        List<LogRequest> batch = new ArrayList<>();
+        m_lastSyncNanos = System.nanoTime();
+        boolean shutdown = false;
+        try {
+            while (!shutdown) {
+                long wait = m_lastSyncNanos + m_fsyncIntervalNanos - System.nanoTime();
+                LogRequest first = wait > 0 ? m_requests.poll(wait, TimeUnit.NANOSECONDS) : m_requests.poll();
+                if (first != null) {
+                    batch.add(first);
+                    m_requests.drainTo(batch);
+                    for (LogRequest request : batch) {
+                        if (request == SHUTDOWN) {
+                            shutdown = true;
+                        } else {
+                            append(request);
+                        }
+                    }
+                    batch.clear();
+                }
+                if (shutdown || m_unsyncedTxns >= m_maxTxnsBeforeFsync
+                        || System.nanoTime() - m_lastSyncNanos >= m_fsyncIntervalNanos) {
+                    sync();
+                }
+            }
+            closeLog();
+        } catch (IOException | ExecutionException e) {
+            VoltDB.crashLocalVoltDB("Unable to write to the command log in " + m_logDir, true, e);
+        } catch (InterruptedException e) {
+            LOG.warn("Command log writer interrupted", e);
+        } finally {
+            releaseBackpressure(true);
+        }
+    }
+
+    private void append(LogRequest request) throws IOException, ExecutionException, InterruptedException {
+        if (request.m_action != null) {
+            request.m_action.run();
+            return;
+        }
+        ByteBuffer entry = request.m_entry;
+        if (entry != null) {
+            int size = entry.remaining();
+            if (m_current != null) {
+                if (!m_current.hasRoom(m_writeBuffer.position() + size)) {
+                    roll();
+                }
+                if (m_writeBuffer.remaining() < size) {
+                    flushWriteBuffer();
+                }
+                if (size > m_writeBuffer.capacity()) {
+                    m_current.write(entry);
+                } else {
+                    m_writeBuffer.put(entry);
+                }
+                if (request.m_spHandle != Long.MIN_VALUE) {
+                    m_current.logged(request.m_spHandle);
+                    m_lastSpHandles.merge(TxnEgo.getPartitionId(request.m_spHandle), request.m_spHandle, Math::max);
+                }
+            }
+            m_unsyncedBytes += size;
+        }
+        if (request.m_task != null) {
+            request.m_listener.addTransaction(request.m_task);
+            m_changedListeners.add(request.m_listener);
+        }
+        if (request.m_written != null) {
+            m_unsyncedFaults.add(request.m_written);
+        } else {
+            ++m_unsyncedTxns;
+        }
+        m_unsynced = true;
+    }
+
+    private void flushWriteBuffer() throws IOException {
+        if (m_writeBuffer.position() > 0) {
+            m_writeBuffer.flip();
+            m_current.write(m_writeBuffer);
+            m_writeBuffer.clear();
+        }
+    }
+
+    /**
+     * Make everything appended so far durable and notify whoever waits for it
+     */
+    private void sync() throws IOException {
+        long now = System.nanoTime();
+        if (m_unsynced) {
+            if (m_current != null) {
+                flushWriteBuffer();
+                if (m_unsyncedBytes > 0) {
+                    m_current.sync();
+                }
+            }
+            for (DurabilityListener listener : m_changedListeners) {
+                listener.processDurabilityChecks(listener.startNewTaskList(listener.getNumberOfTasks()));
+            }
+            m_changedListeners.clear();
+            for (SettableFuture<Boolean> written : m_unsyncedFaults) {
+                written.set(true);
+            }
+            m_unsyncedFaults.clear();
+            m_outstandingBytes.addAndGet(-m_unsyncedBytes);
+            m_outstandingTxns.addAndGet(-m_unsyncedTxns);
+            m_unsyncedBytes = 0;
+            m_unsyncedTxns = 0;
+            m_unsynced = false;
+            m_lastFsyncIntervalMs = (int) TimeUnit.NANOSECONDS.toMillis(now - m_lastSyncNanos);
+        }
+        m_lastSyncNanos = now;
+        releaseBackpressure(false);
+    }
+
+    private void releaseBackpressure(boolean all) {
+        if (all || m_outstandingBytes.get() <= MAX_OUTSTANDING_BYTES / 2) {
+            SettableFuture<Object> backpressure;
+            while ((backpressure = m_backpressured.poll()) != null) {
+                backpressure.set(null);
+            }
+        }
+    }
+
+    private void openLog(int logSizeMB, Map<Integer, Long> truncationPoints) throws IOException {
+        if (m_current != null) {
+            return;
+        }
+        if (!m_logDir.isDirectory() && !m_logDir.mkdirs()) {
+            throw new IOException("Unable to create command log directory " + m_logDir);
+        }
+        if (m_instanceId == null) {
+            m_instanceId = VoltDB.instance().getHostMessenger().getInstanceId();
+        }
+        Cartographer cartographer = VoltDB.instance().getCartographer();
+        if (cartographer != null) {
+            m_clusterPartitions = cartographer.getPartitionCount();
+        }
+        m_logSizeBytes = logSizeMB * 1024L * 1024L;
+        m_lastSpHandles.putAll(truncationPoints);
+
+        // The log is initialized once recovery made everything durable in a truncation snapshot,
+        // segments still on disk belong to a previous instance of the database
+        File[] files = m_logDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (CommandLogSegment.idFromFileName(file.getName()) >= 0) {
+                    LOG.info("Removing command log segment " + file + " of a previous database instance");
+                    file.delete();
+                }
+            }
+        }
+        m_current = CommandLogSegment.preallocate(m_logDir, 0, m_segmentSize);
+        m_current.open(m_instanceId, m_clusterPartitions, m_lastSpHandles);
+        preallocateNext();
+        LOG.info("Command log initialized in " + m_logDir + " with " + (m_synchronous ? "synchronous" : "asynchronous")
+                + " logging and an fsync interval of " + TimeUnit.NANOSECONDS.toMillis(m_fsyncIntervalNanos) + "ms");
+    }
+
+    private void preallocateNext() {
+        final long id = m_current.getId() + 1;
+        m_next = m_preallocator.submit(() -> CommandLogSegment.preallocate(m_logDir, id, m_segmentSize));
+        updateSegmentCounts();
+    }
+
+    /**
+     * Close the current segment and continue in the preallocated one
+     */
+    private void roll() throws IOException, ExecutionException, InterruptedException {
+        flushWriteBuffer();
+        m_current.sync();
+        m_current.close();
+        m_closed.add(m_current);
+        m_current = m_next.get();
+        m_current.open(m_instanceId, m_clusterPartitions, m_lastSpHandles);
+        preallocateNext();
+        if ((m_closed.size() + 1) * m_segmentSize > m_logSizeBytes) {
+            requestTruncationSnapshot(false);
+        }
+    }
+
+    /**
+     * Remove the oldest segments as long as all of their transactions are in the snapshot
+     */
+    private void truncate(Map<Integer, Long> snapshotSpHandles) throws IOException {
+        int truncated = 0;
+        while (!m_closed.isEmpty() && m_closed.peekFirst().isTruncatedBy(snapshotSpHandles)) {
+            m_closed.pollFirst().delete();
+            ++truncated;
+        }
+        if (truncated > 0) {
+            LOG.info("Truncated " + truncated + " command log segments");
+            updateSegmentCounts();
+        }
+    }
+
+    private void updateSegmentCounts() {
+        m_inUseSegmentCount = m_closed.size() + (m_current == null ? 0 : 1);
+        m_segmentCount = m_inUseSegmentCount + (m_next == null ? 0 : 1);
+    }
+
+    private void closeLog() throws IOException {
+        for (CommandLogSegment segment : m_closed) {
+            segment.close();
+        }
+        m_closed.clear();
+        if (m_current != null) {
+            m_current.close();
+            m_current = null;
+        }
+        if (m_next != null) {
+            try {
+                m_next.get().close();
+            } catch (InterruptedException | ExecutionException e) {
+                // The segment never existed or is left to the next start
+            }
+            m_next = null;
+        }
+        updateSegmentCounts();
+    }
+}
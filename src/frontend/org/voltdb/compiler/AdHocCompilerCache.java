@@ -17,20 +17,38 @@
 
 package org.voltdb.compiler;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.Set;
 
+import org.voltcore.logging.VoltLogger;
+import org.voltdb.ParameterSet;
 import org.voltdb.common.Constants;
 import org.voltdb.planner.BoundPlan;
+import org.voltdb.planner.CorePlan;
 import org.voltdb.utils.Encoder;
 
 import com.google_voltpatches.common.cache.Cache;
 import com.google_voltpatches.common.cache.CacheBuilder;
+import com.google_voltpatches.common.cache.CacheStats;
+import com.google_voltpatches.common.cache.Weigher;
 
 /**
  * Keep a cache two level cache of plans generated by the Ad Hoc
@@ -43,10 +61,19 @@ import com.google_voltpatches.common.cache.CacheBuilder;
  * statement mapped to core parameterized plans. These parameterized
  * plans need parameter values and sql literals in order to be
  * actually used.
+ *
+ * Both levels are concurrent caches bounded by memory and, approximately,
+ * by entry count; lookups and insertions do not serialize the planner threads.
+ * Hits, misses and evictions are reported through {@code @Statistics PLANCACHE}.
+ *
+ * The second level can be persisted to the voltdbroot so that a restarted node
+ * starts with the parameterized plans it had before, see {@link #enablePersistence(File)}.
  */
 public class AdHocCompilerCache implements Serializable {
     private static final long serialVersionUID = 1L;
 
+    private static final VoltLogger hostLog = new VoltLogger("HOST");
+
     //////////////////////////////////////////////////////////////////////////
     // STATIC CODE TO MANAGE CACHE LIFETIMES / GLOBALNESS
     //////////////////////////////////////////////////////////////////////////
@@ -55,8 +82,20 @@ public class AdHocCompilerCache implements Serializable {
     private static Cache<String, AdHocCompilerCache> m_catalogHashMatch =
             CacheBuilder.newBuilder().weakValues().build();
 
-    public static void clearHashCache() {
+    // cache most recently requested by a planner, the one reported by statistics and persisted
+    private static volatile AdHocCompilerCache m_currentCache = null;
+
+    // file the parameterized plans are persisted to, null if persistence is disabled
+    private static File m_persistFile = null;
+    // true until plans from the persisted file have been loaded into a cache of the same catalog
+    private static boolean m_persistedPlansPending = false;
+
+    static final int PERSIST_FILE_MAGIC = 0x50434348; // "PCCH"
+    static final int PERSIST_FILE_VERSION = 2;
+
+    public static synchronized void clearHashCache() {
         m_catalogHashMatch.invalidateAll();
+        m_currentCache = null;
     }
 
     /**
@@ -67,176 +106,153 @@ public class AdHocCompilerCache implements Serializable {
         String hashString = Encoder.hexEncode(catalogHash);
         AdHocCompilerCache cache = m_catalogHashMatch.getIfPresent(hashString);
         if (cache == null) {
-            cache = new AdHocCompilerCache();
+            cache = new AdHocCompilerCache(catalogHash);
+            if (m_persistedPlansPending && cache.loadCorePlans(m_persistFile)) {
+                m_persistedPlansPending = false;
+            }
             m_catalogHashMatch.put(hashString, cache);
         }
+        m_currentCache = cache;
         return cache;
     }
 
+    /**
+     * @return the cache most recently handed out to a planner, or null if there is none
+     */
+    public static AdHocCompilerCache getCurrentCache() {
+        return m_currentCache;
+    }
+
+    /**
+     * Persist the parameterized plans of the current cache to the given file on
+     * {@link #persistCurrentCache()}, and load the plans previously saved to that
+     * file into the first cache created for the same catalog hash.
+     *
+     * @param file  file the plans are saved to and loaded from
+     */
+    public static synchronized void enablePersistence(File file) {
+        m_persistFile = file;
+        m_persistedPlansPending = file.isFile();
+        if (m_persistedPlansPending && m_currentCache != null
+                && m_currentCache.loadCorePlans(file)) {
+            m_persistedPlansPending = false;
+        }
+    }
+
+    /**
+     * Write the parameterized plans of the current cache to the persistence file,
+     * if persistence is enabled.
+     */
+    public static synchronized void persistCurrentCache() {
+        AdHocCompilerCache cache = m_currentCache;
+        if (m_persistFile == null || cache == null
+                || cache.m_catalogHash == null || cache.m_catalogHash.length == 0) {
+            return;
+        }
+        // Don't replace plans that have not been loaded yet with an empty cache
+        if (m_persistedPlansPending && cache.m_coreCache.size() == 0) {
+            return;
+        }
+        try {
+            int count = cache.saveCorePlans(m_persistFile);
+            if (hostLog.isDebugEnabled()) {
+                hostLog.debug("Saved " + count + " parameterized ad hoc plans to " + m_persistFile);
+            }
+        } catch (IOException e) {
+            hostLog.warn("Failed to save the ad hoc plan cache to " + m_persistFile + ": " + e.getMessage());
+        }
+    }
+
     //////////////////////////////////////////////////////////////////////////
     // PER-INSTANCE AWESOMEC CACHING CODE
     //////////////////////////////////////////////////////////////////////////
 
     // cache sizes determined at construction time
     final int MAX_LITERAL_ENTRIES;
-    // max cache size for parameterized plans
+    // max cache size for full plans
     final long MAX_LITERAL_MEM  = Long.getLong("ADHOC_COMPILER_CACHE_MAX_LITERAL_MEM_BYTES", 32*1024*1024);
     final int MAX_CORE_ENTRIES;
+    // max cache size for parameterized plans
+    final long MAX_CORE_MEM  = Long.getLong("ADHOC_COMPILER_CACHE_MAX_CORE_MEM_BYTES", 32*1024*1024);
+
+    /** catalog hash the cached plans were planned against, null in tests */
+    private final byte[] m_catalogHash;
 
     /** cache of literals to full plans */
-    final Map<String, AdHocPlannedStatement> m_literalCache;
+    final Cache<String, AdHocPlannedStatement> m_literalCache;
     /** cache of parameterized plan descriptions to one or more core parameterized plans,
      *  each plan optionally has its own requirements for which parameters need to be bound
-     *  to what values to enable its specialized (expression-indexed) plan. */
-    final Map<String, List<BoundPlan> > m_coreCache;
-
-    // placeholder stats used during development that may/may not survive
-    long m_literalHits = 0;
-    long m_literalQueries = 0;
-    long m_literalInsertions = 0;
-    long m_literalEvictions = 0;
-    long m_planHits = 0;
-    long m_planQueries = 0;
-    long m_planInsertions = 0;
-    long m_planEvictions = 0;
-
-    /** {@see this#startPeriodicStatsPrinting() } */
-    Timer m_statsTimer = null;
+     *  to what values to enable its specialized (expression-indexed) plan.
+     *  The lists are immutable, adding a variant replaces the list so that it gets re-weighed. */
+    final Cache<String, List<BoundPlan>> m_coreCache;
 
     /**
      * Constructor with default cache sizes.
      */
-    private AdHocCompilerCache() {
-        this(1000, 1000);
+    private AdHocCompilerCache(byte[] catalogHash) {
+        this(1000, 1000, catalogHash);
     }
 
     /**
      * Constructor with specific cache sizes is only called directly for testing.
      *
      * @param maxLiteralEntries cache size for literals
-     * @param maxLiteralMem cache memory for literals
+     * @param maxCoreEntries cache size for parameterized plans
      */
     AdHocCompilerCache(int maxLiteralEntries, int maxCoreEntries) {
+        this(maxLiteralEntries, maxCoreEntries, null);
+    }
+
+    AdHocCompilerCache(int maxLiteralEntries, int maxCoreEntries, byte[] catalogHash) {
         MAX_LITERAL_ENTRIES = maxLiteralEntries;
         MAX_CORE_ENTRIES = maxCoreEntries;
-
-        // an LRU cache map
-        m_literalCache = new AdHocStatementCache(MAX_LITERAL_ENTRIES, MAX_LITERAL_MEM);
-
-        // an LRU cache map
-        m_coreCache = new LinkedHashMap<String, List<BoundPlan> >(MAX_CORE_ENTRIES * 2, .75f, true) {
-            private static final long serialVersionUID = 1L;
-
-            // This method is called just after a new entry has been added
-            @Override
-            public boolean removeEldestEntry(Map.Entry<String, List<BoundPlan> > eldest) {
-                if (size() > MAX_CORE_ENTRIES) {
-                    ++m_planEvictions;
-                    return true;
-                }
-                return false;
-            }
-
-        };
+        m_catalogHash = catalogHash;
+
+        // Every entry weighs at least its share of the memory limit,
+        // which also bounds the number of entries by the entry limit.
+        final int minLiteralWeight = minWeight(MAX_LITERAL_MEM, MAX_LITERAL_ENTRIES);
+        m_literalCache = CacheBuilder.newBuilder()
+                .maximumWeight(MAX_LITERAL_MEM)
+                .weigher(new Weigher<String, AdHocPlannedStatement>() {
+                    @Override
+                    public int weigh(String sql, AdHocPlannedStatement plan) {
+                        return Math.max(plan.getSerializedSize(), minLiteralWeight);
+                    }
+                })
+                .recordStats()
+                .build();
+
+        final int minCoreWeight = minWeight(MAX_CORE_MEM, MAX_CORE_ENTRIES);
+        m_coreCache = CacheBuilder.newBuilder()
+                .maximumWeight(MAX_CORE_MEM)
+                .weigher(new Weigher<String, List<BoundPlan>>() {
+                    @Override
+                    public int weigh(String parsedToken, List<BoundPlan> boundVariants) {
+                        return Math.max(getCoreSize(parsedToken, boundVariants), minCoreWeight);
+                    }
+                })
+                .recordStats()
+                .build();
     }
 
-    // define a LinkedHashMap based LRU cache bounds by both entry number and entry value on-heap size
-    // without changing Map.Entry, only works for value of type AdHocPlannedStatement
-    // only extend put, remove,clear and removeEldestEntry methods to account weight
-    public class AdHocStatementCache extends LinkedHashMap<String, AdHocPlannedStatement>{
-       private static final long serialVersionUID = 2988383448026641836L;
-        private final int maxEntries;
-        private final long maxMemory; // in bytes
-        private long currentMemory;   // in bytes
-
-        public AdHocStatementCache() {
-            // default max entry of 1000
-            // default max value size of 32MB
-            this(1000, 32 * 1024 * 1024);
-        }
-
-        public AdHocStatementCache(final int maxEntries) {
-            this(maxEntries, 32 * 1024 * 1024);
-        }
-
-        public AdHocStatementCache(final int maxEntries, final long maxMemory) {
-            // set accessOrder to true for LRU
-            super(maxEntries * 2, .75f, true);
-            this.maxEntries = maxEntries;
-            this.maxMemory = maxMemory;
-            this.currentMemory = 0;
-        }
-
-        // This method is called just after a new entry has been added
-        @Override
-        public boolean removeEldestEntry(final Map.Entry<String, AdHocPlannedStatement> eldest) {
-            if ((size() > maxEntries) || (this.currentMemory > this.maxMemory))  {
-                ++m_literalEvictions;
-                this.currentMemory -= eldest.getValue().getSerializedSize();
-                return true;
-            }
-            return false;
-        }
-
-        @Override
-        public AdHocPlannedStatement put(String key, AdHocPlannedStatement value) {
-            this.currentMemory += value.getSerializedSize();
-            return super.put(key,value);
-        }
-
-        @Override
-        public AdHocPlannedStatement remove(Object key) {
-            AdHocPlannedStatement value = super.remove(key);
-            if (value != null) {
-                this.currentMemory -= value.getSerializedSize();
-            }
-            return value;
-        }
-
-        @Override
-        public void clear() {
-            super.clear();
-            this.currentMemory = 0;
-        }
+    private static int minWeight(long maxMem, int maxEntries) {
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(1, maxMem / Math.max(1, maxEntries)));
     }
 
-    /**
-     * Stats printing method used during development.
-     * Probably shouldn't live past real stats integration.
-     */
-    synchronized void printStats() {
-        String line1 = String.format("CACHE STATS - Literals: Hits %d/%d (%.1f%%), Inserts %d Evictions %d\n",
-                m_literalHits, m_literalQueries, (m_literalHits * 100.0) / m_literalQueries,
-                m_literalInsertions, m_literalEvictions);
-        String line2 = String.format("CACHE STATS - Plans:    Hits %d/%d (%.1f%%), Inserts %d Evictions %d\n",
-                m_planHits, m_planQueries, (m_planHits * 100.0) /m_planQueries,
-                m_planInsertions, m_planEvictions);
-
-        System.out.print(line1 + line2);
-        System.out.flush();
-
-        // reset these
-        m_literalHits = 0;
-        m_literalQueries = 0;
-        m_literalInsertions = 0;
-        m_literalEvictions = 0;
-        m_planHits = 0;
-        m_planQueries = 0;
-        m_planInsertions = 0;
-        m_planEvictions = 0;
+    private static int getCoreSize(String parsedToken, List<BoundPlan> boundVariants) {
+        int size = parsedToken.length();
+        for (BoundPlan boundPlan : boundVariants) {
+            size += boundPlan.m_core.getSerializedSize();
+        }
+        return size;
     }
 
     /**
      * @param sql SQL literal
      * @return full, ready-to-go plan
      */
-    public synchronized AdHocPlannedStatement getWithSQL(String sql) {
-        ++m_literalQueries;
-        AdHocPlannedStatement retval = m_literalCache.get(sql);
-        if (retval != null) {
-            ++m_literalHits;
-        }
-        return retval;
+    public AdHocPlannedStatement getWithSQL(String sql) {
+        return m_literalCache.getIfPresent(sql);
     }
 
     /**
@@ -244,13 +260,8 @@ public class AdHocCompilerCache implements Serializable {
      * SQL statement
      * @return A CorePlan that needs parameter values to run.
      */
-    public synchronized List<BoundPlan> getWithParsedToken(String parsedToken) {
-        ++m_planQueries;
-        List<BoundPlan> retval = m_coreCache.get(parsedToken);
-        if (retval != null) {
-            ++m_planHits;
-        }
-        return retval;
+    public List<BoundPlan> getWithParsedToken(String parsedToken) {
+        return m_coreCache.getIfPresent(parsedToken);
     }
 
     /**
@@ -271,12 +282,12 @@ public class AdHocCompilerCache implements Serializable {
      * @param hasUserQuestionMarkParameters is user provided parameterized query
      * @param hasAutoParameterizedException is the auto parameterized query has parameter exception
      */
-    public synchronized void put(String sql,
-                                 String parsedToken,
-                                 AdHocPlannedStatement planIn,
-                                 String[] extractedLiterals,
-                                 boolean hasUserQuestionMarkParameters,
-                                 boolean hasAutoParameterizedException)
+    public void put(String sql,
+                    String parsedToken,
+                    AdHocPlannedStatement planIn,
+                    String[] extractedLiterals,
+                    boolean hasUserQuestionMarkParameters,
+                    boolean hasAutoParameterizedException)
     {
         assert(sql != null);
         assert(parsedToken != null);
@@ -288,26 +299,14 @@ public class AdHocCompilerCache implements Serializable {
         // it means that a query can not be both user parameterized query and auto parameterized query.
         assert(!hasUserQuestionMarkParameters || !hasAutoParameterizedException);
 
-        // uncomment this to get some raw stdout cache performance stats every 5s
-        //startPeriodicStatsPrinting();
-
         // deal with L2 cache
         if (! hasAutoParameterizedException) {
             BoundPlan matched = null;
             BoundPlan unmatched = new BoundPlan(planIn.core, planIn.parameterBindings(extractedLiterals));
             // deal with the parameterized plan cache first
-            List<BoundPlan> boundVariants = m_coreCache.get(parsedToken);
-            if (boundVariants == null) {
-                boundVariants = new ArrayList<BoundPlan>();
-                m_coreCache.put(parsedToken, boundVariants);
-                // Note that there is an edge case in which more than one plan is getting counted as one
-                // "plan insertion". This only happens when two different plans arose from the same parameterized
-                // query (token) because one invocation used the correct constants to trigger an expression index and
-                // another invocation did not.  These are not counted separately (which would have to happen below
-                // after each call to boundVariants.add) because they are not evicted separately.
-                // It seems saner to use consistent units when counting insertions vs. evictions.
-                ++m_planInsertions;
-            } else {
+            // (lookups through the map view are not counted as cache hits or misses)
+            List<BoundPlan> boundVariants = m_coreCache.asMap().get(parsedToken);
+            if (boundVariants != null) {
                 for (BoundPlan boundPlan : boundVariants) {
                     if (boundPlan.equals(unmatched)) {
                         matched = boundPlan;
@@ -324,40 +323,31 @@ public class AdHocCompilerCache implements Serializable {
                 }
             }
             if (matched == null) {
-                // Don't count insertions (of possibly repeated tokens) here
-                //  -- see the comment above where only UNIQUE token insertions are being counted, instead.
-                boundVariants.add(unmatched);
+                // Another planner thread may have added a variant since the lookup
+                m_coreCache.asMap().merge(parsedToken, Collections.singletonList(unmatched),
+                        AdHocCompilerCache::addVariant);
             }
         }
 
         // then deal with the L1 cache
         if (! hasUserQuestionMarkParameters) {
-            AdHocPlannedStatement cachedPlan = m_literalCache.get(sql);
-            if (cachedPlan == null) {
-                //* enable to debug */ System.out.println("DEBUG: Caching literal '" + sql + "'");
-                m_literalCache.put(sql, plan);
-                ++m_literalInsertions;
-            }
-            else {
-                assert(cachedPlan.equals(plan));
-            }
+            AdHocPlannedStatement cachedPlan = m_literalCache.asMap().putIfAbsent(sql, plan);
+            assert(cachedPlan == null || cachedPlan.equals(plan));
         }
     }
 
-    /**
-     * Start a timer that prints cache stats to the console every 5s.
-     * Used for development until we get better stats integration.
-     */
-    public void startPeriodicStatsPrinting() {
-        if (m_statsTimer == null) {
-            m_statsTimer = new Timer();
-            m_statsTimer.scheduleAtFixedRate(new TimerTask() {
-                @Override
-                public void run() {
-                    printStats();
-                }
-            }, 5000, 5000);
+    private static List<BoundPlan> addVariant(List<BoundPlan> boundVariants, List<BoundPlan> added) {
+        assert(added.size() == 1);
+        BoundPlan variant = added.get(0);
+        for (BoundPlan boundPlan : boundVariants) {
+            if (boundPlan.equals(variant)) {
+                return boundVariants;
+            }
         }
+        List<BoundPlan> merged = new ArrayList<>(boundVariants.size() + 1);
+        merged.addAll(boundVariants);
+        merged.add(variant);
+        return Collections.unmodifiableList(merged);
     }
 
     /**
@@ -365,7 +355,7 @@ public class AdHocCompilerCache implements Serializable {
      * @return  literal cache size as a count
      */
     public int getLiteralCacheSize() {
-        return m_literalCache.size();
+        return (int) m_literalCache.size();
     }
 
     /**
@@ -373,6 +363,277 @@ public class AdHocCompilerCache implements Serializable {
      * @return  core cache size as a count
      */
     public int getCoreCacheSize() {
-        return m_coreCache.size();
+        return (int) m_coreCache.size();
+    }
+
+    public CacheStats getLiteralCacheStats() {
+        return m_literalCache.stats();
+    }
+
+    public CacheStats getCoreCacheStats() {
+        return m_coreCache.stats();
+    }
+
+    /**
+     * @return  approximate memory used by the cached full plans, in bytes
+     */
+    public long getLiteralCacheMemory() {
+        long size = 0;
+        for (AdHocPlannedStatement plan : m_literalCache.asMap().values()) {
+            size += plan.getSerializedSize();
+        }
+        return size;
+    }
+
+    /**
+     * @return  approximate memory used by the cached parameterized plans, in bytes
+     */
+    public long getCoreCacheMemory() {
+        long size = 0;
+        for (Map.Entry<String, List<BoundPlan>> e : m_coreCache.asMap().entrySet()) {
+            size += getCoreSize(e.getKey(), e.getValue());
+        }
+        return size;
+    }
+
+    /**
+     * Copy the plans of the cache of a previous catalog that do not depend on
+     * any table or function changed between the two catalogs. The copies are
+     * stamped with the catalog hash of this cache.
+     *
+     * @param previous          cache of the previous catalog
+     * @param changedTables     names of the tables, views and streams added, dropped or altered
+     * @param changedFunctions  names of the user-defined functions added, dropped or altered
+     * @return the number of parameterized statements retained
+     */
+    public int retainPlans(AdHocCompilerCache previous, Set<String> changedTables, Set<String> changedFunctions) {
+        assert(m_catalogHash != null);
+        // Share the copy of each core between the two levels, as the cache does
+        Map<CorePlan, CorePlan> retainedCores = new IdentityHashMap<>();
+        int retained = 0;
+        for (Map.Entry<String, List<BoundPlan>> e : previous.m_coreCache.asMap().entrySet()) {
+            List<BoundPlan> boundVariants = new ArrayList<>(e.getValue().size());
+            for (BoundPlan boundPlan : e.getValue()) {
+                CorePlan core = retainCore(boundPlan.m_core, retainedCores, changedTables, changedFunctions);
+                if (core != null) {
+                    boundVariants.add(new BoundPlan(core, boundPlan.m_constants));
+                }
+            }
+            if (!boundVariants.isEmpty()
+                    && m_coreCache.asMap().putIfAbsent(e.getKey(), Collections.unmodifiableList(boundVariants)) == null) {
+                ++retained;
+            }
+        }
+        for (Map.Entry<String, AdHocPlannedStatement> e : previous.m_literalCache.asMap().entrySet()) {
+            AdHocPlannedStatement plan = e.getValue();
+            CorePlan core = retainCore(plan.core, retainedCores, changedTables, changedFunctions);
+            if (core != null) {
+                AdHocPlannedStatement retainedPlan = new AdHocPlannedStatement(plan, core);
+                retainedPlan.setBoundConstants(plan.parameterBindings(null));
+                m_literalCache.asMap().putIfAbsent(e.getKey(), retainedPlan);
+            }
+        }
+        return retained;
+    }
+
+    /**
+     * Drop the plans which depend on any of the given tables, so that the statements
+     * get planned again, e.g. with new statistics of the tables.
+     *
+     * @param tables names of the tables
+     * @return the number of parameterized statements dropped
+     */
+    public int invalidatePlans(Set<String> tables) {
+        if (tables.isEmpty()) {
+            return 0;
+        }
+        final Set<String> noFunctions = Collections.emptySet();
+        int invalidated = 0;
+        for (Map.Entry<String, List<BoundPlan>> e : m_coreCache.asMap().entrySet()) {
+            for (BoundPlan boundPlan : e.getValue()) {
+                if (boundPlan.m_core.dependsOnAny(tables, noFunctions)) {
+                    m_coreCache.invalidate(e.getKey());
+                    ++invalidated;
+                    break;
+                }
+            }
+        }
+        for (Map.Entry<String, AdHocPlannedStatement> e : m_literalCache.asMap().entrySet()) {
+            if (e.getValue().core.dependsOnAny(tables, noFunctions)) {
+                m_literalCache.invalidate(e.getKey());
+            }
+        }
+        return invalidated;
+    }
+
+    private CorePlan retainCore(CorePlan core, Map<CorePlan, CorePlan> retainedCores,
+            Set<String> changedTables, Set<String> changedFunctions) {
+        CorePlan retainedCore = retainedCores.get(core);
+        if (retainedCore == null && ! core.dependsOnAny(changedTables, changedFunctions)) {
+            retainedCore = new CorePlan(core, m_catalogHash);
+            retainedCores.put(core, retainedCore);
+        }
+        return retainedCore;
+    }
+
+    //////////////////////////////////////////////////////////////////////////
+    // PERSISTENCE OF THE PARAMETERIZED PLANS
+    //////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Save the parameterized plans to a file. The file is written aside and
+     * renamed so that a crash while saving leaves the previous file intact.
+     *
+     * @return the number of parameterized statements saved
+     */
+    int saveCorePlans(File file) throws IOException {
+        File tmpFile = new File(file.getPath() + ".tmp");
+        int count = 0;
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+            out.writeInt(PERSIST_FILE_MAGIC);
+            out.writeInt(PERSIST_FILE_VERSION);
+            writeBytes(out, m_catalogHash);
+            // The entry count goes last, the map may change while it is written
+            for (Map.Entry<String, List<BoundPlan>> e : m_coreCache.asMap().entrySet()) {
+                out.writeBoolean(true);
+                writeBytes(out, e.getKey().getBytes(Constants.UTF8ENCODING));
+                List<BoundPlan> boundVariants = e.getValue();
+                out.writeInt(boundVariants.size());
+                for (BoundPlan boundPlan : boundVariants) {
+                    writeBoundPlan(out, boundPlan);
+                }
+                ++count;
+            }
+            out.writeBoolean(false);
+            out.writeInt(count);
+        }
+        Files.move(tmpFile.toPath(), file.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return count;
+    }
+
+    /**
+     * Load parameterized plans saved by {@link #saveCorePlans(File)} if they were
+     * planned against the catalog of this cache.
+     *
+     * @return true if the file matched the catalog of this cache
+     */
+    boolean loadCorePlans(File file) {
+        if (m_catalogHash == null) {
+            return false;
+        }
+        Map<String, List<BoundPlan>> loaded = new LinkedHashMap<>();
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != PERSIST_FILE_MAGIC || in.readInt() != PERSIST_FILE_VERSION) {
+                hostLog.warn("Ignoring ad hoc plan cache file " + file + " with an unknown format");
+                return false;
+            }
+            if (!Arrays.equals(readBytes(in), m_catalogHash)) {
+                return false;
+            }
+            while (in.readBoolean()) {
+                String parsedToken = new String(readBytes(in), Constants.UTF8ENCODING);
+                int variantCount = in.readInt();
+                List<BoundPlan> boundVariants = new ArrayList<>(variantCount);
+                for (int i = 0; i < variantCount; ++i) {
+                    boundVariants.add(readBoundPlan(in));
+                }
+                loaded.put(parsedToken, Collections.unmodifiableList(boundVariants));
+            }
+            if (in.readInt() != loaded.size()) {
+                throw new IOException("truncated file");
+            }
+        } catch (IOException | RuntimeException e) {
+            hostLog.warn("Failed to load the ad hoc plan cache from " + file + ": " + e.getMessage());
+            return false;
+        }
+        m_coreCache.putAll(loaded);
+        hostLog.info("Loaded " + loaded.size() + " parameterized ad hoc plans from " + file);
+        return true;
+    }
+
+    private static void writeBoundPlan(DataOutputStream out, BoundPlan boundPlan) throws IOException {
+        CorePlan core = boundPlan.m_core;
+        ByteBuffer buf = ByteBuffer.allocate(core.getSerializedSize());
+        core.flattenToBuffer(buf);
+        writeBytes(out, buf.array());
+
+        // Partitioning is not part of the serialized core, the ExecutionSite does not need it
+        out.writeInt(core.getPartitioningParamIndex());
+        Object partitioningValue = core.getPartitioningParamValue();
+        if (partitioningValue == null) {
+            writeBytes(out, null);
+        } else {
+            ParameterSet params = ParameterSet.fromArrayNoCopy(partitioningValue);
+            buf = ByteBuffer.allocate(params.getSerializedSize());
+            params.flattenToBuffer(buf);
+            writeBytes(out, buf.array());
+        }
+
+        writeStrings(out, boundPlan.m_constants);
+        Set<String> tables = core.getTableDependees();
+        Set<String> functions = core.getFunctionDependees();
+        writeStrings(out, tables == null ? null : tables.toArray(new String[tables.size()]));
+        writeStrings(out, functions == null ? null : functions.toArray(new String[functions.size()]));
+    }
+
+    private static BoundPlan readBoundPlan(DataInputStream in) throws IOException {
+        CorePlan core = CorePlan.fromBuffer(ByteBuffer.wrap(readBytes(in)));
+        core.setPartitioningParamIndex(in.readInt());
+        byte[] partitioningValue = readBytes(in);
+        if (partitioningValue != null) {
+            core.setPartitioningParamValue(ParameterSet.fromByteBuffer(ByteBuffer.wrap(partitioningValue)).getParam(0));
+        }
+
+        String[] constants = readStrings(in);
+        String[] tables = readStrings(in);
+        String[] functions = readStrings(in);
+        if (tables != null && functions != null) {
+            core.setDependees(Arrays.asList(tables), Arrays.asList(functions));
+        }
+        return new BoundPlan(core, constants);
+    }
+
+    private static void writeStrings(DataOutputStream out, String[] strings) throws IOException {
+        out.writeInt(strings == null ? -1 : strings.length);
+        if (strings != null) {
+            for (String string : strings) {
+                writeBytes(out, string == null ? null : string.getBytes(Constants.UTF8ENCODING));
+            }
+        }
+    }
+
+    private static String[] readStrings(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count < 0) {
+            return null;
+        }
+        String[] strings = new String[count];
+        for (int i = 0; i < count; ++i) {
+            byte[] string = readBytes(in);
+            strings[i] = string == null ? null : new String(string, Constants.UTF8ENCODING);
+        }
+        return strings;
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        if (bytes == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
     }
 }
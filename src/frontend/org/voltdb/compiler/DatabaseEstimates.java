@@ -20,20 +20,72 @@ package org.voltdb.compiler;
 import java.util.ArrayList;
 import java.util.HashMap;
 
+import org.voltdb.expressions.AbstractExpression;
+
 public class DatabaseEstimates {
 
+    // Fewest rows assumed for a table with statistics, so that a table which is empty or small
+    // when the statistics are collected does not get plans which only suit tiny tables
+    static final long MIN_ESTIMATED_TUPLES = 1000;
+
     public static class TableEstimates {
         public long maxTuples = 1000000;
         public long minTuples = 100000;
         public ArrayList<ScalarValueHints> valueHints = new ArrayList<ScalarValueHints>();
+        // Collected statistics of the table, null if there are none
+        public DatabaseStatistics.TableStatistics statistics = null;
+
+        /**
+         * Estimate the fraction of the rows of the table where a column is equal to an expression.
+         *
+         * @return the estimated fraction or a negative number if there are no statistics for the column
+         */
+        public double getEqualitySelectivity(String columnName, AbstractExpression value) {
+            if (statistics == null) {
+                return -1;
+            }
+            DatabaseStatistics.ColumnStatistics columnStatistics = statistics.getColumnStatistics(columnName);
+            if (columnStatistics == null) {
+                return -1;
+            }
+            return columnStatistics.getEqualitySelectivity(DatabaseStatistics.valueKey(value));
+        }
     }
 
     HashMap<String, TableEstimates> tables = new HashMap<String, TableEstimates>();
+    private final DatabaseStatistics m_statistics;
 
-    public TableEstimates getEstimatesForTable(String tableName) {
-        if (tables.containsKey(tableName) == false)
-            tables.put(tableName, new TableEstimates());
+    public DatabaseEstimates() {
+        this(null);
+    }
 
-        return tables.get(tableName);
+    /**
+     * @param statistics collected statistics to base the estimates on, may be {@code null}
+     */
+    public DatabaseEstimates(DatabaseStatistics statistics) {
+        m_statistics = statistics;
+    }
+
+    /**
+     * @return whether the estimates are based on collected statistics rather than fixed guesses
+     */
+    public boolean hasStatistics() {
+        return m_statistics != null;
+    }
+
+    public TableEstimates getEstimatesForTable(String tableName) {
+        TableEstimates estimates = tables.get(tableName);
+        if (estimates == null) {
+            estimates = new TableEstimates();
+            if (m_statistics != null) {
+                estimates.statistics = m_statistics.getTableStatistics(tableName);
+                if (estimates.statistics != null) {
+                    estimates.maxTuples = Math.max(MIN_ESTIMATED_TUPLES, estimates.statistics.getRowsPerPartition());
+                    estimates.minTuples = Math.min(estimates.minTuples, estimates.maxTuples);
+                }
+            }
+            tables.put(tableName, estimates);
+        }
+        return estimates;
     }
 }
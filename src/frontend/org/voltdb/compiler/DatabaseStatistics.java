@@ -0,0 +1,354 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2022 Volt Active Data Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.compiler;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import org.json_voltpatches.JSONException;
+import org.json_voltpatches.JSONObject;
+import org.json_voltpatches.JSONStringer;
+import org.voltdb.VoltType;
+import org.voltdb.expressions.AbstractExpression;
+import org.voltdb.expressions.ConstantValueExpression;
+
+/**
+ * Statistics about the data in the tables, collected in the background by the
+ * {@link org.voltdb.TableStatisticsCollector}, from which the planner estimates how many rows
+ * a scan finds instead of assuming that every table has {@link DatabaseEstimates.TableEstimates#maxTuples}
+ * rows and that every indexed column has the same selectivity.
+ * <p>
+ * Instances are immutable, the collector replaces the statistics of the planner with a new instance
+ * each time it runs. They are shared with the planners of the other hosts as JSON.
+ */
+public class DatabaseStatistics {
+
+    public static class ColumnStatistics {
+        // Approximate number of distinct values, 0 if unknown
+        private final long m_distinctValues;
+        // The most common values, keyed by valueKey(), and the fraction of the rows that have them
+        private final Map<String, Double> m_mostCommonValues;
+        // Whether m_mostCommonValues has every value of the column
+        private final boolean m_allValues;
+        // Fraction of the rows of the table m_mostCommonValues was counted from
+        private final double m_coverage;
+        private final double m_mostCommonFraction;
+        private final double m_leastCommonFraction;
+
+        /**
+         * @param distinctValues   approximate number of distinct values, 0 if unknown
+         * @param mostCommonValues most common values, keyed by {@link DatabaseStatistics#valueKey(Object)},
+         *                         and the fraction of the rows that have them
+         * @param allValues        whether {@code mostCommonValues} has every value of the column
+         */
+        public ColumnStatistics(long distinctValues, Map<String, Double> mostCommonValues, boolean allValues) {
+            this(distinctValues, mostCommonValues, allValues, 1);
+        }
+
+        /**
+         * @param coverage fraction of the rows of the table {@code mostCommonValues} was counted from.
+         *                 The rows are not a random sample, so the less of the table they are, the less
+         *                 their fractions are trusted.
+         */
+        public ColumnStatistics(long distinctValues, Map<String, Double> mostCommonValues, boolean allValues,
+                double coverage) {
+            m_distinctValues = distinctValues;
+            m_mostCommonValues = Collections.unmodifiableMap(new HashMap<>(mostCommonValues));
+            m_allValues = allValues;
+            m_coverage = Math.max(0, Math.min(1, coverage));
+            double total = 0;
+            double least = 1;
+            for (double fraction : mostCommonValues.values()) {
+                total += fraction;
+                least = Math.min(least, fraction);
+            }
+            m_mostCommonFraction = Math.min(1, total);
+            m_leastCommonFraction = least;
+        }
+
+        public long getDistinctValues() {
+            return m_distinctValues;
+        }
+
+        public Map<String, Double> getMostCommonValues() {
+            return m_mostCommonValues;
+        }
+
+        /**
+         * Estimate the fraction of the rows of the table where the column is equal to a value.
+         *
+         * @param value key of the value or {@code null} if the value is not known when planning,
+         *              e.g. a parameter or a column of another table
+         * @return the estimated fraction or a negative number if there is not enough information
+         */
+        public double getEqualitySelectivity(String value) {
+            if (value == null) {
+                // Any value of the column, on average
+                if (m_distinctValues > 0) {
+                    return 1.0 / m_distinctValues;
+                }
+                return m_allValues && !m_mostCommonValues.isEmpty() ? 1.0 / m_mostCommonValues.size() : -1;
+            }
+            final double counted = getCountedSelectivity(value);
+            if (m_coverage >= 1) {
+                return counted;
+            }
+            // The values were counted in a prefix of each partition, which can be far from the whole table.
+            // Weigh them by how much of the table they cover against the average of all the values.
+            if (m_distinctValues <= 0) {
+                return -1;
+            }
+            final double average = 1.0 / m_distinctValues;
+            return counted < 0 ? average : m_coverage * counted + (1 - m_coverage) * average;
+        }
+
+        /**
+         * @return the selectivity of a known value from the most common values alone
+         */
+        private double getCountedSelectivity(String value) {
+            Double fraction = m_mostCommonValues.get(value);
+            if (fraction != null) {
+                return fraction;
+            }
+            if (m_allValues) {
+                return 0;
+            }
+            // The value is one of the less common values
+            long otherValues = m_distinctValues - m_mostCommonValues.size();
+            if (otherValues > 0) {
+                return Math.min((1 - m_mostCommonFraction) / otherValues, m_leastCommonFraction);
+            }
+            return m_mostCommonValues.isEmpty() ? -1 : m_leastCommonFraction;
+        }
+    }
+
+    public static class TableStatistics {
+        // Number of rows in the largest partition, or in the table if it is replicated
+        private final long m_rowsPerPartition;
+        private final Map<String, ColumnStatistics> m_columns;
+
+        public TableStatistics(long rowsPerPartition, Map<String, ColumnStatistics> columns) {
+            m_rowsPerPartition = rowsPerPartition;
+            m_columns = Collections.unmodifiableMap(new HashMap<>(columns));
+        }
+
+        /**
+         * @return number of rows in the largest partition, or in the table if it is replicated
+         */
+        public long getRowsPerPartition() {
+            return m_rowsPerPartition;
+        }
+
+        /**
+         * @return statistics of a column or {@code null} if none were collected
+         */
+        public ColumnStatistics getColumnStatistics(String columnName) {
+            return m_columns.get(columnName);
+        }
+
+        Map<String, ColumnStatistics> getColumns() {
+            return m_columns;
+        }
+    }
+
+    private final Map<String, TableStatistics> m_tables;
+    private final long m_timestamp;
+
+    /**
+     * @param tables    statistics of each table by table name
+     * @param timestamp time at which the statistics were collected
+     */
+    public DatabaseStatistics(Map<String, TableStatistics> tables, long timestamp) {
+        m_tables = Collections.unmodifiableMap(new HashMap<>(tables));
+        m_timestamp = timestamp;
+    }
+
+    /**
+     * @return statistics of a table or {@code null} if none were collected
+     */
+    public TableStatistics getTableStatistics(String tableName) {
+        return m_tables.get(tableName);
+    }
+
+    public Set<String> getTableNames() {
+        return m_tables.keySet();
+    }
+
+    public long getTimestamp() {
+        return m_timestamp;
+    }
+
+    /**
+     * Find the tables whose statistics changed enough since {@code previous} for a plan
+     * which scans them to be worth replanning: their number of rows or the number of
+     * distinct values of one of their columns changed by more than {@code factor}.
+     *
+     * @param previous statistics previously used by the planner, may be {@code null}
+     * @param factor   how many times larger or smaller a count must be to be a change
+     * @return names of the tables which changed
+     */
+    public Set<String> getChangedTables(DatabaseStatistics previous, double factor) {
+        Set<String> changed = new HashSet<>();
+        if (previous != null) {
+            for (String tableName : previous.m_tables.keySet()) {
+                if (!m_tables.containsKey(tableName)) {
+                    changed.add(tableName);
+                }
+            }
+        }
+        for (Map.Entry<String, TableStatistics> e : m_tables.entrySet()) {
+            TableStatistics before = previous == null ? null : previous.m_tables.get(e.getKey());
+            if (before == null || changedBy(before.m_rowsPerPartition, e.getValue().m_rowsPerPartition, factor)) {
+                changed.add(e.getKey());
+                continue;
+            }
+            for (Map.Entry<String, ColumnStatistics> c : e.getValue().m_columns.entrySet()) {
+                ColumnStatistics columnBefore = before.m_columns.get(c.getKey());
+                if (columnBefore == null ||
+                        changedBy(columnBefore.m_distinctValues, c.getValue().m_distinctValues, factor)) {
+                    changed.add(e.getKey());
+                    break;
+                }
+            }
+        }
+        return changed;
+    }
+
+    private static final String JSON_TIMESTAMP = "timestamp";
+    private static final String JSON_TABLES = "tables";
+    private static final String JSON_ROWS_PER_PARTITION = "rowsPerPartition";
+    private static final String JSON_COLUMNS = "columns";
+    private static final String JSON_DISTINCT_VALUES = "distinctValues";
+    private static final String JSON_MOST_COMMON_VALUES = "mostCommonValues";
+    private static final String JSON_ALL_VALUES = "allValues";
+    private static final String JSON_COVERAGE = "coverage";
+
+    public String toJSONString() throws JSONException {
+        JSONStringer stringer = new JSONStringer();
+        stringer.object();
+        stringer.keySymbolValuePair(JSON_TIMESTAMP, m_timestamp);
+        stringer.key(JSON_TABLES).object();
+        for (Map.Entry<String, TableStatistics> table : m_tables.entrySet()) {
+            stringer.key(table.getKey()).object();
+            stringer.keySymbolValuePair(JSON_ROWS_PER_PARTITION, table.getValue().m_rowsPerPartition);
+            stringer.key(JSON_COLUMNS).object();
+            for (Map.Entry<String, ColumnStatistics> column : table.getValue().m_columns.entrySet()) {
+                ColumnStatistics statistics = column.getValue();
+                stringer.key(column.getKey()).object();
+                stringer.keySymbolValuePair(JSON_DISTINCT_VALUES, statistics.m_distinctValues);
+                stringer.keySymbolValuePair(JSON_ALL_VALUES, statistics.m_allValues);
+                stringer.key(JSON_COVERAGE).value(statistics.m_coverage);
+                stringer.key(JSON_MOST_COMMON_VALUES).object();
+                for (Map.Entry<String, Double> value : statistics.m_mostCommonValues.entrySet()) {
+                    stringer.key(value.getKey()).value(value.getValue().doubleValue());
+                }
+                stringer.endObject();
+                stringer.endObject();
+            }
+            stringer.endObject();
+            stringer.endObject();
+        }
+        stringer.endObject();
+        stringer.endObject();
+        return stringer.toString();
+    }
+
+    /**
+     * @param json statistics serialized by {@link #toJSONString()}
+     */
+    public static DatabaseStatistics fromJSONString(String json) throws JSONException {
+        JSONObject jsObj = new JSONObject(json);
+        JSONObject jsTables = jsObj.getJSONObject(JSON_TABLES);
+        Map<String, TableStatistics> tables = new HashMap<>();
+        for (Iterator<String> tableNames = jsTables.keys(); tableNames.hasNext();) {
+            String tableName = tableNames.next();
+            JSONObject jsTable = jsTables.getJSONObject(tableName);
+            JSONObject jsColumns = jsTable.getJSONObject(JSON_COLUMNS);
+            Map<String, ColumnStatistics> columns = new HashMap<>();
+            for (Iterator<String> columnNames = jsColumns.keys(); columnNames.hasNext();) {
+                String columnName = columnNames.next();
+                JSONObject jsColumn = jsColumns.getJSONObject(columnName);
+                JSONObject jsValues = jsColumn.getJSONObject(JSON_MOST_COMMON_VALUES);
+                Map<String, Double> mostCommonValues = new HashMap<>();
+                for (Iterator<String> values = jsValues.keys(); values.hasNext();) {
+                    String value = values.next();
+                    mostCommonValues.put(value, jsValues.getDouble(value));
+                }
+                columns.put(columnName, new ColumnStatistics(jsColumn.getLong(JSON_DISTINCT_VALUES),
+                        mostCommonValues, jsColumn.getBoolean(JSON_ALL_VALUES), jsColumn.optDouble(JSON_COVERAGE, 1)));
+            }
+            tables.put(tableName, new TableStatistics(jsTable.getLong(JSON_ROWS_PER_PARTITION), columns));
+        }
+        return new DatabaseStatistics(tables, jsObj.getLong(JSON_TIMESTAMP));
+    }
+
+    private static boolean changedBy(long before, long after, double factor) {
+        // Add one so that empty tables and unknown counts compare
+        return (after + 1) > (before + 1) * factor || (before + 1) > (after + 1) * factor;
+    }
+
+    /**
+     * Whether the most common values of columns of the given type are collected:
+     * the value of a constant in a query must have the same key as the value read from the table.
+     */
+    public static boolean hasValueKeys(VoltType type) {
+        return type.isAnyIntegerType() || type == VoltType.STRING;
+    }
+
+    /**
+     * @param value value of a column read from a table
+     * @return key of the value in {@link ColumnStatistics#getMostCommonValues()}
+     */
+    public static String valueKey(Object value) {
+        if (value instanceof Number) {
+            return Long.toString(((Number) value).longValue());
+        }
+        return value == null ? null : value.toString();
+    }
+
+    /**
+     * @param expr expression compared with a column
+     * @return key of the value of the expression in {@link ColumnStatistics#getMostCommonValues()}
+     *         or {@code null} if it is not a constant of a type whose values have keys
+     */
+    public static String valueKey(AbstractExpression expr) {
+        if (!(expr instanceof ConstantValueExpression)) {
+            return null;
+        }
+        VoltType type = expr.getValueType();
+        String value = ((ConstantValueExpression) expr).getValue();
+        if (value == null) {
+            return null;
+        }
+        if (type == VoltType.STRING) {
+            return value;
+        }
+        if (type != null && type.isAnyIntegerType()) {
+            try {
+                return Long.toString(Long.parseLong(value));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+}
@@ -20,7 +20,14 @@ package org.voltdb.compiler;
 import static org.voltdb.planner.QueryPlanner.fragmentizePlan;
 import static org.voltdb.plannerv2.utils.VoltRelUtil.calciteToVoltDBPlan;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.calcite.plan.RelOptUtil;
 import org.apache.calcite.plan.RelTraitSet;
@@ -37,18 +44,23 @@ import org.apache.calcite.tools.ValidationException;
 import org.hsqldb_voltpatches.HSQLInterface;
 import org.hsqldb_voltpatches.HSQLInterface.HSQLParseException;
 import org.voltcore.logging.VoltLogger;
+import org.voltcore.utils.CoreUtils;
 import org.voltdb.PlannerStatsCollector;
 import org.voltdb.PlannerStatsCollector.CacheUse;
 import org.voltdb.StatsAgent;
 import org.voltdb.StatsSelector;
 import org.voltdb.VoltDB;
+import org.voltdb.catalog.Catalog;
+import org.voltdb.catalog.CatalogDiffEngine;
 import org.voltdb.catalog.Database;
 import org.voltdb.exceptions.PlanningErrorException;
+import org.voltdb.planner.AbstractCostModel;
 import org.voltdb.planner.CompiledPlan;
 import org.voltdb.planner.CorePlan;
 import org.voltdb.planner.ParameterizationInfo;
 import org.voltdb.planner.QueryPlanner;
 import org.voltdb.planner.StatementPartitioning;
+import org.voltdb.planner.StatisticsCostModel;
 import org.voltdb.planner.TrivialCostModel;
 import org.voltdb.plannerv2.SqlTask;
 import org.voltdb.plannerv2.VoltPlanner;
@@ -62,24 +74,46 @@ import org.voltdb.sysprocs.AdHocNTBase;
 import org.voltdb.utils.CompressionService;
 import org.voltdb.utils.Encoder;
 
+import com.google_voltpatches.common.util.concurrent.ListeningExecutorService;
+
 /**
  * Planner tool accepts an already compiled VoltDB catalog and then
  * interactively accept SQL and outputs plans on standard out.
  *
  * Used only for AdHoc queries.
+ * <p>
+ * Planning is thread safe. An HSQL session can only parse one statement at a time so each
+ * concurrent planner takes a session of its own from a pool. Sessions are created with the
+ * schema of the catalog when first needed, up to {@link #DEFAULT_MAX_CONCURRENT_PLANNERS}, and reused.
  */
 public class PlannerTool {
     private static final VoltLogger hostLog = new VoltLogger("HOST");
     private static final VoltLogger compileLog = new VoltLogger("COMPILE");
 
-    private Database m_database;
-    private byte[] m_catalogHash;
-    private AdHocCompilerCache m_cache;
+    /**
+     * Default maximum number of statements planned at the same time, each one holds an HSQL session
+     */
+    public static final int DEFAULT_MAX_CONCURRENT_PLANNERS = Math.max(1,
+            Integer.getInteger("PLANNER_THREADS", Math.max(1, CoreUtils.availableProcessors() / 2)));
+
+    // Replan statements over a table when its number of rows, or of distinct values in a column, changes this much
+    private static final double STATISTICS_REPLAN_FACTOR = 2.0;
+
+    private volatile Database m_database;
+    private volatile byte[] m_catalogHash;
+    private volatile AdHocCompilerCache m_cache;
+    // Statistics of the tables collected by the TableStatisticsCollector, null until collected
+    private volatile DatabaseStatistics m_statistics;
     private SchemaPlus m_schemaPlus;
-    private long m_adHocLargeFallbackCount = 0;
-    private long m_adHocLargeModeCount = 0;
+    private final AtomicLong m_adHocLargeFallbackCount = new AtomicLong();
+    private final AtomicLong m_adHocLargeModeCount = new AtomicLong();
 
     private final HSQLInterface m_hsql;
+    // DDL of the catalog, to load the schema into additional HSQL sessions
+    private final List<String> m_ddl = new ArrayList<>();
+    // Sessions not in use by a planner, including m_hsql
+    private final ConcurrentLinkedQueue<HSQLInterface> m_idleHsql = new ConcurrentLinkedQueue<>();
+    private final Semaphore m_plannerPermits;
 
     private static PlannerStatsCollector m_plannerStats;
 
@@ -93,30 +127,34 @@ public class PlannerTool {
             System.getenv("LARGE_MODE_RATIO"));
 
     public PlannerTool(final Database database, byte[] catalogHash) {
+        this(database, catalogHash, DEFAULT_MAX_CONCURRENT_PLANNERS);
+    }
+
+    /**
+     * @param maxConcurrentPlanners maximum number of statements planned at the same time
+     */
+    public PlannerTool(final Database database, byte[] catalogHash, int maxConcurrentPlanners) {
         assert(database != null);
+        assert(maxConcurrentPlanners > 0);
 
         m_database = database;
         m_catalogHash = catalogHash;
         m_cache = AdHocCompilerCache.getCacheForCatalogHash(catalogHash);
+        m_plannerPermits = new Semaphore(maxConcurrentPlanners);
 
         // LOAD HSQL
-        m_hsql = HSQLInterface.loadHsqldb(ParameterizationInfo.getParamStateManager());
         String binDDL = m_database.getSchema();
         String ddl = CompressionService.decodeBase64AndDecompress(binDDL);
         String[] commands = ddl.split("\n");
         for (String command : commands) {
             String decoded_cmd = Encoder.hexDecodeToString(command);
             decoded_cmd = decoded_cmd.trim();
-            if (decoded_cmd.isEmpty()) {
-                continue;
-            }
-            try {
-                m_hsql.runDDLCommand(decoded_cmd);
-            } catch (HSQLParseException e) {
-                // need a good error message here
-                throw new RuntimeException("Error creating hsql: " + e.getMessage() + " in DDL statement: " + decoded_cmd);
+            if (!decoded_cmd.isEmpty()) {
+                m_ddl.add(decoded_cmd);
             }
         }
+        m_hsql = loadHsql();
+        m_idleHsql.add(m_hsql);
         hostLog.debug("hsql loaded");
 
         // Create and register a singleton planner stats collector, if this is the first time.
@@ -139,10 +177,52 @@ public class PlannerTool {
         m_schemaPlus = schemaPlus;
     }
 
+    private HSQLInterface loadHsql() {
+        HSQLInterface hsql = HSQLInterface.loadHsqldb(ParameterizationInfo.getParamStateManager());
+        for (String command : m_ddl) {
+            try {
+                hsql.runDDLCommand(command);
+            } catch (HSQLParseException e) {
+                // need a good error message here
+                throw new RuntimeException("Error creating hsql: " + e.getMessage() + " in DDL statement: " + command);
+            }
+        }
+        return hsql;
+    }
+
+    /**
+     * Take an HSQL session for planning one statement, waiting if the maximum number are in use.
+     * The session must be given back with {@link #releaseHsql(HSQLInterface)}.
+     */
+    private HSQLInterface acquireHsql() {
+        m_plannerPermits.acquireUninterruptibly();
+        HSQLInterface hsql = m_idleHsql.poll();
+        if (hsql == null) {
+            // Fewer sessions than permits have been created
+            try {
+                hsql = loadHsql();
+            } catch (RuntimeException e) {
+                m_plannerPermits.release();
+                throw e;
+            }
+        }
+        return hsql;
+    }
+
+    private void releaseHsql(HSQLInterface hsql) {
+        m_idleHsql.add(hsql);
+        m_plannerPermits.release();
+    }
+
     public PlannerTool updateWhenNoSchemaChange(Database database, byte[] catalogHash) {
+        AdHocCompilerCache previousCache = m_cache;
         m_database = database;
         m_catalogHash = catalogHash;
         m_cache = AdHocCompilerCache.getCacheForCatalogHash(catalogHash);
+        // Without schema change every cached plan is still good
+        if (m_cache != previousCache) {
+            m_cache.retainPlans(previousCache, Collections.emptySet(), Collections.emptySet());
+        }
         if (AdHocNTBase.USING_CALCITE) {
             // Do not use Calcite to process DDLs, until we have full support of all DDLs, as well as
             // catalog commands such as "DR TABLE foo".
@@ -151,16 +231,83 @@ public class PlannerTool {
         return this;
     }
 
+    /**
+     * Carry over the cached ad hoc plans of the planner of the previous catalog
+     * that do not reference any table, index or function changed by the update.
+     * The catalogs are compared off the catalog update path, on the computation
+     * service, the plans show up in the cache when done. The statistics of the tables
+     * are carried over too, until they are collected again for the new catalog.
+     *
+     * @param previous planner of the previous catalog
+     */
+    public void retainCachedPlans(PlannerTool previous) {
+        m_statistics = previous.m_statistics;
+        final AdHocCompilerCache previousCache = previous.m_cache;
+        final AdHocCompilerCache cache = m_cache;
+        if (cache == previousCache || previousCache.getCoreCacheSize() + previousCache.getLiteralCacheSize() == 0) {
+            return;
+        }
+        final Catalog previousCatalog = previous.m_database.getCatalog();
+        final Catalog catalog = m_database.getCatalog();
+        Runnable retain = () -> {
+            try {
+                CatalogDiffEngine diff = new CatalogDiffEngine(previousCatalog, catalog);
+                int retained = cache.retainPlans(previousCache, diff.getChangedTableNames(),
+                        diff.getChangedFunctionNames());
+                hostLog.info(String.format("Retained %d of %d parameterized ad hoc plans across the catalog update.",
+                        retained, previousCache.getCoreCacheSize()));
+            } catch (Exception e) {
+                hostLog.warn("Failed to retain the cached ad hoc plans across the catalog update: " + e.getMessage());
+            }
+        };
+        ListeningExecutorService es = VoltDB.instance().getComputationService();
+        if (es == null) {
+            retain.run();
+        } else {
+            es.submit(retain);
+        }
+    }
+
+    public DatabaseStatistics getStatistics() {
+        return m_statistics;
+    }
+
+    /**
+     * Plan with new statistics of the tables. The cached plans of the tables whose statistics changed
+     * significantly are dropped so that the statements get planned again with the new statistics.
+     *
+     * @param statistics statistics of the tables, {@code null} to plan without statistics
+     */
+    public void setStatistics(DatabaseStatistics statistics) {
+        final DatabaseStatistics previous = m_statistics;
+        m_statistics = statistics;
+        final Set<String> changedTables;
+        if (statistics == null) {
+            changedTables = previous == null ? Collections.emptySet() : previous.getTableNames();
+        } else {
+            changedTables = statistics.getChangedTables(previous, STATISTICS_REPLAN_FACTOR);
+        }
+        int invalidated = m_cache.invalidatePlans(changedTables);
+        if (invalidated > 0) {
+            hostLog.info(String.format("Dropped %d parameterized ad hoc plans of %d tables with new statistics.",
+                    invalidated, changedTables.size()));
+        }
+    }
+
+    private AbstractCostModel getCostModel(DatabaseStatistics statistics) {
+        return statistics == null ? new TrivialCostModel() : new StatisticsCostModel();
+    }
+
     public HSQLInterface getHSQLInterface() {
         return m_hsql;
     }
 
     public long getAdHocLargeFallbackCount() {
-        return m_adHocLargeFallbackCount;
+        return m_adHocLargeFallbackCount.get();
     }
 
     public long getAdHocLargeModeCount() {
-        return m_adHocLargeModeCount;
+        return m_adHocLargeModeCount.get();
     }
 
     public AdHocPlannedStatement planSqlForTest(String sqlIn) {
@@ -175,16 +322,17 @@ public class PlannerTool {
     /**
      * Stripped down compile that is ONLY used to plan default procedures.
      */
-    public synchronized CompiledPlan planSqlCore(String sql, StatementPartitioning partitioning) {
-        TrivialCostModel costModel = new TrivialCostModel();
-        DatabaseEstimates estimates = new DatabaseEstimates();
+    public CompiledPlan planSqlCore(String sql, StatementPartitioning partitioning) {
+        final DatabaseStatistics statistics = m_statistics;
+        AbstractCostModel costModel = getCostModel(statistics);
+        DatabaseEstimates estimates = new DatabaseEstimates(statistics);
 
         CompiledPlan plan = null;
-        // This try-with-resources block acquires a global lock on all planning
-        // This is required until we figure out how to do parallel planning.
+        HSQLInterface hsql = acquireHsql();
+        // This try-with-resources block locks the HSQL session for the duration of planning
         try (QueryPlanner planner = new QueryPlanner(
                 sql, "PlannerTool", "PlannerToolProc", m_database,
-                partitioning, m_hsql, estimates, !VoltCompiler.DEBUG_MODE,
+                partitioning, hsql, estimates, !VoltCompiler.DEBUG_MODE,
                 costModel, null, null, DeterminismMode.FASTER, false, false)) {
 
             // do the expensive full planning.
@@ -205,6 +353,8 @@ public class PlannerTool {
                 throw new RuntimeException("SQL error while compiling query: " + e.getMessage() + loggedMsg, e);
             }
             throw new RuntimeException("SQL error while compiling query: " + e.toString() + loggedMsg, e);
+        } finally {
+            releaseHsql(hsql);
         }
 
         if (plan == null) {
@@ -214,7 +364,7 @@ public class PlannerTool {
         return plan;
     }
 
-    public static synchronized CompiledPlan getCompiledPlanCalcite(SchemaPlus schemaPlus, SqlNode sqlNode)
+    public static CompiledPlan getCompiledPlanCalcite(SchemaPlus schemaPlus, SqlNode sqlNode)
             throws ValidationException, RelConversionException, PlannerFallbackException{
         // TRAIL [Calcite-AdHoc-DQL/DML:4] PlannerTool.planSqlCalcite()
         VoltPlanner planner = new VoltPlanner(schemaPlus);
@@ -300,7 +450,7 @@ public class PlannerTool {
      * @param task the query to plan.
      * @return a planned statement.
      */
-    public synchronized AdHocPlannedStatement planSqlCalcite(SqlTask task)
+    public AdHocPlannedStatement planSqlCalcite(SqlTask task)
             throws ValidationException, RelConversionException, PlannerFallbackException {
         CompiledPlan plan = getCompiledPlanCalcite(
                 // TODO: we need a reliable way to sync Calcite's SchemaPlus from VoltDB's Catalog,
@@ -317,7 +467,7 @@ public class PlannerTool {
         // return new AdHocPlannedStatement(plan, core);
     }
 
-    public synchronized AdHocPlannedStatement planSql(
+    public AdHocPlannedStatement planSql(
             String sql, StatementPartitioning partitioning, boolean isExplainMode, final Object[] userParams,
             boolean isSwapTables, boolean isLargeQuery) {
         // large_mode_ratio will force execution of SQL queries to use the "large" path (for read-only queries)
@@ -325,12 +475,18 @@ public class PlannerTool {
         if (m_largeModeRatio > 0 && !isLargeQuery) {
             if (m_largeModeRatio >= 1 || m_largeModeRatio > ThreadLocalRandom.current().nextDouble()) {
                 isLargeQuery = true;
-                m_adHocLargeModeCount++;
+                m_adHocLargeModeCount.incrementAndGet();
             }
         }
+        // Catalog state may be replaced by updateWhenNoSchemaChange() while planning
+        final Database database = m_database;
+        final byte[] catalogHash = m_catalogHash;
+        final AdHocCompilerCache cache = m_cache;
+        final DatabaseStatistics statistics = m_statistics;
         CacheUse cacheUse = CacheUse.FAIL;
+        long statsStartTime = -1;
         if (m_plannerStats != null) {
-            m_plannerStats.startStatsCollection();
+            statsStartTime = m_plannerStats.startConcurrentStatsCollection();
         }
         try {
             if ((sql == null) || (sql = sql.trim()).isEmpty()) {    // remove any spaces or newlines
@@ -350,7 +506,7 @@ public class PlannerTool {
             // point it seems worthwhile to cache such plans, we can explore it.
             if (partitioning.isInferred() && !isLargeQuery) {
                 // Check the literal cache for a match.
-                AdHocPlannedStatement cachedPlan = m_cache.getWithSQL(sql);
+                AdHocPlannedStatement cachedPlan = cache.getWithSQL(sql);
                 if (cachedPlan != null) {
                     cacheUse = CacheUse.HIT1;
                     return cachedPlan;
@@ -363,13 +519,20 @@ public class PlannerTool {
             // PLAN THE STMT
             //////////////////////
 
-            final SqlPlanner planner = new SqlPlanner(m_database, partitioning, m_hsql, sql,
-                    isLargeQuery, isSwapTables, isExplainMode, m_adHocLargeFallbackCount, userParams, m_cache, compileLog);
+            final SqlPlanner planner;
+            final HSQLInterface hsql = acquireHsql();
+            try {
+                planner = new SqlPlanner(database, partitioning, hsql, sql,
+                        isLargeQuery, isSwapTables, isExplainMode, 0, userParams, cache,
+                        new DatabaseEstimates(statistics), getCostModel(statistics), compileLog);
+            } finally {
+                releaseHsql(hsql);
+            }
             final CompiledPlan plan = planner.getCompiledPlan();
             final AdHocPlannedStatement adhocPlan = planner.getAdhocPlan();
             assert (plan == null) != (adhocPlan == null) : "It should be either planned or cached";
             partitioning = planner.getPartitioning();
-            m_adHocLargeFallbackCount = planner.getAdHocLargeFallBackCount();
+            m_adHocLargeFallbackCount.addAndGet(planner.getAdHocLargeFallBackCount());
             if (adhocPlan != null) {
                 cacheUse = CacheUse.HIT2;   // IMPORTANT
                 return adhocPlan;
@@ -378,7 +541,7 @@ public class PlannerTool {
                 //////////////////////
                 // OUTPUT THE RESULT
                 //////////////////////
-                final CorePlan core = new CorePlan(plan, m_catalogHash);
+                final CorePlan core = new CorePlan(plan, catalogHash);
                 final AdHocPlannedStatement ahps = new AdHocPlannedStatement(plan, core);
 
                 // Do not put wrong parameter explain query into cache.
@@ -392,14 +555,15 @@ public class PlannerTool {
                     core.setPartitioningParamValue(partitioning.getInferredPartitioningValue());
                     assert (parsedToken != null);
                     // Again, plans with inferred partitioning are the only ones supported in the cache.
-                    m_cache.put(sql, parsedToken, ahps, planner.getExtractedLiterals(), planner.hasQuestionMark(),
+                    cache.put(sql, parsedToken, ahps, planner.getExtractedLiterals(), planner.hasQuestionMark(),
                             planner.hasExceptionWhenParameterized());
                 }
                 return ahps;
             }
         } finally {
             if (m_plannerStats != null) {
-                m_plannerStats.endStatsCollection(m_cache.getLiteralCacheSize(), m_cache.getCoreCacheSize(), cacheUse, -1);
+                m_plannerStats.endConcurrentStatsCollection(statsStartTime, cache.getLiteralCacheSize(),
+                        cache.getCoreCacheSize(), cacheUse, -1);
             }
         }
     }
@@ -23,12 +23,12 @@ import org.voltdb.ParameterSet;
 import org.voltdb.catalog.Database;
 import org.voltdb.common.Constants;
 import org.voltdb.exceptions.PlanningErrorException;
+import org.voltdb.planner.AbstractCostModel;
 import org.voltdb.planner.BoundPlan;
 import org.voltdb.planner.CompiledPlan;
 import org.voltdb.planner.CorePlan;
 import org.voltdb.planner.QueryPlanner;
 import org.voltdb.planner.StatementPartitioning;
-import org.voltdb.planner.TrivialCostModel;
 
 import java.util.List;
 
@@ -43,6 +43,8 @@ final class SqlPlanner {
     private final boolean m_isLargeQuery, m_isSwapTables, m_isExplainMode;
     private final Object[] m_userParams;
     private final AdHocCompilerCache m_cache;
+    private final DatabaseEstimates m_estimates;
+    private final AbstractCostModel m_costModel;
     private final VoltLogger m_logger;
     // outcomes
     private final CompiledPlan m_plan;
@@ -57,7 +59,8 @@ final class SqlPlanner {
 
     SqlPlanner(Database database, StatementPartitioning partitioning, HSQLInterface hsql, String sql,
             boolean isLargeQuery, boolean isSwapTables, boolean isExplainMode, long adHocLargeFallbackCount,
-            Object[] userParams, AdHocCompilerCache cache, VoltLogger logger) {
+            Object[] userParams, AdHocCompilerCache cache, DatabaseEstimates estimates, AbstractCostModel costModel,
+            VoltLogger logger) {
         m_database = database;
         m_partitioning = partitioning;
         m_hsql = hsql;
@@ -68,6 +71,8 @@ final class SqlPlanner {
         m_adHocLargeFallbackCount = adHocLargeFallbackCount;
         m_userParams = userParams;
         m_cache = cache;
+        m_estimates = estimates;
+        m_costModel = costModel;
         m_logger = logger;
         m_plan = cacheOrPlan();
     }
@@ -151,7 +156,7 @@ final class SqlPlanner {
         // This is required until we figure out how to do parallel planning.
         try (QueryPlanner planner = new QueryPlanner(
                 m_sql, "PlannerTool", "PlannerToolProc", m_database,
-                m_partitioning, m_hsql, new DatabaseEstimates(), !VoltCompiler.DEBUG_MODE, new TrivialCostModel(),
+                m_partitioning, m_hsql, m_estimates, !VoltCompiler.DEBUG_MODE, m_costModel,
                 null, null, DeterminismMode.FASTER, m_isLargeQuery, false)) {
             if (m_isSwapTables) {
                 planner.planSwapTables();
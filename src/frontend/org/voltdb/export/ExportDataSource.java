@@ -30,6 +30,7 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
@@ -48,6 +49,7 @@ import org.voltcore.utils.DBBPool.BBContainer;
 import org.voltcore.utils.EstTime;
 import org.voltcore.utils.Pair;
 import org.voltcore.utils.RateLimitedLogger;
+import org.voltcore.utils.SerialExecutorService;
 import org.voltdb.ExportStatsBase.ExportStatsRow;
 import org.voltdb.VoltDB;
 import org.voltdb.VoltDBInterface;
@@ -84,6 +86,11 @@ public class ExportDataSource implements Comparable<ExportDataSource> {
 
     private static final int SEVENX_AD_VERSION = 1;     // AD version for export format 7.x
 
+    // Threads shared by the executors of all export data sources, each source still runs its tasks in order
+    private static final int EXECUTOR_THREADS = Integer.getInteger("EXPORT_EXECUTOR_THREADS",
+            CoreUtils.availableProcessors());
+    private static ForkJoinPool s_executorPool;
+
     private final String m_tableName;
     private final byte [] m_signatureBytes;
     private final int m_partitionId;
@@ -127,7 +134,10 @@ public class ExportDataSource implements Comparable<ExportDataSource> {
             new AtomicReference<>(Pair.of((Mailbox)null, ImmutableList.<Long>builder().build()));
     private final Semaphore m_bufferPushPermits = new Semaphore(16);
 
-    private volatile ListeningExecutorService m_es;
+    private volatile SerialExecutorService m_es;
+    private long m_overallQueuedTasks = 0;
+    private long m_overallQueueWaitNanos = 0;
+    private long m_overallMaxQueueWaitNanos = 0;
     // A place to keep unfinished export buffer when processor shuts down.
     private final AtomicReference<AckingContainer> m_pendingContainer = new AtomicReference<>();
     // Is EDS from catalog or from disk pdb?
@@ -272,8 +282,7 @@ public class ExportDataSource implements Comparable<ExportDataSource> {
                 exportLog.debug(toString() + " is a replicated export stream");
             }
         }
-        m_es = CoreUtils.getListeningExecutorService("ExportDataSource for table " +
-                    m_tableName + " partition " + m_partitionId, 1);
+        m_es = createExecutor(m_tableName, m_partitionId);
     }
 
     public ExportDataSource(Generation generation, File adFile,
@@ -325,8 +334,19 @@ public class ExportDataSource implements Comparable<ExportDataSource> {
                 exportLog.debug(toString() + " is a replicated export stream");
             }
         }
-        m_es = CoreUtils.getListeningExecutorService("ExportDataSource for table " +
-                m_tableName + " partition " + m_partitionId, 1);
+        m_es = createExecutor(m_tableName, m_partitionId);
+    }
+
+    private static SerialExecutorService createExecutor(String tableName, int partitionId) {
+        ForkJoinPool pool;
+        synchronized (ExportDataSource.class) {
+            if (s_executorPool == null) {
+                s_executorPool = CoreUtils.getWorkStealingPool("Export Executor", EXECUTOR_THREADS);
+            }
+            pool = s_executorPool;
+        }
+        return new SerialExecutorService("ExportDataSource for table " + tableName + " partition " + partitionId,
+                pool);
     }
 
     /**
@@ -591,6 +611,26 @@ public class ExportDataSource implements Comparable<ExportDataSource> {
                     }
                     maxLatency = m_overallMaxLatency;
                 }
+
+                // Time this source's tasks waited for an export executor thread
+                SerialExecutorService.QueueStats queueStats = m_es.getQueueStats(interval);
+                long queuedTasks = queueStats.m_tasks;
+                long queueWaitNanos = queueStats.m_totalWaitNanos;
+                long maxQueueWaitNanos = queueStats.m_maxWaitNanos;
+                if (maxQueueWaitNanos > m_overallMaxQueueWaitNanos) {
+                    m_overallMaxQueueWaitNanos = maxQueueWaitNanos;
+                }
+                if (interval) {
+                    m_overallQueuedTasks += queuedTasks;
+                    m_overallQueueWaitNanos += queueWaitNanos;
+                } else {
+                    queuedTasks += m_overallQueuedTasks;
+                    queueWaitNanos += m_overallQueueWaitNanos;
+                    maxQueueWaitNanos = m_overallMaxQueueWaitNanos;
+                }
+                long avgQueueWaitMicros = queuedTasks > 0
+                        ? TimeUnit.NANOSECONDS.toMicros(queueWaitNanos / queuedTasks) : 0;
+                long maxQueueWaitMicros = TimeUnit.NANOSECONDS.toMicros(maxQueueWaitNanos);
                 String exportingRole;
                 if (m_runEveryWhere) {
                     exportingRole = "XDCR";
@@ -606,7 +646,8 @@ public class ExportDataSource implements Comparable<ExportDataSource> {
                 return new ExportStatsRow(m_partitionId, m_siteId, m_tableName, m_exportTargetName,
                         exportingRole, m_tupleCount, tPend,
                         m_lastQueuedTimestamp, m_lastAckedTimestamp,
-                        avgLatency, maxLatency, m_queueGap, m_status.toString());
+                        avgLatency, maxLatency, m_queueGap, m_status.toString(),
+                        avgQueueWaitMicros, maxQueueWaitMicros);
             }
         });
     }
@@ -88,6 +88,8 @@ public class ExportStats extends ExportStatsBase {
         rowValues[offset + Export.MAX_LATENCY.ordinal()] = stat.m_maxLatency;
         rowValues[offset + Export.QUEUE_GAP.ordinal()] = stat.m_queueGap;
         rowValues[offset + Export.STATUS.ordinal()] = stat.m_status;
+        rowValues[offset + Export.AVERAGE_SCHEDULING_DELAY.ordinal()] = stat.m_averageSchedulingDelay;
+        rowValues[offset + Export.MAX_SCHEDULING_DELAY.ordinal()] = stat.m_maxSchedulingDelay;
 
         return offset + Export.values().length;
     }
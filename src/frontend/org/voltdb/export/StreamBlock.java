@@ -199,10 +199,17 @@ public class StreamBlock {
     public BBContainer asBBContainer() {
         ByteBuffer b = m_entry.getData();
         b.order(ByteOrder.LITTLE_ENDIAN);
-        b.putLong(SEQUENCE_NUMBER_OFFSET, startSequenceNumber());
-        b.putLong(COMMIT_SEQUENCE_NUMBER_OFFSET, committedSequenceNumber());
-        b.putInt(ROW_NUMBER_OFFSET, rowCount());
-        b.putLong(UNIQUE_ID_OFFSET, uniqueId());
+        if (!b.isReadOnly()) {
+            writeHeader(b);
+        } else if (!hasHeader(b)) {
+            // Mapped from a persisted segment, rewrite the header in a copy
+            ByteBuffer copy = ByteBuffer.allocate(b.limit()).order(ByteOrder.LITTLE_ENDIAN);
+            ByteBuffer source = b.duplicate();
+            source.position(0);
+            copy.put(source);
+            writeHeader(copy);
+            b = copy;
+        }
         b.order(ByteOrder.BIG_ENDIAN);
 
         ByteBuffer view = b.asReadOnlyBuffer();
@@ -210,6 +217,21 @@ public class StreamBlock {
         return getRefCountingContainer(view);
     }
 
+    private void writeHeader(ByteBuffer b) {
+        b.putLong(SEQUENCE_NUMBER_OFFSET, startSequenceNumber());
+        b.putLong(COMMIT_SEQUENCE_NUMBER_OFFSET, committedSequenceNumber());
+        b.putInt(ROW_NUMBER_OFFSET, rowCount());
+        b.putLong(UNIQUE_ID_OFFSET, uniqueId());
+    }
+
+    // Blocks polled from disk already have the header they were persisted with
+    private boolean hasHeader(ByteBuffer b) {
+        return b.getLong(SEQUENCE_NUMBER_OFFSET) == startSequenceNumber()
+                && b.getLong(COMMIT_SEQUENCE_NUMBER_OFFSET) == committedSequenceNumber()
+                && b.getInt(ROW_NUMBER_OFFSET) == rowCount()
+                && b.getLong(UNIQUE_ID_OFFSET) == uniqueId();
+    }
+
     /**
      * Free the memory backed by this entry but do not release the entries
      */
@@ -24,6 +24,8 @@ import java.util.ArrayDeque;
 import java.util.Iterator;
 
 import org.voltcore.logging.VoltLogger;
+import org.voltcore.utils.CompressionStrategy;
+import org.voltcore.utils.CompressionStrategySnappy;
 import org.voltcore.utils.DBBPool.BBContainer;
 import org.voltdb.CatalogContext;
 import org.voltdb.VoltDB;
@@ -37,6 +39,7 @@ import org.voltdb.utils.BinaryDeque.BinaryDequeTruncator;
 import org.voltdb.utils.BinaryDeque.BinaryDequeValidator;
 import org.voltdb.utils.BinaryDeque.TruncatorResponse;
 import org.voltdb.utils.BinaryDequeReader;
+import org.voltdb.utils.CompressionCodecs;
 import org.voltdb.utils.PersistentBinaryDeque;
 import org.voltdb.utils.PersistentBinaryDeque.ByteBufferTruncatorResponse;
 
@@ -80,6 +83,12 @@ public class StreamBlockQueue {
 
     public static final String EXPORT_DISABLE_COMPRESSION_OPTION = "EXPORT_DISABLE_COMPRESSION";
     private static final boolean DISABLE_COMPRESSION = Boolean.getBoolean(EXPORT_DISABLE_COMPRESSION_OPTION);
+    // Codec of the overflow of all streams, which can be overridden per stream with EXPORT_COMPRESSION_CODEC.<stream>
+    public static final String EXPORT_COMPRESSION_CODEC_OPTION = "EXPORT_COMPRESSION_CODEC";
+    // Uncompressed overflow in sealed segments is read through a memory mapping unless this is set to false
+    public static final String EXPORT_MAPPED_READS_OPTION = "EXPORT_MAPPED_READS";
+    private static final boolean MAPPED_READS =
+            Boolean.parseBoolean(System.getProperty(EXPORT_MAPPED_READS_OPTION, "true"));
 
     /**
      * Deque containing reference to stream blocks that are in memory. Some of these
@@ -417,6 +426,27 @@ public class StreamBlockQueue {
         return m_initialGenerationId;
     }
 
+    /**
+     * @return the codec to compress the overflow of {@code streamName} with or {@code null} if it is not compressed
+     */
+    static CompressionStrategy getCompression(String streamName) {
+        if (DISABLE_COMPRESSION) {
+            return null;
+        }
+        String codec = System.getProperty(EXPORT_COMPRESSION_CODEC_OPTION + "." + streamName,
+                System.getProperty(EXPORT_COMPRESSION_CODEC_OPTION));
+        if (codec == null) {
+            return CompressionStrategySnappy.INSTANCE;
+        }
+        try {
+            return CompressionCodecs.forName(codec);
+        } catch (IllegalArgumentException e) {
+            exportLog.warn(e.getMessage() + ", compressing the overflow of " + streamName + " with "
+                    + CompressionStrategySnappy.INSTANCE);
+            return CompressionStrategySnappy.INSTANCE;
+        }
+    }
+
     private void constructPBD(long genId, long initialGenId, boolean deleteExisting) throws IOException {
         Table streamTable = VoltDB.instance().getCatalogContext().database.getTables().get(m_streamName);
 
@@ -425,8 +455,9 @@ public class StreamBlockQueue {
 
         m_persistentDeque = PersistentBinaryDeque.builder(m_nonce, new File(m_path), exportLog)
                 .initialExtraHeader(metadata, serializer)
-                .compression(!DISABLE_COMPRESSION)
+                .compression(getCompression(m_streamName))
                 .deleteExisting(deleteExisting)
+                .mappedReads(MAPPED_READS)
                 .build();
 
         m_reader = m_persistentDeque.openForRead(m_nonce);
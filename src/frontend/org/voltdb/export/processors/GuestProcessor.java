@@ -45,6 +45,7 @@ import org.voltdb.exportclient.ExportClientBase;
 import org.voltdb.exportclient.ExportDecoderBase;
 import org.voltdb.exportclient.ExportDecoderBase.RestartBlockException;
 import org.voltdb.exportclient.ExportRow;
+import org.voltdb.exportclient.ExportRowReader;
 import org.voltdb.exportclient.ExportRowSchema;
 
 import com.google_voltpatches.common.base.Preconditions;
@@ -234,12 +235,10 @@ public class GuestProcessor implements ExportDataProcessor {
                                     buildListener(ads);
                                 }
                             } else {
-                                Thread.sleep(5);
-                                resubmitSelf();
+                                // Check again later without holding on to an export executor thread
+                                VoltDB.instance().scheduleWork(this::resubmitSelf, 5, -1, TimeUnit.MILLISECONDS);
                             }
-                        } catch(InterruptedException e) {
-                            resubmitSelf();
-                        }  catch (RejectedExecutionException whenExportDataSourceIsClosed) {
+                        } catch (RejectedExecutionException whenExportDataSourceIsClosed) {
                             if (EXPORTLOG.isDebugEnabled()) {
                                 EXPORTLOG.debug("Source " + m_source + " closed before being started");
                             }
@@ -350,8 +349,8 @@ public class GuestProcessor implements ExportDataProcessor {
                                 final ByteBuffer buf = cont.b();
                                 buf.position(startPosition);
                                 buf.order(ByteOrder.LITTLE_ENDIAN);
-                                ExportRow row = null;
-                                boolean firstRowOfBlock = true;
+                                final ExportRowReader row = new ExportRowReader();
+                                boolean hasRow = false;
                                 long start = 0L;
                                 if (EXPORTLOG.isDebugEnabled()) {
                                     EXPORTLOG.debug("Processing " + cont + " on " + source);
@@ -359,8 +358,8 @@ public class GuestProcessor implements ExportDataProcessor {
                                 }
                                 while (buf.hasRemaining() && !m_shutdown) {
                                     int length = buf.getInt();
-                                    byte[] rowdata = new byte[length];
-                                    buf.get(rowdata, 0, length);
+                                    int rowOffset = buf.position();
+                                    buf.position(rowOffset + length);
 
                                     try {
                                         cont.updateStartTime(System.currentTimeMillis());
@@ -373,8 +372,8 @@ public class GuestProcessor implements ExportDataProcessor {
                                             }
                                             edb.setExportRowSchema(newSchema);
                                         }
-                                        row = ExportRow.decodeRow(edb.getExportRowSchema(), source.getPartitionId(),
-                                                rowdata);
+                                        row.readRow(edb.getExportRowSchema(), source.getPartitionId(), buf,
+                                                rowOffset, length);
                                     } catch (IOException ioe) {
                                         EXPORTLOG.warn("Failed decoding row for partition " + source.getPartitionId()
                                                 + ". " + ioe.getMessage());
@@ -382,16 +381,16 @@ public class GuestProcessor implements ExportDataProcessor {
                                         cont = null;
                                         break;
                                     }
-                                    if (firstRowOfBlock) {
+                                    if (!hasRow) {
                                         edb.onBlockStart(row);
-                                        firstRowOfBlock = false;
+                                        hasRow = true;
                                     }
                                     edb.processRow(row);
                                     if (committedTxnId == 0) {
                                         committedTxnId = extractCommittedTxnId(row, cont.getCommittedSeqNo());
                                     }
                                 }
-                                if (row != null) {
+                                if (hasRow) {
                                     edb.onBlockCompletion(row);
                                 }
                                 if (EXPORTLOG.isDebugEnabled()) {
@@ -481,20 +480,20 @@ public class GuestProcessor implements ExportDataProcessor {
      * @param committedSeqNo the sequence number of the last committed row
      * @return
      */
-    private long extractCommittedTxnId(ExportRow row, long committedSeqNo) {
+    private long extractCommittedTxnId(ExportRowReader row, long committedSeqNo) {
         long ret = 0;
         if (committedSeqNo == ExportDataSource.NULL_COMMITTED_SEQNO) {
             return ret;
         }
 
         // Get the rows's sequence number (3rd column)
-        long seqNo = (long) row.values[2];
+        long seqNo = row.getSequenceNumber();
         if (seqNo != committedSeqNo) {
             return ret;
         }
 
         // Get the row's sp handle (1rst column)
-        ret = (long) row.values[0];
+        ret = row.getTransactionId();
         return ret;
     }
 
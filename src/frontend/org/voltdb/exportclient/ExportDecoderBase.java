@@ -18,6 +18,8 @@
 package org.voltdb.exportclient;
 
 
+import java.io.IOException;
+
 import org.voltcore.utils.CoreUtils;
 import org.voltdb.export.AdvertisedDataSource;
 
@@ -113,6 +115,19 @@ public abstract class ExportDecoderBase {
         throw new UnsupportedOperationException("processRow must be implemented.");
     }
 
+    /**
+     * Process a row read directly from the Export stream. Decoders which can consume typed columns
+     * override this to avoid decoding every row into an {@link ExportRow}, by default the row is
+     * decoded and passed to {@link #processRow(ExportRow)}.
+     *
+     * @param row reader positioned at the row, only valid for the duration of the call
+     * @return whether or not the row processing was successful
+     * @throws org.voltdb.exportclient.ExportDecoderBase.RestartBlockException
+     */
+    public boolean processRow(ExportRowReader row) throws RestartBlockException {
+        return processRow(decode(row));
+    }
+
     abstract public void sourceNoLongerAdvertised(AdvertisedDataSource source);
 
     /**
@@ -133,6 +148,35 @@ public abstract class ExportDecoderBase {
 
     }
 
+    /**
+     * Notify that a new block of data is going to be processed now, by default the row is decoded
+     * and passed to {@link #onBlockStart(ExportRow)}
+     * @param row reader positioned at the first row of the block.
+     * @throws org.voltdb.exportclient.ExportDecoderBase.RestartBlockException
+     */
+    public void onBlockStart(ExportRowReader row) throws RestartBlockException {
+        onBlockStart(decode(row));
+    }
+
+    /**
+     * Finalize operation upon block completion, by default the row is decoded and passed to
+     * {@link #onBlockCompletion(ExportRow)}
+     * @param row reader positioned at the last row for the block
+     * @throws org.voltdb.exportclient.ExportDecoderBase.RestartBlockException
+     */
+    public void onBlockCompletion(ExportRowReader row) throws RestartBlockException {
+        onBlockCompletion(decode(row));
+    }
+
+    private static ExportRow decode(ExportRowReader row) {
+        try {
+            return row.toExportRow();
+        } catch (IOException e) {
+            // The reader already validated the row
+            throw new IllegalStateException("Failed to decode export row", e);
+        }
+    }
+
     public ListeningExecutorService getExecutor() {
         return DEFAULT_EXECUTOR;
     }
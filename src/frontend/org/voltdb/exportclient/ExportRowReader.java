@@ -0,0 +1,355 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2022 Volt Active Data Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.exportclient;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.voltdb.VoltType;
+import org.voltdb.compiler.DDLCompiler;
+import org.voltdb.types.GeographyPointValue;
+
+/**
+ * A reusable cursor over the rows of an export block. Unlike {@link ExportRow#decodeRow} it does not copy or
+ * box anything: {@link #readRow} only records where each column of the row starts and the typed getters read
+ * the values straight from the block.
+ * <p>
+ * A reader is only valid until the next call to {@link #readRow} and, like the block it reads from, must only
+ * be used by one thread at a time. Decoders which need to hold on to a row use {@link #toExportRow()}.
+ * <p>
+ * Columns are numbered like the values of an {@link ExportRow}, starting with the
+ * {@link ExportRow#INTERNAL_FIELD_COUNT} metadata columns.
+ */
+public class ExportRowReader {
+    private static final int GEOGRAPHY_POINT_LENGTH = GeographyPointValue.getLengthInBytes();
+
+    private ExportRow m_schema;
+    private int m_partitionId;
+    private int m_partitionColIndex;
+    private int m_columnCount;
+    private ByteBuffer m_block;
+    // Little endian view of m_block so that reading does not disturb the position of the caller's buffer
+    private ByteBuffer m_view;
+    private int m_rowOffset;
+    private int m_rowLength;
+    private boolean[] m_nulls = new boolean[0];
+    private int[] m_offsets = new int[0];
+    private ExportRow m_exportRow;
+
+    /**
+     * Position the reader at a row of an export block
+     *
+     * @param schema      schema of the row, or the previous row
+     * @param partitionId partition of the block
+     * @param block       buffer holding the row
+     * @param offset      offset of the row in {@code block}, after its length
+     * @param length      length of the row
+     * @throws IOException if the row does not match {@code schema}, the reader stays at the previous row
+     */
+    public void readRow(ExportRow schema, int partitionId, ByteBuffer block, int offset, int length)
+            throws IOException {
+        if (schema == null) {
+            throw new IOException("Export block with no schema found without prior block with schema.");
+        }
+        final ByteBuffer previousBlock = m_block;
+        final ExportRow previousSchema = m_schema;
+        final int previousPartitionId = m_partitionId;
+        final int previousOffset = m_rowOffset;
+        final int previousLength = m_rowLength;
+        try {
+            parseRow(schema, partitionId, block, offset, length);
+        } catch (IOException | RuntimeException e) {
+            // The previous row of the same block is still readable
+            if (previousSchema != null && previousBlock == block) {
+                parseRow(previousSchema, previousPartitionId, block, previousOffset, previousLength);
+            }
+            throw e;
+        }
+    }
+
+    private void parseRow(ExportRow schema, int partitionId, ByteBuffer block, int offset, int length)
+            throws IOException {
+        if (block != m_block) {
+            m_block = block;
+            m_view = block.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        } else {
+            // Buffers are reused for other blocks
+            m_view.limit(block.limit());
+        }
+        m_schema = schema;
+        m_partitionId = partitionId;
+        m_rowOffset = offset;
+        m_rowLength = length;
+        m_exportRow = null;
+
+        int position = offset;
+        m_partitionColIndex = m_view.getInt(position);
+        position += Integer.BYTES;
+        final int columnCount = m_view.getInt(position);
+        position += Integer.BYTES;
+        assert(columnCount <= DDLCompiler.MAX_COLUMNS);
+        if (columnCount != schema.types.size()) {
+            throw new IOException(
+                    String.format("Read %d columns from row but expected %d columns: %s", columnCount,
+                            schema.types.size(), schema));
+        }
+        m_columnCount = columnCount;
+        if (m_nulls.length < columnCount) {
+            m_nulls = new boolean[columnCount];
+            m_offsets = new int[columnCount];
+        }
+
+        // Same layout as ExportRow.extractNullFlags: the flag of column i is bit 0x80 >> (i % 8) of byte i / 8
+        final int nullArrayLength = ((columnCount + 7) & -8) >> 3;
+        for (int i = 0; i < columnCount; i++) {
+            m_nulls[i] = (m_view.get(position + (i >> 3)) & (0x80 >>> (i & 7))) != 0;
+        }
+        position += nullArrayLength;
+
+        for (int i = 0; i < columnCount; i++) {
+            m_offsets[i] = position;
+            if (!m_nulls[i]) {
+                position += valueLength(schema.types.get(i), position);
+            }
+        }
+        if (position > offset + length) {
+            throw new IOException("Row of " + length + " bytes ended after " + (position - offset) + " bytes: "
+                    + schema);
+        }
+    }
+
+    private int valueLength(VoltType type, int position) throws IOException {
+        switch (type) {
+        case TINYINT:
+            return Byte.BYTES;
+        case SMALLINT:
+            return Short.BYTES;
+        case INTEGER:
+            return Integer.BYTES;
+        case BIGINT:
+        case FLOAT:
+        case TIMESTAMP:
+            return Long.BYTES;
+        case STRING:
+        case VARBINARY:
+        case GEOGRAPHY:
+            return Integer.BYTES + Math.max(0, m_view.getInt(position));
+        case DECIMAL:
+            // scale, length and the unscaled value
+            return 2 + m_view.get(position + 1);
+        case GEOGRAPHY_POINT:
+            return GEOGRAPHY_POINT_LENGTH;
+        default:
+            throw new IOException("Invalid column type: " + type);
+        }
+    }
+
+    public ExportRow getSchema() {
+        return m_schema;
+    }
+
+    public String getTableName() {
+        return m_schema.tableName;
+    }
+
+    public long getGeneration() {
+        return m_schema.generation;
+    }
+
+    public int getPartitionId() {
+        return m_partitionId;
+    }
+
+    public int getPartitionColumnIndex() {
+        return m_partitionColIndex;
+    }
+
+    public int getColumnCount() {
+        return m_columnCount;
+    }
+
+    public VoltType getColumnType(int column) {
+        return m_schema.types.get(column);
+    }
+
+    public String getColumnName(int column) {
+        return m_schema.names.get(column);
+    }
+
+    public boolean isNull(int column) {
+        checkColumn(column);
+        return m_nulls[column];
+    }
+
+    /**
+     * @return the value of a TINYINT, SMALLINT, INTEGER, BIGINT or TIMESTAMP column, timestamps are in
+     *         microseconds
+     */
+    public long getLong(int column) {
+        final int offset = valueOffset(column);
+        switch (getColumnType(column)) {
+        case TINYINT:
+            return m_view.get(offset);
+        case SMALLINT:
+            return m_view.getShort(offset);
+        case INTEGER:
+            return m_view.getInt(offset);
+        case BIGINT:
+        case TIMESTAMP:
+            return m_view.getLong(offset);
+        default:
+            throw wrongType(column, "an integer");
+        }
+    }
+
+    public double getDouble(int column) {
+        if (getColumnType(column) != VoltType.FLOAT) {
+            throw wrongType(column, "a FLOAT");
+        }
+        return m_view.getDouble(valueOffset(column));
+    }
+
+    /**
+     * @return the length in bytes of a VARCHAR, VARBINARY or GEOGRAPHY value
+     */
+    public int getValueLength(int column) {
+        checkVariableLength(column);
+        return m_view.getInt(valueOffset(column));
+    }
+
+    /**
+     * Copy the bytes of a VARCHAR, VARBINARY or GEOGRAPHY value, VARCHARs are UTF-8 encoded
+     *
+     * @return the number of bytes copied
+     */
+    public int copyBytes(int column, byte[] dest, int destOffset) {
+        final int length = getValueLength(column);
+        m_view.position(valueOffset(column) + Integer.BYTES);
+        m_view.get(dest, destOffset, length);
+        return length;
+    }
+
+    public byte[] getBytes(int column) {
+        byte[] bytes = new byte[getValueLength(column)];
+        copyBytes(column, bytes, 0);
+        return bytes;
+    }
+
+    public String getString(int column) {
+        if (getColumnType(column) != VoltType.STRING) {
+            throw wrongType(column, "a VARCHAR");
+        }
+        return (String) getObject(column);
+    }
+
+    public BigDecimal getDecimal(int column) {
+        if (getColumnType(column) != VoltType.DECIMAL) {
+            throw wrongType(column, "a DECIMAL");
+        }
+        final int offset = valueOffset(column);
+        int scale = m_view.get(offset);
+        byte[] unscaled = new byte[m_view.get(offset + 1)];
+        m_view.position(offset + 2);
+        m_view.get(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+
+    /**
+     * @return the value of a column as {@link ExportRow#values} would hold it, {@code null} if the value is null
+     */
+    public Object getObject(int column) {
+        if (isNull(column)) {
+            return null;
+        }
+        m_view.position(m_offsets[column]);
+        return getColumnType(column).decodeValue(m_view);
+    }
+
+    /**
+     * @return value of the partition column, or the partition id if there is none, like
+     *         {@link ExportRow#partitionValue}
+     */
+    public Object getPartitionValue() {
+        if (m_partitionColIndex >= 0 && m_partitionColIndex < m_columnCount && !m_nulls[m_partitionColIndex]) {
+            return getObject(m_partitionColIndex);
+        }
+        return m_partitionId;
+    }
+
+    public long getTransactionId() {
+        return getLong(0);
+    }
+
+    public long getTimestamp() {
+        return getLong(ExportRow.EXPORT_TIMESTAMP_COLUMN);
+    }
+
+    public long getSequenceNumber() {
+        return getLong(ExportRow.SEQUENCE_NUMBER_COLUMN);
+    }
+
+    public ExportRow.ROW_OPERATION getOperation() {
+        return ExportRow.ROW_OPERATION.values()[(int) getLong(ExportRow.INTERNAL_OPERATION_COLUMN)];
+    }
+
+    /**
+     * Decode the current row into an {@link ExportRow}. The row is decoded once, later calls return the
+     * same instance until the reader moves to another row.
+     */
+    public ExportRow toExportRow() throws IOException {
+        if (m_exportRow == null) {
+            ByteBuffer row = m_view.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            row.limit(m_rowOffset + m_rowLength).position(m_rowOffset);
+            m_exportRow = ExportRow.decodeRow(m_schema, m_partitionId, row);
+        }
+        return m_exportRow;
+    }
+
+    private void checkColumn(int column) {
+        if (column < 0 || column >= m_columnCount) {
+            throw new IndexOutOfBoundsException("Column " + column + " of a row with " + m_columnCount
+                    + " columns");
+        }
+    }
+
+    private int valueOffset(int column) {
+        if (isNull(column)) {
+            throw new IllegalStateException("Column " + getColumnName(column) + " is null");
+        }
+        return m_offsets[column];
+    }
+
+    private void checkVariableLength(int column) {
+        switch (getColumnType(column)) {
+        case STRING:
+        case VARBINARY:
+        case GEOGRAPHY:
+            return;
+        default:
+            throw wrongType(column, "a variable length");
+        }
+    }
+
+    private IllegalArgumentException wrongType(int column, String expected) {
+        return new IllegalArgumentException("Column " + getColumnName(column) + " of type " + getColumnType(column)
+                + " is not " + expected + " column");
+    }
+}
@@ -815,6 +815,13 @@ public class ExportToFileClient extends ExportClientBase {
             return true;
         }
 
+        @Override
+        public boolean processRow(ExportRowReader row) throws RestartBlockException {
+            // reader lock is acquired in on-block start
+            m_csvWriterDecoder.decode(row, m_writer);
+            return true;
+        }
+
         /**
          * Release the current batch folder.
          * @throws RestartBlockException
@@ -23,12 +23,14 @@ import java.io.StringWriter;
 import au.com.bytecode.opencsv_voltpatches.CSVWriter;
 import java.util.List;
 import org.voltdb.VoltType;
+import org.voltdb.exportclient.ExportRowReader;
 
 public class CSVStringDecoder extends RowDecoder<String, RuntimeException> {
 
     protected final StringArrayDecoder m_stringArrayDecoder;
     protected final CSVWriter m_writer;
     protected final StringBuffer m_writerDestination;
+    private String[] m_fields;
 
     protected CSVStringDecoder(StringArrayDecoder stringArrayDecoder) {
         super(stringArrayDecoder);
@@ -48,6 +50,17 @@ public class CSVStringDecoder extends RowDecoder<String, RuntimeException> {
         return csvLine;
     }
 
+    /**
+     * Convert the row {@code row} is positioned at to a CSV line without decoding it into an array of objects
+     */
+    public String decode(ExportRowReader row) {
+        m_fields = m_stringArrayDecoder.decode(row, m_fields);
+        m_writer.writeNext(m_fields);
+        String csvLine = m_writerDestination.toString();
+        m_writerDestination.setLength(0);
+        return csvLine;
+    }
+
     public static Builder builder() {
         return new Builder();
     }
@@ -21,12 +21,14 @@ import java.io.IOException;
 import java.util.List;
 
 import org.voltdb.VoltType;
+import org.voltdb.exportclient.ExportRowReader;
 
 import au.com.bytecode.opencsv_voltpatches.CSVWriter;
 
 public class CSVWriterDecoder extends RowDecoder<CSVWriter, IOException> {
 
     protected final StringArrayDecoder m_stringArrayDecoder;
+    private String[] m_fields;
 
     protected CSVWriterDecoder(StringArrayDecoder stringArrayDecoder) {
         super(stringArrayDecoder);
@@ -39,6 +41,16 @@ public class CSVWriterDecoder extends RowDecoder<CSVWriter, IOException> {
         return to;
     }
 
+    /**
+     * Write the row {@code row} is positioned at to {@code to} without decoding it into an array of objects
+     */
+    public CSVWriter decode(ExportRowReader row, CSVWriter to) {
+        // CSVWriter is done with the fields once writeNext returns
+        m_fields = m_stringArrayDecoder.decode(row, m_fields);
+        to.writeNext(m_fields);
+        return to;
+    }
+
     public static Builder builder() {
         return new Builder();
     }
@@ -18,6 +18,7 @@
 package org.voltdb.exportclient.decode;
 
 import java.text.SimpleDateFormat;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -26,6 +27,7 @@ import java.util.TimeZone;
 import org.voltdb.VoltType;
 import org.voltdb.common.Constants;
 import org.voltdb.exportclient.ExportDecoderBase.BinaryEncoding;
+import org.voltdb.exportclient.ExportRowReader;
 import org.voltdb.exportclient.decode.DecodeType.SimpleVisitor;
 import org.voltdb.types.GeographyPointValue;
 import org.voltdb.types.GeographyValue;
@@ -45,6 +47,9 @@ public class StringArrayDecoder extends RowDecoder<String[], RuntimeException> {
     protected final BinaryEncoding m_binaryEncoding;
     protected final String m_nullRepresentation;
     protected final Map<Long, StringFieldDecoder []> m_fieldDecoders = new HashMap<>();
+    // Used by decode(ExportRowReader, String[]) which, like the field decoders, must not share a formatter
+    private final SimpleDateFormat m_readerDateFormatter;
+    private final Date m_readerDate = new Date();
 
     protected StringArrayDecoder(
             int firstFieldOffset,
@@ -60,6 +65,7 @@ public class StringArrayDecoder extends RowDecoder<String[], RuntimeException> {
         m_dateFormatter = dateFormatter;
         m_binaryEncoding = binaryEncoding;
         m_nullRepresentation = nullRepresentation;
+        m_readerDateFormatter = (SimpleDateFormat) dateFormatter.clone();
     }
 
     /**
@@ -104,6 +110,56 @@ public class StringArrayDecoder extends RowDecoder<String[], RuntimeException> {
         return to;
     }
 
+    /**
+     * Converts the values of the row {@code row} is positioned at into their string representations,
+     * without decoding the row into an array of objects first
+     *
+     * @param row reader positioned at an exported row
+     * @param to  array which is reused if it has one entry per converted column
+     * @return array of the string representations of the column values
+     */
+    public String[] decode(ExportRowReader row, String[] to) {
+        final int columnCount = row.getColumnCount();
+        Preconditions.checkArgument(columnCount > m_firstFieldOffset, "inapropriately sized export row");
+        if (to == null || to.length != columnCount - m_firstFieldOffset) {
+            to = new String[columnCount - m_firstFieldOffset];
+        }
+        for (int i = m_firstFieldOffset, j = 0; i < columnCount; ++i, ++j) {
+            to[j] = row.isNull(i) ? m_nullRepresentation : decodeField(row, i);
+        }
+        return to;
+    }
+
+    private String decodeField(ExportRowReader row, int column) {
+        switch (row.getColumnType(column)) {
+        case TINYINT:
+        case SMALLINT:
+        case INTEGER:
+        case BIGINT:
+            return Long.toString(row.getLong(column));
+        case FLOAT:
+            return Double.toString(row.getDouble(column));
+        case TIMESTAMP:
+            // Same as formatting TimestampType.asApproximateJavaDate()
+            long micros = row.getLong(column);
+            m_readerDate.setTime((micros - micros % 1000) / 1000);
+            return m_readerDateFormatter.format(m_readerDate);
+        case STRING:
+            return row.getString(column);
+        case VARBINARY:
+            return m_binaryEncoding == BinaryEncoding.BASE64 ? Encoder.base64Encode(row.getBytes(column))
+                    : Encoder.hexEncode(row.getBytes(column));
+        case DECIMAL:
+            return row.getDecimal(column).toString();
+        case GEOGRAPHY_POINT:
+            return ((GeographyPointValue) row.getObject(column)).toWKT();
+        case GEOGRAPHY:
+            return ((GeographyValue) row.getObject(column)).toWKT();
+        default:
+            throw new IllegalArgumentException("Unsupported column type " + row.getColumnType(column));
+        }
+    }
+
     static abstract class StringFieldDecoder implements FieldDecoder<String[], RuntimeException> {
         protected final int m_fieldIndex;
 
@@ -51,6 +51,7 @@ import org.voltdb.exportclient.ExportClientLogger;
 import org.voltdb.exportclient.ExportDecoderBase;
 import org.voltdb.exportclient.ExportDecoderBase.BinaryEncoding;
 import org.voltdb.exportclient.ExportRow;
+import org.voltdb.exportclient.ExportRowReader;
 import org.voltdb.exportclient.decode.AvroDecoder;
 import org.voltdb.exportclient.decode.CSVStringDecoder;
 import org.voltdb.serdes.EncodeFormat;
@@ -451,7 +452,21 @@ public class KafkaExportClient extends ExportClientBase {
                 String decoded = m_csvDecoder.decode(rd.generation, rd.tableName, rd.types, rd.names, null, rd.values);
                 krec = new ProducerRecord<>(m_topic, pval, decoded);
             }
+            return send(krec);
+        }
+
+        @Override
+        public boolean processRow(ExportRowReader row) throws RestartBlockException {
+            if (m_encodeFormat == EncodeFormat.AVRO) {
+                // Avro records are built from the decoded values
+                return super.processRow(row);
+            }
+            checkOnFirstRow();
+            String pval = row.getPartitionValue().toString();
+            return send(new ProducerRecord<>(m_topic, pval, m_csvDecoder.decode(row)));
+        }
 
+        private boolean send(ProducerRecord<String, Object> krec) throws RestartBlockException {
             try {
                 m_futures.add(m_producer.send(krec, new Callback() {
                     @Override
@@ -20,7 +20,6 @@ package org.voltdb.importer;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
-import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.voltdb.InternalConnectionStatsCollector;
@@ -28,6 +27,7 @@ import org.voltdb.SiteStatsSource;
 import org.voltdb.VoltTable.ColumnInfo;
 import org.voltdb.VoltType;
 import org.voltdb.client.ClientResponse;
+import org.voltdb.stats.IntervalCounter;
 
 import com.google_voltpatches.common.collect.ImmutableMap;
 
@@ -78,7 +78,7 @@ public class ImporterStatsCollector extends SiteStatsSource
     // An insert request was queued
     public void reportQueued(String importerName, String procName) {
         StatsInfo statsInfo = getStatsInfo(importerName, procName);
-        statsInfo.m_pendingCount.incrementAndGet();
+        statsInfo.m_pendingCount.increment();
     }
 
     // One insert failed
@@ -90,9 +90,9 @@ public class ImporterStatsCollector extends SiteStatsSource
     public void reportFailure(String importerName, String procName, boolean decrementPending) {
         StatsInfo statsInfo = getStatsInfo(importerName, procName);
         if (decrementPending) {
-            statsInfo.m_pendingCount.decrementAndGet();
+            statsInfo.m_pendingCount.decrement();
         }
-        statsInfo.m_failureCount.incrementAndGet();
+        statsInfo.m_failureCount.increment();
     }
 
     // Report that the importer was successfully initialized
@@ -103,14 +103,14 @@ public class ImporterStatsCollector extends SiteStatsSource
     // One insert succeeded
     private void reportSuccess(String importerName, String procName) {
         StatsInfo statsInfo = getStatsInfo(importerName, procName);
-        statsInfo.m_pendingCount.decrementAndGet();
-        statsInfo.m_successCount.incrementAndGet();
+        statsInfo.m_pendingCount.decrement();
+        statsInfo.m_successCount.increment();
     }
 
     // One insert was retried
     private void reportRetry(String importerName, String procName) {
         StatsInfo statsInfo = getStatsInfo(importerName, procName);
-        statsInfo.m_retryCount.incrementAndGet();
+        statsInfo.m_retryCount.increment();
     }
 
     private StatsInfo getStatsInfo(String importerName, String procName) {
@@ -160,46 +160,13 @@ public class ImporterStatsCollector extends SiteStatsSource
         StatsInfo stats = (StatsInfo) rowKey;
         rowValues[offset + Import.IMPORTER_NAME.ordinal()] = stats.m_importerName;
         rowValues[offset + Import.PROCEDURE_NAME.ordinal()] = stats.m_procName;
-        rowValues[offset + Import.SUCCESSES.ordinal()] = getSuccessCountUpdateLast(stats);
-        rowValues[offset + Import.FAILURES.ordinal()] = getFailureCountUpdateLast(stats);
+        rowValues[offset + Import.SUCCESSES.ordinal()] = stats.m_successCount.get(m_isInterval);
+        rowValues[offset + Import.FAILURES.ordinal()] = stats.m_failureCount.get(m_isInterval);
         rowValues[offset + Import.OUTSTANDING_REQUESTS.ordinal()] = getPendingCountUpdateLast(stats);
-        rowValues[offset + Import.RETRIES.ordinal()] = getRetryCountUpdateLast(stats);
+        rowValues[offset + Import.RETRIES.ordinal()] = stats.m_retryCount.get(m_isInterval);
         return offset + Import.values().length;
     }
 
-    private long getSuccessCountUpdateLast(StatsInfo stats) {
-        long currentSuccess = stats.m_successCount.get();
-        long successValue = currentSuccess;
-        if (m_isInterval) {
-            successValue = currentSuccess - stats.m_lastSuccessCount;
-            stats.m_lastSuccessCount = currentSuccess;
-        }
-
-        return successValue;
-    }
-
-    private long getFailureCountUpdateLast(StatsInfo stats) {
-        long current = stats.m_failureCount.get();
-        long value = current;
-        if (m_isInterval) {
-            value = current - stats.m_lastFailureCount;
-            stats.m_lastFailureCount = current;
-        }
-
-        return value;
-    }
-
-    private long getRetryCountUpdateLast(StatsInfo stats) {
-        long current = stats.m_retryCount.get();
-        long value = current;
-        if (m_isInterval) {
-            value = current - stats.m_lastRetryCount;
-            stats.m_lastRetryCount = current;
-        }
-
-        return value;
-    }
-
     private long getPendingCountUpdateLast(StatsInfo stats) {
         long current = stats.m_pendingCount.get();
         current = (current<0) ? 0 : current; // pending could be -ve if we get callback responses
@@ -241,14 +208,11 @@ public class ImporterStatsCollector extends SiteStatsSource
     {
         String m_importerName;
         String m_procName;
-        AtomicLong m_successCount = new AtomicLong(0);
-        AtomicLong m_failureCount = new AtomicLong(0);
-        AtomicLong m_pendingCount = new AtomicLong(0);
-        AtomicLong m_retryCount = new AtomicLong(0);
-        long m_lastSuccessCount = 0;
-        long m_lastFailureCount = 0;
+        final IntervalCounter m_successCount = new IntervalCounter();
+        final IntervalCounter m_failureCount = new IntervalCounter();
+        final IntervalCounter m_pendingCount = new IntervalCounter();
+        final IntervalCounter m_retryCount = new IntervalCounter();
         long m_lastPendingCount = 0;
-        long m_lastRetryCount = 0;
 
         public StatsInfo(String importerName, String procName) {
             m_importerName = importerName;
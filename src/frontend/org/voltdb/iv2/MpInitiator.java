@@ -37,6 +37,7 @@ import org.voltdb.Promotable;
 import org.voltdb.RealVoltDB;
 import org.voltdb.StartAction;
 import org.voltdb.StatsAgent;
+import org.voltdb.StatsSelector;
 import org.voltdb.VoltDB;
 import org.voltdb.VoltZK;
 import org.voltdb.iv2.LeaderCache.LeaderCallBackInfo;
@@ -120,6 +121,7 @@ public class MpInitiator extends BaseInitiator<MpScheduler> implements Promotabl
                 m_partitionId,
                 m_initiatorMailbox);
         sched.setMpRoSitePool(sitePool);
+        agent.registerStatsSource(StatsSelector.MPREADPOOL, getInitiatorHSId(), sitePool.getStats());
 
         // add ourselves to the ephemeral node list which BabySitters will watch for this
         // partition
@@ -17,6 +17,7 @@
 
 package org.voltdb.iv2;
 
+import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Future;
@@ -86,6 +87,9 @@ public class MpRoSite implements Runnable, SiteProcedureConnection
     // What type of EE is controlled
     final BackendTarget m_backend;
 
+    // Maximum number of sites of the pool, which share the MP response size limit
+    final int m_poolSize;
+
     // Manages pending tasks.
     final SiteTaskerQueue m_scheduler;
 
@@ -379,13 +383,15 @@ public class MpRoSite implements Runnable, SiteProcedureConnection
             long siteId,
             BackendTarget backend,
             CatalogContext context,
-            int partitionId)
+            int partitionId,
+            int poolSize)
     {
         m_siteId = siteId;
         m_context = context;
         m_partitionId = partitionId;
         m_scheduler = scheduler;
         m_backend = backend;
+        m_poolSize = poolSize;
     }
 
     /** Update the loaded procedures. */
@@ -658,6 +664,15 @@ public class MpRoSite implements Runnable, SiteProcedureConnection
         return false;
     }
 
+    @Override
+    public ByteBuffer detachResultBuffer(int resultSize) {
+        return null;
+    }
+
+    @Override
+    public void releaseResultBuffers() {
+    }
+
     @Override
     public ProcedureRunner getProcedureRunner(String procedureName) {
         return m_loadedProcedures.getProcByName(procedureName);
@@ -801,7 +816,7 @@ public class MpRoSite implements Runnable, SiteProcedureConnection
 
     @Override
     public long getMaxTotalMpResponseSize() {
-        return MpTransactionState.MP_MAX_TOTAL_RESP_SIZE / MpRoSitePool.MAX_POOL_SIZE;
+        return MpTransactionState.MP_MAX_TOTAL_RESP_SIZE / m_poolSize;
     }
 
     @Override
@@ -38,12 +38,152 @@ import org.voltdb.StarvationTracker;
  * Provide a pool of MP Read-only sites to do MP RO work.
  * This should be owned by the MpTransactionTaskQueue and expects all operations
  * to be done while holding its lock.
+ * <p>
+ * The number of sites the pool runs reads on is adjusted between a minimum, which is reached on demand
+ * like a fixed size pool, and a maximum by a {@link PoolSizer}, see there for how.
  */
 class MpRoSitePool {
     final static VoltLogger tmLog = new VoltLogger("TM");
 
-    static final int MAX_POOL_SIZE = Integer.getInteger("MPI_READ_POOL_SIZE", 3);
+    // Number of sites the pool used to be limited to, reads can always use that many sites
+    static final int LEGACY_POOL_SIZE = 3;
+    // Maximum number of sites, by default the larger of LEGACY_POOL_SIZE and the number of sites per host
+    static final int CONFIGURED_MAX_POOL_SIZE = Integer.getInteger("MPI_READ_POOL_SIZE", 0);
+    static final int CONFIGURED_MIN_POOL_SIZE = Integer.getInteger("MPI_READ_POOL_MIN_SIZE", LEGACY_POOL_SIZE);
     static final int INITIAL_POOL_SIZE = 1;
+    // If false the pool grows on demand up to its maximum size and never shrinks
+    static final boolean ADAPTIVE = Boolean.parseBoolean(System.getProperty("MPI_READ_POOL_ADAPTIVE", "true"));
+
+    /**
+     * @param localSitesCount number of sites per host, {@code 0} if not known
+     * @return the maximum number of sites of the pool
+     */
+    static int maxPoolSize(int localSitesCount) {
+        if (CONFIGURED_MAX_POOL_SIZE > 0) {
+            return CONFIGURED_MAX_POOL_SIZE;
+        }
+        // A read runs a fragment on every partition, so more concurrent reads than sites per host only queue there
+        return Math.max(LEGACY_POOL_SIZE, localSitesCount);
+    }
+
+    /**
+     * @return the size the pool may always grow to on demand
+     */
+    static int minPoolSize(int maxPoolSize) {
+        return Math.max(1, Math.min(maxPoolSize, CONFIGURED_MIN_POOL_SIZE));
+    }
+
+    /**
+     * Decides how many sites the pool may keep busy. Up to the minimum size sites are used on demand.
+     * Above it the target is found by hill climbing on the observed load:
+     * <ul>
+     * <li>as soon as a read has to wait for a site the target grows by one site, unless a previous growth is
+     * still being evaluated,</li>
+     * <li>a growth is evaluated after a window of {@link #WINDOW_PER_SITE} completed reads per site. If it made
+     * the reads more than {@link #SLOWDOWN_FACTOR} times slower, the extra site only made the reads compete for
+     * the partitions, so the target is shrunk back and does not grow again for {@link #HOLD_WINDOWS} windows,</li>
+     * <li>if no read waited during a window and fewer sites than the target were ever busy at once, the target
+     * shrinks to the peak number of busy sites, but not below the minimum.</li>
+     * </ul>
+     * Not thread safe, used under the lock of the pool's owner.
+     */
+    static class PoolSizer {
+        static final int WINDOW_PER_SITE = 4;
+        static final double SLOWDOWN_FACTOR = 2.0;
+        static final int HOLD_WINDOWS = 8;
+        // Weight of each read in the moving average of the read latency
+        private static final double LATENCY_ALPHA = 0.2;
+
+        private final int m_minSize;
+        private final int m_maxSize;
+        private final boolean m_adaptive;
+        private int m_targetSize;
+
+        private int m_completed = 0;
+        private int m_peakBusy = 0;
+        private boolean m_readsWaited = false;
+        private double m_latencyNanos = -1;
+        // Latency before the growth being evaluated, to check that the growth did not slow the reads down
+        private double m_latencyBeforeGrowth = -1;
+        private int m_holdWindows = 0;
+
+        PoolSizer(int minSize, int maxSize, boolean adaptive) {
+            m_minSize = minSize;
+            m_maxSize = maxSize;
+            m_adaptive = adaptive;
+            m_targetSize = adaptive ? minSize : maxSize;
+        }
+
+        int getTargetSize() {
+            return m_targetSize;
+        }
+
+        int getMinSize() {
+            return m_minSize;
+        }
+
+        int getMaxSize() {
+            return m_maxSize;
+        }
+
+        /**
+         * A read started, {@code busySites} sites including its own are now busy
+         */
+        void started(int busySites) {
+            m_peakBusy = Math.max(m_peakBusy, busySites);
+        }
+
+        /**
+         * Reads are still in the backlog after giving the pool all the reads it could take
+         * @return the change in the target size
+         */
+        int readsWaiting() {
+            m_readsWaited = true;
+            // Growth needs a latency to compare with, and one growth is evaluated at a time
+            if (!m_adaptive || m_targetSize >= m_maxSize || m_holdWindows > 0
+                    || m_latencyNanos < 0 || m_latencyBeforeGrowth > 0) {
+                return 0;
+            }
+            m_latencyBeforeGrowth = m_latencyNanos;
+            ++m_targetSize;
+            // The evaluation window starts with the growth
+            m_completed = 0;
+            return 1;
+        }
+
+        /**
+         * A read completed after keeping its site busy for {@code latencyNanos}
+         * @return the change in the target size, negative if it shrunk
+         */
+        int completed(long latencyNanos, int busySites) {
+            m_latencyNanos = m_latencyNanos < 0 ? latencyNanos
+                    : LATENCY_ALPHA * latencyNanos + (1 - LATENCY_ALPHA) * m_latencyNanos;
+            if (!m_adaptive || ++m_completed < m_targetSize * WINDOW_PER_SITE) {
+                return 0;
+            }
+
+            final int previousSize = m_targetSize;
+            final double latencyBeforeGrowth = m_latencyBeforeGrowth;
+            m_latencyBeforeGrowth = -1;
+            if (m_holdWindows > 0) {
+                --m_holdWindows;
+            }
+            if (latencyBeforeGrowth > 0) {
+                if (m_latencyNanos > SLOWDOWN_FACTOR * latencyBeforeGrowth) {
+                    m_targetSize = Math.max(m_minSize, m_targetSize - 1);
+                    m_holdWindows = HOLD_WINDOWS;
+                }
+            }
+            else if (!m_readsWaited && m_peakBusy < m_targetSize) {
+                m_targetSize = Math.max(m_minSize, m_peakBusy);
+            }
+
+            m_completed = 0;
+            m_peakBusy = busySites;
+            m_readsWaited = false;
+            return m_targetSize - previousSize;
+        }
+    }
 
     class MpRoSiteContext {
         final private SiteTaskerQueue m_queue;
@@ -51,6 +191,8 @@ class MpRoSitePool {
         final private CatalogContext m_catalogContext;
         final private LoadedProcedureSet m_loadedProcedures;
         final private Thread m_siteThread;
+        // When the site started its current read
+        private long m_startNanos;
 
         MpRoSiteContext(long siteId, BackendTarget backend,
                 CatalogContext context, int partitionId,
@@ -62,7 +204,7 @@ class MpRoSitePool {
             // IZZY: Just need something non-null for now
             m_queue.setStarvationTracker(new StarvationTracker(siteId));
             m_queue.setupQueueDepthTracker(siteId);
-            m_site = new MpRoSite(m_queue, siteId, backend, m_catalogContext, partitionId);
+            m_site = new MpRoSite(m_queue, siteId, backend, m_catalogContext, partitionId, m_sizer.getMaxSize());
             m_loadedProcedures = new LoadedProcedureSet(m_site);
             m_loadedProcedures.loadProcedures(m_catalogContext);
             m_site.setLoadedProcedures(m_loadedProcedures);
@@ -113,6 +255,9 @@ class MpRoSitePool {
     private ThreadFactory m_poolThreadFactory;
     private volatile boolean m_shuttingDown = false;
 
+    private final PoolSizer m_sizer;
+    private final MpRoSitePoolStats m_stats;
+
     MpRoSitePool(
             long siteId,
             BackendTarget backend,
@@ -129,7 +274,17 @@ class MpRoSitePool {
             CoreUtils.getThreadFactory("RO MP Site - " + CoreUtils.hsIdToString(m_siteId),
                     CoreUtils.MEDIUM_STACK_SIZE);
 
-        tmLog.info("Setting maximum size of MPI read pool to: " + MAX_POOL_SIZE);
+        final int maxSize = maxPoolSize(context.getNodeSettings().getLocalSitesCount());
+        final int minSize = minPoolSize(maxSize);
+        m_sizer = new PoolSizer(minSize, maxSize, ADAPTIVE);
+        m_stats = new MpRoSitePoolStats(m_siteId, minSize, maxSize);
+
+        if (ADAPTIVE && minSize < maxSize) {
+            tmLog.info("Setting size of MPI read pool to between " + minSize + " and " + maxSize);
+        }
+        else {
+            tmLog.info("Setting maximum size of MPI read pool to: " + maxSize);
+        }
 
         // Construct the initial pool
         for (int i = 0; i < INITIAL_POOL_SIZE; i++) {
@@ -142,6 +297,12 @@ class MpRoSitePool {
             m_idleSites.push(site);
             m_allSites.add(site);
         }
+        updateStats();
+    }
+
+    MpRoSitePoolStats getStats()
+    {
+        return m_stats;
     }
 
     /**
@@ -167,6 +328,7 @@ class MpRoSitePool {
                 m_allSites.remove(site);
             }
         }
+        updateStats();
     }
 
     /**
@@ -203,7 +365,7 @@ class MpRoSitePool {
         if (m_shuttingDown) {
             return false;
         }
-        return (!m_idleSites.isEmpty() || m_busySites.size() < MAX_POOL_SIZE);
+        return m_busySites.size() < m_sizer.getTargetSize();
     }
 
     /**
@@ -212,16 +374,15 @@ class MpRoSitePool {
      */
     boolean doWork(long txnId, TransactionTask task)
     {
-        boolean retval = canAcceptWork();
-        if (!retval) {
+        if (m_shuttingDown) {
             return false;
         }
-        MpRoSiteContext site;
-        // Repair case
-        if (m_busySites.containsKey(txnId)) {
-            site = m_busySites.get(txnId);
-        }
-        else {
+        // Repair case, the transaction keeps its site even when the pool is at capacity
+        MpRoSiteContext site = m_busySites.get(txnId);
+        if (site == null) {
+            if (!canAcceptWork()) {
+                return false;
+            }
             if (m_idleSites.isEmpty()) {
                 MpRoSiteContext newSite = new MpRoSiteContext(m_siteId,
                         m_backend,
@@ -234,11 +395,42 @@ class MpRoSitePool {
             }
             site = m_idleSites.pop();
             m_busySites.put(txnId, site);
+            site.m_startNanos = System.nanoTime();
+            m_sizer.started(m_busySites.size());
+            m_stats.started();
+            updateStats();
         }
         site.offer(task);
         return true;
     }
 
+    /**
+     * A read was taken from the backlog of the owner after waiting there for {@code waitNanos}
+     */
+    void recordQueueWait(long waitNanos)
+    {
+        m_stats.recordQueueWait(waitNanos);
+    }
+
+    /**
+     * The owner has {@code waiting} reads in its backlog which the pool could not take
+     * @return {@code true} if the pool grew and can now accept another read
+     */
+    boolean readsWaiting(int waiting)
+    {
+        m_stats.setWaiting(waiting);
+        final int resized = m_sizer.readsWaiting();
+        if (resized == 0) {
+            return false;
+        }
+        m_stats.resized(resized);
+        if (tmLog.isDebugEnabled()) {
+            tmLog.debug("MPI read pool target size changed to " + m_sizer.getTargetSize());
+        }
+        updateStats();
+        return canAcceptWork();
+    }
+
     /**
      * Inform the pool that the work associated with the given txnID is complete
      */
@@ -252,17 +444,40 @@ class MpRoSitePool {
         if (site == null) {
             throw new RuntimeException("No busy site for txnID: " + txnId + " found, shouldn't happen.");
         }
+        final long latencyNanos = System.nanoTime() - site.m_startNanos;
+        m_stats.completed(latencyNanos);
+        final int resized = m_sizer.completed(latencyNanos, m_busySites.size());
+        if (resized != 0) {
+            m_stats.resized(resized);
+            if (tmLog.isDebugEnabled()) {
+                tmLog.debug("MPI read pool target size changed to " + m_sizer.getTargetSize());
+            }
+        }
         // check the catalog versions, only push back onto idle if the catalog hasn't changed
-        // otherwise, just let it get garbage collected and let doWork() construct new ones for the
-        // pool with the updated catalog.
+        // and the pool has not shrunk below the sites it has, otherwise, just let it get garbage
+        // collected and let doWork() construct new ones for the pool with the updated catalog.
         if (site.getCatalogCRC() == m_catalogContext.getCatalogCRC()
-                && site.getCatalogVersion() == m_catalogContext.catalogVersion) {
+                && site.getCatalogVersion() == m_catalogContext.catalogVersion
+                && m_allSites.size() <= m_sizer.getTargetSize()) {
             m_idleSites.push(site);
         }
         else {
             site.shutdown();
             m_allSites.remove(site);
         }
+        // Idle sites above the target are not needed anymore
+        while (m_allSites.size() > m_sizer.getTargetSize() && !m_idleSites.isEmpty()) {
+            MpRoSiteContext idle = m_idleSites.pollLast();
+            idle.shutdown();
+            m_allSites.remove(idle);
+        }
+        m_stats.setWaiting(0);
+        updateStats();
+    }
+
+    private void updateStats()
+    {
+        m_stats.setSizes(m_sizer.getTargetSize(), m_allSites.size(), m_busySites.size());
     }
 
     void shutdown()
@@ -0,0 +1,153 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2022 Volt Active Data Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.iv2;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.voltdb.SiteStatsSource;
+import org.voltdb.VoltTable.ColumnInfo;
+import org.voltdb.VoltType;
+import org.voltdb.stats.IntervalCounter;
+
+import com.google_voltpatches.common.collect.Iterators;
+
+/**
+ * Statistics of the pool of sites the MPI runs multi-partition reads on, see {@link MpRoSitePool}.
+ * The sizes are the current ones, the other columns cover all the reads since startup or since
+ * the previous interval read.
+ */
+public class MpRoSitePoolStats extends SiteStatsSource {
+
+    public enum MpReadPool {
+        TARGET_SIZE                 (VoltType.INTEGER),
+        MIN_SIZE                    (VoltType.INTEGER),
+        MAX_SIZE                    (VoltType.INTEGER),
+        SITES                       (VoltType.INTEGER),
+        BUSY_SITES                  (VoltType.INTEGER),
+        WAITING                     (VoltType.INTEGER),
+        TRANSACTIONS                (VoltType.BIGINT),
+        AVG_WAIT_MICROS             (VoltType.BIGINT),
+        MAX_WAIT_MICROS             (VoltType.BIGINT),
+        AVG_LATENCY_MICROS          (VoltType.BIGINT),
+        GROWS                       (VoltType.BIGINT),
+        SHRINKS                     (VoltType.BIGINT);
+
+        public final VoltType m_type;
+        MpReadPool(VoltType type) { m_type = type; }
+    }
+
+    private final int m_minSize;
+    private final int m_maxSize;
+
+    // Updated by the pool under the lock of the MPI task queue
+    private volatile int m_targetSize;
+    private volatile int m_sites;
+    private volatile int m_busySites;
+    private volatile int m_waiting;
+
+    private final IntervalCounter m_started = new IntervalCounter();
+    private final IntervalCounter m_waitNanos = new IntervalCounter();
+    private final IntervalCounter m_completed = new IntervalCounter();
+    private final IntervalCounter m_latencyNanos = new IntervalCounter();
+    private final IntervalCounter m_grows = new IntervalCounter();
+    private final IntervalCounter m_shrinks = new IntervalCounter();
+    private final AtomicLong m_maxWaitNanos = new AtomicLong();
+    private final AtomicLong m_intervalMaxWaitNanos = new AtomicLong();
+
+    private boolean m_interval;
+
+    MpRoSitePoolStats(long siteId, int minSize, int maxSize) {
+        super(siteId, false);
+        m_minSize = minSize;
+        m_maxSize = maxSize;
+    }
+
+    void setSizes(int targetSize, int sites, int busySites) {
+        m_targetSize = targetSize;
+        m_sites = sites;
+        m_busySites = busySites;
+    }
+
+    void setWaiting(int waiting) {
+        m_waiting = waiting;
+    }
+
+    void started() {
+        m_started.increment();
+    }
+
+    void recordQueueWait(long waitNanos) {
+        m_waitNanos.add(waitNanos);
+        m_maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+        m_intervalMaxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    void completed(long latencyNanos) {
+        m_completed.increment();
+        m_latencyNanos.add(latencyNanos);
+    }
+
+    void resized(int change) {
+        if (change > 0) {
+            m_grows.increment();
+        }
+        else if (change < 0) {
+            m_shrinks.increment();
+        }
+    }
+
+    @Override
+    protected void populateColumnSchema(ArrayList<ColumnInfo> columns) {
+        super.populateColumnSchema(columns, MpReadPool.class);
+    }
+
+    @Override
+    protected synchronized Iterator<Object> getStatsRowKeyIterator(boolean interval) {
+        m_interval = interval;
+        return Iterators.<Object>singletonIterator(this);
+    }
+
+    @Override
+    protected synchronized int updateStatsRow(Object rowKey, Object[] rowValues) {
+        int offset = super.updateStatsRow(rowKey, rowValues);
+
+        final long started = m_started.get(m_interval);
+        final long waitNanos = m_waitNanos.get(m_interval);
+        final long completed = m_completed.get(m_interval);
+        final long latencyNanos = m_latencyNanos.get(m_interval);
+        final long maxWaitNanos = m_interval ? m_intervalMaxWaitNanos.getAndSet(0) : m_maxWaitNanos.get();
+
+        rowValues[offset + MpReadPool.TARGET_SIZE.ordinal()] = m_targetSize;
+        rowValues[offset + MpReadPool.MIN_SIZE.ordinal()] = m_minSize;
+        rowValues[offset + MpReadPool.MAX_SIZE.ordinal()] = m_maxSize;
+        rowValues[offset + MpReadPool.SITES.ordinal()] = m_sites;
+        rowValues[offset + MpReadPool.BUSY_SITES.ordinal()] = m_busySites;
+        rowValues[offset + MpReadPool.WAITING.ordinal()] = m_waiting;
+        rowValues[offset + MpReadPool.TRANSACTIONS.ordinal()] = started;
+        rowValues[offset + MpReadPool.AVG_WAIT_MICROS.ordinal()] = started == 0 ? 0L : waitNanos / started / 1000;
+        rowValues[offset + MpReadPool.MAX_WAIT_MICROS.ordinal()] = maxWaitNanos / 1000;
+        rowValues[offset + MpReadPool.AVG_LATENCY_MICROS.ordinal()] =
+                completed == 0 ? 0L : latencyNanos / completed / 1000;
+        rowValues[offset + MpReadPool.GROWS.ordinal()] = m_grows.get(m_interval);
+        rowValues[offset + MpReadPool.SHRINKS.ordinal()] = m_shrinks.get(m_interval);
+
+        return offset + MpReadPool.values().length;
+    }
+}
@@ -49,6 +49,8 @@ public class MpTransactionTaskQueue extends TransactionTaskQueue
     private final Map<Long, TransactionTask> m_currentWrites = new HashMap<Long, TransactionTask>();
     private final Map<Long, TransactionTask> m_currentReads = new HashMap<Long, TransactionTask>();
     private Deque<TransactionTask> m_backlog = new ArrayDeque<TransactionTask>();
+    // When each task of the backlog was offered, in the same order
+    private Deque<Long> m_backlogOfferNanos = new ArrayDeque<Long>();
 
     private MpRoSitePool m_sitePool = null;
 
@@ -93,6 +95,7 @@ public class MpTransactionTaskQueue extends TransactionTaskQueue
     {
         Iv2Trace.logTransactionTaskQueueOffer(task);
         m_backlog.addLast(task);
+        m_backlogOfferNanos.addLast(System.nanoTime());
         taskQueueOffer();
     }
 
@@ -201,16 +204,20 @@ public class MpTransactionTaskQueue extends TransactionTaskQueue
             if (!task.getTransactionState().isReadOnly()) {
                 if (m_currentReads.isEmpty() && m_currentWrites.isEmpty()) {
                     task = m_backlog.pollFirst();
+                    m_backlogOfferNanos.pollFirst();
                     m_currentWrites.put(task.getTxnId(), task);
                     taskQueueOffer(task);
                     retval = true;
                 }
             }
             else if (m_currentWrites.isEmpty()) {
-                while (task != null && task.getTransactionState().isReadOnly() &&
-                       m_sitePool.canAcceptWork())
-                {
+                while (task != null && task.getTransactionState().isReadOnly()) {
+                    // Let the pool know it is too small for the reads, it may grow right away
+                    if (!m_sitePool.canAcceptWork() && !m_sitePool.readsWaiting(m_backlog.size())) {
+                        break;
+                    }
                     task = m_backlog.pollFirst();
+                    m_sitePool.recordQueueWait(System.nanoTime() - m_backlogOfferNanos.pollFirst());
                     assert(task.getTransactionState().isReadOnly());
                     m_currentReads.put(task.getTxnId(), task);
                     taskQueueOffer(task);
@@ -48,9 +48,17 @@ public class PriorityPolicy {
     // Backward compatibility: old snapshot priority as a delay factor, will be deprecated
     private static volatile int s_snapshotDelayFactor;
 
+    // Opt-in lock-free SP task queue, see SiteTaskerMpscQueue
+    static final boolean SP_TASK_QUEUE_MPSC = "MPSC".equalsIgnoreCase(System.getProperty("SP_TASK_QUEUE", "BLOCKING"));
+    static final SiteTaskerMpscQueue.WaitStrategy SP_TASK_QUEUE_WAIT = getWaitStrategy(
+            System.getProperty("SP_TASK_QUEUE_WAIT", SiteTaskerMpscQueue.WaitStrategy.PARK.name()));
+
     /**
      * Get a queue for SP tasks
      * <p>
+     * The lock-free {@link SiteTaskerMpscQueue} is used when the {@code SP_TASK_QUEUE}
+     * system property is {@code MPSC}; its wait strategy is selected by {@code SP_TASK_QUEUE_WAIT}.
+     * <p>
      * Note: package-private
      *
      * @return the {@link BlockingQueue} of {@link SiteTasker} objects used by the SP site.
@@ -58,11 +66,17 @@ public class PriorityPolicy {
     static BlockingQueue<SiteTasker> getSpTaskQueue() {
         PriorityPolicyType pp = getActivePolicy();
         if (!pp.isEnabled()) {
+            if (SP_TASK_QUEUE_MPSC) {
+                return new SiteTaskerMpscQueue(SP_TASK_QUEUE_WAIT);
+            }
             return new LinkedTransferQueue<SiteTasker>();
         }
 
         int timeout = pp.getMaxwait();
         int batchSize = pp.getBatchsize();
+        if (SP_TASK_QUEUE_MPSC) {
+            return new SiteTaskerMpscQueue(SP_TASK_QUEUE_WAIT, true, timeout, batchSize);
+        }
         AdaptivePriorityQueue.OrderingPolicy policy = timeout > 0 ?
                 AdaptivePriorityQueue.OrderingPolicy.MAX_WAIT_POLICY
                 : AdaptivePriorityQueue.OrderingPolicy.USER_DEFINED_POLICY;
@@ -72,6 +86,19 @@ public class PriorityPolicy {
                 Priority.SYSTEM_PRIORITY, batchSize);
     }
 
+    /**
+     * Parse the wait strategy of the lock-free SP task queue, defaulting to
+     * {@link SiteTaskerMpscQueue.WaitStrategy#PARK} if not recognized.
+     */
+    private static SiteTaskerMpscQueue.WaitStrategy getWaitStrategy(String name) {
+        try {
+            return SiteTaskerMpscQueue.WaitStrategy.valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            hostLog.warn("Unknown SP_TASK_QUEUE_WAIT value " + name + ", using " + SiteTaskerMpscQueue.WaitStrategy.PARK);
+            return SiteTaskerMpscQueue.WaitStrategy.PARK;
+        }
+    }
+
     /**
      * Get a queue for MP tasks
      * <p>
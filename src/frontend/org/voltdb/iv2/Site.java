@@ -1721,6 +1721,16 @@ public class Site implements Runnable, SiteProcedureConnection, SiteSnapshotConn
         return m_ee.usingFallbackBuffer();
     }
 
+    @Override
+    public ByteBuffer detachResultBuffer(int resultSize) {
+        return m_ee.detachResultBuffer(resultSize);
+    }
+
+    @Override
+    public void releaseResultBuffers() {
+        m_ee.releaseResultBuffers();
+    }
+
     @Override
     public ProcedureRunner getProcedureRunner(String procedureName) {
         return m_loadedProcedures.getProcByName(procedureName);
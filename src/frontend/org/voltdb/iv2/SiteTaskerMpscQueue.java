@@ -0,0 +1,356 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2022 Volt Active Data Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.iv2;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.jctools_voltpatches.queues.atomic.MpscLinkedAtomicQueue;
+import org.voltdb.client.Priority;
+
+/**
+ * A lock-free, multi-producer/single-consumer queue of {@link SiteTasker}s.
+ * <p>
+ * Producers (network, scheduler and tick threads) never take a lock: each
+ * offer is an exchange on the tail of a per-priority lane plus an increment
+ * of a shared counter. The single consumer is the site thread.
+ * <p>
+ * When priorities are enabled there is one lane per priority level, from
+ * {@link Priority#SYSTEM_PRIORITY} to {@link Priority#LOWEST_PRIORITY}, and
+ * the consumer mimics the ordering of {@link org.voltdb.utils.AdaptivePriorityQueue}
+ * as configured by {@link PriorityPolicy}:
+ * <ul>
+ * <li>lanes are served in priority order, FIFO within a lane;</li>
+ * <li>if a max wait is configured, the head of a lower priority lane that
+ * has waited longer than the max wait is served first;</li>
+ * <li>if a batch size is configured, system priority tasks are held until
+ * a batch of that size has accumulated, or nothing else is queued, and
+ * the batch is then drained in one go.</li>
+ * </ul>
+ * When priorities are disabled, a single FIFO lane is used.
+ * <p>
+ * How the consumer waits on an empty queue is selected by a {@link WaitStrategy}.
+ * <p>
+ * Note: {@link #poll()}, {@link #take()}, {@link #clear()} and {@link #drainTo(Collection)}
+ * must only be called from the consumer thread. {@link #peek()} may be called from
+ * any thread, but is only a hint when called concurrently with the consumer (it is used
+ * for statistics and long-running procedure detection). {@link #iterator()} may be called
+ * from any thread and returns a weakly consistent snapshot.
+ */
+final class SiteTaskerMpscQueue extends AbstractQueue<SiteTasker> implements BlockingQueue<SiteTasker> {
+
+    /**
+     * How the consumer waits for a task to arrive on an empty queue.
+     */
+    enum WaitStrategy {
+        /** Busy-spin. Lowest hand-off latency, burns a core per site */
+        SPIN,
+        /** Spin, yielding the processor between checks */
+        YIELD,
+        /** Park the consumer, producers unpark it on offer */
+        PARK;
+    }
+
+    private static final int SINGLE_LANE = 0;
+    private static final int NO_BATCH_LANE = -1;
+
+    private final MpscLinkedAtomicQueue<SiteTasker>[] m_lanes;
+    private final AtomicInteger m_size = new AtomicInteger(0);
+    private final WaitStrategy m_waitStrategy;
+
+    // Max wait before a lower priority task is promoted, in nanoseconds; 0 disables
+    private final long m_maxWaitNanos;
+
+    // Lane whose tasks are processed in batches and the batch size
+    private final int m_batchLane;
+    private final int m_batchSize;
+    private final AtomicInteger m_batchLaneSize = new AtomicInteger(0);
+    // Only accessed by the consumer
+    private boolean m_batchOpen = false;
+
+    // Parked consumer, if any
+    private volatile Thread m_waiter;
+
+    /**
+     * Create a queue with a single FIFO lane.
+     *
+     * @param waitStrategy how the consumer waits on an empty queue
+     */
+    SiteTaskerMpscQueue(WaitStrategy waitStrategy) {
+        this(waitStrategy, false, 0, 0);
+    }
+
+    /**
+     * Create a queue.
+     *
+     * @param waitStrategy how the consumer waits on an empty queue
+     * @param prioritized {@code true} for one lane per priority level
+     * @param maxWaitMillis max wait time in milliseconds before a lower priority task
+     *                      is promoted, <= 0 disables promotion
+     * @param batchSize size of system priority batches, <= 0 disables batching
+     */
+    @SuppressWarnings("unchecked")
+    SiteTaskerMpscQueue(WaitStrategy waitStrategy, boolean prioritized, int maxWaitMillis, int batchSize) {
+        m_waitStrategy = waitStrategy;
+        int laneCount = prioritized ? Priority.LOWEST_PRIORITY - Priority.SYSTEM_PRIORITY + 1 : 1;
+        m_lanes = new MpscLinkedAtomicQueue[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            m_lanes[i] = new MpscLinkedAtomicQueue<>();
+        }
+        m_maxWaitNanos = prioritized && maxWaitMillis > 0 ? TimeUnit.MILLISECONDS.toNanos(maxWaitMillis) : 0;
+        m_batchLane = prioritized && batchSize > 0 ? Priority.SYSTEM_PRIORITY : NO_BATCH_LANE;
+        m_batchSize = batchSize;
+    }
+
+    WaitStrategy getWaitStrategy() {
+        return m_waitStrategy;
+    }
+
+    private int laneFor(SiteTasker task) {
+        if (m_lanes.length == 1) {
+            return SINGLE_LANE;
+        }
+        int priority = task.getPriority();
+        if (priority <= Priority.SYSTEM_PRIORITY) {
+            return 0;
+        }
+        return Math.min(priority, Priority.LOWEST_PRIORITY) - Priority.SYSTEM_PRIORITY;
+    }
+
+    @Override
+    public boolean offer(SiteTasker task) {
+        if (task == null) {
+            throw new NullPointerException();
+        }
+        int lane = laneFor(task);
+        // Count before publishing so that the consumer never sees a negative size
+        m_size.incrementAndGet();
+        if (lane == m_batchLane) {
+            m_batchLaneSize.incrementAndGet();
+        }
+        m_lanes[lane].offer(task);
+        Thread waiter = m_waiter;
+        if (waiter != null) {
+            LockSupport.unpark(waiter);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean offer(SiteTasker task, long timeout, TimeUnit unit) {
+        return offer(task);
+    }
+
+    @Override
+    public void put(SiteTasker task) {
+        offer(task);
+    }
+
+    @Override
+    public SiteTasker poll() {
+        if (m_size.get() == 0) {
+            return null;
+        }
+        SiteTasker task = m_lanes.length == 1 ? m_lanes[SINGLE_LANE].poll() : pollLanes();
+        if (task != null) {
+            m_size.decrementAndGet();
+        }
+        return task;
+    }
+
+    private SiteTasker pollLanes() {
+        int first = m_batchLane == NO_BATCH_LANE ? 0 : m_batchLane + 1;
+        int lane = firstNonEmptyLane(first);
+
+        if (m_batchLane != NO_BATCH_LANE) {
+            if (!m_batchOpen && m_batchLaneSize.get() >= m_batchSize) {
+                m_batchOpen = true;
+            }
+            if (m_batchOpen || lane < 0) {
+                SiteTasker task = m_lanes[m_batchLane].poll();
+                if (task != null) {
+                    if (m_batchLaneSize.decrementAndGet() == 0) {
+                        m_batchOpen = false;
+                    }
+                    return task;
+                }
+                m_batchOpen = false;
+            }
+        }
+        if (lane < 0) {
+            // Producers have counted a task not yet linked into its lane
+            return null;
+        }
+
+        if (m_maxWaitNanos > 0) {
+            lane = promoteExpiredLane(lane);
+        }
+        return m_lanes[lane].poll();
+    }
+
+    private int firstNonEmptyLane(int from) {
+        for (int i = from; i < m_lanes.length; i++) {
+            if (!m_lanes[i].isEmpty()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Pick the lane whose head has waited the longest past the max wait, if any
+    private int promoteExpiredLane(int lane) {
+        long oldest = Long.MAX_VALUE;
+        int oldestLane = lane;
+        for (int i = lane + 1; i < m_lanes.length; i++) {
+            SiteTasker head = m_lanes[i].peek();
+            if (head != null && head.getQueueOfferTime() < oldest) {
+                oldest = head.getQueueOfferTime();
+                oldestLane = i;
+            }
+        }
+        if (oldestLane != lane && System.nanoTime() - oldest > m_maxWaitNanos) {
+            return oldestLane;
+        }
+        return lane;
+    }
+
+    @Override
+    public SiteTasker peek() {
+        for (MpscLinkedAtomicQueue<SiteTasker> lane : m_lanes) {
+            SiteTasker task = lane.peek();
+            if (task != null) {
+                return task;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public SiteTasker take() throws InterruptedException {
+        SiteTasker task;
+        while ((task = poll()) == null) {
+            await(0);
+        }
+        return task;
+    }
+
+    @Override
+    public SiteTasker poll(long timeout, TimeUnit unit) throws InterruptedException {
+        SiteTasker task;
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while ((task = poll()) == null) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+            await(remaining);
+        }
+        return task;
+    }
+
+    /**
+     * Wait for a task according to the wait strategy.
+     *
+     * @param nanos maximum time to park, 0 to park until unparked
+     */
+    private void await(long nanos) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        switch (m_waitStrategy) {
+        case SPIN:
+            break;
+        case YIELD:
+            Thread.yield();
+            break;
+        case PARK:
+            m_waiter = Thread.currentThread();
+            // Re-check after publishing the waiter, a producer that missed it has already counted its task
+            if (m_size.get() == 0) {
+                if (nanos > 0) {
+                    LockSupport.parkNanos(this, nanos);
+                } else {
+                    LockSupport.park(this);
+                }
+            }
+            m_waiter = null;
+            break;
+        }
+    }
+
+    @Override
+    public int size() {
+        return Math.max(m_size.get(), 0);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return m_size.get() <= 0;
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public int drainTo(Collection<? super SiteTasker> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super SiteTasker> c, int maxElements) {
+        if (c == null) {
+            throw new NullPointerException();
+        }
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        int n = 0;
+        SiteTasker task;
+        while (n < maxElements && (task = poll()) != null) {
+            c.add(task);
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * Iterate over a snapshot of the queued tasks, lane by lane in priority order.
+     * The snapshot is weakly consistent: tasks offered or polled while it is taken may
+     * be missing. It is meant for diagnostics and does not support removal.
+     */
+    @Override
+    public Iterator<SiteTasker> iterator() {
+        List<SiteTasker> snapshot = new ArrayList<>(size());
+        for (MpscLinkedAtomicQueue<SiteTasker> lane : m_lanes) {
+            for (SiteTasker task : lane) {
+                snapshot.add(task);
+            }
+        }
+        return Collections.unmodifiableList(snapshot).iterator();
+    }
+}
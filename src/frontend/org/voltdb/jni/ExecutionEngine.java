@@ -753,6 +753,25 @@ public abstract class ExecutionEngine implements FastDeserializer.Deserializatio
         }
     }
 
+    /**
+     * Take over the buffer holding the results of the last batch, so that they stay valid
+     * while later batches of the same procedure execute, without copying them.
+     *
+     * @param resultSize size of the results in the buffer
+     * @return the buffer, positioned where the results are read from, or {@code null} if the
+     *         results have to be copied before executing another batch
+     */
+    public ByteBuffer detachResultBuffer(int resultSize) {
+        return null;
+    }
+
+    /**
+     * Reuse the buffers taken over by {@link #detachResultBuffer(int)}. Must be called once
+     * the procedure no longer references any result backed by them.
+     */
+    public void releaseResultBuffers() {
+    }
+
     public abstract FastDeserializer coreExecutePlanFragments(
             int batchIndex,
             int numFragmentIds,
@@ -83,6 +83,25 @@ public class ExecutionEngineJNI extends ExecutionEngine {
     // 256K is a reasonable size for those relatively small buffers.
     private static final int smallBufferSize = 256 * 1024;
 
+    // Size of the buffers the EE serializes results into
+    private static final int RESULT_BUFFER_SIZE = 1024 * 1024 * 10;
+
+    /*
+     * Hand the result buffer of an intermediate batch over to the procedure, instead of
+     * copying the results to the heap, when they are at least EE_RESULT_ARENA_MIN_BYTES.
+     * Smaller results are cheaper to copy than to hold on to a whole result buffer.
+     * Only batches other than the first and the final one of a procedure are covered, the results
+     * of those are still copied on their way to the client, and the fallback buffer the EE allocates
+     * for results which do not fit is always copied. Each site may keep up to
+     * MAX_DETACHED_RESULT_BUFFERS extra result buffers of direct memory, so it is off by default.
+     */
+    private static final boolean EE_RESULT_ARENA = Boolean.getBoolean("EE_RESULT_ARENA");
+    private static final int EE_RESULT_ARENA_MIN_BYTES = Integer.getInteger("EE_RESULT_ARENA_MIN_BYTES", 64 * 1024);
+    // Buffers detached by a single procedure, beyond that the results are copied
+    private static final int MAX_DETACHED_RESULT_BUFFERS = 4;
+    // Procedures after which detached buffers which were not needed again are freed
+    private static final int RESULT_BUFFER_TRIM_INTERVAL = 1000;
+
     static {
         EE_COMPACTION_THRESHOLD = Integer.getInteger("EE_COMPACTION_THRESHOLD", 95);
         if (EE_COMPACTION_THRESHOLD < 0 || EE_COMPACTION_THRESHOLD > 99) {
@@ -125,13 +144,19 @@ public class ExecutionEngineJNI extends ExecutionEngine {
      * that rely on being able to serialize large results sets will get the same amount of storage
      * when using the IPC backend.
      **/
-    private final BBContainer m_firstDeserializerBufferOrigin = org.voltcore.utils.DBBPool.allocateDirect(1024 * 1024 * 10);
+    private final BBContainer m_firstDeserializerBufferOrigin = org.voltcore.utils.DBBPool.allocateDirect(RESULT_BUFFER_SIZE);
     private FastDeserializer m_firstDeserializer =
             new FastDeserializer(m_firstDeserializerBufferOrigin.b());
-    private final BBContainer m_nextDeserializerBufferOrigin = org.voltcore.utils.DBBPool.allocateDirect(1024 * 1024 * 10);
+    // Not final, the buffer is exchanged when the results of a batch are detached
+    private BBContainer m_nextDeserializerBufferOrigin = org.voltcore.utils.DBBPool.allocateDirect(RESULT_BUFFER_SIZE);
     private FastDeserializer m_nextDeserializer =
             new FastDeserializer(m_nextDeserializerBufferOrigin.b());
 
+    private final ResultBufferArena m_resultArena =
+            new ResultBufferArena(RESULT_BUFFER_SIZE, MAX_DETACHED_RESULT_BUFFERS, RESULT_BUFFER_TRIM_INTERVAL);
+    // Results of the last batch of plan fragments
+    private FastDeserializer m_lastBatchResults = null;
+
     private final BBContainer m_emptyDeserializerBuffer = org.voltcore.utils.DBBPool.allocateDirect(0);
     private FastDeserializer m_emptyDeserializer = new FastDeserializer(m_emptyDeserializerBuffer.b());
 
@@ -329,6 +354,8 @@ public class ExecutionEngineJNI extends ExecutionEngine {
         m_firstDeserializerBufferOrigin.discard();
         m_nextDeserializer = null;
         m_nextDeserializerBufferOrigin.discard();
+        m_lastBatchResults = null;
+        m_resultArena.discard();
         m_exceptionBuffer = null;
         m_exceptionBufferOrigin.discard();
         m_emptyDeserializer = null;
@@ -422,6 +449,7 @@ public class ExecutionEngineJNI extends ExecutionEngine {
         // plan frag zero is invalid
         assert((numFragmentIds == 0) || (planFragmentIds[0] != 0));
 
+        m_lastBatchResults = null;
         if (numFragmentIds == 0) {
             return m_emptyDeserializer;
         }
@@ -490,12 +518,37 @@ public class ExecutionEngineJNI extends ExecutionEngine {
                 throw new EEException(ERRORCODE_WRONG_SERIALIZED_BYTES);
             }
 
+            m_lastBatchResults = fds;
             return fds;
         } finally {
             m_fallbackBuffer = null;
         }
     }
 
+    /**
+     * The results of a batch other than the first one are in the shared buffer of
+     * {@link #m_nextDeserializer}. Detach that buffer and give the EE a pooled one
+     * to serialize the next results into.
+     */
+    @Override
+    public ByteBuffer detachResultBuffer(int resultSize) {
+        if (!EE_RESULT_ARENA || resultSize < EE_RESULT_ARENA_MIN_BYTES ||
+                m_lastBatchResults != m_nextDeserializer || !m_resultArena.canDetach()) {
+            return null;
+        }
+        BBContainer detached = m_nextDeserializerBufferOrigin;
+        m_nextDeserializerBufferOrigin = m_resultArena.exchange(detached);
+        m_nextDeserializer = new FastDeserializer(m_nextDeserializerBufferOrigin.b());
+        m_lastBatchResults = null;
+        updateEEBufferPointers();
+        return detached.b();
+    }
+
+    @Override
+    public void releaseResultBuffers() {
+        m_resultArena.reclaim();
+    }
+
     @Override
     public VoltTable serializeTable(final int tableId) throws EEException {
         if (HOST_TRACE_ENABLED) {
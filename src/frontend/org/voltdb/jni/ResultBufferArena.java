@@ -0,0 +1,125 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2022 Volt Active Data Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.voltdb.jni;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.voltcore.utils.DBBPool;
+import org.voltcore.utils.DBBPool.BBContainer;
+
+/**
+ * Direct buffers the EE serializes batch results into. When the results of a batch have to
+ * stay valid while later batches of the same procedure execute, the buffer holding them is
+ * detached from the EE and exchanged for an empty one, instead of copying the results to the
+ * heap. Detached buffers are reclaimed when the procedure completes and the results have been
+ * consumed.
+ * <p>
+ * Reclaimed buffers are pooled so that steady state detaching allocates nothing. The pool is
+ * trimmed every {@code trimInterval} procedures down to the most buffers a procedure detached in
+ * that interval, so a site which stops detaching does not keep holding on to them.
+ * <p>
+ * Only accessed from the site thread.
+ */
+final class ResultBufferArena {
+    private final int m_bufferSize;
+    private final int m_maxDetached;
+    private final int m_trimInterval;
+
+    private final ArrayDeque<BBContainer> m_pooled = new ArrayDeque<>();
+    private final List<BBContainer> m_detached = new ArrayList<>();
+
+    // Procedures reclaimed and most buffers detached by one of them since the pool was last trimmed
+    private int m_reclaims = 0;
+    private int m_peakDetached = 0;
+
+    /**
+     * @param bufferSize   capacity of the buffers handed to the EE
+     * @param maxDetached  maximum number of buffers detached by a single procedure, and pooled
+     * @param trimInterval number of procedures between two trims of the pool
+     */
+    ResultBufferArena(int bufferSize, int maxDetached, int trimInterval) {
+        m_bufferSize = bufferSize;
+        m_maxDetached = maxDetached;
+        m_trimInterval = trimInterval;
+    }
+
+    /**
+     * @return {@code true} if another buffer can be detached before the procedure completes
+     */
+    boolean canDetach() {
+        return m_detached.size() < m_maxDetached;
+    }
+
+    /**
+     * Take ownership of a buffer holding results which are still in use.
+     *
+     * @param inUse buffer which the EE must not write to until {@link #reclaim()} is called
+     * @return an empty buffer for the EE to use in place of {@code inUse}
+     */
+    BBContainer exchange(BBContainer inUse) {
+        assert(canDetach());
+        m_detached.add(inUse);
+        BBContainer replacement = m_pooled.pollFirst();
+        if (replacement == null) {
+            replacement = DBBPool.allocateDirect(m_bufferSize);
+        }
+        replacement.b().clear();
+        return replacement;
+    }
+
+    /**
+     * Return all detached buffers to the pool. Any results still backed by them become invalid.
+     */
+    void reclaim() {
+        m_peakDetached = Math.max(m_peakDetached, m_detached.size());
+        for (BBContainer container : m_detached) {
+            m_pooled.offerFirst(container);
+        }
+        m_detached.clear();
+        if (++m_reclaims >= m_trimInterval) {
+            while (m_pooled.size() > m_peakDetached) {
+                m_pooled.pollLast().discard();
+            }
+            m_reclaims = 0;
+            m_peakDetached = 0;
+        }
+    }
+
+    /**
+     * Free all buffers owned by the arena.
+     */
+    void discard() {
+        for (BBContainer container : m_detached) {
+            container.discard();
+        }
+        m_detached.clear();
+        BBContainer container;
+        while ((container = m_pooled.pollFirst()) != null) {
+            container.discard();
+        }
+    }
+
+    int getDetachedCount() {
+        return m_detached.size();
+    }
+
+    int getPooledCount() {
+        return m_pooled.size();
+    }
+}
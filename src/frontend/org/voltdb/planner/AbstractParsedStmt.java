@@ -26,6 +26,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 
 import com.google_voltpatches.common.base.Preconditions;
@@ -75,8 +76,23 @@ public abstract class AbstractParsedStmt {
 
     protected String m_contentDeterminismMessage = null;
 
-     // Internal statement counter
-    public static int NEXT_STMT_ID = 0;
+    // Internal statement counter. Ids only need to be unique within the statement being parsed
+    // so every planning thread has its own counter.
+    private static final ThreadLocal<AtomicInteger> NEXT_STMT_ID = ThreadLocal.withInitial(AtomicInteger::new);
+
+    /**
+     * @return a new statement id, unique within the statement being parsed by this thread
+     */
+    public static int nextStmtId() {
+        return NEXT_STMT_ID.get().getAndIncrement();
+    }
+
+    /**
+     * @return the id which {@link #nextStmtId()} will return next
+     */
+    public static int peekNextStmtId() {
+        return NEXT_STMT_ID.get().get();
+    }
 
     // The unique id to identify the statement
     private int m_stmtId;
@@ -199,7 +215,7 @@ public abstract class AbstractParsedStmt {
             throw new RuntimeException("Unexpected Element: " + stmtTypeElement.name);
         }
         // Set the unique id
-        retval.m_stmtId = NEXT_STMT_ID++;
+        retval.m_stmtId = nextStmtId();
         return retval;
     }
 
@@ -234,7 +250,7 @@ public abstract class AbstractParsedStmt {
             Database db, String joinOrder) {
 
         // reset the statement counters
-        NEXT_STMT_ID = 0;
+        NEXT_STMT_ID.get().set(0);
         AbstractParsedStmt retval = getParsedStmt(parent, stmtTypeElement, paramValues, db);
 
         parse(retval, sql, stmtTypeElement, joinOrder);
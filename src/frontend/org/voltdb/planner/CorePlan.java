@@ -22,10 +22,19 @@ import java.nio.ByteBuffer;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 
 import org.voltdb.VoltType;
 import org.voltdb.common.Constants;
 import org.voltdb.compiler.AdHocPlannedStatement;
+import org.voltdb.planner.parseinfo.StmtTargetTableScan;
+import org.voltdb.plannodes.AbstractPlanNode;
+import org.voltdb.plannodes.SwapTablesPlanNode;
 
 /**
  * CorePlan is an immutable representation of a SQL execution plan.
@@ -69,6 +78,14 @@ public class CorePlan {
     private Object partitioningParamValue = null;
     private final CompiledPlan m_compiledPlan;
 
+    /**
+     * Names of the tables and user-defined functions the plan depends on,
+     * used to tell whether the plan survives a catalog update.
+     * Null when unknown (not serialized, the ExecutionSite does not need them).
+     */
+    private Set<String> m_tableDependees = null;
+    private Set<String> m_functionDependees = null;
+
     /**
      * Constructor from QueryPlanner output.
      *
@@ -103,6 +120,51 @@ public class CorePlan {
         this.catalogHash = catalogHash;
         parameterTypes = plan.parameterTypes();
         readOnly = plan.isReadOnly();
+
+        Set<String> tables = new TreeSet<>();
+        addTableDependees(plan.rootPlanGraph, tables);
+        addTableDependees(plan.subPlanGraph, tables);
+        m_tableDependees = Collections.unmodifiableSet(tables);
+        m_functionDependees = Collections.unmodifiableSet(new TreeSet<>(plan.getUDFDependees()));
+    }
+
+    // Same tables as the ones recorded in the usage annotations of catalog statements
+    private static void addTableDependees(AbstractPlanNode node, Set<String> tables) {
+        if (node == null) {
+            return;
+        }
+        Map<String, StmtTargetTableScan> tablesRead = new HashMap<>();
+        node.getTablesAndIndexes(tablesRead, new TreeSet<>());
+        tables.addAll(tablesRead.keySet());
+        String updated = node.getUpdatedTable();
+        if (updated != null) {
+            tables.add(updated);
+        }
+        for (AbstractPlanNode swap : node.findAllNodesOfClass(SwapTablesPlanNode.class)) {
+            tables.add(((SwapTablesPlanNode) swap).getOtherTargetTableName());
+        }
+    }
+
+    /**
+     * Copy a plan for another catalog whose differences do not affect the plan.
+     *
+     * @param original     plan to copy
+     * @param catalogHash  the sha-1 hash of the catalog the copy is good for
+     */
+    public CorePlan(CorePlan original, byte[] catalogHash) {
+        m_compiledPlan = original.m_compiledPlan;
+        aggregatorFragment = original.aggregatorFragment;
+        collectorFragment = original.collectorFragment;
+        aggregatorHash = original.aggregatorHash;
+        collectorHash = original.collectorHash;
+        isReplicatedTableDML = original.isReplicatedTableDML;
+        readOnly = original.readOnly;
+        parameterTypes = original.parameterTypes;
+        this.catalogHash = catalogHash;
+        partitioningParamIndex = original.partitioningParamIndex;
+        partitioningParamValue = original.partitioningParamValue;
+        m_tableDependees = original.m_tableDependees;
+        m_functionDependees = original.m_functionDependees;
     }
 
     public void validate() {
@@ -316,6 +378,37 @@ public class CorePlan {
         return parameterTypes[partitioningParamIndex];
     }
 
+    public void setDependees(Collection<String> tables, Collection<String> functions) {
+        m_tableDependees = Collections.unmodifiableSet(new TreeSet<>(tables));
+        m_functionDependees = Collections.unmodifiableSet(new TreeSet<>(functions));
+    }
+
+    /**
+     * @return names of the tables the plan reads or writes, null if unknown
+     */
+    public Set<String> getTableDependees() {
+        return m_tableDependees;
+    }
+
+    /**
+     * @return names of the user-defined functions the plan calls, null if unknown
+     */
+    public Set<String> getFunctionDependees() {
+        return m_functionDependees;
+    }
+
+    /**
+     * Whether the plan may be affected by changes to the given tables or functions.
+     * Plans with unknown dependencies are affected by any change.
+     */
+    public boolean dependsOnAny(Set<String> tables, Set<String> functions) {
+        if (m_tableDependees == null || m_functionDependees == null) {
+            return true;
+        }
+        return ! Collections.disjoint(m_tableDependees, tables)
+                || ! Collections.disjoint(m_functionDependees, functions);
+    }
+
     public boolean wasPlannedAgainstHash(byte[] catalogHash) {
         return Arrays.equals(catalogHash, this.catalogHash);
     }
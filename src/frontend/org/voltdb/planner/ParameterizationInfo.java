@@ -22,6 +22,7 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.hsqldb_voltpatches.HSQLInterface;
 import org.hsqldb_voltpatches.HSQLInterface.ParameterStateManager;
@@ -48,12 +49,10 @@ public class ParameterizationInfo {
 
     /**
      * Stores the current count of parameters that we've
-     * assigned to the parameter vector in the EE.
-     *
-     * TODO: this will need to become thread safe
-     * when parallel planning is possible.
+     * assigned to the parameter vector in the EE. Each planning
+     * thread has its own count so statements can be planned in parallel.
      */
-    static private int curParamIndex = 0;
+    static private final ThreadLocal<AtomicInteger> curParamIndex = ThreadLocal.withInitial(AtomicInteger::new);
     // whether the query has been rewritten to use MV: when rewriting query, the query's predicates always gets shorter,
     // effectively reducing number of parameters.
     private boolean m_isRewritten = false;
@@ -65,9 +64,7 @@ public class ParameterizationInfo {
      * @return the next index
      */
     public static int getNextParamIndex() {
-        int nextOffset = curParamIndex;
-        ++curParamIndex;
-        return nextOffset;
+        return curParamIndex.get().getAndIncrement();
     }
 
     public void rewrite() {
@@ -83,7 +80,7 @@ public class ParameterizationInfo {
      * a new statement.
      */
     public static void resetCurrentParamIndex() {
-        curParamIndex = 0;
+        curParamIndex.get().set(0);
     }
 
     /**
@@ -23,7 +23,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Predicate;
 
 import org.hsqldb_voltpatches.HSQLInterface;
@@ -63,6 +62,7 @@ public class QueryPlanner implements AutoCloseable {
     private final String m_stmtName;
     private final String m_procName;
     private final HSQLInterface m_HSQL;
+    private final Lock m_lock;
     private final DatabaseEstimates m_estimates;
     private final Database m_db;
     private String m_recentErrorMsg;
@@ -90,14 +90,13 @@ public class QueryPlanner implements AutoCloseable {
 
     public final static String UPSERT_TAG = "isUpsert";
 
-    private static final Lock PLANNER_LOCK = new ReentrantLock();
-
     /**
      * Initialize planner with physical schema info and a reference to HSQLDB parser.
      *
-     * NOTE: Until the planner can handle planning multiple statements in parallel,
-     * creating an instance of this object will lock the global PLANNER_LOCK, which must
-     * be released by calling this class's close method.
+     * NOTE: An HSQL session can only parse one statement at a time, so creating an
+     * instance of this object locks the lock of {@code HSQL}, which must be released by
+     * calling this class's close method. Planners with different HSQL instances run in
+     * parallel.
      *
      * This class implements AutoCloseable, so the easiest way to achieve this is like so:
      * try (QueryPlanner planner = new QueryPlanner(...)) {
@@ -122,7 +121,8 @@ public class QueryPlanner implements AutoCloseable {
             HSQLInterface HSQL, DatabaseEstimates estimates, boolean suppressDebugOutput, AbstractCostModel costModel,
             ScalarValueHints[] paramHints, String joinOrder, DeterminismMode detMode, boolean isLargeQuery,
             boolean isForView) {
-        PLANNER_LOCK.lock();
+        m_lock = HSQL.getLock();
+        m_lock.lock();
         assert(sql != null);
         assert(stmtName != null);
         assert(procName != null);
@@ -151,7 +151,7 @@ public class QueryPlanner implements AutoCloseable {
 
     @Override
     public void close() {
-        PLANNER_LOCK.unlock();
+        m_lock.unlock();
     }
 
     /**
@@ -32,6 +32,7 @@ import org.voltdb.plannodes.IndexSortablePlanNode;
 import org.voltdb.plannodes.AbstractJoinPlanNode;
 import org.voltdb.plannodes.AbstractPlanNode;
 import org.voltdb.plannodes.AbstractReceivePlanNode;
+import org.voltdb.plannodes.HashJoinPlanNode;
 import org.voltdb.plannodes.IndexScanPlanNode;
 import org.voltdb.plannodes.IndexUseForOrderBy;
 import org.voltdb.plannodes.MaterializedScanPlanNode;
@@ -66,6 +67,41 @@ public class SelectSubPlanAssembler extends SubPlanAssembler {
     private static final short MAX_HEAP_MEMORY_USAGE_PCT = 80;
     private static final long MAX_ALLOWED_PLAN_MEMORY = RUN_TIME.maxMemory() * MAX_HEAP_MEMORY_USAGE_PCT / 100;
 
+    // Join on equality predicates with a hash join instead of a nested loop join when the inner side
+    // can not use an index. Off unless ENABLE_HASH_JOIN is set.
+    private static final boolean ENABLE_HASH_JOIN = Boolean.getBoolean("ENABLE_HASH_JOIN");
+    // Set only within a HashJoinOverride on the planning thread
+    private static final ThreadLocal<Boolean> HASH_JOIN_OVERRIDE = new ThreadLocal<>();
+
+    private static boolean hashJoinEnabled() {
+        Boolean override = HASH_JOIN_OVERRIDE.get();
+        return override == null ? ENABLE_HASH_JOIN : override;
+    }
+
+    /**
+     * Plans on the current thread use hash joins as if ENABLE_HASH_JOIN was
+     * set to {@code enable} until this is closed. Used by the planner tests.
+     */
+    static final class HashJoinOverride implements AutoCloseable {
+        private final Boolean m_previous = HASH_JOIN_OVERRIDE.get();
+
+        HashJoinOverride(boolean enable) {
+            HASH_JOIN_OVERRIDE.set(enable);
+        }
+
+        @Override
+        public void close() {
+            if (m_previous == null) {
+                HASH_JOIN_OVERRIDE.remove();
+            } else {
+                HASH_JOIN_OVERRIDE.set(m_previous);
+            }
+        }
+    }
+
+    // The hash table of a hash join is not spilled to disk so large queries keep using nested loop joins
+    private final boolean m_isLargeQuery;
+
     /**
      * Stop further planning, if we have used more heap memory than we could hopefully exhaustively plan it out,
      * at the time this method is called.
@@ -82,8 +118,9 @@ public class SelectSubPlanAssembler extends SubPlanAssembler {
      * @param partitioning in/out param first element is partition key value, forcing a single-partition statement if non-null,
      * second may be an inferred partition key if no explicit single-partitioning was specified
      */
-    SelectSubPlanAssembler(ParsedSelectStmt selectStmt, StatementPartitioning partitioning) {
+    SelectSubPlanAssembler(ParsedSelectStmt selectStmt, StatementPartitioning partitioning, boolean isLargeQuery) {
         super(selectStmt, partitioning);
+        m_isLargeQuery = isLargeQuery;
         if (selectStmt.hasJoinOrder()) {
             // If a join order was provided or large number of tables join
             m_joinOrders.addAll(selectStmt.getJoinOrder());
@@ -713,7 +750,7 @@ public class SelectSubPlanAssembler extends SubPlanAssembler {
 
         AbstractJoinPlanNode ajNode;
         if (canHaveNLJ) {
-            NestLoopPlanNode nljNode = new NestLoopPlanNode();
+            AbstractJoinPlanNode nljNode = null;
             // get all the clauses that join the applicable two tables
             // Copy innerAccessPath.joinExprs to leave it unchanged,
             // avoiding accumulation of redundant expressions when
@@ -752,6 +789,14 @@ public class SelectSubPlanAssembler extends SubPlanAssembler {
                 // the inner node ONLY, that can not be pushed down.
                 joinClauses.addAll(innerAccessPath.otherExprs);
             }
+            if (hashJoinEnabled() && ! m_isLargeQuery && ! (innerPlan instanceof IndexScanPlanNode)) {
+                // No index can drive the inner side, so hash it on the equality join predicates if there are any
+                nljNode = HashJoinPlanNode.fromJoinClauses(joinClauses,
+                        joinNode.getLeftNode().generateTableJoinOrder(), innerJoinNode.generateTableJoinOrder());
+            }
+            if (nljNode == null) {
+                nljNode = new NestLoopPlanNode();
+            }
             nljNode.setJoinPredicate(ExpressionUtil.combinePredicates(ExpressionType.CONJUNCTION_AND, joinClauses));
 
             // combine the tails plan graph with the new head node
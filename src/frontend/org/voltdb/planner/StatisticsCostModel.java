@@ -0,0 +1,47 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2022 Volt Active Data Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.planner;
+
+import java.util.HashMap;
+
+/**
+ * Cost model for plans costed with collected statistics, see {@link org.voltdb.compiler.DatabaseStatistics}.
+ * With realistic row counts the rows a plan writes to intermediate temp tables are worth
+ * counting on top of the rows it reads, e.g. to prefer the join order with the smaller intermediate result.
+ */
+public class StatisticsCostModel extends AbstractCostModel {
+
+    // Relative cost of writing a row to a temp table to reading a row
+    static final double TUPLE_WRITE_COST = 0.5;
+
+    @Override
+    public double getPlanCost(PlanStatistics stats) {
+        double cost = 0;
+        for (int i = 0; i < stats.getLevelCount(); i++) {
+            HashMap<StatsField, Long> level = stats.getStatisticsForLevel(i);
+            cost += getValue(level, StatsField.TUPLES_READ) +
+                    TUPLE_WRITE_COST * getValue(level, StatsField.TUPLES_WRITTEN);
+        }
+        return cost;
+    }
+
+    private static long getValue(HashMap<StatsField, Long> level, StatsField field) {
+        Long value = level.get(field);
+        return value == null ? 0 : value.longValue();
+    }
+}
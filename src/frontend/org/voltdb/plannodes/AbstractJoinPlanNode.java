@@ -401,8 +401,8 @@ public abstract class AbstractJoinPlanNode extends AbstractPlanNode implements I
         final AbstractExpression predicate;
         if (childNode instanceof AbstractScanPlanNode) {
             predicate = ((AbstractScanPlanNode) childNode).getPredicate();
-        } else if (childNode instanceof NestLoopPlanNode) {
-            predicate = ((NestLoopPlanNode) childNode).getWherePredicate();
+        } else if (childNode instanceof NestLoopPlanNode || childNode instanceof HashJoinPlanNode) {
+            predicate = ((AbstractJoinPlanNode) childNode).getWherePredicate();
         } else if (childNode instanceof NestLoopIndexPlanNode) {
             AbstractPlanNode inlineIndexScan = childNode.getInlinePlanNode(PlanNodeType.INDEXSCAN);
             assert(inlineIndexScan != null);
@@ -433,6 +433,18 @@ public abstract class AbstractJoinPlanNode extends AbstractPlanNode implements I
         return  (long) (childNode.getEstimatedProcessedTupleCount() * discountCountFactor);
     }
 
+    /**
+     * Estimate the work of reading the inner child once for each row of the outer child,
+     * capped so that the sums of the estimates of large joins do not overflow.
+     *
+     * @param outerRows estimated number of rows of the outer child
+     * @param innerTuples estimated number of inner tuples read or output for each outer row
+     */
+    protected static long perOuterRowEstimate(long outerRows, long innerTuples) {
+        final double MAX_ESTIMATE = 1e15;
+        return (long) Math.min(MAX_ESTIMATE, (double) Math.max(1, outerRows) * innerTuples);
+    }
+
     /**
      * When a project node is added to the top of the plan, we need to adjust
      * the differentiator field of TVEs to reflect differences in the scan
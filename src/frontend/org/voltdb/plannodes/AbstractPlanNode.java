@@ -19,6 +19,7 @@ package org.voltdb.plannodes;
 
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -51,10 +52,11 @@ import org.voltdb.types.SortDirectionType;
 public abstract class AbstractPlanNode implements JSONString, Comparable<AbstractPlanNode> {
 
     /**
-     * Internal PlanNodeId counter. Note that this member is static, which means
-     * all PlanNodes will have a unique id
+     * Internal PlanNodeId counter. IDs only need to be unique within a plan, so each
+     * planning thread has its own counter and plans can be built concurrently.
      */
-    private static int NEXT_PLAN_NODE_ID = 1;
+    private static final ThreadLocal<AtomicInteger> NEXT_PLAN_NODE_ID =
+            ThreadLocal.withInitial(() -> new AtomicInteger(1));
 
     // Keep this flag turned off in production or when testing user-accessible EXPLAIN output or when
     // using EXPLAIN output to validate plans.
@@ -78,7 +80,7 @@ public abstract class AbstractPlanNode implements JSONString, Comparable<Abstrac
      * Reset between plans
      */
     public static void resetPlanNodeIds() {
-        NEXT_PLAN_NODE_ID = 1;
+        NEXT_PLAN_NODE_ID.get().set(1);
     }
 
     public enum Members {
@@ -122,7 +124,7 @@ public abstract class AbstractPlanNode implements JSONString, Comparable<Abstrac
      * Instantiates a new plan node.
      */
     protected AbstractPlanNode() {
-        m_id = NEXT_PLAN_NODE_ID++;
+        m_id = NEXT_PLAN_NODE_ID.get().getAndIncrement();
     }
 
     /**
@@ -439,6 +441,8 @@ public abstract class AbstractPlanNode implements JSONString, Comparable<Abstrac
 
         computeCostEstimates(childOutputTupleCountEstimate, estimates, paramHints);
         stats.incrementStatistic(0, StatsField.TUPLES_READ, m_estimatedProcessedTupleCount);
+        // Each node which is not inlined writes its output to a temp table
+        stats.incrementStatistic(0, StatsField.TUPLES_WRITTEN, m_estimatedOutputTupleCount);
     }
 
     /**
@@ -0,0 +1,233 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2022 Volt Active Data Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.plannodes;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import org.json_voltpatches.JSONException;
+import org.json_voltpatches.JSONObject;
+import org.json_voltpatches.JSONStringer;
+import org.voltdb.VoltType;
+import org.voltdb.catalog.Database;
+import org.voltdb.compiler.DatabaseEstimates;
+import org.voltdb.compiler.ScalarValueHints;
+import org.voltdb.expressions.AbstractExpression;
+import org.voltdb.expressions.AbstractSubqueryExpression;
+import org.voltdb.expressions.TupleValueExpression;
+import org.voltdb.types.ExpressionType;
+import org.voltdb.types.PlanNodeType;
+import org.voltdb.types.SortDirectionType;
+
+/**
+ * Join which builds a hash table on the rows of one child keyed by its side of the equality
+ * join predicates and probes it with each row of the other child.
+ * It replaces a nested loop join over a sequential scan when no index can drive the inner side.
+ * <p>
+ * The hash keys only select candidate rows, the whole join predicate is still applied
+ * to every candidate, so it is fine for the keys to collide. By default the inner child is hashed
+ * and the output is in the same order as the nested loop join it replaces: outer order and then
+ * inner order for each outer row. When nothing can rely on that order the EE hashes whichever
+ * child has fewer rows.
+ */
+public class HashJoinPlanNode extends AbstractJoinPlanNode {
+
+    public enum Members {
+        OUTER_HASH_EXPRESSIONS,
+        INNER_HASH_EXPRESSIONS,
+        CAN_HASH_OUTER;
+    }
+
+    // Pairwise equal expressions on the outer and inner rows
+    private List<AbstractExpression> m_outerHashExpressions = new ArrayList<>();
+    private List<AbstractExpression> m_innerHashExpressions = new ArrayList<>();
+    // Whether the outer rows may be hashed instead of the inner ones, which does not keep the outer order
+    private boolean m_canHashOuter = false;
+
+    public HashJoinPlanNode() {
+        super();
+    }
+
+    /**
+     * Find the equality conjuncts which can be used as hash keys for joining {@code outerTables}
+     * with {@code innerTables}: one side must only reference outer tables, the other only inner tables
+     * and both sides must be of the same type so that equal values hash the same.
+     *
+     * @param joinClauses conjuncts of the join predicate
+     * @param outerTables aliases of the tables of the outer child
+     * @param innerTables aliases of the tables of the inner child
+     * @return a node with the hash keys set or {@code null} if none of the clauses can be used as a key
+     */
+    public static HashJoinPlanNode fromJoinClauses(Collection<AbstractExpression> joinClauses,
+            Collection<String> outerTables, Collection<String> innerTables) {
+        HashJoinPlanNode hashJoinNode = new HashJoinPlanNode();
+        for (AbstractExpression clause : joinClauses) {
+            if (clause.getExpressionType() != ExpressionType.COMPARE_EQUAL) {
+                continue;
+            }
+            AbstractExpression left = clause.getLeft();
+            AbstractExpression right = clause.getRight();
+            if (!isHashable(left) || left.getValueType() != right.getValueType() || !isHashable(right)) {
+                continue;
+            }
+            if (onlyReferences(left, outerTables) && onlyReferences(right, innerTables)) {
+                hashJoinNode.m_outerHashExpressions.add(left.clone());
+                hashJoinNode.m_innerHashExpressions.add(right.clone());
+            } else if (onlyReferences(left, innerTables) && onlyReferences(right, outerTables)) {
+                hashJoinNode.m_outerHashExpressions.add(right.clone());
+                hashJoinNode.m_innerHashExpressions.add(left.clone());
+            }
+        }
+        return hashJoinNode.m_outerHashExpressions.isEmpty() ? null : hashJoinNode;
+    }
+
+    private static boolean isHashable(AbstractExpression expr) {
+        VoltType type = expr.getValueType();
+        return type != null && type != VoltType.INVALID && type != VoltType.NULL && type != VoltType.GEOGRAPHY
+                && !expr.hasAnySubexpressionOfClass(AbstractSubqueryExpression.class);
+    }
+
+    private static boolean onlyReferences(AbstractExpression expr, Collection<String> tables) {
+        List<TupleValueExpression> tves = expr.findAllTupleValueSubexpressions();
+        if (tves.isEmpty()) {
+            return false;
+        }
+        for (TupleValueExpression tve : tves) {
+            if (!tables.contains(tve.getTableAlias())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public PlanNodeType getPlanNodeType() {
+        return PlanNodeType.HASHJOIN;
+    }
+
+    public List<AbstractExpression> getOuterHashExpressions() {
+        return m_outerHashExpressions;
+    }
+
+    public List<AbstractExpression> getInnerHashExpressions() {
+        return m_innerHashExpressions;
+    }
+
+    public boolean canHashOuter() {
+        return m_canHashOuter;
+    }
+
+    @Override
+    public void resolveSortDirection() {
+        super.resolveSortDirection();
+        // Any order of the join output comes from its outer child, if that has none
+        // the EE is free to hash the smaller child
+        m_canHashOuter = ! mayBeOrdered(m_children.get(0));
+    }
+
+    /**
+     * Whether the output of a join child could be in an order that the plan above the join relies on.
+     * This follows {@link AbstractJoinPlanNode#isOutputOrdered} and {@link #resolveSortDirection}:
+     * only index scans and joins over them pass an order up.
+     */
+    private static boolean mayBeOrdered(AbstractPlanNode node) {
+        if (node.getPlanNodeType() == PlanNodeType.INDEXSCAN) {
+            return true;
+        } else if (node instanceof HashJoinPlanNode && ((HashJoinPlanNode) node).m_canHashOuter) {
+            return false;
+        } else if (node instanceof AbstractJoinPlanNode) {
+            return mayBeOrdered(node.getChild(0));
+        } else {
+            return false;
+        }
+    }
+
+    @Override
+    public void validate() {
+        super.validate();
+        assert(m_outerHashExpressions.size() == m_innerHashExpressions.size());
+        for (AbstractExpression expr : m_outerHashExpressions) {
+            expr.validate();
+        }
+        for (AbstractExpression expr : m_innerHashExpressions) {
+            expr.validate();
+        }
+    }
+
+    @Override
+    public void resolveColumnIndexes() {
+        super.resolveColumnIndexes();
+        final NodeSchema outer_schema = m_children.get(0).getOutputSchema();
+        final NodeSchema inner_schema = m_children.get(1).getOutputSchema();
+        resolvePredicate(m_outerHashExpressions, outer_schema, inner_schema);
+        resolvePredicate(m_innerHashExpressions, outer_schema, inner_schema);
+    }
+
+    @Override
+    public void computeCostEstimates(long childOutputTupleCountEstimate,
+                                     DatabaseEstimates estimates,
+                                     ScalarValueHints[] paramHints) {
+        m_estimatedOutputTupleCount = childOutputTupleCountEstimate;
+        // Same as a nested loop join: each side is read once
+        assert(m_children.size() == 2);
+        m_estimatedProcessedTupleCount = discountEstimatedProcessedTupleCount(m_children.get(0)) +
+                m_children.get(1).m_estimatedProcessedTupleCount;
+    }
+
+    @Override
+    protected String explainPlanForNode(String indent) {
+        return "HASH " + this.m_joinType.toString() + " JOIN" +
+                (m_sortDirection == SortDirectionType.INVALID ? "" : " (" + m_sortDirection + ")") +
+                explainFilters(indent);
+    }
+
+    @Override
+    public void findAllExpressionsOfClass(Class< ? extends AbstractExpression> aeClass, Set<AbstractExpression> collected) {
+        super.findAllExpressionsOfClass(aeClass, collected);
+        for (AbstractExpression expr : m_outerHashExpressions) {
+            collected.addAll(expr.findAllSubexpressionsOfClass(aeClass));
+        }
+        for (AbstractExpression expr : m_innerHashExpressions) {
+            collected.addAll(expr.findAllSubexpressionsOfClass(aeClass));
+        }
+    }
+
+    @Override
+    public void toJSONString(JSONStringer stringer) throws JSONException {
+        super.toJSONString(stringer);
+        AbstractExpression.toJSONArray(stringer, Members.OUTER_HASH_EXPRESSIONS.name(), m_outerHashExpressions);
+        AbstractExpression.toJSONArray(stringer, Members.INNER_HASH_EXPRESSIONS.name(), m_innerHashExpressions);
+        if (m_canHashOuter) {
+            stringer.keySymbolValuePair(Members.CAN_HASH_OUTER.name(), true);
+        }
+    }
+
+    @Override
+    public void loadFromJSONObject(JSONObject jobj, Database db) throws JSONException {
+        super.loadFromJSONObject(jobj, db);
+        m_outerHashExpressions.clear();
+        AbstractExpression.loadFromJSONArrayChild(m_outerHashExpressions, jobj,
+                Members.OUTER_HASH_EXPRESSIONS.name(), null);
+        m_innerHashExpressions.clear();
+        AbstractExpression.loadFromJSONArrayChild(m_innerHashExpressions, jobj,
+                Members.INNER_HASH_EXPRESSIONS.name(), null);
+        m_canHashOuter = jobj.has(Members.CAN_HASH_OUTER.name()) && jobj.getBoolean(Members.CAN_HASH_OUTER.name());
+    }
+}
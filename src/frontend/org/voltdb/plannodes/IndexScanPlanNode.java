@@ -589,6 +589,28 @@ public class IndexScanPlanNode extends AbstractScanPlanNode
         return keyWidth;
     }
 
+    /**
+     * Estimate the fraction of the rows of the table found by the search keys: each equality key
+     * selects 10% of the rows and a range key 32%, unless there are statistics for the indexed column
+     * of an equality key which estimate its selectivity.
+     */
+    private double getSearchKeySelectivity(DatabaseEstimates.TableEstimates tableEstimates, double keyWidth) {
+        if (tableEstimates.statistics == null || ! m_catalogIndex.getExpressionsjson().isEmpty()) {
+            return Math.pow(0.10, keyWidth);
+        }
+        // Only the last key of a range or geo lookup is not compared for equality
+        int equalityKeys = m_lookupType == IndexLookupType.EQ ?
+                m_searchkeyExpressions.size() : Math.max(0, m_searchkeyExpressions.size() - 1);
+        List<ColumnRef> indexedColumns = CatalogUtil.getSortedCatalogItems(m_catalogIndex.getColumns(), "index");
+        double selectivity = 1.0;
+        for (int i = 0; i < equalityKeys; ++i) {
+            double keySelectivity = tableEstimates.getEqualitySelectivity(
+                    indexedColumns.get(i).getColumn().getTypeName(), m_searchkeyExpressions.get(i));
+            selectivity *= keySelectivity < 0 ? 0.10 : keySelectivity;
+        }
+        return selectivity * Math.pow(0.10, keyWidth - equalityKeys);
+    }
+
     @Override
     public void computeCostEstimates(
             long unusedChildOutputTupleCountEstimate, DatabaseEstimates estimates,
@@ -659,7 +681,8 @@ public class IndexScanPlanNode extends AbstractScanPlanNode
             // Using a factor of 0.1 per FULLY covered (equality-filtered) column,
             // the effective scale factor for a single PARTIALLY covered (range-filtered) column
             // comes to SQRT(0.1) which is just under 32% FTW!
-            tuplesToRead += (int) (tableEstimates.maxTuples * 0.90 * Math.pow(0.10, keyWidth));
+            // With statistics of the indexed columns, their selectivity replaces the factor of 0.1.
+            tuplesToRead += (int) (tableEstimates.maxTuples * 0.90 * getSearchKeySelectivity(tableEstimates, keyWidth));
             // "Covering cell" indexes get a special adjustment to make them look more favorable
             // than non-unique range filters in particular.
             // I can't quite justify that rationally, but it "seems reasonable". --paul
@@ -224,6 +224,16 @@ public class NestLoopIndexPlanNode extends AbstractJoinPlanNode {
 
         IndexScanPlanNode indexScan = getInlineIndexScan();
 
+        if (estimates.hasStatistics()) {
+            // The row counts are realistic enough to charge for the index being scanned once
+            // for each outer row and to estimate the join result from the matches per outer row.
+            m_estimatedOutputTupleCount = perOuterRowEstimate(childOutputTupleCountEstimate,
+                    indexScan.getEstimatedOutputTupleCount());
+            m_estimatedProcessedTupleCount = discountEstimatedProcessedTupleCount(m_children.get(0)) +
+                    perOuterRowEstimate(childOutputTupleCountEstimate, indexScan.getEstimatedProcessedTupleCount());
+            return;
+        }
+
         m_estimatedOutputTupleCount = indexScan.getEstimatedOutputTupleCount() + childOutputTupleCountEstimate;
         // Discount outer child estimates based on the number of its filters
         m_estimatedProcessedTupleCount = indexScan.getEstimatedProcessedTupleCount() +
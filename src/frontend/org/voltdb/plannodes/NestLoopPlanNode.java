@@ -41,6 +41,14 @@ public class NestLoopPlanNode extends AbstractJoinPlanNode {
         m_estimatedOutputTupleCount = childOutputTupleCountEstimate;
         // Discount outer child estimates based on the number of its filters
         assert(m_children.size() == 2);
+        if (estimates.hasStatistics()) {
+            // The row counts are realistic enough to charge for the inner rows
+            // being read once for each outer row, which favors small outer children.
+            m_estimatedProcessedTupleCount = discountEstimatedProcessedTupleCount(m_children.get(0)) +
+                    perOuterRowEstimate(m_children.get(0).m_estimatedOutputTupleCount,
+                            m_children.get(1).m_estimatedProcessedTupleCount);
+            return;
+        }
         m_estimatedProcessedTupleCount = discountEstimatedProcessedTupleCount(m_children.get(0)) +
                 m_children.get(1).m_estimatedProcessedTupleCount;
     }
@@ -147,6 +147,10 @@ public class SwapTablesPlanNode extends AbstractOperationPlanNode {
         return true;
     }
 
+    public String getOtherTargetTableName() {
+        return m_otherTargetTableName;
+    }
+
     /**
      * Fill out all of the serializable attributes of the node, validating
      * its arguments' compatibility along the way to ensure successful
@@ -0,0 +1,73 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2022 Volt Active Data Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.voltdb.stats;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counter for statistics which are updated on the transaction path, possibly by several threads at once,
+ * and read by the stats agent. Updates are lock free and striped like a {@link LongAdder} so concurrent
+ * updaters do not contend on one cache line.
+ * <p>
+ * The value since the previous interval read is tracked for {@code @Statistics ... delta}. Interval reads
+ * must only be done by the thread collecting the stats, which is the only one which touches that state.
+ */
+public class IntervalCounter {
+    private final LongAdder m_count = new LongAdder();
+    private long m_lastIntervalCount = 0;
+
+    public void increment() {
+        m_count.increment();
+    }
+
+    public void decrement() {
+        m_count.decrement();
+    }
+
+    public void add(long delta) {
+        m_count.add(delta);
+    }
+
+    /**
+     * @return current value of the counter. Concurrent updates may or may not be included.
+     */
+    public long get() {
+        return m_count.sum();
+    }
+
+    /**
+     * @return the change in the counter since the previous call to this method
+     */
+    public long getInterval() {
+        long current = m_count.sum();
+        long interval = current - m_lastIntervalCount;
+        m_lastIntervalCount = current;
+        return interval;
+    }
+
+    /**
+     * @param interval if {@code true} return {@link #getInterval()} otherwise {@link #get()}
+     */
+    public long get(boolean interval) {
+        return interval ? getInterval() : get();
+    }
+
+    @Override
+    public String toString() {
+        return Long.toString(get());
+    }
+}
@@ -0,0 +1,128 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2022 Volt Active Data Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.voltdb.stats;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.voltdb.StatsSource;
+import org.voltdb.VoltTable.ColumnInfo;
+import org.voltdb.VoltType;
+import org.voltdb.compiler.AdHocCompilerCache;
+
+import com.google_voltpatches.common.cache.CacheStats;
+import com.google_voltpatches.common.collect.Iterators;
+
+/**
+ * Node-wide statistics of the ad hoc plan cache, one row per cache level:
+ * LITERAL for full plans looked up by SQL text and CORE for parameterized plans.
+ */
+public class PlanCacheStats extends StatsSource {
+
+    public enum Level {
+        LITERAL,
+        CORE;
+    }
+
+    public enum PlanCache implements StatsColumn {
+        CACHE_LEVEL(VoltType.STRING),
+        ENTRIES(VoltType.INTEGER),
+        MEMORY_KB(VoltType.BIGINT),
+        HITS(VoltType.BIGINT),
+        MISSES(VoltType.BIGINT),
+        HIT_RATE(VoltType.FLOAT),
+        EVICTIONS(VoltType.BIGINT);
+
+        public final VoltType m_type;
+
+        PlanCache(VoltType type) {m_type = type;}
+
+        @Override
+        public VoltType getType() {
+            return m_type;
+        }
+    }
+
+    private final Map<Level, CacheStats> m_lastStats = new EnumMap<>(Level.class);
+    private AdHocCompilerCache m_lastCache;
+    private AdHocCompilerCache m_cache;
+    private boolean m_interval;
+
+    public PlanCacheStats() {
+        super(false);
+    }
+
+    @Override
+    protected synchronized Iterator<Object> getStatsRowKeyIterator(boolean interval) {
+        m_interval = interval;
+        m_cache = AdHocCompilerCache.getCurrentCache();
+        if (m_cache == null) {
+            return Collections.emptyIterator();
+        }
+        if (interval && m_cache != m_lastCache) {
+            // A catalog update starts a new cache, and new counters
+            m_lastStats.clear();
+            m_lastCache = m_cache;
+        }
+        return Iterators.<Object>forArray((Object[]) Level.values());
+    }
+
+    @Override
+    protected void populateColumnSchema(ArrayList<ColumnInfo> columns) {
+        super.populateColumnSchema(columns, PlanCache.values());
+    }
+
+    @Override
+    protected synchronized int updateStatsRow(Object rowKey, Object[] rowValues) {
+        int offset = super.updateStatsRow(rowKey, rowValues);
+
+        Level level = (Level) rowKey;
+        AdHocCompilerCache cache = m_cache;
+        CacheStats stats;
+        int entries;
+        long memory;
+        if (level == Level.LITERAL) {
+            stats = cache.getLiteralCacheStats();
+            entries = cache.getLiteralCacheSize();
+            memory = cache.getLiteralCacheMemory();
+        } else {
+            stats = cache.getCoreCacheStats();
+            entries = cache.getCoreCacheSize();
+            memory = cache.getCoreCacheMemory();
+        }
+
+        if (m_interval) {
+            CacheStats last = m_lastStats.put(level, stats);
+            if (last != null) {
+                stats = stats.minus(last);
+            }
+        }
+
+        rowValues[offset + PlanCache.CACHE_LEVEL.ordinal()] = level.name();
+        rowValues[offset + PlanCache.ENTRIES.ordinal()] = entries;
+        rowValues[offset + PlanCache.MEMORY_KB.ordinal()] = memory / 1024;
+        rowValues[offset + PlanCache.HITS.ordinal()] = stats.hitCount();
+        rowValues[offset + PlanCache.MISSES.ordinal()] = stats.missCount();
+        rowValues[offset + PlanCache.HIT_RATE.ordinal()] = stats.requestCount() == 0 ? 0.0 : stats.hitRate();
+        rowValues[offset + PlanCache.EVICTIONS.ordinal()] = stats.evictionCount();
+
+        return offset + PlanCache.values().length;
+    }
+}
@@ -0,0 +1,199 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2022 Volt Active Data Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.stats;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.voltdb.StatsAgent;
+import org.voltdb.StatsSelector;
+import org.voltdb.StatsSource;
+import org.voltdb.VoltDB;
+import org.voltdb.VoltDBInterface;
+import org.voltdb.VoltTable.ColumnInfo;
+import org.voltdb.VoltType;
+
+/**
+ * Progress of the snapshot restores run on this host, one row per restore.
+ * Each restore counts the chunks and bytes of table data it read
+ * from the save files on this host, so the throughput is for this host only.
+ */
+public class SnapshotRestoreStats extends StatsSource {
+
+    // Keep the most recent restores so a finished restore can still be inspected
+    static final int MAX_RESTORES = 8;
+
+    public enum SnapshotRestore implements StatsColumn {
+        NONCE                   (VoltType.STRING),
+        TXNID                   (VoltType.BIGINT),
+        START_TIME              (VoltType.BIGINT),
+        END_TIME                (VoltType.BIGINT),
+        DURATION                (VoltType.FLOAT),
+        CHUNKS                  (VoltType.BIGINT),
+        BYTES_READ              (VoltType.BIGINT),
+        THROUGHPUT              (VoltType.FLOAT);
+
+        public final VoltType m_type;
+
+        SnapshotRestore(VoltType type) { m_type = type; }
+
+        @Override
+        public VoltType getType() {
+            return m_type;
+        }
+    }
+
+    /**
+     * Counters of a single restore. Sites of the host update them concurrently.
+     */
+    public static class RestoreProgress {
+        private final long m_txnId;
+        private final String m_nonce;
+        private final long m_startTime;
+        private volatile long m_endTime = 0;
+        private final AtomicLong m_chunks = new AtomicLong();
+        private final AtomicLong m_bytesRead = new AtomicLong();
+
+        RestoreProgress(long txnId, String nonce, long startTime) {
+            m_txnId = txnId;
+            m_nonce = nonce;
+            m_startTime = startTime;
+        }
+
+        public long getTxnId() {
+            return m_txnId;
+        }
+
+        public void chunkRead(int bytes) {
+            m_chunks.incrementAndGet();
+            m_bytesRead.addAndGet(bytes);
+        }
+
+        public void finish() {
+            finish(System.currentTimeMillis());
+        }
+
+        synchronized void finish(long endTime) {
+            if (m_endTime == 0) {
+                m_endTime = endTime;
+            }
+        }
+
+        public boolean isFinished() {
+            return m_endTime != 0;
+        }
+
+        public long getBytesRead() {
+            return m_bytesRead.get();
+        }
+
+        /**
+         * @return seconds from the start of the restore to its end, or to {@code now} while it is running
+         */
+        public double getDuration(long now) {
+            long endTime = m_endTime;
+            return ((endTime == 0 ? now : endTime) - m_startTime) / 1000.0;
+        }
+
+        /**
+         * @return megabytes read per second over {@link #getDuration(long)}
+         */
+        public double getThroughput(long now) {
+            double duration = getDuration(now);
+            return duration > 0 ? (m_bytesRead.get() / (1024.0 * 1024.0)) / duration : 0;
+        }
+    }
+
+    private final Map<Long, RestoreProgress> m_restores = new LinkedHashMap<Long, RestoreProgress>() {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, RestoreProgress> eldest) {
+            return size() > MAX_RESTORES;
+        }
+    };
+
+    public SnapshotRestoreStats() {
+        super(false);
+    }
+
+    /**
+     * Get the progress of the restore {@code txnId}, starting it if this is the first fragment of the
+     * restore on this host. A restore that never reached the end of its loading is closed out when the
+     * next restore starts.
+     */
+    public synchronized RestoreProgress getRestore(long txnId, String nonce) {
+        RestoreProgress progress = m_restores.get(txnId);
+        if (progress == null) {
+            long now = System.currentTimeMillis();
+            for (RestoreProgress previous : m_restores.values()) {
+                previous.finish(now);
+            }
+            progress = new RestoreProgress(txnId, nonce, now);
+            m_restores.put(txnId, progress);
+        }
+        return progress;
+    }
+
+    /**
+     * Get the progress of the restore {@code txnId} from the stats source registered with the stats agent
+     * of this host. When no source is registered the progress is tracked but not reported.
+     */
+    public static RestoreProgress getRegisteredRestore(long txnId, String nonce) {
+        VoltDBInterface voltDb = VoltDB.instance();
+        StatsAgent statsAgent = voltDb == null ? null : voltDb.getStatsAgent();
+        if (statsAgent != null) {
+            Set<StatsSource> sources = statsAgent.lookupStatsSource(StatsSelector.SNAPSHOTRESTORE, 0);
+            if (sources != null && !sources.isEmpty()) {
+                return ((SnapshotRestoreStats) sources.iterator().next()).getRestore(txnId, nonce);
+            }
+        }
+        return new RestoreProgress(txnId, nonce, System.currentTimeMillis());
+    }
+
+    @Override
+    protected void populateColumnSchema(ArrayList<ColumnInfo> columns) {
+        super.populateColumnSchema(columns, SnapshotRestore.values());
+    }
+
+    @Override
+    protected synchronized Iterator<Object> getStatsRowKeyIterator(boolean interval) {
+        return new ArrayList<Object>(m_restores.values()).iterator();
+    }
+
+    @Override
+    protected int updateStatsRow(Object rowKey, Object[] rowValues) {
+        int offset = super.updateStatsRow(rowKey, rowValues);
+        RestoreProgress progress = (RestoreProgress) rowKey;
+        long now = System.currentTimeMillis();
+
+        rowValues[offset + SnapshotRestore.NONCE.ordinal()] = progress.m_nonce;
+        rowValues[offset + SnapshotRestore.TXNID.ordinal()] = progress.m_txnId;
+        rowValues[offset + SnapshotRestore.START_TIME.ordinal()] = progress.m_startTime;
+        rowValues[offset + SnapshotRestore.END_TIME.ordinal()] = progress.m_endTime;
+        rowValues[offset + SnapshotRestore.DURATION.ordinal()] = progress.getDuration(now);
+        rowValues[offset + SnapshotRestore.CHUNKS.ordinal()] = progress.m_chunks.get();
+        rowValues[offset + SnapshotRestore.BYTES_READ.ordinal()] = progress.m_bytesRead.get();
+        rowValues[offset + SnapshotRestore.THROUGHPUT.ordinal()] = progress.getThroughput(now);
+        return offset + SnapshotRestore.values().length;
+    }
+}
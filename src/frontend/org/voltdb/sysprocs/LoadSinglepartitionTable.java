@@ -20,19 +20,25 @@ package org.voltdb.sysprocs;
 import java.util.List;
 import java.util.Map;
 
+import org.voltdb.BackendTarget;
 import org.voltdb.DependencyPair;
 import org.voltdb.ParameterSet;
 import org.voltdb.SQLStmt;
 import org.voltdb.SystemProcedureExecutionContext;
+import org.voltdb.TableType;
+import org.voltdb.TheHashinator;
 import org.voltdb.VoltDB;
 import org.voltdb.VoltSystemProcedure;
 import org.voltdb.VoltTable;
+import org.voltdb.VoltType;
 import org.voltdb.catalog.Column;
 import org.voltdb.catalog.Constraint;
 import org.voltdb.catalog.Procedure;
 import org.voltdb.catalog.Statement;
 import org.voltdb.catalog.Table;
+import org.voltdb.jni.ExecutionEngine.LoadTableCaller;
 import org.voltdb.types.ConstraintType;
+import org.voltdb.utils.CatalogUtil;
 
 /**
  * Given as input a VoltTable with a schema corresponding to a persistent table,
@@ -40,6 +46,9 @@ import org.voltdb.types.ConstraintType;
  * the auto-generated CRUD procs for batch inserts because it can do many inserts
  * with only one network round trip and one transactional context.
  * Also a bit more generic.
+ * <p>
+ * Inserts of rows whose types already match a persistent table, which is what the bulk loader sends,
+ * skip the insert plan entirely and are loaded by the native EE as a single block.
  */
 public class LoadSinglepartitionTable extends VoltSystemProcedure
 {
@@ -131,6 +140,13 @@ public class LoadSinglepartitionTable extends VoltSystemProcedure
         // fix any case problems
         tableName = catTable.getTypeName();
 
+        // Inserts of rows which already have the exact types of the table are handed to the EE as one block.
+        // Only the native EE can load a table this way and only into a persistent table.
+        if (!isUpsert && isNativeBackend(VoltDB.instance().getBackendTargetType())
+                && !TableType.isStream(catTable.getTabletype()) && matchesTableSchema(catTable, table)) {
+            return loadTable(ctx, catTable, table);
+        }
+
         // check that the schema of the input matches
         int columnCount = table.getColumnCount();
 
@@ -201,6 +217,60 @@ public class LoadSinglepartitionTable extends VoltSystemProcedure
         return executed;
     }
 
+    /**
+     * @return {@code true} if {@code target} executes SQL in the native EE instead of a reference database
+     */
+    static boolean isNativeBackend(BackendTarget target) {
+        return target != BackendTarget.HSQLDB_BACKEND &&
+               target != BackendTarget.POSTGRESQL_BACKEND &&
+               target != BackendTarget.POSTGIS_BACKEND &&
+               target != BackendTarget.NONE;
+    }
+
+    /**
+     * @return {@code true} if {@code table} has the same column types, in the same order, as {@code catTable} so
+     *         its rows can be loaded by the EE without any conversion
+     */
+    static boolean matchesTableSchema(Table catTable, VoltTable table) {
+        List<Column> columns = CatalogUtil.getSortedCatalogItems(catTable.getColumns(), "index");
+        if (columns.size() != table.getColumnCount()) {
+            return false;
+        }
+        for (int i = 0; i < columns.size(); ++i) {
+            if (VoltType.get((byte) columns.get(i).getType()) != table.getColumnType(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Load all of the rows of {@code table} with a single call to the EE. Unlike the insert statement the EE does
+     * not check partitioning when loading a table so that is done here first.
+     *
+     * @return Count of rows inserted.
+     * @throws VoltAbortException if any row does not belong to this partition or could not be inserted
+     */
+    long loadTable(SystemProcedureExecutionContext ctx, Table catTable, VoltTable table) throws VoltAbortException {
+        TheHashinator hashinator = ctx.getCurrentHashinator();
+        int partitionId = ctx.getPartitionId();
+        int pIndex = catTable.getPartitioncolumn().getIndex();
+        VoltType pType = table.getColumnType(pIndex);
+
+        table.resetRowPosition();
+        while (table.advanceRow()) {
+            Object pValue = table.get(pIndex, pType);
+            if (hashinator.getHashedPartitionForParameter(pType, pValue) != partitionId) {
+                throw new VoltAbortException(
+                        String.format("Mispartitioned tuple in single-partition load of table %s.",
+                                catTable.getTypeName()));
+            }
+        }
+
+        m_runner.voltLoadTable(catTable.getTypeName(), table, LoadTableCaller.CLIENT);
+        return table.getRowCount();
+    }
+
     /**
      * Execute a set of queued inserts. Ensure each insert successfully
      * inserts one row. Throw exception if not.
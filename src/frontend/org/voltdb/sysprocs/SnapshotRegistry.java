@@ -153,6 +153,8 @@ public class SnapshotRegistry {
             public final long size;
             public final Throwable writeExp;
             public final Throwable serializationExp;
+            // Time the file of this table was closed, 0 while it is being written
+            public final long timeFinished;
 
             private Table(String name, String filename) {
                 this.name = name;
@@ -160,14 +162,16 @@ public class SnapshotRegistry {
                 size = 0;
                 writeExp = null;
                 serializationExp = null;
+                timeFinished = 0;
             }
 
-            public Table(Table t, long size, Throwable writeExp, Throwable serializationExp) {
+            public Table(Table t, long size, Throwable writeExp, Throwable serializationExp, long timeFinished) {
                 this.name = t.name;
                 this.filename = t.filename;
                 this.size = size;
                 this.writeExp = writeExp;
                 this.serializationExp = serializationExp;
+                this.timeFinished = timeFinished;
             }
         }
     }
@@ -101,6 +101,8 @@ import org.voltdb.iv2.TxnEgo;
 import org.voltdb.jni.ExecutionEngine.LoadTableCaller;
 import org.voltdb.messaging.FragmentResponseMessage;
 import org.voltdb.messaging.FragmentTaskMessage;
+import org.voltdb.stats.SnapshotRestoreStats;
+import org.voltdb.stats.SnapshotRestoreStats.RestoreProgress;
 import org.voltdb.sysprocs.SnapshotRestoreResultSet.RestoreResultKey;
 import org.voltdb.sysprocs.saverestore.ClusterSaveFileState;
 import org.voltdb.sysprocs.saverestore.DuplicateRowHandler;
@@ -221,14 +223,19 @@ public class SnapshotRestore extends VoltSystemProcedure {
         return hasMoreChunks;
     }
 
+    /*
+     * Take chunks from the save files in turn rather than draining them one at a time so that
+     * the chunk readers of all the files are reading ahead and the disks are read in parallel.
+     */
     private static synchronized BBContainer getNextChunk() throws IOException {
         BBContainer c = null;
         while (c == null && m_saveFiles.peek() != null) {
-            TableSaveFile f = m_saveFiles.peek();
+            TableSaveFile f = m_saveFiles.poll();
             c = f.getNextChunk();
             if (c == null) {
                 f.close();
-                m_saveFiles.poll();
+            } else {
+                m_saveFiles.offer(f);
             }
         }
         return c;
@@ -478,6 +485,8 @@ public class SnapshotRestore extends VoltSystemProcedure {
                 m_filePathType = (String) params[1];
                 m_filePath = SnapshotUtil.getRealPath(SnapshotPathType.valueOf(m_filePathType), m_filePath);
                 m_fileNonce = (String) params[2];
+                // Start counting the data this host reads for the restore
+                getRestoreProgress();
                 /*
                  * Initialize a duplicate row handling policy for this restore.
                  * if path type is not SNAP_PATH use local path specified by type
@@ -640,6 +649,9 @@ public class SnapshotRestore extends VoltSystemProcedure {
                         m.send(ftm.getCoordinatorHSId(), frm);
                     }
                 } else if (vm instanceof BinaryPayloadMessage) {
+                    if (context.isLowestSiteId()) {
+                        getRestoreProgress().finish();
+                    }
                     if (context.isLowestSiteId() && m_duplicateRowHandler != null) {
                         try {
                             m_duplicateRowHandler.close();
@@ -780,12 +792,14 @@ public class SnapshotRestore extends VoltSystemProcedure {
             try (TableSaveFile savefile = getTableSaveFile(getSaveFileForReplicatedTable(table_name, m_filePathType), 3, null)) {
 
                 TableConverter converter = createConverter(table_name, isRecover);
+                RestoreProgress restoreProgress = getRestoreProgress();
                 while (savefile.hasMoreChunks()) {
                     final org.voltcore.utils.DBBPool.BBContainer c = savefile.getNextChunk();
                     if (c == null) {
                         continue;//Should be equivalent to break
                     }
                     try {
+                        restoreProgress.chunkRead(c.b().remaining());
                         VoltTable table = converter.convert(c.b());
                         byte uniqueViolations[] = callLoadTable(context, table_name, table);
 
@@ -1220,6 +1234,9 @@ public class SnapshotRestore extends VoltSystemProcedure {
             SNAP_LOG.info("Table " + tableName + " "
                     + m_reportStats.get(tableName) + " tuples restored from snapshot. (final)");
         }
+        final RestoreProgress restoreProgress = getRestoreProgress();
+        SNAP_LOG.info(String.format("Read %.2f MB of table data on this host in %s seconds (%.2f MB/s)",
+                restoreProgress.getBytesRead() / (1024.0 * 1024.0), sw.toString(), restoreProgress.getThroughput(endTime)));
         m_reportStats.clear();
         m_selectedReportPartition.clear();
         CONSOLE_LOG.info("Finished restore of " + path + " with nonce: "
@@ -1242,8 +1259,7 @@ public class SnapshotRestore extends VoltSystemProcedure {
         final boolean isStartWithNoAutomatedRestore =
             startAction == StartAction.CREATE && mode != org.voltdb.OperationMode.INITIALIZING;
 
-        final boolean isCLEnabled =
-            VoltDB.instance().getCommandLog().getClass().getSimpleName().equals("CommandLogImpl");
+        final boolean isCLEnabled = VoltDB.instance().getCommandLog().isEnabled();
 
         final boolean isStartedWithCreateAction = startAction == StartAction.CREATE;
 
@@ -2174,6 +2190,7 @@ public class SnapshotRestore extends VoltSystemProcedure {
 
         try {
             TableConverter converter = createConverter(tableName, isRecover);
+            RestoreProgress restoreProgress = getRestoreProgress();
 
             int chunkCount = 0;
             while (savefile.hasMoreChunks()) {
@@ -2182,6 +2199,7 @@ public class SnapshotRestore extends VoltSystemProcedure {
                     continue;   // Should be equivalent to break
                 }
                 try {
+                    restoreProgress.chunkRead(c.b().remaining());
                     VoltTable table = converter.convert(c.b());
 
                     Map<Integer, byte[]> partitionedTables = null;
@@ -2347,6 +2365,7 @@ public class SnapshotRestore extends VoltSystemProcedure {
 
         try {
             TableConverter converter = createConverter(tableName, isRecover);
+            RestoreProgress restoreProgress = getRestoreProgress();
 
             while (hasMoreChunks()) {
                 c = getNextChunk();
@@ -2360,6 +2379,7 @@ public class SnapshotRestore extends VoltSystemProcedure {
                 byte compressedTable[] = null;
                 SynthesizedPlanFragment[] pfs = null;
                 try {
+                    restoreProgress.chunkRead(c.b().remaining());
                     VoltTable table = converter.convert(c.b());
 
                     if (asReplicated) {
@@ -2511,12 +2531,12 @@ public class SnapshotRestore extends VoltSystemProcedure {
             }
         }
 
-        // create a table for each partition
-        VoltTable[] partitioned_tables = new VoltTable[numberOfPartitions];
-        HashSet<Integer> usedPartitions = new HashSet<>(numberOfPartitions*2);
+        // hash every row first, when partitioning has not changed all rows of a chunk belong to one partition
         TheHashinator hashinator = TheHashinator.getCurrentHashinator();
-        // split the input table into per-partition units
-        while (loadedTable.advanceRow())
+        int[] rowPartitions = new int[loadedTable.getRowCount()];
+        int firstPartition = -1;
+        boolean singlePartition = true;
+        for (int row = 0; loadedTable.advanceRow(); ++row)
         {
             int partition = 0;
             try
@@ -2528,6 +2548,31 @@ public class SnapshotRestore extends VoltSystemProcedure {
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
+            rowPartitions[row] = partition;
+            if (firstPartition == -1) {
+                firstPartition = partition;
+            } else if (partition != firstPartition) {
+                singlePartition = false;
+            }
+        }
+        HashMap<Integer, byte[]> repartitionedTables = new HashMap<>(numberOfPartitions*2);
+        if (firstPartition == -1) {
+            return repartitionedTables;
+        }
+        if (singlePartition) {
+            // No need to copy the rows into a table for the partition
+            repartitionedTables.put(firstPartition, TableCompressor.getCompressedTableBytes(loadedTable));
+            return repartitionedTables;
+        }
+
+        // create a table for each partition
+        VoltTable[] partitioned_tables = new VoltTable[numberOfPartitions];
+        HashSet<Integer> usedPartitions = new HashSet<>(numberOfPartitions*2);
+        // split the input table into per-partition units
+        loadedTable.resetRowPosition();
+        for (int row = 0; loadedTable.advanceRow(); ++row)
+        {
+            int partition = rowPartitions[row];
             VoltTable cacheTable = partitioned_tables[partition];
             if (cacheTable == null) {
                 if (partitioned_table_cache.isEmpty()) {
@@ -2556,7 +2601,6 @@ public class SnapshotRestore extends VoltSystemProcedure {
             // this adds the active row of loadedTable
             cacheTable.add(loadedTable);
         }
-        HashMap<Integer, byte[]> repartitionedTables = new HashMap<>(usedPartitions.size()*2);
         for (int pid : usedPartitions) {
             VoltTable tab = partitioned_tables[pid];
             partitioned_table_cache.put(tab.getBuffer().capacity(), tab);
@@ -2816,4 +2860,18 @@ public class SnapshotRestore extends VoltSystemProcedure {
     private static volatile String m_filePath;
     private static volatile String m_filePathType;
     private static volatile String m_fileNonce;
+    private RestoreProgress m_restoreProgress;
+
+    /*
+     * The progress of the restore this fragment belongs to, shared by all the sites of this host
+     * through the SNAPSHOTRESTORE statistics.
+     */
+    private RestoreProgress getRestoreProgress() {
+        @SuppressWarnings("deprecation")
+        long txnId = DeprecatedProcedureAPIAccess.getVoltPrivateRealTransactionId(this);
+        if (m_restoreProgress == null || m_restoreProgress.getTxnId() != txnId) {
+            m_restoreProgress = SnapshotRestoreStats.getRegisteredRestore(txnId, m_fileNonce);
+        }
+        return m_restoreProgress;
+    }
 }
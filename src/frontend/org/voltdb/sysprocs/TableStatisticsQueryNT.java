@@ -0,0 +1,63 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2022 Volt Active Data Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.sysprocs;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.voltdb.ClientInterface.ExplainMode;
+import org.voltdb.ParameterSet;
+import org.voltdb.VoltDB;
+import org.voltdb.client.ClientResponse;
+import org.voltdb.parser.SQLLexer;
+
+/**
+ * Runs one SELECT statement in the partition a partition key hashes to. The parameters are
+ * the statement and the partition key.
+ * <p>
+ * Used by the {@link org.voltdb.TableStatisticsCollector} to read the tables one partition at a time.
+ * It is a system procedure so only administrators and the server itself can call it.
+ */
+public class TableStatisticsQueryNT extends AdHocNTBase {
+    @Override
+    public CompletableFuture<ClientResponse> run(ParameterSet params) {
+        return runInternal(params);
+    }
+
+    @Override
+    protected CompletableFuture<ClientResponse> runUsingCalcite(ParameterSet params) {
+        return runUsingLegacy(params);
+    }
+
+    @Override
+    protected CompletableFuture<ClientResponse> runUsingLegacy(ParameterSet params) {
+        final Object[] paramArray = params.toArray();
+        if (paramArray.length != 2 || !(paramArray[0] instanceof String)) {
+            return makeQuickResponse(ClientResponse.GRACEFUL_FAILURE,
+                    "@TableStatisticsQueryNT expects a SELECT statement and a partition key.");
+        }
+        final List<String> sqlStatements =
+                SQLLexer.splitStatements((String) paramArray[0]).getCompletelyParsedStmts();
+        if (sqlStatements.size() != 1 || !SQLLexer.isSelect(sqlStatements.get(0))) {
+            return makeQuickResponse(ClientResponse.GRACEFUL_FAILURE,
+                    "@TableStatisticsQueryNT only runs a single SELECT statement.");
+        }
+        return runNonDDLAdHoc(VoltDB.instance().getCatalogContext(), sqlStatements, false, paramArray[1],
+                ExplainMode.NONE, false, false, null);
+    }
+}
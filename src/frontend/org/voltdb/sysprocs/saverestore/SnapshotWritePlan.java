@@ -99,6 +99,7 @@ public abstract class SnapshotWritePlan<C extends SnapshotRequestConfig>
 
         @Override
         public void run() {
+            final long timeFinished = System.currentTimeMillis();
             for (String tableName : m_tableNames) {
                 m_snapshotRecord.updateTable(tableName,
                     new SnapshotRegistry.Snapshot.TableUpdater() {
@@ -108,7 +109,8 @@ public abstract class SnapshotWritePlan<C extends SnapshotRequestConfig>
                                 registryTable,
                                 m_sdt.getBytesWritten(), /* Bytes written is shared between multiple stream snapshot tables */
                                 m_sdt.getLastWriteException(),
-                                m_sdt.getSerializationException());
+                                m_sdt.getSerializationException(),
+                                timeFinished);
                             }
                     });
                 int tablesLeft = m_numTables.decrementAndGet();
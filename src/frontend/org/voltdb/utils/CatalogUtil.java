@@ -2473,10 +2473,6 @@ public abstract class CatalogUtil {
     }
 
     public static void setupCommandLog(PathsType.Commandlog paths, File voltDbRoot) {
-        if (!VoltDB.instance().getConfig().m_isEnterprise) {
-            // dumb defaults if you ask for logging in community version
-            return;
-        }
         File commandlogPath;
         commandlogPath = new File(VoltDB.instance().getCommandLogPath(paths));
         if (!commandlogPath.isAbsolute())
@@ -2496,12 +2492,6 @@ public abstract class CatalogUtil {
     }
 
     public static void setupCommandLogSnapshot(PathsType.Commandlogsnapshot paths, File voltDbRoot) {
-        if (!VoltDB.instance().getConfig().m_isEnterprise) {
-            // dumb defaults if you ask for logging in community version
-            new File(voltDbRoot, "command_log_snapshot"); // TODO: this does nothing?
-            return;
-        }
-
         File commandlogSnapshotPath;
         commandlogSnapshotPath = new File(VoltDB.instance().getCommandLogSnapshotPath(paths));
         if (!commandlogSnapshotPath.isAbsolute())
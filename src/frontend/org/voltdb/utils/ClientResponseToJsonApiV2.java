@@ -19,6 +19,7 @@ package org.voltdb.utils;
 
 import org.json_voltpatches.JSONException;
 import org.json_voltpatches.JSONStringer;
+import org.json_voltpatches.JSONWriter;
 import org.voltdb.VoltTable;
 import org.voltdb.client.ClientResponse;
 
@@ -37,6 +38,14 @@ public class ClientResponseToJsonApiV2 {
 
     public static String toJSONStringV2(ClientResponse clientResponse) throws JSONException {
         JSONStringer js = new JSONStringer();
+        toJSONWriterV2(clientResponse, js);
+        return js.toString();
+    }
+
+    /**
+     * Write the api/v2.0 representation of a ClientResponse to a {@link JSONWriter}, one row at a time.
+     */
+    public static JSONWriter toJSONWriterV2(ClientResponse clientResponse, JSONWriter js) throws JSONException {
             js.object();
             js.keySymbolValuePair(JSON_STATUS_KEY, clientResponse.getStatus());
             js.keySymbolValuePair(JSON_APPSTATUS_KEY, clientResponse.getAppStatus());
@@ -48,10 +57,10 @@ public class ClientResponseToJsonApiV2 {
             for (int i=0; i<results.length; i++) {
                 js.key(String.valueOf(i));
                 VoltTable o = results[i];
-                o.toJSONStringerV2(js);
+                o.toJSONWriterV2(js);
             }
             js.endObject();
             js.endObject();
-        return js.toString();
+        return js;
     }
 }
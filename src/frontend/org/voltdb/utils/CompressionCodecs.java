@@ -0,0 +1,61 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2022 Volt Active Data Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.utils;
+
+import org.voltcore.utils.CompressionStrategy;
+import org.voltcore.utils.CompressionStrategyLZ4;
+import org.voltcore.utils.CompressionStrategySnappy;
+
+/**
+ * Registry of the {@link CompressionStrategy} codecs which can compress persisted data. This is server only since
+ * the codecs depend on native compression libraries which are not shipped with the client.
+ */
+public final class CompressionCodecs {
+
+    private CompressionCodecs() {}
+
+    /**
+     * @param codecId id returned by {@link CompressionStrategy#getCodecId()}
+     * @return the codec with {@code codecId} or {@code null} if there is none
+     */
+    public static CompressionStrategy forCodecId(int codecId) {
+        switch (codecId) {
+        case CompressionStrategySnappy.CODEC_ID:
+            return CompressionStrategySnappy.INSTANCE;
+        case CompressionStrategyLZ4.CODEC_ID:
+            return CompressionStrategyLZ4.INSTANCE;
+        default:
+            return null;
+        }
+    }
+
+    /**
+     * @param name case insensitive name returned by {@link CompressionStrategy#getName()}
+     * @return the codec named {@code name}
+     * @throws IllegalArgumentException if there is no codec named {@code name}
+     */
+    public static CompressionStrategy forName(String name) {
+        if (CompressionStrategySnappy.INSTANCE.getName().equalsIgnoreCase(name)) {
+            return CompressionStrategySnappy.INSTANCE;
+        }
+        if (CompressionStrategyLZ4.INSTANCE.getName().equalsIgnoreCase(name)) {
+            return CompressionStrategyLZ4.INSTANCE;
+        }
+        throw new IllegalArgumentException("Unknown compression codec: " + name);
+    }
+}
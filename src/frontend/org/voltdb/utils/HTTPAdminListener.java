@@ -290,6 +290,7 @@ public class HTTPAdminListener {
             servlets.addServletWithMapping(DeploymentRequestServlet.class, "/deployment/*").setAsyncSupported(true);
             servlets.addServletWithMapping(UserProfileServlet.class, "/profile/*").setAsyncSupported(true);
             servlets.addServletWithMapping(LogoutServlet.class, "/logout/*").setAsyncSupported(true);
+            servlets.addServletWithMapping(MetricsServlet.class, "/metrics").setAsyncSupported(true);
 
             httpClientInterface.setTimeout(timeout);
             m_jsonEnabled = jsonEnabled;
@@ -0,0 +1,144 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2022 Volt Active Data Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.utils;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.voltdb.AuthenticationResult;
+import org.voltdb.OpenMetricsStatsWriter;
+import org.voltdb.StatsAgent;
+import org.voltdb.StatsSelector;
+import org.voltdb.VoltDB;
+import org.voltdb.client.ClientResponse;
+
+/**
+ * Serves the /metrics endpoint which returns the statistics of this node in the OpenMetrics text format for
+ * scraping by Prometheus and similar systems. The statistics are read straight from the stats sources
+ * registered with the {@link StatsAgent}, no {@code @Statistics} transaction is run.
+ * <p>
+ * The selectors to return are given by {@code selector} parameters, either repeated or comma separated, and
+ * default to the {@code METRICS_SELECTORS} system property. Results are cached for {@code METRICS_CACHE_TTL}
+ * milliseconds so that frequent or concurrent scrapes of the same selectors do not collect the stats again.
+ */
+public class MetricsServlet extends VoltBaseServlet {
+
+    private static final long serialVersionUID = -2364512078125612365L;
+
+    static final String SELECTOR_PARAM = "selector";
+    private static final String DEFAULT_SELECTORS = System.getProperty("METRICS_SELECTORS",
+            "MEMORY,CPU,IOSTATS,PROCEDURE,QUEUE,STARVATION");
+    private static final long CACHE_TTL_MS = Integer.getInteger("METRICS_CACHE_TTL", 5000);
+
+    private static final class CachedScrape {
+        final long m_expiresAt;
+        final String m_text;
+
+        CachedScrape(long expiresAt, String text) {
+            m_expiresAt = expiresAt;
+            m_text = text;
+        }
+    }
+
+    // Keyed by the sorted selector names of the scrape
+    private final Map<String, CachedScrape> m_cache = new ConcurrentHashMap<>();
+
+    @Override
+    public void doGet(HttpServletRequest request,
+            HttpServletResponse response)
+            throws IOException, ServletException {
+        super.doGet(request, response);
+        AuthenticationResult authResult = authenticate(request);
+        if (!authResult.isAuthenticated()) {
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            response.getWriter().print(buildClientResponse(null, ClientResponse.UNEXPECTED_FAILURE, authResult.m_message));
+            return;
+        }
+
+        TreeSet<StatsSelector> selectors;
+        try {
+            selectors = parseSelectors(request.getParameterValues(SELECTOR_PARAM));
+        } catch (IllegalArgumentException e) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            response.getWriter().print(buildClientResponse(null, ClientResponse.UNEXPECTED_FAILURE, e.getMessage()));
+            return;
+        }
+
+        StatsAgent statsAgent = VoltDB.instance().getStatsAgent();
+        if (statsAgent == null) {
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        }
+
+        final long now = System.currentTimeMillis();
+        CachedScrape scrape = m_cache.compute(selectors.toString(), (k, cached) -> {
+            if (cached != null && cached.m_expiresAt > now) {
+                return cached;
+            }
+            return new CachedScrape(now + CACHE_TTL_MS, render(statsAgent, selectors, now));
+        });
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(OpenMetricsStatsWriter.CONTENT_TYPE);
+        response.getWriter().write(scrape.m_text);
+    }
+
+    static TreeSet<StatsSelector> parseSelectors(String[] params) {
+        TreeSet<StatsSelector> selectors = new TreeSet<>();
+        if (params == null || params.length == 0) {
+            params = new String[] { DEFAULT_SELECTORS };
+        }
+        for (String param : params) {
+            for (String name : param.split(",")) {
+                name = name.trim();
+                if (name.isEmpty()) {
+                    continue;
+                }
+                try {
+                    selectors.add(StatsSelector.valueOf(name.toUpperCase(Locale.ROOT)));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Unknown statistics selector: " + name);
+                }
+            }
+        }
+        return selectors;
+    }
+
+    private static String render(StatsAgent statsAgent, Iterable<StatsSelector> selectors, long now) {
+        OpenMetricsStatsWriter writer = new OpenMetricsStatsWriter();
+        for (StatsSelector selector : selectors) {
+            statsAgent.readStatsRows(selector, now, writer);
+        }
+        StringWriter out = new StringWriter();
+        try {
+            writer.write(out);
+        } catch (IOException e) {
+            // StringWriter does not throw
+            throw new RuntimeException(e);
+        }
+        return out.toString();
+    }
+}
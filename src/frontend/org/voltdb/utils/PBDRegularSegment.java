@@ -40,13 +40,16 @@ import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.zip.CRC32;
 
 import org.voltcore.logging.VoltLogger;
+import org.voltcore.utils.CompressionStrategy;
 import org.voltcore.utils.DBBPool;
 import org.voltcore.utils.DBBPool.BBContainer;
 import org.voltcore.utils.DeferredSerialization;
 import org.voltcore.utils.Pair;
+import org.voltcore.utils.VoltUnsafe;
 import org.voltdb.utils.BinaryDeque.EntryUpdater;
 import org.voltdb.utils.BinaryDeque.OutputContainerFactory;
 import org.voltdb.utils.BinaryDeque.TruncatorResponse.Status;
@@ -90,7 +93,8 @@ class PBDRegularSegment<M> extends PBDSegment<M> {
     private long m_startId = INVALID_ID;
     private long m_endId = INVALID_ID;
     private long m_timestamp = INVALID_TIMESTAMP;
-    private boolean m_compress;
+    // null if entries are not compressed
+    private CompressionStrategy m_compression;
     private int m_segmentRandomId;
     private int m_extraHeaderSize = 0;
     // Not guaranteed to be valid unless m_extraHeaderSize > 0
@@ -98,6 +102,8 @@ class PBDRegularSegment<M> extends PBDSegment<M> {
 
     private DBBPool.BBContainer m_segmentHeaderBuf = null;
     private DBBPool.BBContainer m_entryHeaderBuf = null;
+    // Mapping of the segment used by readers when m_mappedReads is set and the segment is read only
+    private SegmentMapping m_mapping = null;
     Boolean INJECT_PBD_CHECKSUM_ERROR = Boolean.getBoolean("INJECT_PBD_CHECKSUM_ERROR");
 
     PBDRegularSegment(long id, File file, VoltLogger usageSpecificLog,
@@ -166,7 +172,7 @@ class PBDRegularSegment<M> extends PBDSegment<M> {
         }
 
         if (m_closed) {
-            open(false, false, false);
+            open(false, false, null);
         }
         SegmentReader reader = new SegmentReader(cursorId);
         m_readCursors.put(cursorId, reader);
@@ -181,12 +187,12 @@ class PBDRegularSegment<M> extends PBDSegment<M> {
 
     @Override
     void openForTruncate() throws IOException {
-        open(true, false, false);
+        open(true, false, null);
     }
 
     @Override
-    void openNewSegment(boolean compress) throws IOException {
-        open(true, true, compress);
+    void openNewSegment(CompressionStrategy compression) throws IOException {
+        open(true, true, compression);
     }
 
     /**
@@ -203,7 +209,7 @@ class PBDRegularSegment<M> extends PBDSegment<M> {
         return m_extraHeaderSize;
     }
 
-    private void open(boolean forWrite, boolean emptyFile, boolean compress) throws IOException {
+    private void open(boolean forWrite, boolean emptyFile, CompressionStrategy compression) throws IOException {
         if (!m_closed) {
             throw new IOException("Segment is already opened");
         }
@@ -224,7 +230,7 @@ class PBDRegularSegment<M> extends PBDSegment<M> {
             setFinal(false);
             m_segmentRandomId = RANDOM.nextInt();
             initNumEntries(0, 0);
-            m_compress = compress;
+            m_compression = compression;
             m_isActive = true;
         }
         if (forWrite) {
@@ -251,7 +257,7 @@ class PBDRegularSegment<M> extends PBDSegment<M> {
         boolean wasClosed = false;
         if (m_closed) {
             wasClosed = true;
-            open(false, false, false);
+            open(false, false, null);
         }
         try {
             if (m_fc.size() >= SEGMENT_HEADER_BYTES) {
@@ -530,7 +536,7 @@ class PBDRegularSegment<M> extends PBDSegment<M> {
      * @throws IOException
      */
     private void asUpdateFrom(Collection<UpdateEntry> entries, PBDRegularSegment<M> original) throws IOException {
-        openNewSegment(original.m_compress);
+        openNewSegment(original.m_compression);
         writeExtraHeader(original.getExtraHeader());
 
         m_startId = original.m_startId;
@@ -539,9 +545,9 @@ class PBDRegularSegment<M> extends PBDSegment<M> {
 
         for (UpdateEntry entry : entries) {
             if (entry.m_isCopy) {
-                writeEntry(entry.m_data, -1, entry.m_isCompressed);
+                writeEntry(entry.m_data, -1, entry.m_compressedFlags);
             } else {
-                writeEntry(entry.m_data, maxCompressedSize(entry.m_data), false);
+                writeEntry(entry.m_data, maxCompressedSize(entry.m_data), NO_FLAGS);
             }
 
             ++m_numOfEntries;
@@ -556,7 +562,7 @@ class PBDRegularSegment<M> extends PBDSegment<M> {
     Pair<PBDSegment<M>, Boolean> updateEntries(EntryUpdater<? super M> updater) throws IOException {
         Deque<UpdateEntry> entries = new ArrayDeque<>(m_numOfEntries);
         if (m_closed) {
-            open(false, false, false);
+            open(false, false, null);
         }
 
         PBDRegularSegment<M> updatedSegment = null;
@@ -626,6 +632,7 @@ class PBDRegularSegment<M> extends PBDSegment<M> {
 
                 // Create a new segment so any readers current on this segment will continue to operate
                 updatedSegment = new PBDRegularSegment<>(m_id, m_file, m_usageSpecificLog, m_extraHeaderSerializer);
+                updatedSegment.m_mappedReads = m_mappedReads;
                 updatedSegment.finalize(true);
             }
         } finally {
@@ -766,6 +773,10 @@ class PBDRegularSegment<M> extends PBDSegment<M> {
 
     private void closeReadersAndFile() throws IOException {
         m_readCursors.clear();
+        if (m_mapping != null) {
+            m_mapping.release();
+            m_mapping = null;
+        }
         try {
             if (m_fc != null) {
                 m_fc.close();
@@ -830,7 +841,7 @@ class PBDRegularSegment<M> extends PBDSegment<M> {
             return -1;
         }
 
-        int written = writeEntry(buf, maxCompressedSize, false);
+        int written = writeEntry(buf, maxCompressedSize, NO_FLAGS);
 
         // Update segment header
         updateHeaderDataAfterOffer(remaining, startId, endId, timestamp);
@@ -843,7 +854,9 @@ class PBDRegularSegment<M> extends PBDSegment<M> {
      */
     private int maxCompressedSize(ByteBuffer buffer) {
         int length = buffer.remaining();
-        return m_compress && length >= 32 && buffer.isDirect() ? CompressionService.maxCompressedLength(length) : -1;
+        return m_compression != null && length >= 32 && buffer.isDirect()
+                ? m_compression.maxCompressedLength(length)
+                : -1;
     }
 
     /**
@@ -851,11 +864,12 @@ class PBDRegularSegment<M> extends PBDSegment<M> {
      *
      * @param buffer            containing the entry
      * @param maxCompressedSize the max size this entry will compress to or {@code -1} if it should not be compressed
-     * @param isPreCompressed   {@code true} if {@code buffer} contains an already compressed entry
+     * @param preCompressedFlags compression flags of {@code buffer} if it contains an already compressed entry or
+     *                           {@link PBDSegment#NO_FLAGS}
      * @return The number of bytes written
      * @throws IOException
      */
-    private int writeEntry(ByteBuffer buffer, int maxCompressedSize, boolean isPreCompressed)
+    private int writeEntry(ByteBuffer buffer, int maxCompressedSize, char preCompressedFlags)
             throws IOException {
         m_syncedSinceLastEdit = false;
         DBBPool.BBContainer compressedContainer = null;
@@ -868,16 +882,16 @@ class PBDRegularSegment<M> extends PBDSegment<M> {
             if (maxCompressedSize > 0) {
                 compressedContainer = DBBPool.allocateDirectAndPool(maxCompressedSize);
                 ByteBuffer compressed = compressedContainer.b();
-                final int compressedSize = CompressionService.compressBuffer(buffer.asReadOnlyBuffer(), compressed);
+                final int compressedSize = m_compression.compress(buffer.asReadOnlyBuffer(), compressed);
 
                 // Only bother with compression overhead if it actually saves some space
                 if (compressedSize < buffer.remaining() * 0.9) {
                     compressed.limit(compressedSize);
-                    flags |= PBDSegment.FLAG_COMPRESSED;
+                    flags = compressedFlags(m_compression);
                     toWrite = compressed;
                 }
-            } else if (isPreCompressed) {
-                flags |= PBDSegment.FLAG_COMPRESSED;
+            } else {
+                flags = preCompressedFlags;
             }
 
             writeEntryHeader(toWrite, flags);
@@ -1037,6 +1051,41 @@ class PBDRegularSegment<M> extends PBDSegment<M> {
         return m_isActive;
     }
 
+    /**
+     * @return the mapping of this segment or {@code null} if entries have to be read through the file channel
+     */
+    private SegmentMapping getMapping() throws IOException {
+        if (m_mapping == null && m_mappedReads && !m_isActive && !m_fc.m_writable) {
+            m_mapping = new SegmentMapping(m_fc.map(MapMode.READ_ONLY, 0, m_fc.size()));
+        }
+        return m_mapping;
+    }
+
+    /**
+     * A read only mapping of a sealed segment which is shared by the segment and the entries polled from it. The
+     * mapping is unmapped as soon as the segment is closed and the last of those entries is discarded instead of
+     * whenever the garbage collector gets to it.
+     */
+    private static final class SegmentMapping {
+        final MappedByteBuffer m_buffer;
+        // One reference is held by the segment until it is closed
+        private final AtomicInteger m_refCount = new AtomicInteger(1);
+
+        SegmentMapping(MappedByteBuffer buffer) {
+            m_buffer = buffer;
+        }
+
+        void retain() {
+            m_refCount.incrementAndGet();
+        }
+
+        void release() {
+            if (m_refCount.decrementAndGet() == 0) {
+                VoltUnsafe.cleanDirectBuffer(m_buffer);
+            }
+        }
+    }
+
     private class SegmentReader implements PBDSegmentReader<M> {
         private final String m_cursorId;
         long m_readOffset;
@@ -1101,6 +1150,11 @@ class PBDRegularSegment<M> extends PBDSegment<M> {
                 return null;
             }
 
+            SegmentMapping mapping = getMapping();
+            if (mapping != null) {
+                return pollMapped(mapping, factory, maxSize, checkCrc);
+            }
+
             final long writePos = m_fc.position();
             m_fc.position(m_readOffset);
 
@@ -1119,7 +1173,7 @@ class PBDRegularSegment<M> extends PBDSegment<M> {
 
                 final int entryId = b.getInt();
                 final char flags = b.getChar();
-                final boolean compressed = (flags & FLAG_COMPRESSED) != 0;
+                final CompressionStrategy compression = compressionOf(flags);
                 final int uncompressedLen;
 
                 if (length < 1 || length > PBDSegment.CHUNK_SIZE - PBDSegment.SEGMENT_HEADER_BYTES) {
@@ -1132,18 +1186,18 @@ class PBDRegularSegment<M> extends PBDSegment<M> {
 
                 DBBPool.BBContainer retcont = null;
                 try {
-                    if (compressed) {
+                    if (compression != null) {
                         final DBBPool.BBContainer compressedBuf = DBBPool.allocateDirectAndPool(length);
                         try {
                             fillBuffer(compressedBuf.b(), entryId, flags, entryCRC, checkCrc);
 
-                            uncompressedLen = CompressionService.uncompressedLength(compressedBuf.bDR());
+                            uncompressedLen = compression.uncompressedLength(compressedBuf.bDR());
                             if (uncompressedLen > maxSize) {
                                 return null;
                             }
                             retcont = factory.getContainer(uncompressedLen);
                             retcont.b().limit(uncompressedLen);
-                            CompressionService.decompressBuffer(compressedBuf.bDR(), retcont.b());
+                            compression.uncompress(compressedBuf.bDR(), retcont.b());
                         } finally {
                             compressedBuf.discard();
                         }
@@ -1183,6 +1237,96 @@ class PBDRegularSegment<M> extends PBDSegment<M> {
             }
         }
 
+        /**
+         * Poll the next entry out of the segment mapping. Uncompressed entries are returned as a slice of the mapping
+         * without being copied.
+         */
+        private DBBPool.BBContainer pollMapped(SegmentMapping mapping, OutputContainerFactory factory, int maxSize,
+                boolean checkCrc) throws IOException {
+            final ByteBuffer segment = mapping.m_buffer;
+            if (m_readOffset + ENTRY_HEADER_BYTES > segment.limit()) {
+                throw new EOFException("EOF encountered reading " + m_file + " at position " + m_readOffset
+                        + " expected to be able to read an entry header");
+            }
+            final int entryStart = (int) m_readOffset;
+            final int entryCRC = segment.getInt(entryStart + ENTRY_HEADER_CRC_OFFSET);
+            final int length = segment.getInt(entryStart + ENTRY_HEADER_TOTAL_BYTES_OFFSET);
+
+            if (length > maxSize) {
+                return null;
+            }
+
+            final int entryId = segment.getInt(entryStart + ENTRY_HEADER_ENTRY_ID_OFFSET);
+            final char flags = segment.getChar(entryStart + ENTRY_HEADER_FLAG_OFFSET);
+
+            if (length < 1 || length > PBDSegment.CHUNK_SIZE - PBDSegment.SEGMENT_HEADER_BYTES) {
+                throw new IOException ("File corruption detected in " + m_file.getName() + ": invalid entry length.");
+            }
+
+            if (entryId != m_segmentRandomId + currentEntryId() + 1) {
+                throw new IOException("File corruption detected in " + m_file.getName() + ": invalid entry id.");
+            }
+
+            final int dataStart = entryStart + ENTRY_HEADER_BYTES;
+            if (dataStart + length > segment.limit()) {
+                throw new EOFException("EOF encountered reading " + m_file + " at position " + dataStart
+                        + " expected to be able to read " + length + " more bytes");
+            }
+            ByteBuffer entry = segment.duplicate();
+            entry.limit(dataStart + length).position(dataStart);
+            entry = entry.slice();
+
+            if (checkCrc) {
+                if (entryCRC != PBDUtils.calculateEntryCrc(m_crcReader, entry, entryId, flags)
+                        || INJECT_PBD_CHECKSUM_ERROR) {
+                    throw new IOException("File corruption detected in " + m_file.getName() + ": checksum error. "
+                            + "Truncate the file to last safe point.");
+                }
+                entry.position(0);
+            }
+
+            final DBBPool.BBContainer retcont;
+            final int uncompressedLen;
+            final CompressionStrategy compression = compressionOf(flags);
+            if (compression != null) {
+                uncompressedLen = compression.uncompressedLength(entry);
+                if (uncompressedLen > maxSize) {
+                    return null;
+                }
+                DBBPool.BBContainer decompressed = factory.getContainer(uncompressedLen);
+                try {
+                    decompressed.b().limit(uncompressedLen);
+                    compression.uncompress(entry, decompressed.b());
+                } catch (Throwable t) {
+                    decompressed.discard();
+                    throw t;
+                }
+                retcont = new DBBPool.DBBDelegateContainer(decompressed) {
+                    @Override
+                    public void discard() {
+                        super.discard();
+                        m_discardCount++;
+                    }
+                };
+            } else {
+                uncompressedLen = length;
+                mapping.retain();
+                retcont = new DBBPool.BBContainer(entry) {
+                    @Override
+                    public void discard() {
+                        checkDoubleFree();
+                        mapping.release();
+                        m_discardCount++;
+                    }
+                };
+            }
+
+            m_bytesRead += uncompressedLen;
+            m_objectReadIndex++;
+            m_readOffset = dataStart + length;
+            return retcont;
+        }
+
         int currentEntryId() {
             return m_objectReadIndex;
         }
@@ -1296,7 +1440,7 @@ class PBDRegularSegment<M> extends PBDSegment<M> {
         @Override
         public void reopen() throws IOException {
             if (m_readerClosed) {
-                open(false, false, false);
+                open(false, false, null);
                 m_readerClosed = false;
             }
             m_closedCursors.remove(m_cursorId);
@@ -1392,7 +1536,8 @@ class PBDRegularSegment<M> extends PBDSegment<M> {
      */
     private static final class UpdateEntry {
         final boolean m_isCopy;
-        final boolean m_isCompressed;
+        // Compression flags of a copied entry
+        final char m_compressedFlags;
         final ByteBuffer m_data;
         final int m_dataLength;
 
@@ -1405,16 +1550,17 @@ class PBDRegularSegment<M> extends PBDSegment<M> {
          */
         static UpdateEntry copy(ByteBuffer headerAndData) throws IOException {
             int length;
-            boolean compressed = isCompressed(headerAndData);
-            if (compressed) {
+            char flags = entryCompressedFlags(headerAndData);
+            CompressionStrategy compression = compressionOf(flags);
+            if (compression != null) {
                 ByteBuffer duplicate = headerAndData.asReadOnlyBuffer();
                 duplicate.position(ENTRY_HEADER_BYTES);
-                length = CompressionService.uncompressedLength(duplicate);
+                length = compression.uncompressedLength(duplicate);
             } else {
                 length = headerAndData.getInt(ENTRY_HEADER_TOTAL_BYTES_OFFSET);
             }
 
-            return copy(headerAndData, compressed, length);
+            return copy(headerAndData, flags, length);
         }
 
         /**
@@ -1425,12 +1571,12 @@ class PBDRegularSegment<M> extends PBDSegment<M> {
          * @return {@link UpdateEntry} instance
          */
         static UpdateEntry copy(ByteBuffer headerAndData, int length) {
-            return copy(headerAndData, isCompressed(headerAndData), length);
+            return copy(headerAndData, entryCompressedFlags(headerAndData), length);
         }
 
-        private static UpdateEntry copy(ByteBuffer headerAndData, boolean compressed, int length) {
+        private static UpdateEntry copy(ByteBuffer headerAndData, char compressedFlags, int length) {
             headerAndData.position(ENTRY_HEADER_BYTES);
-            return new UpdateEntry(true, compressed, headerAndData.slice(), length);
+            return new UpdateEntry(true, compressedFlags, headerAndData.slice(), length);
         }
 
         /**
@@ -1440,16 +1586,16 @@ class PBDRegularSegment<M> extends PBDSegment<M> {
          * @return {@link UpdateEntry} instance
          */
         static UpdateEntry entry(ByteBuffer entry) {
-            return new UpdateEntry(false, false, entry, entry.remaining());
+            return new UpdateEntry(false, NO_FLAGS, entry, entry.remaining());
         }
 
-        private static boolean isCompressed(ByteBuffer entryHeader) {
-            return (entryHeader.getChar(ENTRY_HEADER_FLAG_OFFSET) & FLAG_COMPRESSED) == FLAG_COMPRESSED;
+        private static char entryCompressedFlags(ByteBuffer entryHeader) {
+            return (char) (entryHeader.getChar(ENTRY_HEADER_FLAG_OFFSET) & (FLAG_COMPRESSED | FLAG_CODEC_MASK));
         }
 
-        UpdateEntry(boolean copy, boolean compressed, ByteBuffer data, int dataLength) {
+        UpdateEntry(boolean copy, char compressedFlags, ByteBuffer data, int dataLength) {
             m_isCopy = copy;
-            m_isCompressed = compressed;
+            m_compressedFlags = compressedFlags;
             m_data = data;
             m_dataLength = dataLength;
         }
@@ -24,6 +24,7 @@ import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.attribute.UserDefinedFileAttributeView;
 import java.util.List;
+import org.voltcore.utils.CompressionStrategy;
 import org.voltcore.utils.DBBPool;
 import org.voltcore.utils.DeferredSerialization;
 import org.voltcore.utils.Pair;
@@ -65,6 +66,9 @@ public abstract class PBDSegment<M> {
 
     static final char NO_FLAGS = 0;
     static final char FLAG_COMPRESSED = 1;
+    // Id of the codec of compressed entries. Entries written before codecs were selectable have 0, which is Snappy
+    static final char FLAG_CODEC_MASK = 0x1E;
+    static final int FLAG_CODEC_SHIFT = 1;
 
     // Export Segment Entry Header layout (each segment has multiple entries):
     //  - crc of segment entry (4 bytes),
@@ -83,6 +87,8 @@ public abstract class PBDSegment<M> {
     // It is the starting id in the segment otherwise, but still increasing value
     final long m_id;
     boolean m_deleteOnAck;
+    // Read sealed segments through a memory mapping instead of copying entries out of the file
+    boolean m_mappedReads;
 
     private long m_fileSize = -1;
     protected final long m_creationTime;
@@ -113,6 +119,31 @@ public abstract class PBDSegment<M> {
     long getCreationTime() {
         return m_creationTime;
     }
+
+    /**
+     * @param compression codec an entry was compressed with
+     * @return the entry flags of an entry compressed with {@code compression}
+     */
+    static char compressedFlags(CompressionStrategy compression) {
+        return (char) (FLAG_COMPRESSED | (compression.getCodecId() << FLAG_CODEC_SHIFT));
+    }
+
+    /**
+     * @param flags of an entry
+     * @return the codec the entry was compressed with or {@code null} if it is not compressed
+     * @throws IOException if the codec is not known
+     */
+    static CompressionStrategy compressionOf(char flags) throws IOException {
+        if ((flags & FLAG_COMPRESSED) == 0) {
+            return null;
+        }
+        int codecId = (flags & FLAG_CODEC_MASK) >>> FLAG_CODEC_SHIFT;
+        CompressionStrategy compression = CompressionCodecs.forCodecId(codecId);
+        if (compression == null) {
+            throw new IOException("Entry compressed with unknown codec " + codecId);
+        }
+        return compression;
+    }
     /**
      * Returns the start id stored in this segment's header.
      *
@@ -150,10 +181,10 @@ public abstract class PBDSegment<M> {
     /**
      * Open and initialize this segment as a new segment
      *
-     * @param compress whether or not entries should be compressed by default
+     * @param compression codec to compress entries with by default or {@code null} if they should not be compressed
      * @throws IOException
      */
-    abstract void openNewSegment(boolean compress) throws IOException;
+    abstract void openNewSegment(CompressionStrategy compression) throws IOException;
 
     /**
      * Open the segment for read and possible truncation
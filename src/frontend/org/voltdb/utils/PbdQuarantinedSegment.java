@@ -20,6 +20,7 @@ package org.voltdb.utils;
 import java.io.File;
 import java.io.IOException;
 
+import org.voltcore.utils.CompressionStrategy;
 import org.voltcore.utils.DBBPool.BBContainer;
 import org.voltcore.utils.DeferredSerialization;
 import org.voltcore.utils.Pair;
@@ -65,7 +66,7 @@ class PbdQuarantinedSegment<M> extends PBDSegment<M> {
     }
 
     @Override
-    void openNewSegment(boolean compress) {
+    void openNewSegment(CompressionStrategy compression) {
         throw new UnsupportedOperationException();
     }
 
@@ -37,6 +37,8 @@ import java.util.stream.Collectors;
 import java.util.zip.CRC32;
 
 import org.voltcore.logging.VoltLogger;
+import org.voltcore.utils.CompressionStrategy;
+import org.voltcore.utils.CompressionStrategySnappy;
 import org.voltcore.utils.DBBPool;
 import org.voltcore.utils.DBBPool.BBContainer;
 import org.voltcore.utils.DeferredSerialization;
@@ -795,8 +797,10 @@ public class PersistentBinaryDeque<M> implements BinaryDeque<M> {
 
     private final File m_path;
     private final String m_nonce;
-    private final boolean m_compress;
+    // Codec new entries are compressed with, null if they are not compressed
+    private final CompressionStrategy m_compression;
     private final PBDSegmentFactory m_pbdSegmentFactory;
+    private final boolean m_mappedReads;
     private boolean m_initializedFromExistingFiles = false;
 
     private final BinaryDequeSerializer<M> m_extraHeaderSerializer;
@@ -837,10 +841,11 @@ public class PersistentBinaryDeque<M> implements BinaryDeque<M> {
         m_path = builder.m_path;
         m_nonce = builder.m_nonce;
         m_usageSpecificLog = builder.m_logger;
-        m_compress = builder.m_useCompression;
+        m_compression = builder.m_compression;
         m_extraHeader = builder.m_initialExtraHeader;
         m_extraHeaderSerializer = builder.m_extraHeaderSerializer;
         m_pbdSegmentFactory = builder.m_pbdSegmentFactory;
+        m_mappedReads = builder.m_mappedReads;
         m_requiresId = builder.m_requiresId;
 
         if (!m_path.exists() || !m_path.canRead() || !m_path.canWrite() || !m_path.canExecute()
@@ -1117,6 +1122,7 @@ public class PersistentBinaryDeque<M> implements BinaryDeque<M> {
         } else {
             segment = m_pbdSegmentFactory.create(segmentId, segmentName.m_file, m_usageSpecificLog,
                     m_extraHeaderSerializer);
+            segment.m_mappedReads = m_mappedReads;
             segment.saveFileSize();
 
             try {
@@ -1261,8 +1267,9 @@ public class PersistentBinaryDeque<M> implements BinaryDeque<M> {
             throws IOException {
         PBDSegment<M> segment = m_pbdSegmentFactory.create(segmentId, file, m_usageSpecificLog,
                 m_extraHeaderSerializer);
+        segment.m_mappedReads = m_mappedReads;
         try {
-            segment.openNewSegment(m_compress);
+            segment.openNewSegment(m_compression);
             if (extraHeader != null) {
                 segment.writeExtraHeader(extraHeader);
             }
@@ -2095,12 +2102,13 @@ public class PersistentBinaryDeque<M> implements BinaryDeque<M> {
         final String m_nonce;
         final File m_path;
         final VoltLogger m_logger;
-        boolean m_useCompression = false;
+        CompressionStrategy m_compression = null;
         boolean m_deleteExisting = false;
         BinaryDequeSerializer<M> m_extraHeaderSerializer;
         M m_initialExtraHeader;
         PBDSegmentFactory m_pbdSegmentFactory = PBDRegularSegment::new;
         boolean m_requiresId = false;
+        boolean m_mappedReads = false;
 
         private Builder(String nonce, File path, VoltLogger logger) {
             super();
@@ -2111,15 +2119,16 @@ public class PersistentBinaryDeque<M> implements BinaryDeque<M> {
 
         private Builder(Builder<?> builder, M extraHeader, BinaryDequeSerializer<M> serializer) {
             this(builder.m_nonce, builder.m_path, builder.m_logger);
-            m_useCompression = builder.m_useCompression;
+            m_compression = builder.m_compression;
             m_initialExtraHeader = extraHeader;
             m_extraHeaderSerializer = serializer;
             m_pbdSegmentFactory = builder.m_pbdSegmentFactory;
             m_requiresId = builder.m_requiresId;
+            m_mappedReads = builder.m_mappedReads;
         }
 
         /**
-         * Set whether compression should be enabled or not.
+         * Set whether compression with {@link CompressionStrategySnappy} should be enabled or not.
          * <p>
          * Default: {@code false}
          *
@@ -2127,7 +2136,21 @@ public class PersistentBinaryDeque<M> implements BinaryDeque<M> {
          * @return An updated {@link Builder} instance
          */
         public Builder<M> compression(boolean enabled) {
-            m_useCompression = enabled;
+            m_compression = enabled ? CompressionStrategySnappy.INSTANCE : null;
+            return this;
+        }
+
+        /**
+         * Set the codec new entries are compressed with. Entries which were already written keep the codec they were
+         * written with and can always be read.
+         * <p>
+         * Default: {@code null}
+         *
+         * @param compression codec to use or {@code null} if entries should not be compressed
+         * @return An updated {@link Builder} instance
+         */
+        public Builder<M> compression(CompressionStrategy compression) {
+            m_compression = compression;
             return this;
         }
 
@@ -2173,6 +2196,23 @@ public class PersistentBinaryDeque<M> implements BinaryDeque<M> {
             return this;
         }
 
+        /**
+         * Set whether segments which are no longer written to are read through a memory mapping. Uncompressed entries
+         * are then returned as slices of the mapping instead of being copied into containers from the
+         * {@link BinaryDeque.OutputContainerFactory}, and those slices are read only. The mapping of a segment is
+         * released once the segment is closed and all of the entries polled from it are discarded. Consumers must not
+         * write into polled entries when this is enabled.
+         * <p>
+         * Default: {@code false}
+         *
+         * @param mappedReads {@code true} if sealed segments should be read through a memory mapping
+         * @return An updated {@link Builder} instance
+         */
+        public Builder<M> mappedReads(boolean mappedReads) {
+            m_mappedReads = mappedReads;
+            return this;
+        }
+
         /**
          * @return A new instance of {@link PersistentBinaryDeque} constructed by this builder
          * @throws IOException If there was an error constructing the instance
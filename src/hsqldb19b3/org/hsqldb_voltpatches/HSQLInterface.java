@@ -22,6 +22,8 @@ import java.util.Map;
 import java.util.Set;
 import java.util.TimeZone;
 import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.hsqldb_voltpatches.VoltXMLElement.VoltXMLDiff;
 import org.hsqldb_voltpatches.index.Index;
@@ -109,7 +111,10 @@ public class HSQLInterface {
     static {
         emptySchema.attributes.put("name", XML_SCHEMA_NAME);
     }
-    static int instanceId = 0;
+    // Instances may be loaded by several threads at once and each needs its own database
+    static final AtomicInteger instanceId = new AtomicInteger();
+    // A session is not thread safe, users of the same instance on different threads must hold this
+    private final ReentrantLock m_lock = new ReentrantLock();
 
     private HSQLInterface(Session sessionProxy) {
         this.sessionProxy = sessionProxy;
@@ -123,6 +128,13 @@ public class HSQLInterface {
         sessionProxy = null;
     }
 
+    /**
+     * @return lock which must be held while parsing or planning with this instance
+     */
+    public ReentrantLock getLock() {
+        return m_lock;
+    }
+
     /**
      * This class lets HSQL inform VoltDB of the number of parameters
      * in the current statement, without directly referencing any VoltDB
@@ -148,8 +160,8 @@ public class HSQLInterface {
         // This ensures that all VoltDB data paths use the same timezone for representing time.
         TimeZone.setDefault(TimeZone.getTimeZone("GMT+0"));
 
-        String name = "hsqldbinstance-" + String.valueOf(instanceId) + "-" + String.valueOf(System.currentTimeMillis());
-        instanceId++;
+        String name = "hsqldbinstance-" + String.valueOf(instanceId.getAndIncrement()) + "-" +
+                String.valueOf(System.currentTimeMillis());
 
         HsqlProperties props = new HsqlProperties();
         try {
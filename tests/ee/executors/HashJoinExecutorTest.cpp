@@ -0,0 +1,452 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2022 Volt Active Data Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+#include <algorithm>
+#include <sstream>
+#include <string>
+#include <tuple>
+#include <vector>
+
+#include <boost/foreach.hpp>
+#include <boost/optional.hpp>
+
+#include "harness.h"
+
+#include "test_utils/Tools.hpp"
+#include "test_utils/TupleComparingTest.hpp"
+#include "test_utils/UniqueEngine.hpp"
+
+#include "common/SQLException.h"
+#include "common/ValuePeeker.hpp"
+#include "common/tabletuple.h"
+#include "execution/ExecutorVector.h"
+#include "storage/AbstractTempTable.hpp"
+#include "storage/TempTableLimits.h"
+#include "storage/table.h"
+#include "storage/tableiterator.h"
+
+using namespace voltdb;
+
+// Catalog for the following DDL:
+//
+// CREATE TABLE T_OUTER (
+//     ID INTEGER NOT NULL,
+//     K INTEGER
+// );
+// PARTITION TABLE T_OUTER ON COLUMN ID;
+// CREATE TABLE T_INNER (
+//     ID INTEGER NOT NULL,
+//     K INTEGER
+// );
+// PARTITION TABLE T_INNER ON COLUMN ID;
+
+const std::string catalogPayload =
+    "add / clusters cluster\n"
+    "set /clusters#cluster localepoch 0\n"
+    "set $PREV securityEnabled false\n"
+    "set $PREV httpdportno 0\n"
+    "set $PREV jsonapi false\n"
+    "set $PREV networkpartition false\n"
+    "set $PREV heartbeatTimeout 0\n"
+    "set $PREV useddlschema false\n"
+    "set $PREV drConsumerEnabled false\n"
+    "set $PREV drProducerEnabled false\n"
+    "set $PREV drRole \"\"\n"
+    "set $PREV drClusterId 0\n"
+    "set $PREV drProducerPort 0\n"
+    "set $PREV drMasterHost \"\"\n"
+    "set $PREV drConsumerSslPropertyFile \"\"\n"
+    "set $PREV globalFlushInterval 0\n"
+    "set $PREV drFlushInterval 0\n"
+    "set $PREV exportFlushInterval 0\n"
+    "set $PREV preferredSource 0\n"
+    "set $PREV conflictretention \"\"\n"
+    "add /clusters#cluster databases database\n"
+    "set /clusters#cluster/databases#database schema \"ggJUNDM1MjQ1NDE1NDQ1MjA1NDQxNDI0QwkMFDVGNEY1NQEaHDUyMjAyODIwEQIQNDk0NDIBBgBFAR4INDc0BSIQNEU0RjUBGCBFNTU0QzRDMkMRMAwyMDRCRjAAEDI5M0IKeoEAEDk0RTRFCV/+gQBagQA=\"\n"
+    "set $PREV isActiveActiveDRed false\n"
+    "set $PREV securityprovider \"\"\n"
+    "add /clusters#cluster/databases#database groups administrator\n"
+    "set /clusters#cluster/databases#database/groups#administrator admin true\n"
+    "set $PREV defaultproc true\n"
+    "set $PREV defaultprocread true\n"
+    "set $PREV sql true\n"
+    "set $PREV sqlread true\n"
+    "set $PREV allproc true\n"
+    "set $PREV compoundproc true\n"
+    "add /clusters#cluster/databases#database groups user\n"
+    "set /clusters#cluster/databases#database/groups#user admin false\n"
+    "set $PREV defaultproc true\n"
+    "set $PREV defaultprocread true\n"
+    "set $PREV sql true\n"
+    "set $PREV sqlread true\n"
+    "set $PREV allproc true\n"
+    "set $PREV compoundproc false\n"
+    "add /clusters#cluster/databases#database tables T_INNER\n"
+    "set /clusters#cluster/databases#database/tables#T_INNER isreplicated false\n"
+    "set $PREV partitioncolumn /clusters#cluster/databases#database/tables#T_INNER/columns#ID\n"
+    "set $PREV estimatedtuplecount 0\n"
+    "set $PREV materializer null\n"
+    "set $PREV signature \"T_INNER|ii\"\n"
+    "set $PREV isDRed false\n"
+    "set $PREV tableType 1\n"
+    "set $PREV migrationTarget \"\"\n"
+    "set $PREV topicName \"\"\n"
+    "set $PREV topicKeyColumnNames \"\"\n"
+    "set $PREV topicValueColumnNames \"\"\n"
+    "add /clusters#cluster/databases#database/tables#T_INNER columns ID\n"
+    "set /clusters#cluster/databases#database/tables#T_INNER/columns#ID index 0\n"
+    "set $PREV type 5\n"
+    "set $PREV size 4\n"
+    "set $PREV nullable false\n"
+    "set $PREV name \"ID\"\n"
+    "set $PREV defaultvalue null\n"
+    "set $PREV defaulttype 0\n"
+    "set $PREV aggregatetype 0\n"
+    "set $PREV matviewsource null\n"
+    "set $PREV matview null\n"
+    "set $PREV inbytes false\n"
+    "add /clusters#cluster/databases#database/tables#T_INNER columns K\n"
+    "set /clusters#cluster/databases#database/tables#T_INNER/columns#K index 1\n"
+    "set $PREV type 5\n"
+    "set $PREV size 4\n"
+    "set $PREV nullable true\n"
+    "set $PREV name \"K\"\n"
+    "set $PREV defaultvalue null\n"
+    "set $PREV defaulttype 0\n"
+    "set $PREV aggregatetype 0\n"
+    "set $PREV matviewsource null\n"
+    "set $PREV matview null\n"
+    "set $PREV inbytes false\n"
+    "add /clusters#cluster/databases#database tables T_OUTER\n"
+    "set /clusters#cluster/databases#database/tables#T_OUTER isreplicated false\n"
+    "set $PREV partitioncolumn /clusters#cluster/databases#database/tables#T_OUTER/columns#ID\n"
+    "set $PREV estimatedtuplecount 0\n"
+    "set $PREV materializer null\n"
+    "set $PREV signature \"T_OUTER|ii\"\n"
+    "set $PREV isDRed false\n"
+    "set $PREV tableType 1\n"
+    "set $PREV migrationTarget \"\"\n"
+    "set $PREV topicName \"\"\n"
+    "set $PREV topicKeyColumnNames \"\"\n"
+    "set $PREV topicValueColumnNames \"\"\n"
+    "add /clusters#cluster/databases#database/tables#T_OUTER columns ID\n"
+    "set /clusters#cluster/databases#database/tables#T_OUTER/columns#ID index 0\n"
+    "set $PREV type 5\n"
+    "set $PREV size 4\n"
+    "set $PREV nullable false\n"
+    "set $PREV name \"ID\"\n"
+    "set $PREV defaultvalue null\n"
+    "set $PREV defaulttype 0\n"
+    "set $PREV aggregatetype 0\n"
+    "set $PREV matviewsource null\n"
+    "set $PREV matview null\n"
+    "set $PREV inbytes false\n"
+    "add /clusters#cluster/databases#database/tables#T_OUTER columns K\n"
+    "set /clusters#cluster/databases#database/tables#T_OUTER/columns#K index 1\n"
+    "set $PREV type 5\n"
+    "set $PREV size 4\n"
+    "set $PREV nullable true\n"
+    "set $PREV name \"K\"\n"
+    "set $PREV defaultvalue null\n"
+    "set $PREV defaulttype 0\n"
+    "set $PREV aggregatetype 0\n"
+    "set $PREV matviewsource null\n"
+    "set $PREV matview null\n"
+    "set $PREV inbytes false\n"
+    "add /clusters#cluster/databases#database snapshotSchedule default\n"
+    "set /clusters#cluster/databases#database/snapshotSchedule#default enabled false\n"
+    "set $PREV frequencyUnit \"h\"\n"
+    "set $PREV frequencyValue 24\n"
+    "set $PREV retain 2\n"
+    "set $PREV prefix \"AUTOSNAP\"\n"
+    "add /clusters#cluster deployment deployment\n"
+    "set /clusters#cluster/deployment#deployment kfactor 0\n"
+    "add /clusters#cluster/deployment#deployment systemsettings systemsettings\n"
+    "set /clusters#cluster/deployment#deployment/systemsettings#systemsettings temptablemaxsize 100\n"
+    "set $PREV snapshotpriority 6\n"
+    "set $PREV elasticduration 50\n"
+    "set $PREV elasticthroughput 2\n"
+    "set $PREV querytimeout 10000\n"
+    "add /clusters#cluster logconfig log\n"
+    "set /clusters#cluster/logconfig#log enabled false\n"
+    "set $PREV synchronous false\n"
+    "set $PREV fsyncInterval 200\n"
+    "set $PREV maxTxns 2147483647\n"
+    "set $PREV logSize 1024\n";
+
+// Scans of both tables, each with the inline projection the planner adds.
+std::string scanNode(int id, const std::string& tableName, const std::string& alias) {
+    std::ostringstream oss;
+    oss << "{\"ID\":" << id << ",\"PLAN_NODE_TYPE\":\"SEQSCAN\","
+        << "\"INLINE_NODES\":[{\"ID\":" << id + 1 << ",\"PLAN_NODE_TYPE\":\"PROJECTION\","
+        << "\"OUTPUT_SCHEMA\":["
+        << "{\"COLUMN_NAME\":\"ID\",\"EXPRESSION\":{\"TYPE\":32,\"VALUE_TYPE\":5,\"COLUMN_IDX\":0}},"
+        << "{\"COLUMN_NAME\":\"K\",\"EXPRESSION\":{\"TYPE\":32,\"VALUE_TYPE\":5,\"COLUMN_IDX\":1}}]}],"
+        << "\"TARGET_TABLE_NAME\":\"" << tableName << "\",\"TARGET_TABLE_ALIAS\":\"" << alias << "\"}";
+    return oss.str();
+}
+
+// This JSON is what the planner produces for
+//
+// SELECT * FROM <outerTable> O <joinType> JOIN <innerTable> I ON O.K = I.K;
+//
+// without the send node on top.  canHashOuter is set by the planner when
+// nothing above the join relies on the order of the outer table.
+std::string joinPlan(const std::string& joinType,
+                     const std::string& outerTable,
+                     const std::string& innerTable,
+                     bool canHashOuter) {
+    std::ostringstream oss;
+    oss << "{\"PLAN_NODES\":["
+        << "{\"ID\":1,\"PLAN_NODE_TYPE\":\"HASHJOIN\",\"CHILDREN_IDS\":[2,4],"
+        << "\"OUTPUT_SCHEMA\":["
+        << "{\"COLUMN_NAME\":\"ID\",\"EXPRESSION\":{\"TYPE\":32,\"VALUE_TYPE\":5,\"COLUMN_IDX\":0}},"
+        << "{\"COLUMN_NAME\":\"K\",\"EXPRESSION\":{\"TYPE\":32,\"VALUE_TYPE\":5,\"COLUMN_IDX\":1}},"
+        << "{\"COLUMN_NAME\":\"ID\",\"EXPRESSION\":{\"TYPE\":32,\"VALUE_TYPE\":5,\"COLUMN_IDX\":2}},"
+        << "{\"COLUMN_NAME\":\"K\",\"EXPRESSION\":{\"TYPE\":32,\"VALUE_TYPE\":5,\"COLUMN_IDX\":3}}],"
+        << "\"JOIN_TYPE\":\"" << joinType << "\","
+        << "\"PRE_JOIN_PREDICATE\":null,"
+        << "\"JOIN_PREDICATE\":{\"TYPE\":10,\"VALUE_TYPE\":23,"
+        << "\"LEFT\":{\"TYPE\":32,\"VALUE_TYPE\":5,\"COLUMN_IDX\":1,\"TABLE_IDX\":1},"
+        << "\"RIGHT\":{\"TYPE\":32,\"VALUE_TYPE\":5,\"COLUMN_IDX\":1}},"
+        << "\"WHERE_PREDICATE\":null,"
+        << "\"OUTER_HASH_EXPRESSIONS\":[{\"TYPE\":32,\"VALUE_TYPE\":5,\"COLUMN_IDX\":1}],"
+        << "\"INNER_HASH_EXPRESSIONS\":[{\"TYPE\":32,\"VALUE_TYPE\":5,\"COLUMN_IDX\":1,\"TABLE_IDX\":1}]";
+    if (canHashOuter) {
+        oss << ",\"CAN_HASH_OUTER\":true";
+    }
+    oss << "},"
+        << scanNode(2, outerTable, "O") << ","
+        << scanNode(4, innerTable, "I")
+        << "],\"EXECUTE_LIST\":[2,4,1],\"IS_LARGE_QUERY\":false}";
+    return oss.str();
+}
+
+typedef std::tuple<int, boost::optional<int>> InRow;
+typedef std::tuple<boost::optional<int>, boost::optional<int>,
+                   boost::optional<int>, boost::optional<int>> OutRow;
+
+class HashJoinExecutorTest : public TupleComparingTest {
+protected:
+    // T_OUTER has fewer rows than T_INNER.  Both have a row with a null
+    // key and rows that match more than one row of the other table.
+    void loadTables(VoltDBEngine* engine) {
+        insertRows(engine->getTableByName("T_OUTER"), std::vector<InRow>{
+                InRow{1, 10},
+                InRow{2, 20},
+                InRow{3, boost::none},
+                InRow{4, 20}
+            });
+        insertRows(engine->getTableByName("T_INNER"), std::vector<InRow>{
+                InRow{100, 20},
+                InRow{101, 30},
+                InRow{102, boost::none},
+                InRow{103, 20},
+                InRow{104, 10},
+                InRow{105, 40}
+            });
+    }
+
+    void insertRows(Table* table, const std::vector<InRow>& rows) {
+        StandAloneTupleStorage storage{table->schema()};
+        TableTuple tupleToInsert = storage.tuple();
+        BOOST_FOREACH(auto initValues, rows) {
+            Tools::initTuple(&tupleToInsert, initValues);
+            table->insertTuple(tupleToInsert);
+        }
+    }
+
+    // Execute the plan and return the rows it produced, in the order the
+    // executor produced them unless sorted is true.
+    std::vector<OutRow> execute(VoltDBEngine* engine, const std::string& plan, bool sorted) {
+        auto ev = ExecutorVector::fromJsonPlan(engine, plan, 0);
+        UniqueTempTableResult result = engine->executePlanFragment(ev.get(), NULL);
+        std::vector<OutRow> rows;
+        TableTuple iterTuple{result->schema()};
+        TableIterator iter = result->iterator();
+        while (iter.next(iterTuple)) {
+            rows.push_back(OutRow{valueAt(iterTuple, 0), valueAt(iterTuple, 1),
+                                  valueAt(iterTuple, 2), valueAt(iterTuple, 3)});
+        }
+        ExecutorContext::getExecutorContext()->cleanupAllExecutors();
+        if (sorted) {
+            std::sort(rows.begin(), rows.end());
+        }
+        return rows;
+    }
+
+    static boost::optional<int> valueAt(const TableTuple& tuple, int index) {
+        NValue value = tuple.getNValue(index);
+        if (value.isNull()) {
+            return boost::none;
+        }
+        return ValuePeeker::peekInteger(value);
+    }
+
+    static std::vector<OutRow> sortedRows(std::vector<OutRow> rows) {
+        std::sort(rows.begin(), rows.end());
+        return rows;
+    }
+
+    // The rows of the same join with the outer and inner tables swapped
+    static std::vector<OutRow> swapSides(const std::vector<OutRow>& rows) {
+        std::vector<OutRow> swapped;
+        BOOST_FOREACH(auto row, rows) {
+            swapped.push_back(OutRow{std::get<2>(row), std::get<3>(row),
+                                     std::get<0>(row), std::get<1>(row)});
+        }
+        std::sort(swapped.begin(), swapped.end());
+        return swapped;
+    }
+};
+
+const boost::optional<int> NONE = boost::none;
+
+// Matches of T_OUTER and T_INNER on K, in T_OUTER order
+const std::vector<OutRow> matchedRows{
+    OutRow{1, 10, 104, 10},
+    OutRow{2, 20, 100, 20},
+    OutRow{2, 20, 103, 20},
+    OutRow{4, 20, 100, 20},
+    OutRow{4, 20, 103, 20}
+};
+
+const std::vector<OutRow> unmatchedOuterRows{
+    OutRow{3, NONE, NONE, NONE}
+};
+
+const std::vector<OutRow> unmatchedInnerRows{
+    OutRow{NONE, NONE, 101, 30},
+    OutRow{NONE, NONE, 102, NONE},
+    OutRow{NONE, NONE, 105, 40}
+};
+
+std::vector<OutRow> concat(std::vector<OutRow> rows, const std::vector<OutRow>& more) {
+    rows.insert(rows.end(), more.begin(), more.end());
+    return rows;
+}
+
+TEST_F(HashJoinExecutorTest, innerJoin) {
+    UniqueEngine engine = UniqueEngineBuilder().build();
+    ASSERT_TRUE(engine->loadCatalog(0, catalogPayload));
+    loadTables(engine.get());
+
+    std::vector<OutRow> expected = sortedRows(matchedRows);
+    // The smaller outer table is hashed
+    ASSERT_TRUE(expected == execute(engine.get(), joinPlan("INNER", "T_OUTER", "T_INNER", true), true));
+    // The outer table must keep its order, the inner table is hashed
+    ASSERT_TRUE(expected == execute(engine.get(), joinPlan("INNER", "T_OUTER", "T_INNER", false), true));
+    // The inner table is smaller and is hashed
+    ASSERT_TRUE(swapSides(expected) == execute(engine.get(), joinPlan("INNER", "T_INNER", "T_OUTER", true), true));
+}
+
+TEST_F(HashJoinExecutorTest, leftJoin) {
+    UniqueEngine engine = UniqueEngineBuilder().build();
+    ASSERT_TRUE(engine->loadCatalog(0, catalogPayload));
+    loadTables(engine.get());
+
+    std::vector<OutRow> expected = sortedRows(concat(matchedRows, unmatchedOuterRows));
+    ASSERT_TRUE(expected == execute(engine.get(), joinPlan("LEFT", "T_OUTER", "T_INNER", true), true));
+    ASSERT_TRUE(expected == execute(engine.get(), joinPlan("LEFT", "T_OUTER", "T_INNER", false), true));
+
+    // T_INNER LEFT JOIN T_OUTER keeps the unmatched rows of T_INNER
+    expected = swapSides(concat(matchedRows, unmatchedInnerRows));
+    ASSERT_TRUE(expected == execute(engine.get(), joinPlan("LEFT", "T_INNER", "T_OUTER", true), true));
+}
+
+TEST_F(HashJoinExecutorTest, fullJoin) {
+    UniqueEngine engine = UniqueEngineBuilder().build();
+    ASSERT_TRUE(engine->loadCatalog(0, catalogPayload));
+    loadTables(engine.get());
+
+    std::vector<OutRow> expected = concat(matchedRows, unmatchedOuterRows);
+    expected = sortedRows(concat(expected, unmatchedInnerRows));
+    ASSERT_TRUE(expected == execute(engine.get(), joinPlan("FULL", "T_OUTER", "T_INNER", true), true));
+    ASSERT_TRUE(expected == execute(engine.get(), joinPlan("FULL", "T_OUTER", "T_INNER", false), true));
+    ASSERT_TRUE(swapSides(expected) == execute(engine.get(), joinPlan("FULL", "T_INNER", "T_OUTER", true), true));
+}
+
+TEST_F(HashJoinExecutorTest, keepsOuterOrder) {
+    UniqueEngine engine = UniqueEngineBuilder().build();
+    ASSERT_TRUE(engine->loadCatalog(0, catalogPayload));
+    loadTables(engine.get());
+
+    // Without canHashOuter the inner table is hashed even though it is
+    // larger, and the rows come out in outer table order.
+    std::vector<OutRow> actual = execute(engine.get(), joinPlan("INNER", "T_OUTER", "T_INNER", false), false);
+    ASSERT_EQ(matchedRows.size(), actual.size());
+    for (size_t i = 0; i < actual.size(); ++i) {
+        ASSERT_TRUE(matchedRows[i] == actual[i]);
+    }
+
+    actual = execute(engine.get(), joinPlan("LEFT", "T_OUTER", "T_INNER", false), false);
+    ASSERT_EQ(matchedRows.size() + 1, actual.size());
+    ASSERT_TRUE(unmatchedOuterRows[0] == actual[3]);
+}
+
+TEST_F(HashJoinExecutorTest, tempTableLimit) {
+    // Enough memory for the scans of the tables below, but not for a hash
+    // table of all the rows of T_INNER
+    int64_t tempTableMemoryLimitInBytes = 4 * 1024 * 1024;
+    UniqueEngine engine = UniqueEngineBuilder()
+        .setTempTableMemoryLimit(tempTableMemoryLimitInBytes)
+        .build();
+    ASSERT_TRUE(engine->loadCatalog(0, catalogPayload));
+
+    insertRows(engine->getTableByName("T_OUTER"), std::vector<InRow>{
+            InRow{1, 10},
+            InRow{2, boost::none},
+            InRow{3, 30000}
+        });
+    std::vector<InRow> innerRows;
+    for (int i = 0; i < 100000; ++i) {
+        innerRows.push_back(InRow{i, i});
+    }
+    insertRows(engine->getTableByName("T_INNER"), innerRows);
+
+    auto ev = ExecutorVector::fromJsonPlan(engine.get(), joinPlan("INNER", "T_OUTER", "T_INNER", false), 0);
+    try {
+        engine->executePlanFragment(ev.get(), NULL);
+        FAIL("Expected the hash table to exceed the temp table limit");
+    }
+    catch (const SQLException& e) {
+        ASSERT_EQ(SQLException::volt_temp_table_memory_overflow, e.getSqlState());
+    }
+    ExecutorContext::getExecutorContext()->cleanupAllExecutors();
+    // The memory of the hash table was given back
+    ASSERT_EQ(0, ev->limits()->getAllocated());
+
+    // Hashing the small outer table fits
+    std::vector<OutRow> expected{
+        OutRow{1, 10, 10, 10},
+        OutRow{3, 30000, 30000, 30000}
+    };
+    ASSERT_TRUE(expected == execute(engine.get(), joinPlan("INNER", "T_OUTER", "T_INNER", true), true));
+
+    expected = sortedRows(concat(expected, std::vector<OutRow>{OutRow{2, NONE, NONE, NONE}}));
+    ASSERT_TRUE(expected == execute(engine.get(), joinPlan("LEFT", "T_OUTER", "T_INNER", true), true));
+}
+
+int main() {
+    return TestSuite::globalInstance()->runAll();
+}
@@ -0,0 +1,113 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2022 Volt Active Data Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+#include <cstdlib>
+#include <boost/unordered_map.hpp>
+#include "common/debuglog.h"
+#include "structures/OpenHashTable.h"
+#include "harness.h"
+
+using namespace voltdb;
+
+// A hasher which puts every key into one of few slots, to exercise collisions
+struct CollidingHasher {
+    size_t operator()(int64_t key) const {
+        return static_cast<size_t>(key & 0x3);
+    }
+};
+
+class OpenHashTableTest : public Test {
+public:
+    template<class H>
+    void fuzz() {
+        const int ITERATIONS = 10000;
+        boost::unordered_map<int64_t, int64_t> stl;
+        OpenHashTable<int64_t, int64_t, H> volt;
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            int64_t key = rand() % (ITERATIONS / 2);
+            size_t hash = volt.hashOf(key);
+            int64_t* found = volt.find(key, hash);
+            auto stlIter = stl.find(key);
+            ASSERT_EQ(stlIter == stl.end(), found == nullptr);
+            if (found == nullptr) {
+                volt.insert(key, hash, key * 2);
+                stl[key] = key * 2;
+            } else {
+                ASSERT_EQ(stlIter->second, *found);
+                // values are updated in place, like the aggregate rows
+                *found += 1;
+                stlIter->second += 1;
+            }
+            ASSERT_EQ(stl.size(), volt.size());
+        }
+
+        size_t count = 0;
+        for (auto const& entry : volt) {
+            ASSERT_EQ(stl[entry.first], entry.second);
+            count++;
+        }
+        ASSERT_EQ(stl.size(), count);
+    }
+};
+
+TEST_F(OpenHashTableTest, Fuzz) {
+    fuzz<std::hash<int64_t> >();
+}
+
+TEST_F(OpenHashTableTest, Collisions) {
+    fuzz<CollidingHasher>();
+}
+
+TEST_F(OpenHashTableTest, GrowAndClear) {
+    OpenHashTable<int64_t, int64_t> table;
+    size_t initialCapacity = table.capacity();
+    ASSERT_TRUE(table.empty());
+    ASSERT_TRUE(table.begin() == table.end());
+
+    for (int64_t i = 0; i < 1000000; i++) {
+        table.insert(i, table.hashOf(i), i);
+    }
+    ASSERT_EQ(1000000, table.size());
+    ASSERT_TRUE(table.capacity() > initialCapacity);
+    for (int64_t i = 0; i < 1000000; i++) {
+        int64_t* found = table.find(i, table.hashOf(i));
+        ASSERT_TRUE(found != nullptr);
+        ASSERT_EQ(i, *found);
+    }
+    ASSERT_TRUE(table.find(-1, table.hashOf(-1)) == nullptr);
+
+    // A large table gives its memory back when cleared
+    table.clear();
+    ASSERT_TRUE(table.empty());
+    ASSERT_EQ(initialCapacity, table.capacity());
+    ASSERT_TRUE(table.begin() == table.end());
+    ASSERT_TRUE(table.find(1, table.hashOf(1)) == nullptr);
+
+    table.insert(1, table.hashOf(1), 2);
+    ASSERT_EQ(2, *table.find(1, table.hashOf(1)));
+}
+
+int main() {
+    return TestSuite::globalInstance()->runAll();
+}
@@ -0,0 +1,98 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2022 Volt Active Data Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltcore.utils;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.voltdb.utils.CompressionCodecs;
+
+import junit.framework.TestCase;
+
+public class TestCompressionStrategy extends TestCase {
+
+    private static final CompressionStrategy[] CODECS = {
+            CompressionStrategySnappy.INSTANCE, CompressionStrategyLZ4.INSTANCE };
+
+    private static byte[] compressibleData(int length) {
+        // Random runs of a few distinct bytes
+        Random r = new Random(length);
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (i % 64 == 0 ? r.nextInt(4) : data[i - 1]);
+        }
+        return data;
+    }
+
+    public void testByteArrays() throws Exception {
+        for (CompressionStrategy codec : CODECS) {
+            for (int length : new int[] { 0, 1, 100, 64 * 1024 }) {
+                byte[] data = compressibleData(length);
+                byte[] compressed = codec.compress(data);
+                assertTrue(codec.toString(), Arrays.equals(data, codec.uncompress(compressed)));
+            }
+        }
+    }
+
+    public void testDirectBuffers() throws Exception {
+        for (CompressionStrategy codec : CODECS) {
+            byte[] data = compressibleData(256 * 1024);
+            ByteBuffer uncompressed = ByteBuffer.allocateDirect(data.length + 16);
+            uncompressed.position(16);
+            uncompressed.put(data);
+            uncompressed.position(16);
+
+            ByteBuffer compressed = ByteBuffer.allocateDirect(8 + codec.maxCompressedLength(data.length));
+            compressed.position(8);
+            int compressedLength = codec.compress(uncompressed, compressed);
+            assertTrue(codec.toString(), compressedLength < data.length / 2);
+            assertEquals(16, uncompressed.position());
+            assertEquals(8, compressed.position());
+            assertEquals(8 + compressedLength, compressed.limit());
+            assertEquals(data.length, codec.uncompressedLength(compressed));
+
+            ByteBuffer result = ByteBuffer.allocateDirect(data.length);
+            assertEquals(data.length, codec.uncompress(compressed, result));
+            assertEquals(data.length, result.limit());
+            byte[] resultBytes = new byte[data.length];
+            result.get(resultBytes);
+            assertTrue(codec.toString(), Arrays.equals(data, resultBytes));
+        }
+    }
+
+    public void testLookup() {
+        for (CompressionStrategy codec : CODECS) {
+            assertSame(codec, CompressionCodecs.forCodecId(codec.getCodecId()));
+            assertSame(codec, CompressionCodecs.forName(codec.getName().toUpperCase()));
+        }
+        // Entries which were compressed before codecs were selectable are Snappy
+        assertSame(CompressionStrategySnappy.INSTANCE, CompressionCodecs.forCodecId(0));
+        assertNull(CompressionCodecs.forCodecId(15));
+        try {
+            CompressionCodecs.forName("zip");
+            fail();
+        } catch (IllegalArgumentException expected) {}
+    }
+}
@@ -0,0 +1,146 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2022 Volt Active Data Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltcore.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+public class TestSerialExecutorService extends TestCase {
+
+    private ForkJoinPool m_pool;
+
+    @Override
+    public void setUp() {
+        m_pool = CoreUtils.getWorkStealingPool("TestSerialExecutorService", 4);
+    }
+
+    @Override
+    public void tearDown() {
+        m_pool.shutdownNow();
+    }
+
+    public void testTasksRunInOrderOneAtATime() throws Exception {
+        final int executorCount = 8;
+        final int taskCount = 10000;
+        List<SerialExecutorService> executors = new ArrayList<>();
+        List<List<Integer>> results = new ArrayList<>();
+        final AtomicInteger overlaps = new AtomicInteger();
+        for (int i = 0; i < executorCount; i++) {
+            // Small batches so the executors keep moving between pool threads
+            executors.add(new SerialExecutorService("executor " + i, m_pool, 3));
+            results.add(new ArrayList<>());
+        }
+
+        for (int task = 0; task < taskCount; task++) {
+            for (int i = 0; i < executorCount; i++) {
+                final List<Integer> result = results.get(i);
+                final int value = task;
+                executors.get(i).execute(() -> {
+                    // Unsynchronized on purpose, the executor must make each task see the previous ones
+                    if (result.size() != value) {
+                        overlaps.incrementAndGet();
+                    }
+                    result.add(value);
+                });
+            }
+        }
+
+        for (SerialExecutorService executor : executors) {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        }
+        assertEquals(0, overlaps.get());
+        for (int i = 0; i < executorCount; i++) {
+            List<Integer> result = results.get(i);
+            assertEquals(taskCount, result.size());
+            for (int task = 0; task < taskCount; task++) {
+                assertEquals(task, result.get(task).intValue());
+            }
+            assertEquals(taskCount, executors.get(i).getQueueStats(false).m_tasks);
+        }
+    }
+
+    public void testShutdown() throws Exception {
+        SerialExecutorService executor = new SerialExecutorService("shutdown", m_pool);
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            blocked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        blocked.await();
+        executor.execute(() -> {});
+
+        List<Runnable> pending = executor.shutdownNow();
+        assertEquals(1, pending.size());
+        assertTrue(executor.isShutdown());
+        assertFalse(executor.isTerminated());
+        try {
+            executor.execute(() -> {});
+            fail("Task accepted after shutdown");
+        } catch (RejectedExecutionException expected) {
+        }
+
+        release.countDown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        assertTrue(executor.isTerminated());
+    }
+
+    public void testQueueStats() throws Exception {
+        SerialExecutorService executor = new SerialExecutorService("stats", m_pool);
+        final CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        executor.execute(() -> {});
+        Thread.sleep(20);
+        release.countDown();
+        executor.submit(() -> {}).get();
+
+        SerialExecutorService.QueueStats stats = executor.getQueueStats(true);
+        assertEquals(3, stats.m_tasks);
+        // The second task waited behind the first
+        assertTrue(stats.m_maxWaitNanos >= TimeUnit.MILLISECONDS.toNanos(20));
+        assertTrue(stats.m_totalWaitNanos >= stats.m_maxWaitNanos);
+
+        // The stats were reset, only the task submitted now is counted
+        executor.submit(() -> {}).get();
+        assertEquals(1, executor.getQueueStats(false).m_tasks);
+    }
+}
@@ -0,0 +1,85 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2022 Volt Active Data Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.voltdb.VoltTable.ColumnInfo;
+
+public class TestOpenMetricsStatsWriter {
+
+    private static final List<ColumnInfo> COLUMNS = Arrays.asList(
+            new ColumnInfo("TIMESTAMP", VoltType.BIGINT),
+            new ColumnInfo("HOST_ID", VoltType.INTEGER),
+            new ColumnInfo("HOSTNAME", VoltType.STRING),
+            new ColumnInfo("PROCEDURE", VoltType.STRING),
+            new ColumnInfo("INVOCATIONS", VoltType.BIGINT),
+            new ColumnInfo("AVG_LOAD", VoltType.FLOAT),
+            new ColumnInfo("HISTOGRAM", VoltType.VARBINARY));
+
+    private static String render(OpenMetricsStatsWriter writer) throws Exception {
+        StringWriter out = new StringWriter();
+        writer.write(out);
+        return out.toString();
+    }
+
+    @Test
+    public void testSamplesAreGroupedByFamily() throws Exception {
+        OpenMetricsStatsWriter writer = new OpenMetricsStatsWriter();
+        writer.accept(StatsSelector.PROCEDURE, COLUMNS,
+                new Object[] { 1L, 0, "host-a", "Insert", 10L, 0.5, new byte[0] });
+        writer.accept(StatsSelector.PROCEDURE, COLUMNS,
+                new Object[] { 1L, 0, "host-a", "Select", 20L, Double.NaN, new byte[0] });
+
+        assertEquals("# TYPE voltdb_procedure_invocations gauge\n"
+                + "voltdb_procedure_invocations{host_id=\"0\",hostname=\"host-a\",procedure=\"Insert\"} 10\n"
+                + "voltdb_procedure_invocations{host_id=\"0\",hostname=\"host-a\",procedure=\"Select\"} 20\n"
+                + "# TYPE voltdb_procedure_avg_load gauge\n"
+                + "voltdb_procedure_avg_load{host_id=\"0\",hostname=\"host-a\",procedure=\"Insert\"} 0.5\n"
+                + "voltdb_procedure_avg_load{host_id=\"0\",hostname=\"host-a\",procedure=\"Select\"} NaN\n"
+                + "# EOF\n", render(writer));
+    }
+
+    @Test
+    public void testLabelValuesAreEscapedAndNullsSkipped() throws Exception {
+        OpenMetricsStatsWriter writer = new OpenMetricsStatsWriter();
+        writer.accept(StatsSelector.PROCEDURE, COLUMNS,
+                new Object[] { 1L, 2, null, "a\"b\\c\nd", null, 1.0, null });
+
+        assertEquals("# TYPE voltdb_procedure_avg_load gauge\n"
+                + "voltdb_procedure_avg_load{host_id=\"2\",procedure=\"a\\\"b\\\\c\\nd\"} 1.0\n"
+                + "# EOF\n", render(writer));
+    }
+
+    @Test
+    public void testSanitizeName() {
+        assertEquals("latency_99th", OpenMetricsStatsWriter.sanitizeName("LATENCY_99TH"));
+        assertEquals("__a_b", OpenMetricsStatsWriter.sanitizeName("0.A-B"));
+    }
+}
@@ -0,0 +1,77 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2022 Volt Active Data Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.Test;
+import org.voltdb.TableStatisticsCollector.ColumnPrefix;
+
+import junit.framework.TestCase;
+
+public class TestTableStatisticsCollector extends TestCase {
+
+    private static final double DELTA = 1e-9;
+
+    // A partition read completely gives the exact values
+    @Test
+    public void testCompletePrefix() {
+        ColumnPrefix prefix = new ColumnPrefix();
+        prefix.addPartition(Arrays.asList("1", "1", "2", "3"), 4);
+        prefix.addPartition(Arrays.asList("1", "4"), 2);
+        Map<String, Double> values = prefix.getMostCommonValues(2, 6);
+        assertEquals(2, values.size());
+        assertEquals(0.5, values.get("1"), DELTA);
+        assertTrue(prefix.hasAllValues(4));
+        assertFalse(prefix.hasAllValues(3));
+        assertEquals(1.0, prefix.getCoverage(), DELTA);
+    }
+
+    // Partitions read partially are weighted by their number of rows
+    @Test
+    public void testPartialPrefix() {
+        ColumnPrefix prefix = new ColumnPrefix();
+        // The first 10 rows out of 100, half of them 7
+        prefix.addPartition(Arrays.asList("7", "7", "7", "7", "7", "1", "2", "3", "4", "5"), 100);
+        // 2 rows out of 2, none of them 7
+        prefix.addPartition(Arrays.asList("8", "9"), 2);
+        Map<String, Double> values = prefix.getMostCommonValues(1, 102);
+        assertEquals(Collections.singleton("7"), values.keySet());
+        assertEquals(50.0 / 102, values.get("7"), DELTA);
+        // Values which were not read may exist
+        assertFalse(prefix.hasAllValues(16));
+        assertEquals(12.0 / 102, prefix.getCoverage(), DELTA);
+    }
+
+    // Nulls are not values which can be looked up
+    @Test
+    public void testNulls() {
+        ColumnPrefix prefix = new ColumnPrefix();
+        prefix.addPartition(Arrays.asList("1", null), 2);
+        assertEquals(Collections.singletonMap("1", 0.5), prefix.getMostCommonValues(16, 2));
+        assertFalse(prefix.hasAllValues(16));
+    }
+}
@@ -25,9 +25,12 @@ package org.voltdb;
 
 import static org.junit.Assert.assertNotEquals;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.StringWriter;
 import java.math.BigDecimal;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -37,13 +40,16 @@ import java.util.Random;
 
 import org.apache.commons.lang3.RandomStringUtils;
 import org.json_voltpatches.JSONException;
+import org.json_voltpatches.JSONWriter;
 import org.voltdb.TableHelper.RandomTable;
 import org.voltdb.VoltTable.ColumnInfo;
+import org.voltdb.client.ClientResponse;
 import org.voltdb.test.utils.RandomTestRule;
 import org.voltdb.types.GeographyPointValue;
 import org.voltdb.types.GeographyValue;
 import org.voltdb.types.TimestampType;
 import org.voltdb.types.VoltDecimalHelper;
+import org.voltdb.utils.ClientResponseToJsonApiV2;
 import org.voltdb.utils.CompressionService;
 import org.voltdb.utils.VoltTableUtil;
 
@@ -1188,6 +1194,31 @@ public class TestVoltTable extends TestCase {
         assertTrue(t1.equals(t2));
     }
 
+    public void testJSONWriterMatchesString() throws JSONException, IOException {
+        VoltTable t1 = new VoltTable(new ColumnInfo("bigint", VoltType.BIGINT),
+                new ColumnInfo("string", VoltType.STRING), new ColumnInfo("varbinary", VoltType.VARBINARY));
+        t1.addRow(null, null, null);
+        t1.addRow(12345678901L, "a \"quoted\" string", new byte[] { 10, 26, 10 });
+        VoltTable t2 = new VoltTable(new ColumnInfo("float", VoltType.FLOAT));
+        t2.addRow(Double.NaN);
+        ClientResponseImpl response = new ClientResponseImpl(ClientResponse.SUCCESS, new VoltTable[] { t1, t2 },
+                "status");
+
+        StringWriter out = new StringWriter();
+        response.toJSONWriter(new JSONWriter(out));
+        assertEquals(response.toJSONString(), out.toString());
+
+        out = new StringWriter();
+        ClientResponseToJsonApiV2.toJSONWriterV2(response, new JSONWriter(out));
+        assertEquals(ClientResponseToJsonApiV2.toJSONStringV2(response), out.toString());
+
+        // The streamed binary form is the same as the flattened one
+        ByteBuffer flattened = response.flattenToBuffer(ByteBuffer.allocate(response.getSerializedSize()));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        assertEquals(flattened.capacity(), response.writeTo(Channels.newChannel(bytes)));
+        assertTrue(Arrays.equals(flattened.array(), bytes.toByteArray()));
+    }
+
     /**
      * Java won't let you pass >255 args to a method. Verify it's possible to
      * make a big table using vararg methods and arrays.
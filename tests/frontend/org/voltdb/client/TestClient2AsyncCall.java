@@ -428,4 +428,40 @@ public class TestClient2AsyncCall {
         client.drain();
         client.close();
     }
+
+    /**
+     * Batched requests all complete, and batching is counted
+     */
+    @Test
+    public void testBatchedAsyncCalls() throws Exception {
+        final int CALLS = 500;
+        Client2Config config = new Client2Config()
+            .requestBatching(16, 2, TimeUnit.MILLISECONDS);
+
+        Client2 client = ClientFactory.createClient(config);
+        client.connectSync("localhost");
+        ClientStatsContext statsContext = client.createStatsContext();
+
+        AtomicInteger succeeded = new AtomicInteger();
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[CALLS];
+        for (int i=0; i<CALLS; i++) {
+            futures[i] = client.callProcedureAsync("ArbitraryDurationProc", 0)
+                               .thenAccept((resp) -> {
+                                   if (resp.getStatus() == ClientResponse.SUCCESS) {
+                                       succeeded.incrementAndGet();
+                                   }
+                               });
+        }
+        CompletableFuture.allOf(futures).join();
+        assertEquals(CALLS, succeeded.get());
+
+        ClientStats stats = statsContext.fetch().getStats();
+        System.out.printf("%d batched writes carried %d of %d calls\n",
+                          stats.getBatchedWriteCount(), stats.getBatchedInvocationCount(), CALLS);
+        assertTrue(stats.getBatchedWriteCount() > 0);
+        assertTrue(stats.getBatchedInvocationCount() >= 2 * stats.getBatchedWriteCount());
+        assertTrue(stats.getBatchedInvocationCount() <= CALLS);
+
+        client.close();
+    }
 }
@@ -0,0 +1,92 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2022 Volt Active Data Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.client;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.Test;
+import org.voltcore.utils.Bits;
+import org.voltdb.ElasticHashinator;
+import org.voltdb.TheHashinator.HashinatorConfig;
+
+import junit.framework.TestCase;
+
+public class TestHashinatorLookupTable extends TestCase {
+    private final Random m_random = new Random();
+
+    // Every hash must map to the same partition through the table as through a search of the whole ring
+    private void checkAgainstSearch(ElasticHashinator hashinator) {
+        HashinatorConfig config = hashinator.pGetCurrentConfig();
+        HashinatorLookupTable table = HashinatorLookupTable.create(config.configPtr, config.numTokens);
+        assertNotNull(table);
+
+        int[] edges = { Integer.MIN_VALUE, Integer.MIN_VALUE + 1, -1, 0, 1, Integer.MAX_VALUE - 1, Integer.MAX_VALUE };
+        for (int hash : edges) {
+            checkHash(table, config, hash);
+        }
+        for (int ii = 0; ii < config.numTokens; ii++) {
+            final int token = Bits.unsafe.getInt(config.configPtr + ii * 8);
+            checkHash(table, config, token);
+            checkHash(table, config, token - 1);
+            checkHash(table, config, token + 1);
+        }
+        for (int ii = 0; ii < 100000; ii++) {
+            checkHash(table, config, m_random.nextInt());
+        }
+    }
+
+    private static void checkHash(HashinatorLookupTable table, HashinatorConfig config, int hash) {
+        long token = HashinatorLookupTable.searchTokens(config.configPtr, 0, config.numTokens - 1, hash);
+        assertEquals("hash " + hash, Bits.unsafe.getInt(token + 4), table.partitionForToken(hash));
+    }
+
+    @Test
+    public void testDefaultRing() {
+        for (int partitionCount : new int[] { 1, 2, 7, 64 }) {
+            checkAgainstSearch(new ElasticHashinator(partitionCount));
+        }
+    }
+
+    // Tokens packed into a few slices, most of the hashes need a search
+    @Test
+    public void testClusteredTokens() {
+        final int tokenCount = 4096;
+        ByteBuffer buf = ByteBuffer.allocate(4 + 8 * tokenCount);
+        buf.putInt(tokenCount);
+        buf.putInt(Integer.MIN_VALUE).putInt(0);
+        for (int ii = 1; ii < tokenCount; ii++) {
+            buf.putInt(ii * 37).putInt(ii % 5);
+        }
+        checkAgainstSearch(new ElasticHashinator(buf.array(), false));
+    }
+
+    @Test
+    public void testSmallRingIsSearched() {
+        ByteBuffer buf = ByteBuffer.allocate(4 + 8 * 2);
+        buf.putInt(2).putInt(Integer.MIN_VALUE).putInt(0).putInt(0).putInt(1);
+        HashinatorConfig config = new ElasticHashinator(buf.array(), false).pGetCurrentConfig();
+        assertNull(HashinatorLookupTable.create(config.configPtr, config.numTokens));
+    }
+}
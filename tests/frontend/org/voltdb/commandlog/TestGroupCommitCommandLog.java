@@ -0,0 +1,252 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2022 Volt Active Data Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.commandlog;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.voltcore.utils.InstanceId;
+import org.voltdb.CommandLog.CompletionChecks;
+import org.voltdb.CommandLog.DurabilityListener;
+import org.voltdb.StoredProcedureInvocation;
+import org.voltdb.iv2.TransactionTask;
+import org.voltdb.iv2.TxnEgo;
+import org.voltdb.iv2.UniqueIdGenerator;
+import org.voltdb.messaging.Iv2InitiateTaskMessage;
+
+import junit.framework.TestCase;
+
+public class TestGroupCommitCommandLog extends TestCase {
+    private static final InstanceId INSTANCE_ID = new InstanceId(0, 12345);
+
+    private File m_dir;
+    private GroupCommitCommandLog m_log;
+    private DurabilityListener m_listener;
+
+    @Override
+    @Before
+    public void setUp() throws Exception {
+        m_dir = Files.createTempDirectory("TestGroupCommitCommandLog").toFile();
+        m_listener = mock(DurabilityListener.class);
+        CompletionChecks checks = mock(CompletionChecks.class);
+        when(m_listener.startNewTaskList(anyInt())).thenReturn(checks);
+    }
+
+    @Override
+    @After
+    public void tearDown() throws Exception {
+        if (m_log != null) {
+            m_log.shutdown();
+        }
+        FileUtils.deleteDirectory(m_dir);
+    }
+
+    private void startLog(boolean synchronous, long segmentSize) {
+        m_log = new GroupCommitCommandLog(synchronous, 1, 100, m_dir.getPath(), segmentSize, INSTANCE_ID);
+        m_log.init(1024, Long.MIN_VALUE, null, Collections.emptyMap());
+    }
+
+    private static Iv2InitiateTaskMessage createMessage(long spHandle, boolean singlePartition, Object... params) {
+        StoredProcedureInvocation invocation = new StoredProcedureInvocation();
+        invocation.setProcName("TestProc");
+        invocation.setParams(params);
+        Iv2InitiateTaskMessage message = new Iv2InitiateTaskMessage(1, 2, spHandle - 1, spHandle,
+                UniqueIdGenerator.makeIdFromComponents(System.currentTimeMillis(), 0, 0), false,
+                singlePartition, false, invocation, 3, 4, false);
+        message.setSpHandle(spHandle);
+        return message;
+    }
+
+    private List<Iv2InitiateTaskMessage> logTransactions(int count, int partitionCount) {
+        List<Iv2InitiateTaskMessage> logged = new ArrayList<>();
+        TxnEgo[] egos = new TxnEgo[partitionCount];
+        for (int p = 0; p < partitionCount; p++) {
+            egos[p] = TxnEgo.makeZero(p);
+        }
+        for (int i = 0; i < count; i++) {
+            int partition = i % partitionCount;
+            egos[partition] = egos[partition].makeNext();
+            long spHandle = egos[partition].getTxnId();
+            Iv2InitiateTaskMessage message = createMessage(spHandle, true, i, "value " + i);
+            m_log.log(message, spHandle, null, m_listener, mock(TransactionTask.class));
+            logged.add(message);
+        }
+        return logged;
+    }
+
+    private static List<Iv2InitiateTaskMessage> readLog(File dir) throws IOException {
+        List<Iv2InitiateTaskMessage> read = new ArrayList<>();
+        CommandLogReader reader = CommandLogReader.open(dir);
+        reader.forEachInitiation((spHandle, involvedPartitions, message) -> {
+            assertEquals(spHandle, message.getSpHandle());
+            read.add(message);
+        });
+        return read;
+    }
+
+    private static void assertSameTransactions(List<Iv2InitiateTaskMessage> expected,
+            List<Iv2InitiateTaskMessage> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getSpHandle(), actual.get(i).getSpHandle());
+            assertEquals(expected.get(i).getUniqueId(), actual.get(i).getUniqueId());
+            assertEquals("TestProc", actual.get(i).getStoredProcedureName());
+            assertEquals(expected.get(i).getParameters()[1], actual.get(i).getParameters()[1]);
+        }
+    }
+
+    @Test
+    public void testSynchronousLoggingReleasesTasksAfterSync() throws Exception {
+        startLog(true, 1024 * 1024);
+        assertTrue(m_log.isSynchronous());
+        assertFalse(m_log.canOfferTask());
+
+        TransactionTask task = mock(TransactionTask.class);
+        long spHandle = TxnEgo.makeZero(0).makeNext().getTxnId();
+        assertNull(m_log.log(createMessage(spHandle, true, 1, "one"), spHandle, null, m_listener, task));
+
+        verify(m_listener, timeout(5000)).addTransaction(task);
+        verify(m_listener, timeout(5000).atLeastOnce()).processDurabilityChecks(any(CompletionChecks.class));
+    }
+
+    @Test
+    public void testAsynchronousLoggingDoesNotBlock() throws Exception {
+        startLog(false, 1024 * 1024);
+        assertTrue(m_log.canOfferTask());
+
+        long spHandle = TxnEgo.makeZero(0).makeNext().getTxnId();
+        assertTrue(m_log.log(createMessage(spHandle, true, 1, "one"), spHandle, null, m_listener,
+                mock(TransactionTask.class)).isDone());
+        verify(m_listener, timeout(5000).atLeastOnce()).processDurabilityChecks(any(CompletionChecks.class));
+    }
+
+    @Test
+    public void testReadBackLoggedTransactions() throws Exception {
+        startLog(true, 1024 * 1024);
+        List<Iv2InitiateTaskMessage> logged = logTransactions(500, 3);
+
+        long mpSpHandle = TxnEgo.makeZero(1).makeNext().makeNext().makeNext().getTxnId() + 1000;
+        Iv2InitiateTaskMessage mp = createMessage(mpSpHandle, false, -1, "mp");
+        m_log.log(mp, mpSpHandle, new int[] { 0, 1, 2 }, m_listener, mock(TransactionTask.class));
+        m_log.shutdown();
+        m_log = null;
+
+        List<Iv2InitiateTaskMessage> read = readLog(m_dir);
+        assertSameTransactions(logged, read.subList(0, logged.size()));
+        Iv2InitiateTaskMessage readMp = read.get(read.size() - 1);
+        assertFalse(readMp.isSinglePartition());
+        assertEquals(mp.getUniqueId(), readMp.getUniqueId());
+
+        CommandLogReader reader = CommandLogReader.open(m_dir);
+        assertEquals(INSTANCE_ID, reader.getInstanceId());
+        assertTrue(reader.getTruncationSpHandles().isEmpty());
+        // Not running in a cluster
+        assertEquals(0, reader.getClusterPartitionCount());
+    }
+
+    @Test
+    public void testClusterPartitionCount() throws Exception {
+        try (CommandLogSegment first = CommandLogSegment.preallocate(m_dir, 0, 64 * 1024)) {
+            first.open(INSTANCE_ID, 4, Collections.emptyMap());
+        }
+        assertEquals(4, CommandLogReader.open(m_dir).getClusterPartitionCount());
+
+        // A log spanning a change of the number of partitions cannot be replayed
+        try (CommandLogSegment second = CommandLogSegment.preallocate(m_dir, 1, 64 * 1024)) {
+            second.open(INSTANCE_ID, 8, Collections.emptyMap());
+        }
+        try {
+            CommandLogReader.open(m_dir).getClusterPartitionCount();
+            fail("Segments with different partition counts were accepted");
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void testSegmentsRoll() throws Exception {
+        startLog(false, 16 * 1024);
+        List<Iv2InitiateTaskMessage> logged = logTransactions(2000, 4);
+        m_log.shutdown();
+        m_log = null;
+
+        CommandLogReader reader = CommandLogReader.open(m_dir);
+        assertTrue(reader.getSegmentCount() > 1);
+        assertSameTransactions(logged, readLog(m_dir));
+    }
+
+    @Test
+    public void testTornTailIsIgnored() throws Exception {
+        startLog(true, 1024 * 1024);
+        List<Iv2InitiateTaskMessage> logged = logTransactions(10, 1);
+        m_log.shutdown();
+        m_log = null;
+
+        // Damage the last entry as if the process died while writing it
+        // header without truncation points
+        long lastEntry = 4 + 4 + 8 + 4 + 8 + 4 + 4;
+        for (int i = 0; i < 9; i++) {
+            lastEntry += CommandLogSegment.initiationEntry(logged.get(i), logged.get(i).getSpHandle(), null)
+                    .remaining();
+        }
+        try (RandomAccessFile file = new RandomAccessFile(new File(m_dir, CommandLogSegment.fileName(0)), "rw")) {
+            long damaged = lastEntry + CommandLogSegment.ENTRY_HEADER_SIZE + 1;
+            file.seek(damaged);
+            int b = file.read();
+            file.seek(damaged);
+            file.write(~b);
+        }
+
+        assertSameTransactions(logged.subList(0, 9), readLog(m_dir));
+    }
+
+    @Test
+    public void testInitRemovesSegmentsOfPreviousInstance() throws Exception {
+        startLog(true, 1024 * 1024);
+        logTransactions(10, 2);
+        m_log.shutdown();
+        m_log = null;
+        assertFalse(CommandLogReader.open(m_dir).isEmpty());
+
+        startLog(true, 1024 * 1024);
+        m_log.shutdown();
+        m_log = null;
+        assertTrue(readLog(m_dir).isEmpty());
+    }
+}
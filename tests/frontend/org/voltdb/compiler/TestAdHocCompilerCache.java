@@ -0,0 +1,233 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2022 Volt Active Data Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.compiler;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+import org.voltdb.ParameterSet;
+import org.voltdb.VoltType;
+import org.voltdb.common.Constants;
+import org.voltdb.planner.BoundPlan;
+import org.voltdb.planner.CorePlan;
+
+import junit.framework.TestCase;
+
+public class TestAdHocCompilerCache extends TestCase {
+
+    private static byte[] hash(int seed) {
+        byte[] hash = new byte[20];
+        for (int i = 0; i < hash.length; i++) {
+            hash[i] = (byte) (seed + i);
+        }
+        return hash;
+    }
+
+    private static CorePlan makeCore(int id, byte[] catalogHash) {
+        byte[] fragment = ("{\"PLAN_NODES\":" + id + "}").getBytes(Constants.UTF8ENCODING);
+        return new CorePlan(fragment, null, hash(id), null, false, true,
+                new VoltType[] { VoltType.BIGINT }, catalogHash);
+    }
+
+    private static AdHocPlannedStatement makePlan(String sql, CorePlan core) {
+        return new AdHocPlannedStatement(sql.getBytes(Constants.UTF8ENCODING), core,
+                ParameterSet.fromArrayNoCopy(1L), null);
+    }
+
+    private static void put(AdHocCompilerCache cache, String sql, String token, CorePlan core) {
+        cache.put(sql, token, makePlan(sql, core), new String[] { "1" }, false, false);
+    }
+
+    @Test
+    public void testHitsAndMisses() {
+        AdHocCompilerCache cache = new AdHocCompilerCache(10, 10);
+        assertNull(cache.getWithSQL("select a from t where b = 1;"));
+        assertNull(cache.getWithParsedToken("select a from t where b = ?;"));
+
+        put(cache, "select a from t where b = 1;", "select a from t where b = ?;", makeCore(1, hash(0)));
+        assertNotNull(cache.getWithSQL("select a from t where b = 1;"));
+        List<BoundPlan> variants = cache.getWithParsedToken("select a from t where b = ?;");
+        assertEquals(1, variants.size());
+
+        // Same parameterized statement with another literal shares the core plan
+        put(cache, "select a from t where b = 2;", "select a from t where b = ?;", makeCore(1, hash(0)));
+        assertEquals(2, cache.getLiteralCacheSize());
+        assertEquals(1, cache.getCoreCacheSize());
+        assertEquals(1, cache.getWithParsedToken("select a from t where b = ?;").size());
+        assertSame(variants.get(0).m_core, cache.getWithSQL("select a from t where b = 2;").core);
+
+        assertEquals(2, cache.getLiteralCacheStats().hitCount());
+        assertEquals(1, cache.getLiteralCacheStats().missCount());
+        assertEquals(2, cache.getCoreCacheStats().hitCount());
+        assertEquals(1, cache.getCoreCacheStats().missCount());
+        assertTrue(cache.getLiteralCacheMemory() > 0);
+        assertTrue(cache.getCoreCacheMemory() > 0);
+    }
+
+    @Test
+    public void testEviction() {
+        AdHocCompilerCache cache = new AdHocCompilerCache(10, 10);
+        for (int i = 0; i < 100; i++) {
+            put(cache, "select a from t" + i + " where b = 1;", "select a from t" + i + " where b = ?;",
+                    makeCore(i, hash(0)));
+        }
+        assertTrue(cache.getLiteralCacheSize() <= 10);
+        assertTrue(cache.getCoreCacheSize() <= 10);
+        assertTrue(cache.getLiteralCacheStats().evictionCount() >= 90);
+        assertTrue(cache.getCoreCacheStats().evictionCount() >= 90);
+        // The most recent entry is still there
+        assertNotNull(cache.getWithSQL("select a from t99 where b = 1;"));
+    }
+
+    @Test
+    public void testConcurrentPut() throws InterruptedException {
+        final AdHocCompilerCache cache = new AdHocCompilerCache(1000, 1000);
+        final int threadCount = 4;
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            final int thread = t;
+            Thread th = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 200; i++) {
+                    // Every thread adds its own variant of the same statement
+                    put(cache, "select a from t" + i + " where b = " + thread + ";",
+                            "select a from t" + i + " where b = ?;", makeCore(i * threadCount + thread, hash(0)));
+                }
+            });
+            th.start();
+            threads.add(th);
+        }
+        start.countDown();
+        for (Thread th : threads) {
+            th.join();
+        }
+        assertEquals(200 * threadCount, cache.getLiteralCacheSize());
+        assertEquals(200, cache.getCoreCacheSize());
+        for (int i = 0; i < 200; i++) {
+            assertEquals(threadCount, cache.getWithParsedToken("select a from t" + i + " where b = ?;").size());
+        }
+    }
+
+    @Test
+    public void testRetainPlans() {
+        AdHocCompilerCache previous = new AdHocCompilerCache(10, 10, hash(0));
+        CorePlan onT = makeCore(1, hash(0));
+        onT.setDependees(Arrays.asList("T"), Collections.<String>emptyList());
+        CorePlan onUWithF = makeCore(2, hash(0));
+        onUWithF.setDependees(Arrays.asList("U"), Arrays.asList("F"));
+        put(previous, "select a from t where b = 1;", "select a from t where b = ?;", onT);
+        put(previous, "select f(a) from u where b = 1;", "select f(a) from u where b = ?;", onUWithF);
+        // Dependencies unknown
+        put(previous, "select a from v where b = 1;", "select a from v where b = ?;", makeCore(3, hash(0)));
+
+        AdHocCompilerCache altered = new AdHocCompilerCache(10, 10, hash(1));
+        assertEquals(1, altered.retainPlans(previous, new HashSet<>(Arrays.asList("T")), Collections.<String>emptySet()));
+        assertNull(altered.getWithSQL("select a from t where b = 1;"));
+        assertNull(altered.getWithParsedToken("select a from t where b = ?;"));
+        assertNull(altered.getWithParsedToken("select a from v where b = ?;"));
+        AdHocPlannedStatement retained = altered.getWithSQL("select f(a) from u where b = 1;");
+        assertNotNull(retained);
+        assertTrue(retained.core.wasPlannedAgainstHash(hash(1)));
+        List<BoundPlan> variants = altered.getWithParsedToken("select f(a) from u where b = ?;");
+        assertEquals(1, variants.size());
+        assertSame(retained.core, variants.get(0).m_core);
+        assertEquals(onUWithF.getTableDependees(), retained.core.getTableDependees());
+
+        AdHocCompilerCache functionChanged = new AdHocCompilerCache(10, 10, hash(2));
+        assertEquals(1, functionChanged.retainPlans(previous, Collections.<String>emptySet(),
+                new HashSet<>(Arrays.asList("F"))));
+        assertNotNull(functionChanged.getWithParsedToken("select a from t where b = ?;"));
+        assertNull(functionChanged.getWithParsedToken("select f(a) from u where b = ?;"));
+    }
+
+    @Test
+    public void testInvalidatePlans() {
+        AdHocCompilerCache cache = new AdHocCompilerCache(10, 10, hash(0));
+        CorePlan onT = makeCore(1, hash(0));
+        onT.setDependees(Arrays.asList("T"), Collections.<String>emptyList());
+        CorePlan onU = makeCore(2, hash(0));
+        onU.setDependees(Arrays.asList("U"), Collections.<String>emptyList());
+        put(cache, "select a from t where b = 1;", "select a from t where b = ?;", onT);
+        put(cache, "select a from u where b = 1;", "select a from u where b = ?;", onU);
+        // Dependencies unknown
+        put(cache, "select a from v where b = 1;", "select a from v where b = ?;", makeCore(3, hash(0)));
+
+        assertEquals(0, cache.invalidatePlans(Collections.<String>emptySet()));
+        assertEquals(2, cache.invalidatePlans(new HashSet<>(Arrays.asList("T"))));
+        assertNull(cache.getWithSQL("select a from t where b = 1;"));
+        assertNull(cache.getWithParsedToken("select a from t where b = ?;"));
+        assertNull(cache.getWithParsedToken("select a from v where b = ?;"));
+        assertNotNull(cache.getWithSQL("select a from u where b = 1;"));
+        assertNotNull(cache.getWithParsedToken("select a from u where b = ?;"));
+    }
+
+    @Test
+    public void testPersistence() throws Exception {
+        File file = File.createTempFile("adhoc_plan_cache", null);
+        try {
+            AdHocCompilerCache cache = new AdHocCompilerCache(10, 10, hash(0));
+            CorePlan core = makeCore(1, hash(0));
+            core.setPartitioningParamIndex(0);
+            core.setPartitioningParamValue(42L);
+            core.setDependees(Arrays.asList("T"), Collections.<String>emptyList());
+            put(cache, "select a from t where b = 1;", "select a from t where b = ?;", core);
+            put(cache, "select a from u where b = 1;", "select a from u where b = ?;", makeCore(2, hash(0)));
+            assertEquals(2, cache.saveCorePlans(file));
+
+            // Plans of another catalog are not loaded
+            AdHocCompilerCache otherCatalog = new AdHocCompilerCache(10, 10, hash(1));
+            assertFalse(otherCatalog.loadCorePlans(file));
+            assertEquals(0, otherCatalog.getCoreCacheSize());
+
+            AdHocCompilerCache restarted = new AdHocCompilerCache(10, 10, hash(0));
+            assertTrue(restarted.loadCorePlans(file));
+            assertEquals(2, restarted.getCoreCacheSize());
+            // Only parameterized plans are persisted
+            assertEquals(0, restarted.getLiteralCacheSize());
+
+            List<BoundPlan> variants = restarted.getWithParsedToken("select a from t where b = ?;");
+            assertEquals(1, variants.size());
+            assertEquals(cache.getWithParsedToken("select a from t where b = ?;").get(0), variants.get(0));
+            assertEquals(0, variants.get(0).m_core.getPartitioningParamIndex());
+            assertEquals(42L, variants.get(0).m_core.getPartitioningParamValue());
+            assertTrue(variants.get(0).m_core.wasPlannedAgainstHash(hash(0)));
+            assertEquals(core.getTableDependees(), variants.get(0).m_core.getTableDependees());
+            assertEquals(0, variants.get(0).m_core.getFunctionDependees().size());
+            assertNull(restarted.getWithParsedToken("select a from u where b = ?;").get(0).m_core.getTableDependees());
+        } finally {
+            file.delete();
+        }
+    }
+}
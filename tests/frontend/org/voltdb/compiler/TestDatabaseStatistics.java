@@ -0,0 +1,176 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2022 Volt Active Data Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.compiler;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import org.junit.Test;
+import org.voltdb.VoltType;
+import org.voltdb.compiler.DatabaseStatistics.ColumnStatistics;
+import org.voltdb.compiler.DatabaseStatistics.TableStatistics;
+import org.voltdb.expressions.ConstantValueExpression;
+import org.voltdb.expressions.ParameterValueExpression;
+
+import junit.framework.TestCase;
+
+public class TestDatabaseStatistics extends TestCase {
+
+    private static final double DELTA = 1e-9;
+
+    private static ConstantValueExpression constant(String value, VoltType type) {
+        ConstantValueExpression cve = new ConstantValueExpression();
+        cve.setValue(value);
+        cve.setValueType(type);
+        return cve;
+    }
+
+    // 10 distinct values, one of which is in half of the rows
+    private static ColumnStatistics skewed() {
+        Map<String, Double> mostCommon = new HashMap<>();
+        mostCommon.put("7", 0.5);
+        mostCommon.put("8", 0.1);
+        return new ColumnStatistics(10, mostCommon, false);
+    }
+
+    private static DatabaseStatistics database(long rows, long distinctValues) {
+        Map<String, ColumnStatistics> columns = new HashMap<>();
+        columns.put("A", new ColumnStatistics(distinctValues, Collections.<String, Double>emptyMap(), false));
+        columns.put("B", skewed());
+        Map<String, TableStatistics> tables = new HashMap<>();
+        tables.put("T", new TableStatistics(rows, columns));
+        return new DatabaseStatistics(tables, 0);
+    }
+
+    @Test
+    public void testEqualitySelectivity() {
+        ColumnStatistics column = skewed();
+        assertEquals(0.5, column.getEqualitySelectivity("7"), DELTA);
+        assertEquals(0.1, column.getEqualitySelectivity("8"), DELTA);
+        // The other 8 values share the other 40% of the rows
+        assertEquals(0.05, column.getEqualitySelectivity("1"), DELTA);
+        // Any value on average
+        assertEquals(0.1, column.getEqualitySelectivity(null), DELTA);
+
+        // Every value is known
+        ColumnStatistics complete = new ColumnStatistics(0, Collections.singletonMap("1", 1.0), true);
+        assertEquals(0, complete.getEqualitySelectivity("2"), DELTA);
+        assertEquals(1.0, complete.getEqualitySelectivity(null), DELTA);
+
+        // Only the most common values are known, the others are rarer
+        ColumnStatistics mostCommonOnly = new ColumnStatistics(0, Collections.singletonMap("x", 0.2), false);
+        assertEquals(0.2, mostCommonOnly.getEqualitySelectivity("y"), DELTA);
+        assertTrue(mostCommonOnly.getEqualitySelectivity(null) < 0);
+
+        ColumnStatistics unknown = new ColumnStatistics(0, Collections.<String, Double>emptyMap(), false);
+        assertTrue(unknown.getEqualitySelectivity("1") < 0);
+    }
+
+    // Counts from a prefix of the table lean towards the average of all the values
+    @Test
+    public void testPartialCoverage() throws Exception {
+        Map<String, Double> mostCommon = Collections.singletonMap("7", 0.5);
+        ColumnStatistics tenth = new ColumnStatistics(10, mostCommon, false, 0.1);
+        assertEquals(0.1 * 0.5 + 0.9 * 0.1, tenth.getEqualitySelectivity("7"), DELTA);
+        // Any value on average is known from the distinct values alone
+        assertEquals(0.1, tenth.getEqualitySelectivity(null), DELTA);
+        assertEquals(0.5, new ColumnStatistics(10, mostCommon, false, 1).getEqualitySelectivity("7"), DELTA);
+        // Without the number of distinct values a prefix is not trusted at all
+        assertTrue(new ColumnStatistics(0, mostCommon, false, 0.1).getEqualitySelectivity("7") < 0);
+
+        ColumnStatistics copy = DatabaseStatistics.fromJSONString(new DatabaseStatistics(
+                Collections.singletonMap("T", new TableStatistics(1, Collections.singletonMap("C", tenth))), 0)
+                .toJSONString()).getTableStatistics("T").getColumnStatistics("C");
+        assertEquals(tenth.getEqualitySelectivity("7"), copy.getEqualitySelectivity("7"), DELTA);
+    }
+
+    @Test
+    public void testValueKeys() {
+        assertEquals("7", DatabaseStatistics.valueKey((Object) (byte) 7));
+        assertEquals("7", DatabaseStatistics.valueKey(7L));
+        assertEquals("abc", DatabaseStatistics.valueKey("abc"));
+        assertEquals("7", DatabaseStatistics.valueKey(constant("7", VoltType.INTEGER)));
+        assertEquals("abc", DatabaseStatistics.valueKey(constant("abc", VoltType.STRING)));
+        assertNull(DatabaseStatistics.valueKey(constant("7.5", VoltType.FLOAT)));
+        assertNull(DatabaseStatistics.valueKey(new ParameterValueExpression()));
+    }
+
+    @Test
+    public void testEstimates() {
+        DatabaseEstimates withoutStatistics = new DatabaseEstimates();
+        assertFalse(withoutStatistics.hasStatistics());
+        DatabaseEstimates.TableEstimates defaults = withoutStatistics.getEstimatesForTable("T");
+        assertEquals(1000000, defaults.maxTuples);
+        assertTrue(defaults.getEqualitySelectivity("B", constant("7", VoltType.INTEGER)) < 0);
+
+        DatabaseEstimates estimates = new DatabaseEstimates(database(50000, 100));
+        assertTrue(estimates.hasStatistics());
+        DatabaseEstimates.TableEstimates table = estimates.getEstimatesForTable("T");
+        assertEquals(50000, table.maxTuples);
+        assertEquals(0.5, table.getEqualitySelectivity("B", constant("7", VoltType.INTEGER)), DELTA);
+        assertEquals(0.01, table.getEqualitySelectivity("A", new ParameterValueExpression()), DELTA);
+        assertTrue(table.getEqualitySelectivity("C", constant("7", VoltType.INTEGER)) < 0);
+        // No statistics for this table
+        assertEquals(1000000, estimates.getEstimatesForTable("U").maxTuples);
+
+        // Small tables are not trusted to stay small
+        assertEquals(DatabaseEstimates.MIN_ESTIMATED_TUPLES,
+                new DatabaseEstimates(database(3, 3)).getEstimatesForTable("T").maxTuples);
+    }
+
+    @Test
+    public void testChangedTables() {
+        DatabaseStatistics statistics = database(50000, 100);
+        assertEquals(new HashSet<>(Arrays.asList("T")), statistics.getChangedTables(null, 2));
+        assertTrue(database(60000, 150).getChangedTables(statistics, 2).isEmpty());
+        assertEquals(new HashSet<>(Arrays.asList("T")), database(200000, 100).getChangedTables(statistics, 2));
+        assertEquals(new HashSet<>(Arrays.asList("T")), database(50000, 10).getChangedTables(statistics, 2));
+        DatabaseStatistics empty = new DatabaseStatistics(Collections.<String, TableStatistics>emptyMap(), 0);
+        assertEquals(new HashSet<>(Arrays.asList("T")), empty.getChangedTables(statistics, 2));
+    }
+
+    // The statistics collected on one host are shared with the others as JSON
+    @Test
+    public void testJSONRoundTrip() throws Exception {
+        DatabaseStatistics statistics = database(50000, 100);
+        DatabaseStatistics copy = DatabaseStatistics.fromJSONString(statistics.toJSONString());
+        assertEquals(statistics.getTimestamp(), copy.getTimestamp());
+        assertTrue(copy.getChangedTables(statistics, 1.0001).isEmpty());
+        TableStatistics table = copy.getTableStatistics("T");
+        assertEquals(50000, table.getRowsPerPartition());
+        assertEquals(100, table.getColumnStatistics("A").getDistinctValues());
+        ColumnStatistics skewed = table.getColumnStatistics("B");
+        assertEquals(skewed().getMostCommonValues(), skewed.getMostCommonValues());
+        assertEquals(0.05, skewed.getEqualitySelectivity("1"), DELTA);
+
+        ColumnStatistics complete = DatabaseStatistics.fromJSONString(new DatabaseStatistics(
+                Collections.singletonMap("U", new TableStatistics(1, Collections.singletonMap("C",
+                        new ColumnStatistics(0, Collections.singletonMap("1", 1.0), true)))), 0).toJSONString())
+                .getTableStatistics("U").getColumnStatistics("C");
+        assertEquals(0, complete.getEqualitySelectivity("2"), DELTA);
+    }
+}
@@ -157,6 +157,27 @@ public class TestStreamBlockQueue extends TestCase {
         sb.discard();
     }
 
+    @Test
+    public void testReadOnlyBlockHeader() throws Exception {
+        ByteBuffer filled = getFilledBuffer((byte)7);
+        BBContainer cont = DBBPool.wrapBB(filled.asReadOnlyBuffer());
+        StreamBlock sb = new StreamBlock(BinaryDequeReader.Entry.wrap(cont), 100, 90, 3, 55L);
+        BBContainer persisted = sb.asBBContainer();
+        try {
+            ByteBuffer b = persisted.b().order(ByteOrder.LITTLE_ENDIAN);
+            assertEquals(100, b.getLong(StreamBlock.SEQUENCE_NUMBER_OFFSET));
+            assertEquals(90, b.getLong(StreamBlock.COMMIT_SEQUENCE_NUMBER_OFFSET));
+            assertEquals(3, b.getInt(StreamBlock.ROW_NUMBER_OFFSET));
+            assertEquals(55L, b.getLong(StreamBlock.UNIQUE_ID_OFFSET));
+            assertEquals(filled.capacity(), b.remaining());
+            assertEquals(7, b.get(StreamBlock.HEADER_SIZE));
+            // The read only source is left untouched
+            assertEquals(7, filled.get(0));
+        } finally {
+            persisted.discard();
+        }
+    }
+
     @Test
     public void testFuzz() throws Exception {
         byte zero = (byte)0;
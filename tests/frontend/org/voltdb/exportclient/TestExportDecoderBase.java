@@ -35,6 +35,7 @@ import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.TimeZone;
 
@@ -46,6 +47,7 @@ import org.voltdb.VoltTable;
 import org.voltdb.VoltType;
 import org.voltdb.common.Constants;
 import org.voltdb.export.AdvertisedDataSource;
+import org.voltdb.exportclient.decode.StringArrayDecoder;
 import org.voltdb.types.GeographyPointValue;
 import org.voltdb.types.GeographyValue;
 import org.voltdb.types.TimestampType;
@@ -378,4 +380,54 @@ public class TestExportDecoderBase
         }
     }
 
+
+    @Test
+    public void testExportRowReader() throws IOException {
+        long l = System.currentTimeMillis();
+        VoltTable table = vtable.clone(0);
+        table.addRow(l, l, l, 0, l, l, (byte) 1, (short) 2, 3, 4, 5.5, 6, "xx", new BigDecimal(88), GEOG_POINT, GEOG);
+        table.addRow(l, l, l, 0, l, l, null, (short) -2, null, 4, null, 6, null, null, null, GEOG);
+        byte[] rowBytes = ExportEncoder.encodeTable(table, "mytable", 7, 1L);
+        ByteBuffer bb = ByteBuffer.wrap(rowBytes);
+        bb.order(ByteOrder.LITTLE_ENDIAN);
+        int schemaSize = bb.getInt();
+        ExportRow schemaRow = ExportRow.decodeBufferSchema(bb, schemaSize, 1, 0);
+        StringArrayDecoder decoder = StringArrayDecoder.builder().build();
+
+        ExportRowReader reader = new ExportRowReader();
+        String[] fields = null;
+        for (int r = 0; r < 2; r++) {
+            int rowSize = bb.getInt();
+            int rowOffset = bb.position();
+            reader.readRow(schemaRow, 0, bb, rowOffset, rowSize);
+            // Reading does not move the buffer
+            assertEquals(rowOffset, bb.position());
+            ExportRow expected = ExportRow.decodeRow(schemaRow, 0, bb);
+            assertEquals(rowOffset + rowSize, bb.position());
+
+            assertEquals(expected.values.length, reader.getColumnCount());
+            for (int i = 0; i < reader.getColumnCount(); i++) {
+                assertEquals(expected.values[i] == null, reader.isNull(i));
+                if (expected.values[i] != null) {
+                    assertEquals(expected.values[i].toString(), reader.getObject(i).toString());
+                }
+            }
+            assertEquals(expected.partitionValue, reader.getPartitionValue());
+            assertEquals(l, reader.getTransactionId());
+            assertEquals(l, reader.getSequenceNumber());
+            assertEquals(2 * (1 - 2 * r), reader.getLong(7));
+            assertEquals(6, reader.getLong(11));
+            if (r == 0) {
+                assertEquals(5.5, reader.getDouble(10), 0.0);
+                assertEquals("xx", reader.getString(12));
+                assertEquals(0, reader.getDecimal(13).compareTo(new BigDecimal(88)));
+            }
+            assertEquals(Arrays.deepToString(expected.values), Arrays.deepToString(reader.toExportRow().values));
+
+            String[] legacy = decoder.decode(expected.generation, expected.tableName, expected.types,
+                    expected.names, null, expected.values);
+            fields = decoder.decode(reader, fields);
+            assertEquals(Arrays.asList(legacy), Arrays.asList(fields));
+        }
+    }
 }
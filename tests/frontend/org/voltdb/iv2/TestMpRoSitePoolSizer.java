@@ -0,0 +1,147 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2022 Volt Active Data Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.iv2;
+
+import org.junit.Test;
+import org.voltdb.iv2.MpRoSitePool.PoolSizer;
+
+import junit.framework.TestCase;
+
+public class TestMpRoSitePoolSizer extends TestCase
+{
+    private static final long LATENCY = 1000000;
+
+    // Complete a window of reads which all took latencyNanos
+    private static int completeWindow(PoolSizer sizer, long latencyNanos, boolean waited, int busy)
+    {
+        int change = 0;
+        final int reads = sizer.getTargetSize() * PoolSizer.WINDOW_PER_SITE;
+        for (int i = 0; i < reads; i++) {
+            sizer.started(busy);
+            if (waited) {
+                change += sizer.readsWaiting();
+            }
+            change += sizer.completed(latencyNanos, busy - 1);
+        }
+        return change;
+    }
+
+    // Grow as soon as a read waits, once a latency is known and no growth is being evaluated
+    private static int grow(PoolSizer sizer)
+    {
+        return sizer.readsWaiting();
+    }
+
+    // The minimum size is available right away, like the pool which used to grow on demand
+    @Test
+    public void testStartsAtMinimum()
+    {
+        PoolSizer sizer = new PoolSizer(3, 8, true);
+        assertEquals(3, sizer.getTargetSize());
+        // Nothing to compare a growth with before the first read completes
+        assertEquals(0, grow(sizer));
+        assertEquals(3, sizer.getTargetSize());
+    }
+
+    // Reads waiting for a site grow the pool right away, one site per evaluated growth, up to the maximum
+    @Test
+    public void testGrowsWhileReadsWait()
+    {
+        PoolSizer sizer = new PoolSizer(1, 3, true);
+        sizer.started(1);
+        assertEquals(0, sizer.completed(LATENCY, 0));
+        assertEquals(1, grow(sizer));
+        assertEquals(2, sizer.getTargetSize());
+        // Only one growth is evaluated at a time
+        assertEquals(0, grow(sizer));
+        assertEquals(0, completeWindow(sizer, LATENCY, false, 2));
+        assertEquals(1, grow(sizer));
+        assertEquals(3, sizer.getTargetSize());
+        assertEquals(0, completeWindow(sizer, LATENCY, false, 3));
+        assertEquals(0, grow(sizer));
+        assertEquals(3, sizer.getTargetSize());
+    }
+
+    // Without waiting reads the pool shrinks to the sites which were busy, but not below the minimum
+    @Test
+    public void testShrinksWhenIdle()
+    {
+        PoolSizer sizer = new PoolSizer(2, 5, true);
+        sizer.started(1);
+        sizer.completed(LATENCY, 0);
+        for (int size = 3; size <= 5; size++) {
+            assertEquals(1, grow(sizer));
+            assertEquals(0, completeWindow(sizer, LATENCY, true, size));
+        }
+        assertEquals(5, sizer.getTargetSize());
+        // The sites still busy when a window starts count towards its peak
+        assertEquals(-1, completeWindow(sizer, LATENCY, false, 3));
+        assertEquals(4, sizer.getTargetSize());
+        assertEquals(-1, completeWindow(sizer, LATENCY, false, 3));
+        assertEquals(3, sizer.getTargetSize());
+        assertEquals(-1, completeWindow(sizer, LATENCY, false, 1));
+        assertEquals(2, sizer.getTargetSize());
+        assertEquals(0, completeWindow(sizer, LATENCY, false, 1));
+        assertEquals(2, sizer.getTargetSize());
+    }
+
+    // A growth which slows the reads down is undone and not retried for a while
+    @Test
+    public void testBacksOffWhenReadsSlowDown()
+    {
+        PoolSizer sizer = new PoolSizer(1, 3, true);
+        sizer.started(1);
+        sizer.completed(LATENCY, 0);
+        assertEquals(1, grow(sizer));
+        assertEquals(-1, completeWindow(sizer, 4 * LATENCY, false, 2));
+        assertEquals(1, sizer.getTargetSize());
+        for (int i = 0; i < PoolSizer.HOLD_WINDOWS; i++) {
+            assertEquals(0, grow(sizer));
+            completeWindow(sizer, 4 * LATENCY, true, 1);
+        }
+        assertEquals(1, grow(sizer));
+        assertEquals(2, sizer.getTargetSize());
+    }
+
+    // A fixed size pool may always use all its sites
+    @Test
+    public void testNotAdaptive()
+    {
+        PoolSizer sizer = new PoolSizer(1, 3, false);
+        assertEquals(3, sizer.getTargetSize());
+        assertEquals(0, completeWindow(sizer, LATENCY, false, 1));
+        assertEquals(0, completeWindow(sizer, 4 * LATENCY, true, 3));
+        assertEquals(3, sizer.getTargetSize());
+    }
+
+    // The maximum follows the sites per host unless configured
+    @Test
+    public void testPoolSizeDefaults()
+    {
+        assertEquals(MpRoSitePool.LEGACY_POOL_SIZE, MpRoSitePool.maxPoolSize(0));
+        assertEquals(16, MpRoSitePool.maxPoolSize(16));
+        assertEquals(MpRoSitePool.LEGACY_POOL_SIZE, MpRoSitePool.minPoolSize(16));
+        assertEquals(2, MpRoSitePool.minPoolSize(2));
+    }
+}
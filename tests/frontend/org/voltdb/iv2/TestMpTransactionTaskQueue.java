@@ -92,7 +92,10 @@ public class TestMpTransactionTaskQueue extends TestCase
             m_dut.offer(makeTransactionTask(txnId.getTxnId(), true));
             delayedTxns.add(txnId.getTxnId());
             verify(m_MPpool, never()).doWork(eq(txnId.getTxnId()), any(TransactionTask.class));
+            // and the pool hears that it is too small
+            verify(m_MPpool).readsWaiting(i + 1);
         }
+        verify(m_MPpool, times(100)).recordQueueWait(anyLong());
         // flush something and watch the delayed ones come out
         for (int i = 0; i < 10; i++) {
             // flush will cause the pool to be able to accept work before it
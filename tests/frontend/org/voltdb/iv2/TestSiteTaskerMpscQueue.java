@@ -0,0 +1,196 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2022 Volt Active Data Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.iv2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.voltdb.client.Priority;
+import org.voltdb.iv2.SiteTaskerMpscQueue.WaitStrategy;
+
+import junit.framework.TestCase;
+
+public class TestSiteTaskerMpscQueue extends TestCase {
+
+    static class NumberedTask extends SiteTasker.SiteTaskerRunnable {
+        final int m_producer;
+        final int m_seq;
+
+        NumberedTask(int producer, int seq, int priority) {
+            m_producer = producer;
+            m_seq = seq;
+            setPriority(priority);
+            setQueueOfferTime();
+        }
+
+        @Override
+        void run() {
+        }
+    }
+
+    @Test
+    public void testFifoSingleLane() {
+        SiteTaskerMpscQueue queue = new SiteTaskerMpscQueue(WaitStrategy.PARK);
+        for (int i = 0; i < 100; i++) {
+            queue.offer(new NumberedTask(0, i, i % (Priority.LOWEST_PRIORITY + 1)));
+        }
+        assertEquals(100, queue.size());
+        assertEquals(0, ((NumberedTask) queue.peek()).m_seq);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, ((NumberedTask) queue.poll()).m_seq);
+        }
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void testPriorityLanes() {
+        SiteTaskerMpscQueue queue = new SiteTaskerMpscQueue(WaitStrategy.PARK, true, 0, 0);
+        int seq = 0;
+        for (int prio = Priority.LOWEST_PRIORITY; prio >= Priority.SYSTEM_PRIORITY; prio--) {
+            for (int i = 0; i < 3; i++) {
+                queue.offer(new NumberedTask(0, seq++, prio));
+            }
+        }
+        int lastPriority = Priority.SYSTEM_PRIORITY;
+        int lastSeq = -1;
+        NumberedTask task;
+        while ((task = (NumberedTask) queue.poll()) != null) {
+            assertTrue(task.getPriority() >= lastPriority);
+            if (task.getPriority() == lastPriority) {
+                assertTrue(task.m_seq > lastSeq);
+            }
+            lastPriority = task.getPriority();
+            lastSeq = task.m_seq;
+        }
+        assertEquals(Priority.LOWEST_PRIORITY, lastPriority);
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testMaxWaitPromotion() throws InterruptedException {
+        SiteTaskerMpscQueue queue = new SiteTaskerMpscQueue(WaitStrategy.PARK, true, 1, 0);
+        queue.offer(new NumberedTask(0, 0, Priority.LOWEST_PRIORITY));
+        Thread.sleep(10);
+        queue.offer(new NumberedTask(0, 1, Priority.HIGHEST_PRIORITY));
+        // The lowest priority task has waited past max wait
+        assertEquals(0, ((NumberedTask) queue.poll()).m_seq);
+        assertEquals(1, ((NumberedTask) queue.poll()).m_seq);
+    }
+
+    @Test
+    public void testSystemPriorityBatching() {
+        SiteTaskerMpscQueue queue = new SiteTaskerMpscQueue(WaitStrategy.PARK, true, 0, 3);
+        queue.offer(new NumberedTask(0, 0, Priority.SYSTEM_PRIORITY));
+        queue.offer(new NumberedTask(0, 1, Priority.DEFAULT_PRIORITY));
+        // Batch not full, user task goes first
+        assertEquals(1, ((NumberedTask) queue.poll()).m_seq);
+        queue.offer(new NumberedTask(0, 2, Priority.SYSTEM_PRIORITY));
+        queue.offer(new NumberedTask(0, 3, Priority.DEFAULT_PRIORITY));
+        queue.offer(new NumberedTask(0, 4, Priority.SYSTEM_PRIORITY));
+        // Batch is full, drained in one go
+        assertEquals(0, ((NumberedTask) queue.poll()).m_seq);
+        assertEquals(2, ((NumberedTask) queue.poll()).m_seq);
+        assertEquals(4, ((NumberedTask) queue.poll()).m_seq);
+        assertEquals(3, ((NumberedTask) queue.poll()).m_seq);
+        // Only system tasks queued, no need to wait for a full batch
+        queue.offer(new NumberedTask(0, 5, Priority.SYSTEM_PRIORITY));
+        assertEquals(5, ((NumberedTask) queue.poll()).m_seq);
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void testIterator() {
+        SiteTaskerMpscQueue queue = new SiteTaskerMpscQueue(WaitStrategy.PARK, true, 0, 0);
+        assertFalse(queue.iterator().hasNext());
+        queue.offer(new NumberedTask(0, 0, Priority.LOWEST_PRIORITY));
+        queue.offer(new NumberedTask(0, 1, Priority.SYSTEM_PRIORITY));
+        queue.offer(new NumberedTask(0, 2, Priority.DEFAULT_PRIORITY));
+        queue.offer(new NumberedTask(0, 3, Priority.SYSTEM_PRIORITY));
+        assertEquals(1, ((NumberedTask) queue.poll()).m_seq);
+
+        // Lanes in priority order, FIFO within a lane, polled tasks are gone
+        List<Integer> seqs = new ArrayList<>();
+        for (SiteTasker task : queue) {
+            seqs.add(((NumberedTask) task).m_seq);
+        }
+        assertEquals(Arrays.asList(3, 2, 0), seqs);
+        assertTrue(queue.contains(queue.peek()));
+        // Iterating leaves the queue untouched
+        assertEquals(3, queue.size());
+        assertEquals(3, ((NumberedTask) queue.poll()).m_seq);
+    }
+
+    @Test
+    public void testMultipleProducers() throws InterruptedException {
+        for (WaitStrategy strategy : WaitStrategy.values()) {
+            runProducers(new SiteTaskerMpscQueue(strategy));
+            runProducers(new SiteTaskerMpscQueue(strategy, true, 10, 4));
+        }
+    }
+
+    private void runProducers(final SiteTaskerMpscQueue queue) throws InterruptedException {
+        final int producers = 4;
+        final int tasksPerProducer = 20000;
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            Thread t = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < tasksPerProducer; i++) {
+                    // Keep each producer on one lane so per-producer order is observable
+                    queue.offer(new NumberedTask(producer, i, Priority.SYSTEM_PRIORITY + producer));
+                }
+            });
+            t.start();
+            threads.add(t);
+        }
+        start.countDown();
+
+        int[] lastSeq = new int[producers];
+        for (int p = 0; p < producers; p++) {
+            lastSeq[p] = -1;
+        }
+        for (int i = 0; i < producers * tasksPerProducer; i++) {
+            NumberedTask task = (NumberedTask) queue.poll(10, TimeUnit.SECONDS);
+            assertNotNull(task);
+            assertEquals(lastSeq[task.m_producer] + 1, task.m_seq);
+            lastSeq[task.m_producer] = task.m_seq;
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+    }
+}
@@ -0,0 +1,104 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2022 Volt Active Data Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.jni;
+
+import org.junit.Test;
+import org.voltcore.utils.DBBPool;
+import org.voltcore.utils.DBBPool.BBContainer;
+
+import junit.framework.TestCase;
+
+public class TestResultBufferArena extends TestCase {
+
+    @Test
+    public void testExchangeAndReclaim() {
+        ResultBufferArena arena = new ResultBufferArena(1024, 2, 100);
+        BBContainer first = DBBPool.allocateDirect(1024);
+        first.b().putInt(42);
+
+        assertTrue(arena.canDetach());
+        BBContainer second = arena.exchange(first);
+        assertNotSame(first, second);
+        assertEquals(1024, second.b().capacity());
+        assertEquals(0, second.b().position());
+        // Detached results are left untouched
+        assertEquals(42, first.b().getInt(0));
+
+        BBContainer third = arena.exchange(second);
+        assertFalse(arena.canDetach());
+        assertEquals(2, arena.getDetachedCount());
+
+        // Both detached buffers are kept for the next procedure
+        arena.reclaim();
+        assertTrue(arena.canDetach());
+        assertEquals(0, arena.getDetachedCount());
+        assertEquals(2, arena.getPooledCount());
+
+        // The pooled buffers are handed out again
+        BBContainer fourth = arena.exchange(third);
+        BBContainer fifth = arena.exchange(fourth);
+        assertEquals(0, arena.getPooledCount());
+        assertTrue(fourth == first || fourth == second);
+        assertTrue(fifth == first || fifth == second);
+        assertEquals(0, fourth.b().position());
+
+        arena.discard();
+        assertEquals(0, arena.getDetachedCount());
+        assertEquals(0, arena.getPooledCount());
+        fifth.discard();
+    }
+
+    // Pooled buffers which procedures stopped detaching are freed
+    @Test
+    public void testTrim() {
+        ResultBufferArena arena = new ResultBufferArena(1024, 2, 3);
+        BBContainer current = DBBPool.allocateDirect(1024);
+        current = arena.exchange(current);
+        current = arena.exchange(current);
+        arena.reclaim();
+        assertEquals(2, arena.getPooledCount());
+
+        // One buffer per procedure for the rest of the interval
+        current = arena.exchange(current);
+        arena.reclaim();
+        current = arena.exchange(current);
+        arena.reclaim();
+        // The interval saw two buffers detached at once, both are kept
+        assertEquals(2, arena.getPooledCount());
+
+        for (int i = 0; i < 3; i++) {
+            current = arena.exchange(current);
+            arena.reclaim();
+        }
+        assertEquals(1, arena.getPooledCount());
+
+        for (int i = 0; i < 3; i++) {
+            arena.reclaim();
+        }
+        assertEquals(0, arena.getPooledCount());
+
+        arena.discard();
+        current.discard();
+    }
+}
@@ -27,6 +27,11 @@ import static org.mockito.Mockito.mock;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.voltcore.messaging.HostMessenger;
 import org.voltdb.CatalogContext;
@@ -139,6 +144,59 @@ public class TestPlannerTool extends TestCase {
         System.out.println(result);
     }
 
+    public void testConcurrentPlanning() throws Exception {
+        TPCCProjectBuilder builder = new TPCCProjectBuilder();
+        builder.addAllDefaults();
+        final File jar = new File("tpcc-concurrent-oop.jar");
+        jar.deleteOnExit();
+        builder.compile("tpcc-concurrent-oop.jar");
+
+        byte[] bytes = MiscUtils.fileToBytes(jar);
+        String serializedCatalog = CatalogUtil.getSerializedCatalogStringFromJar(CatalogUtil.loadAndUpgradeCatalogFromJar(bytes, false).getFirst());
+        Catalog catalog = new Catalog();
+        catalog.execute(serializedCatalog);
+        DbSettings settings = new DbSettings(ClusterSettings.create().asSupplier(), NodeSettings.create());
+        CatalogContext context = new CatalogContext(catalog, settings, 0, 0, bytes, null, new byte[] {}, mock(HostMessenger.class));
+
+        final int threads = 4;
+        m_pt = new PlannerTool(context.database, context.getCatalogHash(), threads);
+
+        // Subqueries, unions and parameters all use the per thread planner counters
+        final String[] queries = {
+                "select * from warehouse where w_id = 5;",
+                "select c_id, c_last from customer where c_w_id = ? and c_d_id = ? order by c_last;",
+                "select d_name from district where d_w_id in (select w_id from warehouse where w_tax > 0.5);",
+                "select o_id from orders where o_w_id = 3 union select no_o_id from new_order where no_w_id = 3;",
+                "select count(*) from stock, order_line where s_w_id = ol_w_id and s_i_id = ol_i_id and ol_w_id = 1;",
+                "select c_id from customer where c_w_id = 2 and exists (select 1 from orders where o_c_id = c_id);"
+        };
+        final String[] expected = new String[queries.length];
+        for (int i = 0; i < queries.length; ++i) {
+            expected[i] = m_pt.planSqlCore(queries[i], StatementPartitioning.inferPartitioning()).explainedPlan;
+        }
+
+        ExecutorService es = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < threads; ++t) {
+                final int offset = t;
+                results.add(es.submit(() -> {
+                    for (int i = 0; i < 50; ++i) {
+                        int q = (offset + i) % queries.length;
+                        assertEquals(expected[q],
+                                m_pt.planSqlCore(queries[q], StatementPartitioning.inferPartitioning()).explainedPlan);
+                        assertNotNull(m_pt.planSqlForTest(queries[q]));
+                    }
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            es.shutdown();
+        }
+    }
+
     public void testBadDDL() throws IOException
     {
         // semicolons in in-lined comments are bad
@@ -0,0 +1,196 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2022 Volt Active Data Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.planner;
+
+import java.util.List;
+
+import org.json_voltpatches.JSONObject;
+import org.voltdb.expressions.TupleValueExpression;
+import org.voltdb.plannodes.AbstractPlanNode;
+import org.voltdb.plannodes.HashJoinPlanNode;
+import org.voltdb.types.ExpressionType;
+import org.voltdb.types.JoinType;
+import org.voltdb.types.PlanNodeType;
+
+public class TestPlansHashJoin extends PlannerTestCase {
+
+    private HashJoinPlanNode getHashJoin(AbstractPlanNode pn) {
+        List<AbstractPlanNode> hashJoins = pn.findAllNodesOfType(PlanNodeType.HASHJOIN);
+        assertEquals(1, hashJoins.size());
+        return (HashJoinPlanNode) hashJoins.get(0);
+    }
+
+    public void testInnerJoin() {
+        AbstractPlanNode pn = compileToTopDownTree("SELECT * FROM R1 JOIN R2 ON R1.C = R2.C", 5,
+                true,
+                PlanNodeType.SEND,
+                PlanNodeType.HASHJOIN,
+                PlanNodeType.SEQSCAN, PlanNodeType.SEQSCAN);
+        HashJoinPlanNode hjNode = getHashJoin(pn);
+        assertEquals(JoinType.INNER, hjNode.getJoinType());
+        assertEquals(1, hjNode.getOuterHashExpressions().size());
+        assertEquals(1, hjNode.getInnerHashExpressions().size());
+        // The whole join predicate is still checked for every candidate
+        assertEquals(ExpressionType.COMPARE_EQUAL, hjNode.getJoinPredicate().getExpressionType());
+        // Nothing relies on the order of the sequential scan of R1 so the EE may hash either side
+        assertTrue(hjNode.canHashOuter());
+
+        // Every equality between the two sides is a hash key
+        pn = compile("SELECT * FROM R1 JOIN R2 ON R1.C = R2.C AND R2.A = R1.A");
+        hjNode = getHashJoin(pn);
+        assertEquals(2, hjNode.getOuterHashExpressions().size());
+        for (int i = 0; i < 2; ++i) {
+            assertEquals("R1", ((TupleValueExpression) hjNode.getOuterHashExpressions().get(i)).getTableAlias());
+            assertEquals("R2", ((TupleValueExpression) hjNode.getInnerHashExpressions().get(i)).getTableAlias());
+        }
+    }
+
+    public void testOuterJoins() {
+        // Only the equality is a hash key
+        AbstractPlanNode pn = compileToTopDownTree("SELECT * FROM R1 LEFT JOIN R2 ON R1.C = R2.C AND R1.D > R2.A", 5,
+                true,
+                PlanNodeType.SEND,
+                PlanNodeType.HASHJOIN,
+                PlanNodeType.SEQSCAN, PlanNodeType.SEQSCAN);
+        HashJoinPlanNode hjNode = getHashJoin(pn);
+        assertEquals(JoinType.LEFT, hjNode.getJoinType());
+        assertEquals(1, hjNode.getOuterHashExpressions().size());
+        assertEquals("R1", ((TupleValueExpression) hjNode.getOuterHashExpressions().get(0)).getTableAlias());
+        assertEquals("R2", ((TupleValueExpression) hjNode.getInnerHashExpressions().get(0)).getTableAlias());
+        assertEquals(ExpressionType.CONJUNCTION_AND, hjNode.getJoinPredicate().getExpressionType());
+
+        pn = compileToTopDownTree("SELECT * FROM R1 FULL JOIN R2 ON R1.C = R2.C", 5,
+                true,
+                PlanNodeType.SEND,
+                PlanNodeType.HASHJOIN,
+                PlanNodeType.SEQSCAN, PlanNodeType.SEQSCAN);
+        hjNode = getHashJoin(pn);
+        assertEquals(JoinType.FULL, hjNode.getJoinType());
+        assertTrue(hjNode.canHashOuter());
+    }
+
+    public void testNoHashKeys() {
+        // No equality to hash on
+        compileToTopDownTree("SELECT * FROM R1 JOIN R2 ON R1.C > R2.C", 5,
+                true,
+                PlanNodeType.SEND,
+                PlanNodeType.NESTLOOP,
+                PlanNodeType.SEQSCAN, PlanNodeType.SEQSCAN);
+
+        // NULLs are not distinct from each other but are never hashed
+        compileToTopDownTree("SELECT * FROM R1 JOIN R2 ON R1.C IS NOT DISTINCT FROM R2.C", 5,
+                true,
+                PlanNodeType.SEND,
+                PlanNodeType.NESTLOOP,
+                PlanNodeType.SEQSCAN, PlanNodeType.SEQSCAN);
+
+        // Both sides of the equality come from the same table
+        compileToTopDownTree("SELECT * FROM R1 JOIN R2 ON R1.C = R1.D", 5,
+                true,
+                PlanNodeType.SEND,
+                PlanNodeType.NESTLOOP,
+                PlanNodeType.SEQSCAN, PlanNodeType.SEQSCAN);
+    }
+
+    public void testIndexedInnerUsesIndex() {
+        // An index on the inner join column beats hashing
+        compileToTopDownTree("SELECT * FROM R1 JOIN R3 ON R1.A = R3.A", 5,
+                true,
+                PlanNodeType.SEND,
+                PlanNodeType.NESTLOOPINDEX,
+                PlanNodeType.SEQSCAN);
+    }
+
+    public void testOrderedOuterIsNotHashed() {
+        // The ORDER BY is satisfied by the index scan of the outer table,
+        // so the hash join has to keep the outer order
+        AbstractPlanNode pn = compileSPWithJoinOrder("SELECT * FROM R3 JOIN R2 ON R3.C = R2.C ORDER BY R3.A", "R3,R2");
+        HashJoinPlanNode hjNode = getHashJoin(pn);
+        assertEquals(PlanNodeType.INDEXSCAN, hjNode.getChild(0).getPlanNodeType());
+        assertFalse(hjNode.canHashOuter());
+        assertEquals(0, pn.findAllNodesOfType(PlanNodeType.ORDERBY).size());
+
+        // Without an ORDER BY either side can be hashed
+        pn = compileSPWithJoinOrder("SELECT * FROM R1 JOIN R2 ON R1.C = R2.C ORDER BY R1.A", "R1,R2");
+        hjNode = getHashJoin(pn);
+        assertTrue(hjNode.canHashOuter());
+        assertEquals(1, pn.findAllNodesOfType(PlanNodeType.ORDERBY).size());
+    }
+
+    public void testThreeTableJoin() {
+        AbstractPlanNode pn = compileSPWithJoinOrder(
+                "SELECT * FROM R1 JOIN R2 ON R1.C = R2.C JOIN R4 ON R2.A = R4.B", "R1,R2,R4");
+        List<AbstractPlanNode> hashJoins = pn.findAllNodesOfType(PlanNodeType.HASHJOIN);
+        assertEquals(2, hashJoins.size());
+        for (AbstractPlanNode node : hashJoins) {
+            assertTrue(((HashJoinPlanNode) node).canHashOuter());
+        }
+    }
+
+    public void testDistributedJoin() {
+        // Partitioned tables joined on their partition columns are hashed in each partition
+        List<AbstractPlanNode> fragments = compileToFragments("SELECT * FROM P1 JOIN P4 ON P1.A = P4.A");
+        assertEquals(2, fragments.size());
+        assertEquals(0, fragments.get(0).findAllNodesOfType(PlanNodeType.HASHJOIN).size());
+        getHashJoin(fragments.get(1));
+    }
+
+    public void testJSONRoundTrip() throws Exception {
+        HashJoinPlanNode hjNode = getHashJoin(compile("SELECT * FROM R1 JOIN R2 ON R1.C = R2.C"));
+        HashJoinPlanNode copy = new HashJoinPlanNode();
+        copy.loadFromJSONObject(new JSONObject(hjNode.toJSONString()), getDatabase());
+        assertEquals(1, copy.getOuterHashExpressions().size());
+        assertEquals(1, copy.getInnerHashExpressions().size());
+        assertTrue(copy.canHashOuter());
+
+        hjNode = getHashJoin(compileSPWithJoinOrder("SELECT * FROM R3 JOIN R2 ON R3.C = R2.C ORDER BY R3.A", "R3,R2"));
+        copy = new HashJoinPlanNode();
+        copy.loadFromJSONObject(new JSONObject(hjNode.toJSONString()), getDatabase());
+        assertFalse(copy.canHashOuter());
+    }
+
+    public void testDisabled() {
+        try (SelectSubPlanAssembler.HashJoinOverride noHashJoin = new SelectSubPlanAssembler.HashJoinOverride(false)) {
+            compileToTopDownTree("SELECT * FROM R1 JOIN R2 ON R1.C = R2.C", 5,
+                    true,
+                    PlanNodeType.SEND,
+                    PlanNodeType.NESTLOOP,
+                    PlanNodeType.SEQSCAN, PlanNodeType.SEQSCAN);
+        }
+    }
+
+    // Hash joins are off by default, plan every test of this class with them
+    @Override
+    protected void runTest() throws Throwable {
+        try (SelectSubPlanAssembler.HashJoinOverride hashJoin = new SelectSubPlanAssembler.HashJoinOverride(true)) {
+            super.runTest();
+        }
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        setupSchema(TestJoinOrder.class.getResource("testplans-join-ddl.sql"),
+                "testplanshashjoin", false);
+    }
+}
@@ -0,0 +1,79 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2022 Volt Active Data Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.voltdb.stats;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class TestIntervalCounter {
+
+    @Test
+    public void shouldReturnChangeSinceLastIntervalRead() {
+        // Given
+        IntervalCounter counter = new IntervalCounter();
+        counter.increment();
+        counter.add(4);
+
+        // When
+        long firstInterval = counter.getInterval();
+        counter.decrement();
+        counter.add(3);
+        long secondInterval = counter.get(true);
+
+        // Then
+        assertThat(firstInterval).isEqualTo(5);
+        assertThat(secondInterval).isEqualTo(2);
+        assertThat(counter.get(false)).isEqualTo(7);
+        assertThat(counter.getInterval()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldCountUpdatesFromConcurrentThreads() throws Exception {
+        // Given
+        IntervalCounter counter = new IntervalCounter();
+        int threadCount = 4;
+        int incrementsPerThread = 100_000;
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < threadCount; i++) {
+            threads.add(new Thread(() -> {
+                for (int j = 0; j < incrementsPerThread; j++) {
+                    counter.increment();
+                }
+            }));
+        }
+
+        // When
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Then
+        assertThat(counter.get()).isEqualTo(threadCount * incrementsPerThread);
+        assertThat(counter.getInterval()).isEqualTo(threadCount * incrementsPerThread);
+    }
+}
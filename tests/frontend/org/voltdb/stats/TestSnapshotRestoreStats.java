@@ -0,0 +1,104 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2022 Volt Active Data Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.voltdb.stats;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import org.junit.Test;
+import org.voltdb.StatsSource;
+import org.voltdb.stats.SnapshotRestoreStats.RestoreProgress;
+import org.voltdb.stats.SnapshotRestoreStats.SnapshotRestore;
+
+public class TestSnapshotRestoreStats {
+
+    @Test
+    public void shouldKeepCountersPerRestore() {
+        // Given
+        SnapshotRestoreStats stats = new SnapshotRestoreStats();
+
+        // When
+        RestoreProgress first = stats.getRestore(1, "first");
+        first.chunkRead(100);
+        first.chunkRead(50);
+        RestoreProgress second = stats.getRestore(2, "second");
+        second.chunkRead(10);
+
+        // Then
+        assertThat(stats.getRestore(1, "first")).isSameAs(first);
+        assertThat(first.getBytesRead()).isEqualTo(150);
+        assertThat(second.getBytesRead()).isEqualTo(10);
+        // starting the second restore closes out the first
+        assertThat(first.isFinished()).isTrue();
+        assertThat(second.isFinished()).isFalse();
+    }
+
+    @Test
+    public void shouldReportOneRowPerRecentRestore() {
+        // Given
+        SnapshotRestoreStats stats = new SnapshotRestoreStats();
+
+        // When
+        for (long txnId = 0; txnId < SnapshotRestoreStats.MAX_RESTORES + 2; ++txnId) {
+            stats.getRestore(txnId, "nonce" + txnId);
+        }
+
+        // Then
+        ArrayList<Long> txnIds = new ArrayList<>();
+        Iterator<Object> rows = stats.getStatsRowKeyIterator(false);
+        while (rows.hasNext()) {
+            txnIds.add(((RestoreProgress) rows.next()).getTxnId());
+        }
+        assertThat(txnIds).hasSize(SnapshotRestoreStats.MAX_RESTORES);
+        assertThat(txnIds.get(0)).isEqualTo(2L);
+    }
+
+    @Test
+    public void shouldPopulateRowWithProgressAndThroughput() {
+        // Given
+        SnapshotRestoreStats stats = new SnapshotRestoreStats();
+        RestoreProgress progress = stats.getRestore(7, "nonce");
+        progress.chunkRead(1024 * 1024);
+        progress.chunkRead(1024 * 1024);
+        progress.finish();
+
+        int expectedColumnsCount = StatsSource.StatsCommon.values().length + SnapshotRestore.values().length;
+        Object[] actualValues = new Object[expectedColumnsCount];
+        int offset = StatsSource.StatsCommon.values().length;
+
+        // When
+        int position = stats.updateStatsRow(progress, actualValues);
+
+        // Then
+        assertThat(position).isEqualTo(expectedColumnsCount);
+        assertThat(actualValues[offset + SnapshotRestore.NONCE.ordinal()]).isEqualTo("nonce");
+        assertThat(actualValues[offset + SnapshotRestore.TXNID.ordinal()]).isEqualTo(7L);
+        assertThat((Long) actualValues[offset + SnapshotRestore.END_TIME.ordinal()]).isPositive();
+        assertThat(actualValues[offset + SnapshotRestore.CHUNKS.ordinal()]).isEqualTo(2L);
+        assertThat(actualValues[offset + SnapshotRestore.BYTES_READ.ordinal()]).isEqualTo(2L * 1024 * 1024);
+        double duration = (Double) actualValues[offset + SnapshotRestore.DURATION.ordinal()];
+        double throughput = (Double) actualValues[offset + SnapshotRestore.THROUGHPUT.ordinal()];
+        assertThat(throughput).isEqualTo(duration > 0 ? 2 / duration : 0);
+    }
+}
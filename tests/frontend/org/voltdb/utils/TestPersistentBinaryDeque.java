@@ -52,6 +52,9 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.voltcore.logging.VoltLogger;
+import org.voltcore.utils.CompressionStrategy;
+import org.voltcore.utils.CompressionStrategyLZ4;
+import org.voltcore.utils.CompressionStrategySnappy;
 import org.voltcore.utils.DBBPool;
 import org.voltcore.utils.DBBPool.BBContainer;
 import org.voltdb.test.utils.RandomTestRule;
@@ -463,6 +466,87 @@ public class TestPersistentBinaryDeque {
         }
     }
 
+    @Test
+    public void testMappedReads() throws Exception {
+        System.out.println("Running testMappedReads");
+        for (boolean compression : new boolean[] { false, true }) {
+            m_pbd.close();
+            setupTestDir();
+            m_pbd = PersistentBinaryDeque.builder(TEST_NONCE, TEST_DIR, logger).compression(compression)
+                    .mappedReads(true).initialExtraHeader(m_metadata, SERIALIZER).build();
+
+            for (int ii = 0; ii < 96; ii++) {
+                m_pbd.offer(DBBPool.wrapBB(getFilledBuffer(ii)));
+            }
+
+            // Hold on to all entries so that polled slices outlive the reader moving past their segment
+            BinaryDequeReader<ExtraHeaderMetadata> reader = m_pbd.openForRead(CURSOR_ID);
+            List<BBContainer> polled = new ArrayList<>();
+            for (int ii = 0; ii < 96; ii++) {
+                BBContainer cont = reader.poll(PersistentBinaryDeque.UNSAFE_CONTAINER_FACTORY);
+                assertNotNull(cont);
+                polled.add(cont);
+            }
+            assertNull(reader.poll(PersistentBinaryDeque.UNSAFE_CONTAINER_FACTORY));
+
+            try {
+                for (long ii = 0; ii < 96; ii++) {
+                    ByteBuffer b = polled.get((int) ii).b();
+                    if (!compression && ii < SEGMENT_FILL_COUNT) {
+                        // Entries of sealed segments are not copied out of the mapping
+                        assertTrue(b.isReadOnly());
+                    }
+                    assertEquals(1024 * 1024 * 2, b.remaining());
+                    while (b.remaining() > 15) {
+                        assertEquals(ii, b.getLong());
+                        b.getLong();
+                    }
+                }
+            } finally {
+                for (BBContainer cont : polled) {
+                    cont.discard();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCompressionCodecs() throws Exception {
+        System.out.println("Running testCompressionCodecs");
+        // Each reopen starts a new segment which is written with a different codec
+        CompressionStrategy[] codecs = { CompressionStrategySnappy.INSTANCE, CompressionStrategyLZ4.INSTANCE, null };
+        int offered = 0;
+        for (CompressionStrategy codec : codecs) {
+            m_pbd.close();
+            m_pbd = PersistentBinaryDeque.builder(TEST_NONCE, TEST_DIR, logger).compression(codec)
+                    .initialExtraHeader(m_metadata, SERIALIZER).build();
+            for (int ii = 0; ii < 8; ii++) {
+                m_pbd.offer(DBBPool.wrapBB(getFilledBuffer(offered++)));
+            }
+        }
+
+        // All segments are readable no matter which codec the PBD was opened with
+        m_pbd.close();
+        m_pbd = PersistentBinaryDeque.builder(TEST_NONCE, TEST_DIR, logger).compression(CompressionStrategyLZ4.INSTANCE)
+                .initialExtraHeader(m_metadata, SERIALIZER).build();
+        BinaryDequeReader<ExtraHeaderMetadata> reader = m_pbd.openForRead(CURSOR_ID);
+        for (long ii = 0; ii < offered; ii++) {
+            BBContainer cont = reader.poll(PersistentBinaryDeque.UNSAFE_CONTAINER_FACTORY);
+            try {
+                assertNotNull(cont);
+                ByteBuffer b = cont.b();
+                assertEquals(1024 * 1024 * 2, b.remaining());
+                while (b.remaining() > 15) {
+                    assertEquals(ii, b.getLong());
+                    b.getLong();
+                }
+            } finally {
+                cont.discard();
+            }
+        }
+        assertNull(reader.poll(PersistentBinaryDeque.UNSAFE_CONTAINER_FACTORY));
+    }
+
     @Test
     public void testTruncatorWithFullTruncateReturn() throws Exception {
         System.out.println("Running testTruncatorWithFullTruncateReturn");
@@ -0,0 +1,253 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2022 Volt Active Data Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltcore.network;
+
+import java.io.FileInputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.security.KeyStore;
+import java.util.HashSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.TrustManagerFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.voltcore.utils.ssl.SSLConfiguration;
+import org.voltdb.client.TLSHandshaker;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.handler.ssl.ClientAuth;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+
+/**
+ * Message throughput of a {@link VoltPort}, as used by client connections, and a {@link PicoNetwork}, as used
+ * by intra-cluster connections, over local loopback with and without TLS.
+ * <p>
+ * Each invocation sends a burst of {@link #BURST} messages of {@code messageSize} bytes and waits for a
+ * {@link PicoNetwork} on the other end of the connection to receive all of them, so the results include the
+ * cost of decrypting. Comparing {@code tls=true} with {@code tls=false} gives the overhead of TLS.
+ * <p>
+ * Must be run from the root of the source tree to find the test keystore.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@OperationsPerInvocation(TLSNetworkBenchmark.BURST)
+public class TLSNetworkBenchmark {
+
+    static final int BURST = 512;
+
+    private static final String KEYSTORE = "tests/frontend/org/voltdb/keystore";
+    private static final String KEYSTORE_PASSWORD = "password";
+
+    public enum Transport {
+        VOLT_PORT, PICO_NETWORK
+    }
+
+    @Param
+    Transport transport;
+
+    @Param({"false", "true"})
+    boolean tls;
+
+    @Param({"64", "1024", "32768"})
+    int messageSize;
+
+    private final Semaphore m_received = new Semaphore(0);
+
+    private ServerSocketChannel m_serverChannel;
+    private SocketChannel m_sendChannel;
+    private SocketChannel m_receiveChannel;
+    private VoltNetwork m_network;
+    private VoltPort m_port;
+    private PicoNetwork m_sender;
+    private PicoNetwork m_receiver;
+    private ByteBuffer m_message;
+
+    private class Handler extends VoltProtocolHandler {
+        @Override
+        public int getMaxRead() {
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        public void handleMessage(ByteBuffer message, Connection c) {
+            m_received.release();
+        }
+
+        @Override
+        public Runnable offBackPressure() {
+            return () -> {};
+        }
+
+        @Override
+        public Runnable onBackPressure() {
+            return () -> {};
+        }
+
+        @Override
+        public QueueMonitor writestreamMonitor() {
+            return null;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        m_serverChannel = ServerSocketChannel.open();
+        m_serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        m_receiveChannel = SocketChannel.open(m_serverChannel.getLocalAddress());
+        m_sendChannel = m_serverChannel.accept();
+        m_receiveChannel.socket().setTcpNoDelay(true);
+        m_sendChannel.socket().setTcpNoDelay(true);
+
+        SSLEngine sendEngine = null;
+        SSLEngine receiveEngine = null;
+        if (tls) {
+            CipherExecutor.SERVER.startup();
+            CipherExecutor.CLIENT.startup();
+            sendEngine = serverContext().newEngine(ByteBufAllocator.DEFAULT);
+            receiveEngine = clientContext().newEngine(ByteBufAllocator.DEFAULT);
+            handshake(sendEngine, receiveEngine);
+        }
+
+        m_receiver = tls ? new TLSPicoNetwork(m_receiveChannel, receiveEngine, CipherExecutor.CLIENT, "receiver")
+                : new PicoNetwork(m_receiveChannel, "receiver");
+        m_receiver.start(new Handler(), new HashSet<>());
+
+        switch (transport) {
+        case VOLT_PORT:
+            m_network = new VoltNetwork(0, null, "Benchmark");
+            m_network.start();
+            m_port = (VoltPort) m_network.registerChannel(m_sendChannel, new Handler(), SelectionKey.OP_READ,
+                    ReverseDNSPolicy.NONE, CipherExecutor.SERVER, sendEngine);
+            break;
+        case PICO_NETWORK:
+            m_sender = tls ? new TLSPicoNetwork(m_sendChannel, sendEngine, CipherExecutor.SERVER, "sender")
+                    : new PicoNetwork(m_sendChannel, "sender");
+            m_sender.start(new Handler(), new HashSet<>());
+            break;
+        }
+
+        m_message = ByteBuffer.allocate(Integer.BYTES + messageSize);
+        m_message.putInt(messageSize).position(0);
+    }
+
+    private static KeyStore keyStore() throws Exception {
+        KeyStore keyStore = KeyStore.getInstance("JKS");
+        try (FileInputStream fis = new FileInputStream(KEYSTORE)) {
+            keyStore.load(fis, KEYSTORE_PASSWORD.toCharArray());
+        }
+        return keyStore;
+    }
+
+    private static SslContext serverContext() throws Exception {
+        KeyManagerFactory kmf = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        kmf.init(keyStore(), KEYSTORE_PASSWORD.toCharArray());
+        return SslContextBuilder.forServer(kmf).ciphers(null, SSLConfiguration.CIPHER_FILTER)
+                .clientAuth(ClientAuth.NONE).build();
+    }
+
+    private static SslContext clientContext() throws Exception {
+        TrustManagerFactory tmf = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        tmf.init(keyStore());
+        return SslContextBuilder.forClient().trustManager(tmf).ciphers(null, SSLConfiguration.CIPHER_FILTER)
+                .clientAuth(ClientAuth.NONE).build();
+    }
+
+    private void handshake(SSLEngine serverEngine, SSLEngine clientEngine) throws Exception {
+        ExecutorService es = Executors.newSingleThreadExecutor();
+        try {
+            Future<TLSHandshaker> server = es.submit(() -> {
+                TLSHandshaker handshaker = new TLSHandshaker(m_sendChannel, serverEngine);
+                handshaker.handshake();
+                return handshaker;
+            });
+            TLSHandshaker client = new TLSHandshaker(m_receiveChannel, clientEngine);
+            if (!client.handshake() || server.get().hasRemnant() || client.hasRemnant()) {
+                throw new IllegalStateException("TLS handshake did not complete cleanly");
+            }
+        } finally {
+            es.shutdown();
+        }
+        m_sendChannel.configureBlocking(true);
+        m_receiveChannel.configureBlocking(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() throws Exception {
+        if (m_network != null) {
+            m_network.shutdown();
+        }
+        if (m_sender != null) {
+            m_sender.shutdownAsync();
+        }
+        m_receiver.shutdownAsync();
+        m_sendChannel.close();
+        m_receiveChannel.close();
+        m_serverChannel.close();
+        if (tls) {
+            CipherExecutor.SERVER.shutdown();
+            CipherExecutor.CLIENT.shutdown();
+        }
+    }
+
+    @Benchmark
+    public void sendBurst() throws InterruptedException {
+        for (int i = 0; i < BURST; ++i) {
+            if (m_port != null) {
+                m_port.writeStream().enqueue(m_message.duplicate());
+            } else {
+                m_sender.enqueue(m_message.duplicate());
+            }
+        }
+        m_received.acquire(BURST);
+    }
+}
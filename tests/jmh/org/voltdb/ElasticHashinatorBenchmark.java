@@ -0,0 +1,111 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2022 Volt Active Data Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.voltcore.utils.Bits;
+import org.voltdb.TheHashinator.HashinatorConfig;
+import org.voltdb.client.HashinatorLookupTable;
+
+/**
+ * Routing cost of a single partition invocation: hash the partitioning parameter
+ * and look up the partition owning the hash on the ring.
+ * <p>
+ * {@code lookupTable} and {@code ringSearch} compare the two ways of finding the partition
+ * of an already computed hash, see {@link HashinatorLookupTable}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ElasticHashinatorBenchmark {
+
+    private static final int KEY_COUNT = 1024;
+
+    @Param({"8", "64"})
+    int partitionCount;
+
+    ElasticHashinator m_hashinator;
+    HashinatorConfig m_config;
+    HashinatorLookupTable m_lookupTable;
+    Long[] m_longKeys;
+    String[] m_stringKeys;
+    int[] m_hashes;
+    int m_next;
+
+    @Setup
+    public void setup() {
+        m_hashinator = new ElasticHashinator(partitionCount);
+        m_longKeys = new Long[KEY_COUNT];
+        m_stringKeys = new String[KEY_COUNT];
+        m_hashes = new int[KEY_COUNT];
+        for (int i = 0; i < KEY_COUNT; i++) {
+            long key = ThreadLocalRandom.current().nextLong();
+            m_longKeys[i] = key;
+            m_stringKeys[i] = "customer-" + key;
+            m_hashes[i] = ThreadLocalRandom.current().nextInt();
+        }
+        m_config = m_hashinator.pGetCurrentConfig();
+        m_lookupTable = HashinatorLookupTable.create(m_config.configPtr, m_config.numTokens);
+    }
+
+    @Benchmark
+    public int bigintParameter() {
+        return m_hashinator.getHashedPartitionForParameter(VoltType.BIGINT,
+                m_longKeys[m_next++ & (KEY_COUNT - 1)]);
+    }
+
+    @Benchmark
+    public int stringParameter() {
+        return m_hashinator.getHashedPartitionForParameter(VoltType.STRING,
+                m_stringKeys[m_next++ & (KEY_COUNT - 1)]);
+    }
+
+    @Benchmark
+    public int lookupTable() {
+        return m_lookupTable.partitionForToken(m_hashes[m_next++ & (KEY_COUNT - 1)]);
+    }
+
+    @Benchmark
+    public int ringSearch() {
+        long token = HashinatorLookupTable.searchTokens(m_config.configPtr, 0, m_config.numTokens - 1,
+                m_hashes[m_next++ & (KEY_COUNT - 1)]);
+        return Bits.unsafe.getInt(token + 4);
+    }
+}
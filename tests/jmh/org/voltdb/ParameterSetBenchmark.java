@@ -0,0 +1,102 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2022 Volt Active Data Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.voltdb.types.TimestampType;
+
+/**
+ * Per-invocation serialization costs on the transaction path: the {@link ParameterSet}
+ * of a procedure call and the {@link StoredProcedureInvocation} which the client interface
+ * parses for every request.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParameterSetBenchmark {
+
+    ParameterSet m_params;
+    ByteBuffer m_paramsBuffer;
+    ByteBuffer m_invocationBuffer;
+
+    @Setup
+    public void setup() throws IOException {
+        m_params = ParameterSet.fromArrayNoCopy(42L, 7, "customer name", 3.14,
+                new BigDecimal("1234.500000000000"), new TimestampType(1_600_000_000_000_000L),
+                new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 }, new long[] { 1, 2, 3, 4 });
+        m_paramsBuffer = ByteBuffer.allocate(m_params.getSerializedSize());
+        m_params.flattenToBuffer(m_paramsBuffer);
+
+        StoredProcedureInvocation invocation = new StoredProcedureInvocation();
+        invocation.setProcName("Vote");
+        invocation.setClientHandle(1234);
+        invocation.setParams(m_params.toArray());
+        m_invocationBuffer = ByteBuffer.allocate(invocation.getSerializedSize());
+        invocation.flattenToBuffer(m_invocationBuffer);
+    }
+
+    @Benchmark
+    public ByteBuffer serializeParameterSet() throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(m_params.getSerializedSize());
+        m_params.flattenToBuffer(buf);
+        return buf;
+    }
+
+    @Benchmark
+    public ParameterSet deserializeParameterSet() throws IOException {
+        m_paramsBuffer.position(0);
+        return ParameterSet.fromByteBuffer(m_paramsBuffer);
+    }
+
+    @Benchmark
+    public StoredProcedureInvocation parseInvocation() throws IOException {
+        m_invocationBuffer.position(0);
+        StoredProcedureInvocation invocation = new StoredProcedureInvocation();
+        invocation.initFromBuffer(m_invocationBuffer);
+        return invocation;
+    }
+
+    @Benchmark
+    public ParameterSet parseInvocationAndParameters() throws IOException {
+        // the site deserializes the parameters of the invocation before running the procedure
+        return parseInvocation().getParams();
+    }
+}
@@ -0,0 +1,108 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2022 Volt Active Data Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Cost of building a {@link VoltTable} the way a stored procedure builds its results,
+ * of (de)serializing it for the client response and of iterating it the way a client
+ * reads the rows.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VoltTableBenchmark {
+
+    private static final VoltTable.ColumnInfo[] COLUMNS = {
+            new VoltTable.ColumnInfo("ID", VoltType.BIGINT),
+            new VoltTable.ColumnInfo("COUNT", VoltType.INTEGER),
+            new VoltTable.ColumnInfo("PRICE", VoltType.FLOAT),
+            new VoltTable.ColumnInfo("NAME", VoltType.STRING)
+    };
+
+    @Param({"10", "1000"})
+    int rows;
+
+    VoltTable m_table;
+    ByteBuffer m_serialized;
+
+    @Setup
+    public void setup() {
+        m_table = build();
+        m_serialized = ByteBuffer.allocate(m_table.getSerializedSize());
+        m_table.flattenToBuffer(m_serialized);
+    }
+
+    @Benchmark
+    public VoltTable build() {
+        VoltTable table = new VoltTable(COLUMNS);
+        for (int i = 0; i < rows; i++) {
+            table.addRow((long) i, i, i * 0.5, "name" + (i & 0xff));
+        }
+        return table;
+    }
+
+    @Benchmark
+    public void iterate(Blackhole bh) {
+        m_table.resetRowPosition();
+        while (m_table.advanceRow()) {
+            bh.consume(m_table.getLong(0));
+            bh.consume(m_table.getLong(1));
+            bh.consume(m_table.getDouble(2));
+            bh.consume(m_table.getString(3));
+        }
+    }
+
+    @Benchmark
+    public ByteBuffer serialize() {
+        m_serialized.clear();
+        m_table.flattenToBuffer(m_serialized);
+        return m_serialized;
+    }
+
+    @Benchmark
+    public VoltTable deserialize() {
+        // what a client does for each result table of a response
+        m_serialized.position(0);
+        return PrivateVoltTableFactory.createVoltTableFromSharedBuffer(m_serialized);
+    }
+}
@@ -0,0 +1,122 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2022 Volt Active Data Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.commandlog;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.voltcore.utils.InstanceId;
+import org.voltdb.StoredProcedureInvocation;
+import org.voltdb.iv2.TxnEgo;
+import org.voltdb.iv2.UniqueIdGenerator;
+import org.voltdb.messaging.Iv2InitiateTaskMessage;
+
+/**
+ * Log transactions to a {@link GroupCommitCommandLog} and wait until all of them are
+ * durable, with synchronous and asynchronous logging. Each invocation logs a batch the
+ * size of a busy site's backlog so several transactions share an fsync.
+ * <p>
+ * The log is created in {@code java.io.tmpdir}, results depend on the fsync latency of
+ * that device.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommandLogBenchmark {
+
+    private static final int BATCH = 100;
+
+    @Param({"true", "false"})
+    boolean synchronous;
+
+    @Param({"1", "10"})
+    int fsyncIntervalMs;
+
+    File m_dir;
+    GroupCommitCommandLog m_log;
+    final long[] m_outstanding = new long[2];
+    Iv2InitiateTaskMessage m_message;
+    TxnEgo m_ego;
+    long m_logged;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        m_dir = Files.createTempDirectory("cl_benchmark").toFile();
+        m_log = new GroupCommitCommandLog(synchronous, fsyncIntervalMs, 200, m_dir.getPath(),
+                GroupCommitCommandLog.SEGMENT_SIZE, new InstanceId(0, 0));
+        m_log.init(1024, Long.MIN_VALUE, null, Collections.emptyMap());
+        m_ego = TxnEgo.makeZero(0);
+
+        StoredProcedureInvocation invocation = new StoredProcedureInvocation();
+        invocation.setProcName("Vote");
+        invocation.setParams(5555551234L, 7, 20000);
+        m_message = new Iv2InitiateTaskMessage(1, 2, 0, 0, UniqueIdGenerator.makeIdFromComponents(0, 0, 0),
+                false, true, false, invocation, 3, 4, false);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException, IOException {
+        m_log.shutdown();
+        FileUtils.deleteDirectory(m_dir);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public long logAndWaitForDurability() throws Exception {
+        for (int i = 0; i < BATCH; i++) {
+            m_ego = m_ego.makeNext();
+            long spHandle = m_ego.getTxnId();
+            m_message.setSpHandle(spHandle);
+            m_log.log(m_message, spHandle, null, null, null);
+        }
+        // Transactions stay outstanding until the sync which made them durable
+        do {
+            Thread.yield();
+            m_log.getCommandLogOutstanding(m_outstanding);
+        } while (m_outstanding[1] > 0);
+        m_logged += BATCH;
+        return m_logged;
+    }
+}
@@ -0,0 +1,138 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2022 Volt Active Data Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.compiler;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.voltdb.catalog.Catalog;
+import org.voltdb.catalog.Database;
+import org.voltdb.planner.StatementPartitioning;
+import org.voltdb.utils.CatalogUtil;
+import org.voltdb.utils.InMemoryJarfile;
+import org.voltdb.utils.MiscUtils;
+
+/**
+ * Ad hoc planning throughput of one {@link PlannerTool} against the number of threads planning at once.
+ * <p>
+ * Every query has a column alias nobody used before so each one misses both plan caches and is fully parsed
+ * and planned, like a burst of distinct ad hoc queries.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@OperationsPerInvocation(PlannerToolBenchmark.BATCH)
+public class PlannerToolBenchmark {
+
+    static final int BATCH = 64;
+
+    private static final String DDL =
+            "CREATE TABLE customer (id BIGINT NOT NULL, region INTEGER NOT NULL, name VARCHAR(64), "
+            + "balance FLOAT, PRIMARY KEY (id));\n"
+            + "PARTITION TABLE customer ON COLUMN id;\n"
+            + "CREATE INDEX customer_region ON customer (region);\n"
+            + "CREATE TABLE orders (id BIGINT NOT NULL, customer_id BIGINT NOT NULL, amount DECIMAL, "
+            + "placed TIMESTAMP, PRIMARY KEY (customer_id, id));\n"
+            + "PARTITION TABLE orders ON COLUMN customer_id;\n"
+            + "CREATE TABLE region (id INTEGER NOT NULL, name VARCHAR(32), PRIMARY KEY (id));\n";
+
+    private static final String[] QUERIES = {
+            "SELECT name AS c%d FROM customer WHERE id = 7;",
+            "SELECT c.name AS c%d, SUM(o.amount) FROM customer c, orders o "
+                    + "WHERE c.id = o.customer_id AND c.id = 7 GROUP BY c.name;",
+            "SELECT r.name AS c%d, COUNT(*) FROM customer c JOIN region r ON c.region = r.id "
+                    + "WHERE c.balance > 100 GROUP BY r.name ORDER BY 2 DESC LIMIT 10;",
+            "SELECT id AS c%d FROM orders WHERE customer_id IN (SELECT id FROM customer WHERE region = 3);"
+    };
+
+    @Param({"1", "2", "4", "8"})
+    int threads;
+
+    private final AtomicLong m_nextAlias = new AtomicLong();
+    private PlannerTool m_plannerTool;
+    private ExecutorService m_es;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        File jar = File.createTempFile("plannertoolbenchmark", ".jar");
+        jar.deleteOnExit();
+        if (!new VoltCompiler(false).compileDDLString(DDL, jar.getPath())) {
+            throw new IllegalStateException("Failed to compile the benchmark schema");
+        }
+        InMemoryJarfile jarfile = CatalogUtil.loadAndUpgradeCatalogFromJar(MiscUtils.fileToBytes(jar), false)
+                .getFirst();
+        Catalog catalog = new Catalog();
+        catalog.execute(CatalogUtil.getSerializedCatalogStringFromJar(jarfile));
+        Database database = catalog.getClusters().get("cluster").getDatabases().get("database");
+
+        m_plannerTool = new PlannerTool(database, jarfile.getSha1Hash(), threads);
+        m_es = Executors.newFixedThreadPool(threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        m_es.shutdown();
+    }
+
+    @Benchmark
+    public void planDistinctQueries() throws Exception {
+        List<Future<?>> results = new ArrayList<>(threads);
+        for (int t = 0; t < threads; ++t) {
+            final int count = BATCH / threads + (t < BATCH % threads ? 1 : 0);
+            results.add(m_es.submit(() -> {
+                for (int i = 0; i < count; ++i) {
+                    long alias = m_nextAlias.getAndIncrement();
+                    String sql = String.format(QUERIES[(int) (alias % QUERIES.length)], alias);
+                    m_plannerTool.planSql(sql, StatementPartitioning.inferPartitioning(), false, null, false, false);
+                }
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+    }
+}
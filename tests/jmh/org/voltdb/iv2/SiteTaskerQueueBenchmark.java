@@ -0,0 +1,164 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2022 Volt Active Data Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.iv2;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.voltdb.client.Priority;
+import org.voltdb.iv2.SiteTaskerMpscQueue.WaitStrategy;
+import org.voltdb.utils.AdaptivePriorityQueue;
+import org.voltdb.utils.BlockingAdaptivePriorityQueue;
+
+/**
+ * Compare the hand-off of {@link SiteTasker}s from several producer threads
+ * (network threads) to a single consumer (the site thread) for the blocking
+ * queues returned by {@link PriorityPolicy#getSpTaskQueue()} and the lock-free
+ * {@link SiteTaskerMpscQueue}.
+ * <p>
+ * Producers back off when the queue is deeper than {@code maxDepth} so that an
+ * unbounded queue does not grow during the measurement.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SiteTaskerQueueBenchmark {
+
+    public enum QueueType {
+        /** Default queue with priorities disabled */
+        TRANSFER,
+        /** Default queue with priorities enabled */
+        ADAPTIVE,
+        MPSC_SPIN,
+        MPSC_YIELD,
+        MPSC_PARK,
+        /** Lock-free queue with priority lanes */
+        MPSC_PRIORITY_PARK;
+    }
+
+    static final class NoopTask extends SiteTasker.SiteTaskerRunnable {
+        NoopTask(int priority) {
+            setPriority(priority);
+        }
+
+        @Override
+        void run() {
+        }
+    }
+
+    private static final int TASK_POOL_SIZE = 1024;
+
+    @Param
+    QueueType queueType;
+
+    @Param({"1024"})
+    int maxDepth;
+
+    BlockingQueue<SiteTasker> m_queue;
+    NoopTask[] m_tasks;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        switch (queueType) {
+        case TRANSFER:
+            m_queue = new LinkedTransferQueue<>();
+            break;
+        case ADAPTIVE:
+            m_queue = new BlockingAdaptivePriorityQueue<>(AdaptivePriorityQueue.OrderingPolicy.MAX_WAIT_POLICY,
+                    AdaptivePriorityQueue.MAX_DEFAULT_TIMEOUT_MILLIS, Priority.SYSTEM_PRIORITY, 0);
+            break;
+        case MPSC_SPIN:
+            m_queue = new SiteTaskerMpscQueue(WaitStrategy.SPIN);
+            break;
+        case MPSC_YIELD:
+            m_queue = new SiteTaskerMpscQueue(WaitStrategy.YIELD);
+            break;
+        case MPSC_PARK:
+            m_queue = new SiteTaskerMpscQueue(WaitStrategy.PARK);
+            break;
+        case MPSC_PRIORITY_PARK:
+            m_queue = new SiteTaskerMpscQueue(WaitStrategy.PARK, true,
+                    AdaptivePriorityQueue.MAX_DEFAULT_TIMEOUT_MILLIS, 0);
+            break;
+        }
+        m_tasks = new NoopTask[TASK_POOL_SIZE];
+        for (int i = 0; i < TASK_POOL_SIZE; i++) {
+            m_tasks[i] = new NoopTask(ThreadLocalRandom.current().nextInt(
+                    Priority.HIGHEST_PRIORITY, Priority.LOWEST_PRIORITY + 1));
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws InterruptedException {
+        // Drain from a single thread, the consumer has already stopped
+        while (m_queue.poll() != null) {
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ProducerState {
+        int m_next = ThreadLocalRandom.current().nextInt(TASK_POOL_SIZE);
+    }
+
+    @Benchmark
+    @Group("handoff")
+    @GroupThreads(4)
+    public boolean offer(ProducerState state) {
+        if (m_queue.size() >= maxDepth) {
+            Thread.yield();
+            return false;
+        }
+        SiteTasker task = m_tasks[state.m_next++ & (TASK_POOL_SIZE - 1)];
+        task.setQueueOfferTime();
+        return m_queue.offer(task);
+    }
+
+    @Benchmark
+    @Group("handoff")
+    @GroupThreads(1)
+    public SiteTasker take() throws InterruptedException {
+        // Bounded wait so the consumer can observe the end of the iteration
+        return m_queue.poll(1, TimeUnit.MILLISECONDS);
+    }
+}
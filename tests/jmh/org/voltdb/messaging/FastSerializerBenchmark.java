@@ -0,0 +1,101 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2022 Volt Active Data Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.messaging;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Write and read back a batch of records of mixed field types with {@link FastSerializer}
+ * and {@link FastDeserializer}, to heap and to direct buffers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FastSerializerBenchmark {
+
+    private static final int RECORDS = 100;
+    private static final String NAME = "a moderately long string value";
+    private static final byte[] PAYLOAD = new byte[64];
+
+    @Param({"false", "true"})
+    boolean direct;
+
+    FastSerializer m_serializer;
+    byte[] m_serialized;
+
+    @Setup
+    public void setup() throws IOException {
+        m_serializer = new FastSerializer(true, direct);
+        write();
+        m_serialized = m_serializer.getBytes();
+    }
+
+    @TearDown
+    public void tearDown() {
+        m_serializer.discard();
+    }
+
+    @Benchmark
+    public int write() throws IOException {
+        m_serializer.clear();
+        for (int i = 0; i < RECORDS; i++) {
+            m_serializer.writeInt(i);
+            m_serializer.writeLong(i * 31L);
+            m_serializer.writeDouble(i * 0.5);
+            m_serializer.writeString(NAME);
+            m_serializer.writeVarbinary(PAYLOAD);
+        }
+        return m_serializer.size();
+    }
+
+    @Benchmark
+    public void read(Blackhole bh) throws IOException {
+        FastDeserializer in = new FastDeserializer(m_serialized);
+        for (int i = 0; i < RECORDS; i++) {
+            bh.consume(in.readInt());
+            bh.consume(in.readLong());
+            bh.consume(in.readDouble());
+            bh.consume(in.readString());
+            bh.consume(in.readVarbinary());
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2022 Volt Active Data Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.utils;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.voltdb.client.Priority;
+import org.voltdb.utils.AdaptivePriorityQueue.OrderingPolicy;
+
+/**
+ * Single threaded offer/poll cost of {@link AdaptivePriorityQueue} with a steady
+ * backlog of {@code depth} elements spread over the client priorities.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AdaptivePriorityQueueBenchmark {
+
+    static final class Element implements Prioritized {
+        private int m_priority;
+
+        Element(int priority) {
+            m_priority = priority;
+        }
+
+        @Override
+        public void setPriority(int priority) {
+            m_priority = priority;
+        }
+
+        @Override
+        public int getPriority() {
+            return m_priority;
+        }
+    }
+
+    private static final int ELEMENT_POOL_SIZE = 1024;
+
+    @Param
+    OrderingPolicy policy;
+
+    @Param({"16", "1000"})
+    int depth;
+
+    AdaptivePriorityQueue<Element> m_queue;
+    Element[] m_elements;
+    int m_next;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        m_queue = new AdaptivePriorityQueue<>(policy);
+        m_elements = new Element[ELEMENT_POOL_SIZE];
+        for (int i = 0; i < ELEMENT_POOL_SIZE; i++) {
+            m_elements[i] = new Element(ThreadLocalRandom.current().nextInt(
+                    Priority.HIGHEST_PRIORITY, Priority.LOWEST_PRIORITY + 1));
+        }
+        for (int i = 0; i < depth; i++) {
+            m_queue.offer(nextElement());
+        }
+    }
+
+    private Element nextElement() {
+        return m_elements[m_next++ & (ELEMENT_POOL_SIZE - 1)];
+    }
+
+    @Benchmark
+    public Element offerAndPoll() {
+        m_queue.offer(nextElement());
+        return m_queue.poll();
+    }
+}
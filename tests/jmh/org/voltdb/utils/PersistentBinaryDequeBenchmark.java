@@ -0,0 +1,116 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2022 Volt Active Data Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.voltcore.logging.VoltLogger;
+import org.voltcore.utils.DBBPool;
+import org.voltcore.utils.DBBPool.BBContainer;
+
+/**
+ * Append buffers to a {@link PersistentBinaryDeque} and read them back through a cursor,
+ * the way export and DR move data through their overflow. The reader trails the writer by
+ * one buffer so the deque stays small and segments are rolled and deleted as in production.
+ * <p>
+ * The deque is created in {@code java.io.tmpdir}; the measurement includes the page cache
+ * but not fsync.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersistentBinaryDequeBenchmark {
+
+    private static final String NONCE = "pbd_benchmark";
+    private static final String CURSOR_ID = "benchmark";
+    private static final VoltLogger LOG = new VoltLogger("HOST");
+
+    @Param({"1024", "65536"})
+    int bufferSize;
+
+    @Param({"false", "true"})
+    boolean compression;
+
+    File m_dir;
+    PersistentBinaryDeque<Void> m_pbd;
+    BinaryDequeReader<Void> m_reader;
+    BBContainer m_data;
+
+    @Setup(Level.Iteration)
+    public void setup() throws IOException {
+        m_dir = Files.createTempDirectory(NONCE).toFile();
+        m_pbd = PersistentBinaryDeque.builder(NONCE, m_dir, LOG).compression(compression).build();
+        m_reader = m_pbd.openForRead(CURSOR_ID);
+
+        m_data = DBBPool.allocateDirect(bufferSize);
+        ByteBuffer buf = m_data.b();
+        while (buf.remaining() >= 8) {
+            // compressible but not trivially so
+            buf.putLong(ThreadLocalRandom.current().nextInt(1024));
+        }
+        buf.clear();
+        m_pbd.offer(DBBPool.dummyWrapBB(m_data.b().duplicate()));
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        m_pbd.closeAndDelete();
+        m_data.discard();
+        FileUtils.deleteDirectory(m_dir);
+    }
+
+    @Benchmark
+    public int appendAndRead() throws IOException {
+        // offer() discards the container, wrap the data without taking ownership
+        m_pbd.offer(DBBPool.dummyWrapBB(m_data.b().duplicate()));
+        BBContainer cont = m_reader.poll(PersistentBinaryDeque.UNSAFE_CONTAINER_FACTORY);
+        try {
+            return cont.b().remaining();
+        } finally {
+            cont.discard();
+        }
+    }
+}
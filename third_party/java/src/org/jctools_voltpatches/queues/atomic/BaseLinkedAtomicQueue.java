@@ -15,6 +15,7 @@ package org.jctools_voltpatches.queues.atomic;
 
 import java.util.AbstractQueue;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.jctools_voltpatches.queues.MessagePassingQueue;
@@ -48,9 +49,67 @@ abstract class BaseLinkedAtomicQueue<E> extends AbstractQueue<E> {
     protected final void spConsumerNode(LinkedQueueAtomicNode<E> node) {
         consumerNode.lazySet(node);
     }
+    /**
+     * {@inheritDoc} <br>
+     * <p>
+     * IMPLEMENTATION NOTES:<br>
+     * The iterator is weakly consistent: it walks the nodes from the consumer node to the producer node observed when
+     * it was created, may miss elements consumed or produced during the iteration, and stops early if the consumer
+     * overtakes it. It does not support {@link Iterator#remove()}.
+     */
     @Override
     public final Iterator<E> iterator() {
-        throw new UnsupportedOperationException();
+        // Read consumer first, for the same reason as in size()
+        LinkedQueueAtomicNode<E> consumerNode = lvConsumerNode();
+        return new WeakIterator<E>(consumerNode, lvProducerNode());
+    }
+
+    private static final class WeakIterator<E> implements Iterator<E> {
+        private final LinkedQueueAtomicNode<E> lastNode;
+        private LinkedQueueAtomicNode<E> currentNode;
+        private E nextElement;
+
+        WeakIterator(LinkedQueueAtomicNode<E> currentNode, LinkedQueueAtomicNode<E> lastNode) {
+            this.currentNode = currentNode;
+            this.lastNode = lastNode;
+            nextElement = getNext();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextElement != null;
+        }
+
+        @Override
+        public E next() {
+            final E e = nextElement;
+            if (e == null) {
+                throw new NoSuchElementException();
+            }
+            nextElement = getNext();
+            return e;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        private E getNext() {
+            while (currentNode != lastNode && currentNode != null) {
+                LinkedQueueAtomicNode<E> next = currentNode.lvNext();
+                // a self linked node has been consumed, a null next has not been linked by its producer yet
+                if (next == currentNode || next == null) {
+                    return null;
+                }
+                currentNode = next;
+                E e = next.lpValue();
+                if (e != null) {
+                    return e;
+                }
+            }
+            return null;
+        }
     }
 
     /**